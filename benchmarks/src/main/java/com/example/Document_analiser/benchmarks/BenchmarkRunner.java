@@ -0,0 +1,132 @@
+package com.example.Document_analiser.benchmarks;
+
+import com.example.Document_analiser.benchmarks.retrieval.RetrievalCli;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ *
+ * - {@code java -jar benchmarks.jar [JMH options]} runs the benchmarks (all, or those
+ *   matching the given regexp) and, unless {@code -rf}/{@code -rff} are given, writes JSON
+ *   results to {@code results/jmh-<version>-<timestamp>.json}, so runs of different
+ *   releases can be kept side by side.
+ * - {@code java -jar benchmarks.jar compare <baseline.json> <current.json> [threshold%]}
+ *   compares two result files benchmark by benchmark and exits with 1 when any benchmark is
+ *   slower than the baseline by more than the threshold (default 10%) plus both runs' error
+ *   margins, so it can gate a release build.
+ * - {@code corpus} and {@code retrieval} generate a synthetic corpus in Postgres and measure
+ *   recall and latency of the vector index configurations on it (see {@link RetrievalCli}).
+ * - {@code -h}, {@code -l} and the other JMH flags work as with the stock JMH runner.
+ */
+public final class BenchmarkRunner {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("compare")) {
+            System.exit(compare(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && (args[0].equals("corpus") || args[0].equals("retrieval"))) {
+            System.exit(RetrievalCli.run(args));
+        }
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResult().hasValue() && !cli.getResultFormat().hasValue()) {
+            Path results = Path.of("results");
+            Files.createDirectories(results);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(results.resolve("jmh-" + version() + "-" + stamp + ".json").toString());
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static String version() {
+        String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+
+    private static int compare(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: compare <baseline.json> <current.json> [threshold%]");
+            return 2;
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, JsonNode> baseline = load(args[0]);
+        Map<String, JsonNode> current = load(args[1]);
+
+        int regressions = 0;
+        System.out.printf(Locale.ROOT, "%-80s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode now = entry.getValue().path("primaryMetric");
+            String unit = now.path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-80s %14s %14.3f %9s%n", entry.getKey(), "-", now.path("score").asDouble(), "new");
+                continue;
+            }
+            JsonNode was = before.path("primaryMetric");
+            double oldScore = was.path("score").asDouble();
+            double newScore = now.path("score").asDouble();
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100.0;
+            // throughput: higher is better; time per operation: lower is better
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+            double worse = higherIsBetter ? oldScore - newScore : newScore - oldScore;
+            double noise = errorOf(was) + errorOf(now);
+            boolean regression = worse > noise && Math.abs(change) > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-80s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), oldScore, newScore,
+                    change, unit, regression ? "  REGRESSION" : "");
+        }
+        System.out.printf(Locale.ROOT, "%d regression(s) above %.1f%%%n", regressions, threshold);
+        return regressions > 0 ? 1 : 0;
+    }
+
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    /** Result entries keyed by benchmark name and parameters. */
+    private static Map<String, JsonNode> load(String file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(file))) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(key.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
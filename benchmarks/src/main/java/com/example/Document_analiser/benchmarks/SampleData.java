@@ -0,0 +1,54 @@
+package com.example.Document_analiser.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Benchmark inputs from {@code sample-data/}.
+ *
+ * The directory is taken from the {@code benchmarks.sample-data} system property, otherwise
+ * {@code sample-data} or {@code ../sample-data} relative to the working directory, so the
+ * benchmarks run from the repository root and from {@code benchmarks/}.
+ */
+public final class SampleData {
+
+    public static final String LEGAL_CONTRACT_BG = "legal_demo_contract_bg.txt";
+
+    private SampleData() {
+    }
+
+    public static String read(String fileName) {
+        Path file = directory().resolve(fileName);
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read benchmark input " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /** The sample text repeated until it has at least {@code minChars} characters. */
+    public static String repeat(String text, int minChars) {
+        StringBuilder out = new StringBuilder(minChars + text.length());
+        while (out.length() < minChars) {
+            out.append(text).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static Path directory() {
+        String configured = System.getProperty("benchmarks.sample-data");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        for (Path candidate : List.of(Path.of("sample-data"), Path.of("..", "sample-data"))) {
+            if (Files.isDirectory(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("sample-data/ not found; set -Dbenchmarks.sample-data=<dir>");
+    }
+}
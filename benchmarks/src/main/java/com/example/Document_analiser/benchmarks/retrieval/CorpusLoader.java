@@ -0,0 +1,352 @@
+package com.example.Document_analiser.benchmarks.retrieval;
+
+import com.example.Document_analiser.benchmarks.retrieval.SyntheticCorpus.Question;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a {@link SyntheticCorpus} into its own schema and computes the exact answers.
+ *
+ * The schema gets a {@code document_chunks} table with the application's columns, so the
+ * application's vector SQL and index definitions run unchanged with the schema first on
+ * the {@code search_path}; {@code bench_questions} holds the questions with their source
+ * chunk and exact top-k (global and within the source document); {@code bench_corpus} the
+ * generator parameters. Chunks are generated on worker threads and streamed with
+ * {@code COPY}; the same pass computes the exact top-k by brute force in memory, so no
+ * sequential scan over millions of vectors is needed for ground truth.
+ */
+public final class CorpusLoader {
+
+    private static final int CHUNKS_PER_BLOCK = 1000;
+
+    private final Connection connection;
+    private final String schema;
+
+    public CorpusLoader(Connection connection, String schema) {
+        this.connection = connection;
+        this.schema = schema;
+    }
+
+    public Map<String, Object> load(SyntheticCorpus corpus, int questionCount, int groundTruthK,
+                                    boolean documentIndex, int threads) throws Exception {
+        List<Question> questions = corpus.questions(questionCount);
+        createSchema();
+        connection.setAutoCommit(false);
+
+        ExactTopK global = new ExactTopK(questions.size(), groundTruthK);
+        ExactTopK withinDocument = new ExactTopK(questions.size(), groundTruthK);
+        Map<Long, List<Integer>> questionsByDocument = new HashMap<>();
+        float[][] queryVectors = new float[questions.size()][];
+        for (int q = 0; q < questions.size(); q++) {
+            queryVectors[q] = questions.get(q).getEmbedding();
+            questionsByDocument.computeIfAbsent(questions.get(q).getDocumentId(), d -> new ArrayList<>()).add(q);
+        }
+
+        long started = System.nanoTime();
+        ConcurrentLinkedQueue<ExactTopK[]> partials = new ConcurrentLinkedQueue<>();
+        ThreadLocal<ExactTopK[]> local = ThreadLocal.withInitial(() -> {
+            ExactTopK[] own = {new ExactTopK(queryVectors.length, groundTruthK), new ExactTopK(queryVectors.length, groundTruthK)};
+            partials.add(own);
+            return own;
+        });
+        long documentsPerBlock = Math.max(1, CHUNKS_PER_BLOCK / corpus.getChunksPerDocument());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                "COPY document_chunks (id, document_id, chunk_index, content, embedding) FROM STDIN");
+        long bytes = 0;
+        try {
+            Deque<Future<byte[]>> window = new ArrayDeque<>();
+            for (long first = 1; first <= corpus.documents(); first += documentsPerBlock) {
+                long from = first;
+                long to = Math.min(corpus.documents(), first + documentsPerBlock - 1);
+                if (window.size() >= threads * 2) {
+                    bytes += write(copy, window.poll().get());
+                }
+                window.add(pool.submit(() -> block(corpus, from, to, queryVectors, questionsByDocument, local.get())));
+            }
+            while (!window.isEmpty()) {
+                bytes += write(copy, window.poll().get());
+            }
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        for (ExactTopK[] partial : partials) {
+            global.merge(partial[0]);
+            withinDocument.merge(partial[1]);
+        }
+        long copyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        insertQuestions(questions, global, withinDocument);
+        long indexStarted = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE document_chunks ADD PRIMARY KEY (id)");
+            if (documentIndex) {
+                statement.execute("CREATE INDEX document_chunks_document_id_idx ON document_chunks (document_id)");
+            }
+        }
+        long keysMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - indexStarted);
+        saveParameters(corpus, groundTruthK, documentIndex);
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE document_chunks");
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>(corpus.describe());
+        report.put("schema", schema);
+        report.put("questions", questions.size());
+        report.put("groundTruthK", groundTruthK);
+        report.put("documentIndex", documentIndex);
+        report.put("copyMs", copyMs);
+        report.put("copyMb", bytes / (1024 * 1024));
+        report.put("keysMs", keysMs);
+        report.put("tableMb", PgStats.relationMb(connection, "document_chunks", true));
+        return report;
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            statement.execute("CREATE SCHEMA " + schema);
+            statement.execute("SET search_path TO " + schema + ", public");
+            statement.execute("""
+                    CREATE TABLE document_chunks (
+                        id bigint NOT NULL,
+                        document_id bigint NOT NULL,
+                        chunk_index integer NOT NULL,
+                        content text,
+                        embedding vector(1536))
+                    """);
+            statement.execute("""
+                    CREATE TABLE bench_questions (
+                        id integer PRIMARY KEY,
+                        source_chunk_id bigint NOT NULL,
+                        document_id bigint NOT NULL,
+                        content text NOT NULL,
+                        embedding vector(1536) NOT NULL,
+                        exact_global bigint[] NOT NULL,
+                        exact_document bigint[] NOT NULL)
+                    """);
+            statement.execute("CREATE TABLE bench_corpus (parameters text NOT NULL, created_at timestamptz NOT NULL DEFAULT now())");
+        }
+    }
+
+    /** COPY text rows for documents {@code from..to}; adds their similarities to the thread's top-k. */
+    private static byte[] block(SyntheticCorpus corpus, long from, long to, float[][] queries,
+                                Map<Long, List<Integer>> questionsByDocument, ExactTopK[] topK) {
+        StringBuilder rows = new StringBuilder();
+        float[] embedding = new float[SyntheticCorpus.DIMENSIONS];
+        for (long document = from; document <= to; document++) {
+            float[] documentVector = corpus.documentVector(document);
+            List<Integer> ownQuestions = questionsByDocument.getOrDefault(document, List.of());
+            for (long chunk = corpus.firstChunkOf(document); chunk <= corpus.lastChunkOf(document); chunk++) {
+                corpus.chunkEmbedding(chunk, documentVector, embedding);
+                for (int q = 0; q < queries.length; q++) {
+                    topK[0].offer(q, dot(queries[q], embedding), chunk);
+                }
+                for (int q : ownQuestions) {
+                    topK[1].offer(q, dot(queries[q], embedding), chunk);
+                }
+                rows.append(chunk).append('\t').append(document).append('\t').append(corpus.chunkIndexOf(chunk)).append('\t');
+                appendEscaped(rows, corpus.chunkText(chunk));
+                rows.append('\t');
+                appendVector(rows, embedding);
+                rows.append('\n');
+            }
+        }
+        return rows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long write(CopyIn copy, byte[] rows) throws SQLException {
+        copy.writeToCopy(rows, 0, rows.length);
+        return rows.length;
+    }
+
+    private void insertQuestions(List<Question> questions, ExactTopK global, ExactTopK withinDocument) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO bench_questions (id, source_chunk_id, document_id, content, embedding, exact_global, exact_document)
+                VALUES (?, ?, ?, ?, CAST(? AS vector(1536)), ?, ?)
+                """)) {
+            for (int q = 0; q < questions.size(); q++) {
+                Question question = questions.get(q);
+                insert.setInt(1, question.getId());
+                insert.setLong(2, question.getSourceChunkId());
+                insert.setLong(3, question.getDocumentId());
+                insert.setString(4, question.getText());
+                insert.setString(5, vectorLiteral(question.getEmbedding()));
+                insert.setArray(6, connection.createArrayOf("bigint", global.ranked(q)));
+                insert.setArray(7, connection.createArrayOf("bigint", withinDocument.ranked(q)));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void saveParameters(SyntheticCorpus corpus, int groundTruthK, boolean documentIndex) throws Exception {
+        Map<String, Object> parameters = new LinkedHashMap<>(corpus.describe());
+        parameters.put("groundTruthK", groundTruthK);
+        parameters.put("documentIndex", documentIndex);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO bench_corpus (parameters) VALUES (?)")) {
+            insert.setString(1, new ObjectMapper().writeValueAsString(parameters));
+            insert.executeUpdate();
+        }
+    }
+
+    static String vectorLiteral(float[] vector) {
+        StringBuilder out = new StringBuilder(vector.length * 12);
+        appendVector(out, vector);
+        return out.toString();
+    }
+
+    private static void appendVector(StringBuilder out, float[] vector) {
+        out.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(vector[i]);
+        }
+        out.append(']');
+    }
+
+    /** Escapes a value for COPY's text format. */
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /** Dot product with four accumulators; vectors are unit length, so this is the cosine. */
+    private static float dot(float[] a, float[] b) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        for (int i = 0; i < a.length; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Per-question bounded min-heaps of (similarity, chunk id). */
+    static final class ExactTopK {
+        private final int k;
+        private final float[][] scores;
+        private final long[][] ids;
+        private final int[] sizes;
+
+        ExactTopK(int questions, int k) {
+            this.k = k;
+            this.scores = new float[questions][k];
+            this.ids = new long[questions][k];
+            this.sizes = new int[questions];
+        }
+
+        void offer(int question, float score, long id) {
+            float[] heap = scores[question];
+            long[] heapIds = ids[question];
+            int size = sizes[question];
+            if (size < k) {
+                heap[size] = score;
+                heapIds[size] = id;
+                sizes[question] = size + 1;
+                siftUp(heap, heapIds, size);
+            } else if (score > heap[0]) {
+                heap[0] = score;
+                heapIds[0] = id;
+                siftDown(heap, heapIds, k);
+            }
+        }
+
+        void merge(ExactTopK other) {
+            for (int q = 0; q < sizes.length; q++) {
+                for (int i = 0; i < other.sizes[q]; i++) {
+                    offer(q, other.scores[q][i], other.ids[q][i]);
+                }
+            }
+        }
+
+        /** Chunk ids by descending similarity. */
+        Long[] ranked(int question) {
+            int size = sizes[question];
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(scores[question][b], scores[question][a]));
+            Long[] out = new Long[size];
+            for (int i = 0; i < size; i++) {
+                out[i] = ids[question][order[i]];
+            }
+            return out;
+        }
+
+        private static void siftUp(float[] heap, long[] ids, int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (heap[parent] <= heap[i]) {
+                    return;
+                }
+                swap(heap, ids, i, parent);
+                i = parent;
+            }
+        }
+
+        private static void siftDown(float[] heap, long[] ids, int size) {
+            int i = 0;
+            while (true) {
+                int left = 2 * i + 1;
+                int smallest = i;
+                if (left < size && heap[left] < heap[smallest]) smallest = left;
+                if (left + 1 < size && heap[left + 1] < heap[smallest]) smallest = left + 1;
+                if (smallest == i) {
+                    return;
+                }
+                swap(heap, ids, i, smallest);
+                i = smallest;
+            }
+        }
+
+        private static void swap(float[] heap, long[] ids, int a, int b) {
+            float score = heap[a];
+            heap[a] = heap[b];
+            heap[b] = score;
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.Document_analiser.benchmarks.retrieval;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/** Sizes and settings read from Postgres for the benchmark reports. */
+final class PgStats {
+
+    private PgStats() {
+    }
+
+    /** Size of a relation in MB, with {@code total} including its indexes and TOAST. */
+    static long relationMb(Connection connection, String relation, boolean total) throws SQLException {
+        String function = total ? "pg_total_relation_size" : "pg_relation_size";
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + function + "(to_regclass(?))")) {
+            statement.setString(1, relation);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? rows.getLong(1) / (1024 * 1024) : 0;
+            }
+        }
+    }
+
+    static String setting(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT current_setting(?, true)")) {
+            statement.setString(1, name);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? rows.getString(1) : null;
+            }
+        }
+    }
+}
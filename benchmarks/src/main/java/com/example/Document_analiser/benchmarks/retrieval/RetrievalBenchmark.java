@@ -0,0 +1,371 @@
+package com.example.Document_analiser.benchmarks.retrieval;
+
+import com.example.Document_analiser.config.PgvectorIndexInitializer;
+import com.example.Document_analiser.repository.DocumentChunkRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recall and latency of the vector query for each index configuration, on a corpus loaded
+ * by {@link CorpusLoader}.
+ *
+ * For each configuration the index is (re)built with
+ * {@link PgvectorIndexInitializer#indexDefinition} and its build time and size recorded;
+ * then, for each query-time setting ({@code ivfflat.probes} / {@code hnsw.ef_search}, the
+ * application's {@code vector.search.*}) and query shape, every question runs once,
+ * sequentially, after a short warm-up:
+ * - {@code document}: {@link DocumentChunkRepository#TOP_IDS_SQL}, the application's query
+ *   (top-k within the question's document);
+ * - {@code global}: top-k over all chunks.
+ * Reported per run: recall@k against the exact top-k, hit@k of the question's source chunk,
+ * queries that returned fewer than k rows (an approximate index filtered by document can
+ * run out of candidates), p50/p90/p99/max latency and the plan with the buffers touched by
+ * one query. Configuration {@code exact} drops the vector index, so the planner falls back
+ * to a scan; its recall is 1 by definition and it shows the cost the index saves.
+ */
+public final class RetrievalBenchmark {
+
+    static final String GLOBAL_SQL = """
+            SELECT id FROM document_chunks
+            ORDER BY embedding <=> CAST(?1 AS vector(1536))
+            LIMIT ?3
+            """;
+    private static final String INDEX_NAME = "document_chunks_embedding_idx";
+    private static final Pattern POSITIONAL_PARAMETER = Pattern.compile("\\?(\\d)");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Connection connection;
+    private final String schema;
+
+    public RetrievalBenchmark(Connection connection, String schema) {
+        this.connection = connection;
+        this.schema = schema;
+    }
+
+    /** Parameters the corpus was generated with. */
+    public JsonNode corpus() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + schema + ", public");
+            try (ResultSet rows = statement.executeQuery("SELECT parameters FROM bench_corpus")) {
+                if (!rows.next()) {
+                    throw new IllegalStateException("No corpus in schema " + schema + "; run the corpus command first");
+                }
+                return MAPPER.readTree(rows.getString(1));
+            }
+        }
+    }
+
+    public List<Map<String, Object>> run(List<IndexConfig> configs, List<String> shapes, int k, int warmup,
+                                         String maintenanceWorkMem) throws Exception {
+        long chunks = corpus().path("chunks").asLong();
+        List<BenchQuestion> questions = questions();
+        try (Statement statement = connection.createStatement()) {
+            if (maintenanceWorkMem != null) {
+                statement.execute("SET maintenance_work_mem = '" + maintenanceWorkMem + "'");
+            }
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (IndexConfig config : configs) {
+            Map<String, Object> build = buildIndex(config, chunks);
+            System.out.printf(Locale.ROOT, "%s: build %s ms, index %s MB%n", config.getName(), build.get("buildMs"), build.get("indexMb"));
+            for (int setting : config.getSearchValues()) {
+                applySearchSetting(config, setting);
+                for (String shape : shapes) {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("config", config.getName());
+                    result.put("type", config.getType());
+                    result.putAll(build);
+                    if (config.getSearchParameter() != null) {
+                        result.put(config.getSearchParameter(), setting);
+                    }
+                    result.put("shape", shape);
+                    result.putAll(measure(shape, questions, k, warmup));
+                    results.add(result);
+                    System.out.printf(Locale.ROOT, "  %-16s %-8s recall@%d %.3f  hit@%d %.3f  short %s  p50 %.2f ms  p99 %.2f ms%n",
+                            config.getSearchParameter() != null ? config.getSearchParameter() + "=" + setting : "-",
+                            shape, k, result.get("recall"), k, result.get("hit"), result.get("shortResults"),
+                            result.get("p50Ms"), result.get("p99Ms"));
+                }
+            }
+        }
+        return results;
+    }
+
+    private Map<String, Object> buildIndex(IndexConfig config, long chunks) throws SQLException {
+        Map<String, Object> build = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS " + INDEX_NAME);
+            int lists = config.lists(chunks);
+            String definition = PgvectorIndexInitializer.indexDefinition(INDEX_NAME, "document_chunks",
+                    config.getType(), lists, config.getM(), config.getEfConstruction());
+            long started = System.nanoTime();
+            if (definition != null) {
+                statement.execute(definition);
+                statement.execute("ANALYZE document_chunks");
+            }
+            build.put("buildMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            if ("ivfflat".equals(config.getType())) {
+                build.put("lists", lists);
+            } else if ("hnsw".equals(config.getType())) {
+                build.put("m", config.getM());
+                build.put("efConstruction", config.getEfConstruction());
+            }
+        }
+        build.put("indexMb", PgStats.relationMb(connection, INDEX_NAME, false));
+        return build;
+    }
+
+    private void applySearchSetting(IndexConfig config, int value) throws SQLException {
+        if (config.getSearchParameter() == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET " + config.getSearchParameter() + " = " + value);
+        }
+    }
+
+    private Map<String, Object> measure(String shape, List<BenchQuestion> questions, int k, int warmup) throws Exception {
+        boolean document = "document".equals(shape);
+        String template = document ? DocumentChunkRepository.TOP_IDS_SQL : GLOBAL_SQL;
+        List<Integer> order = new ArrayList<>();
+        Matcher matcher = POSITIONAL_PARAMETER.matcher(template);
+        while (matcher.find()) {
+            order.add(Integer.parseInt(matcher.group(1)));
+        }
+        String sql = matcher.replaceAll("?");
+
+        Histogram latency = new Histogram(TimeUnit.MINUTES.toMicros(10), 3);
+        double recall = 0;
+        int hits = 0;
+        int shortResults = 0;
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int i = 0; i < Math.min(warmup, questions.size()); i++) {
+                execute(query, order, questions.get(i), k);
+            }
+            for (BenchQuestion question : questions) {
+                long started = System.nanoTime();
+                List<Long> ids = execute(query, order, question, k);
+                latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started)));
+
+                long[] exact = document ? question.exactDocument : question.exactGlobal;
+                int expected = Math.min(k, exact.length);
+                Set<Long> truth = new HashSet<>();
+                for (int i = 0; i < expected; i++) {
+                    truth.add(exact[i]);
+                }
+                int found = 0;
+                for (Long id : ids) {
+                    if (truth.contains(id)) found++;
+                }
+                recall += expected == 0 ? 1 : (double) found / expected;
+                if (ids.contains(question.sourceChunkId)) hits++;
+                if (ids.size() < expected) shortResults++;
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("k", k);
+        out.put("queries", questions.size());
+        out.put("recall", recall / questions.size());
+        out.put("hit", (double) hits / questions.size());
+        out.put("shortResults", shortResults);
+        out.put("p50Ms", latency.getValueAtPercentile(50) / 1000.0);
+        out.put("p90Ms", latency.getValueAtPercentile(90) / 1000.0);
+        out.put("p99Ms", latency.getValueAtPercentile(99) / 1000.0);
+        out.put("maxMs", latency.getMaxValue() / 1000.0);
+        out.putAll(explain(sql, order, questions.get(0), k));
+        return out;
+    }
+
+    private static List<Long> execute(PreparedStatement query, List<Integer> order, BenchQuestion question, int k)
+            throws SQLException {
+        bind(query, order, question, k);
+        List<Long> ids = new ArrayList<>(k);
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    /** JDBC has no ?N: parameters are bound in the order they appear, as in VectorSearchService. */
+    private static void bind(PreparedStatement query, List<Integer> order, BenchQuestion question, int k) throws SQLException {
+        for (int i = 0; i < order.size(); i++) {
+            switch (order.get(i)) {
+                case 1 -> query.setString(i + 1, question.embedding);
+                case 2 -> query.setLong(i + 1, question.documentId);
+                case 3 -> query.setInt(i + 1, k);
+                default -> throw new IllegalStateException("Unexpected parameter ?" + order.get(i));
+            }
+        }
+    }
+
+    /** Plan nodes and shared buffers (hit + read, as MB) of one query. */
+    private Map<String, Object> explain(String sql, List<Integer> order, BenchQuestion question, int k) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql)) {
+            bind(explain, order, question, k);
+            try (ResultSet rows = explain.executeQuery()) {
+                rows.next();
+                JsonNode plan = MAPPER.readTree(rows.getString(1)).path(0).path("Plan");
+                StringBuilder nodes = new StringBuilder();
+                describe(plan, nodes);
+                long blocks = plan.path("Shared Hit Blocks").asLong() + plan.path("Shared Read Blocks").asLong();
+                return Map.of("plan", nodes.toString(), "buffersMbPerQuery", blocks * 8 / 1024.0);
+            }
+        }
+    }
+
+    private static void describe(JsonNode node, StringBuilder summary) {
+        if (node.isMissingNode()) return;
+        if (!summary.isEmpty()) summary.append(" > ");
+        summary.append(node.path("Node Type").asText());
+        if (node.has("Index Name")) {
+            summary.append('(').append(node.path("Index Name").asText()).append(')');
+        }
+        for (JsonNode child : node.path("Plans")) {
+            describe(child, summary);
+        }
+    }
+
+    private List<BenchQuestion> questions() throws SQLException {
+        List<BenchQuestion> questions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("""
+                     SELECT source_chunk_id, document_id, embedding::text, exact_global, exact_document
+                     FROM bench_questions ORDER BY id
+                     """)) {
+            while (rows.next()) {
+                questions.add(new BenchQuestion(rows.getLong(1), rows.getLong(2), rows.getString(3),
+                        longs(rows.getArray(4)), longs(rows.getArray(5))));
+            }
+        }
+        if (questions.isEmpty()) {
+            throw new IllegalStateException("No questions in schema " + schema);
+        }
+        return questions;
+    }
+
+    private static long[] longs(Array array) throws SQLException {
+        Long[] values = (Long[]) array.getArray();
+        long[] out = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            out[i] = values[i];
+        }
+        return out;
+    }
+
+    private static final class BenchQuestion {
+        final long sourceChunkId;
+        final long documentId;
+        final String embedding;
+        final long[] exactGlobal;
+        final long[] exactDocument;
+
+        BenchQuestion(long sourceChunkId, long documentId, String embedding, long[] exactGlobal, long[] exactDocument) {
+            this.sourceChunkId = sourceChunkId;
+            this.documentId = documentId;
+            this.embedding = embedding;
+            this.exactGlobal = exactGlobal;
+            this.exactDocument = exactDocument;
+        }
+    }
+
+    /**
+     * One index configuration, parsed from {@code exact}, {@code ivfflat:lists=100:probes=1,4,10}
+     * or {@code hnsw:m=16:ef_construction=64:ef_search=40,100}. {@code lists=auto} follows the
+     * pgvector guidance: rows / 1000 up to 1M rows, sqrt(rows) above.
+     */
+    public static final class IndexConfig {
+        private final String name;
+        private final String type;
+        private final String lists;
+        private final int m;
+        private final int efConstruction;
+        private final List<Integer> searchValues;
+
+        private IndexConfig(String name, String type, String lists, int m, int efConstruction, List<Integer> searchValues) {
+            this.name = name;
+            this.type = type;
+            this.lists = lists;
+            this.m = m;
+            this.efConstruction = efConstruction;
+            this.searchValues = searchValues;
+        }
+
+        public static IndexConfig parse(String spec) {
+            String[] parts = spec.trim().split(":");
+            String type = parts[0].toLowerCase(Locale.ROOT);
+            Map<String, String> options = new LinkedHashMap<>();
+            for (int i = 1; i < parts.length; i++) {
+                String[] option = parts[i].split("=", 2);
+                if (option.length != 2) {
+                    throw new IllegalArgumentException("Expected name=value in " + spec);
+                }
+                options.put(option[0], option[1]);
+            }
+            return switch (type) {
+                case "exact" -> new IndexConfig(spec.trim(), "none", null, 0, 0, List.of(0));
+                case "ivfflat" -> new IndexConfig(spec.trim(), type, options.getOrDefault("lists", "100"), 0, 0,
+                        values(options.getOrDefault("probes", "1")));
+                case "hnsw" -> new IndexConfig(spec.trim(), type, null,
+                        Integer.parseInt(options.getOrDefault("m", "16")),
+                        Integer.parseInt(options.getOrDefault("ef_construction", "64")),
+                        values(options.getOrDefault("ef_search", "40")));
+                default -> throw new IllegalArgumentException("Unknown index type in " + spec + " (exact, ivfflat, hnsw)");
+            };
+        }
+
+        private static List<Integer> values(String csv) {
+            List<Integer> out = new ArrayList<>();
+            for (String value : csv.split(",")) {
+                out.add(Integer.parseInt(value.trim()));
+            }
+            return out;
+        }
+
+        int lists(long rows) {
+            if (lists == null) {
+                return 0;
+            }
+            if (!"auto".equals(lists)) {
+                return Integer.parseInt(lists);
+            }
+            return (int) Math.max(10, rows <= 1_000_000 ? rows / 1000 : Math.sqrt(rows));
+        }
+
+        /** Postgres setting varied at query time, or null for exact search. */
+        String getSearchParameter() {
+            return switch (type) {
+                case "ivfflat" -> "ivfflat.probes";
+                case "hnsw" -> "hnsw.ef_search";
+                default -> null;
+            };
+        }
+
+        public String getName() { return name; }
+        public String getType() { return type; }
+        public int getM() { return m; }
+        public int getEfConstruction() { return efConstruction; }
+        public List<Integer> getSearchValues() { return searchValues; }
+    }
+}
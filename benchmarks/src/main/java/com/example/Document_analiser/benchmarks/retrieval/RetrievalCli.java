@@ -0,0 +1,130 @@
+package com.example.Document_analiser.benchmarks.retrieval;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code corpus} and {@code retrieval} commands of {@code benchmarks.jar}.
+ *
+ * <pre>
+ * java -jar benchmarks.jar corpus --chunks 1000000 [--chunks-per-document 50] [--questions 200]
+ *      [--topics 0] [--english-ratio 0.2] [--chunk-chars 1200] [--seed 42] [--ground-truth-k 100]
+ *      [--document-index false] [--threads N]
+ * java -jar benchmarks.jar retrieval [--k 10] [--shapes document,global] [--warmup 20]
+ *      [--configs "exact;ivfflat:lists=100:probes=1,4,10;hnsw:m=16:ef_construction=64:ef_search=40,100"]
+ *      [--maintenance-work-mem 2GB]
+ * common: [--jdbc-url jdbc:postgresql://localhost:5432/document_analyser] [--user postgres]
+ *         [--password ""] [--schema retrieval_bench]
+ * </pre>
+ *
+ * The corpus lives in its own schema (replaced by each {@code corpus} run), never in the
+ * application's tables. Reports are written to {@code results/}. {@code exact} is in the
+ * default configurations only up to 1M chunks: without a vector index every query scans
+ * the table.
+ */
+public final class RetrievalCli {
+
+    private static final String DEFAULT_CONFIGS = "ivfflat:lists=100:probes=1,4,10;"
+            + "ivfflat:lists=auto:probes=1,4,10,32;"
+            + "hnsw:m=16:ef_construction=64:ef_search=40,100,200";
+
+    private RetrievalCli() {
+    }
+
+    /** Runs {@code args[0]} (corpus or retrieval); returns the process exit code. */
+    public static int run(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        try (Connection connection = DriverManager.getConnection(
+                options.getOrDefault("jdbc-url", "jdbc:postgresql://localhost:5432/document_analyser"),
+                options.getOrDefault("user", "postgres"),
+                options.getOrDefault("password", ""))) {
+            String schema = options.getOrDefault("schema", "retrieval_bench");
+            if (!schema.matches("[a-z_][a-z0-9_]*")) {
+                throw new IllegalArgumentException("Invalid schema name: " + schema);
+            }
+            return switch (args[0]) {
+                case "corpus" -> corpus(connection, schema, options);
+                case "retrieval" -> retrieval(connection, schema, options);
+                default -> throw new IllegalArgumentException("Unknown command " + args[0]);
+            };
+        }
+    }
+
+    private static int corpus(Connection connection, String schema, Map<String, String> options) throws Exception {
+        SyntheticCorpus corpus = new SyntheticCorpus(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Long.parseLong(options.getOrDefault("chunks", "10000")),
+                Integer.parseInt(options.getOrDefault("chunks-per-document", "50")),
+                Integer.parseInt(options.getOrDefault("topics", "0")),
+                Double.parseDouble(options.getOrDefault("english-ratio", "0.2")),
+                Integer.parseInt(options.getOrDefault("chunk-chars", "1200")));
+        System.out.printf("Generating %d chunks in %d documents into schema %s%n", corpus.getChunks(), corpus.documents(), schema);
+        Map<String, Object> report = new CorpusLoader(connection, schema).load(corpus,
+                Integer.parseInt(options.getOrDefault("questions", "200")),
+                Integer.parseInt(options.getOrDefault("ground-truth-k", "100")),
+                Boolean.parseBoolean(options.getOrDefault("document-index", "false")),
+                Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        System.out.println(report);
+        write("corpus-" + corpus.getChunks(), report);
+        return 0;
+    }
+
+    private static int retrieval(Connection connection, String schema, Map<String, String> options) throws Exception {
+        RetrievalBenchmark benchmark = new RetrievalBenchmark(connection, schema);
+        JsonNode corpus = benchmark.corpus();
+        int k = Integer.parseInt(options.getOrDefault("k", "10"));
+        if (k > corpus.path("groundTruthK").asInt()) {
+            throw new IllegalArgumentException("k is larger than the corpus ground truth (" + corpus.path("groundTruthK").asInt() + ")");
+        }
+        String defaults = corpus.path("chunks").asLong() <= 1_000_000 ? "exact;" + DEFAULT_CONFIGS : DEFAULT_CONFIGS;
+        List<RetrievalBenchmark.IndexConfig> configs = new ArrayList<>();
+        for (String spec : options.getOrDefault("configs", defaults).split(";")) {
+            if (!spec.isBlank()) {
+                configs.add(RetrievalBenchmark.IndexConfig.parse(spec));
+            }
+        }
+        List<String> shapes = List.of(options.getOrDefault("shapes", "document,global").split(","));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("corpus", corpus);
+        report.put("tableMb", PgStats.relationMb(connection, "document_chunks", false));
+        report.put("sharedBuffers", PgStats.setting(connection, "shared_buffers"));
+        report.put("maintenanceWorkMem", options.getOrDefault("maintenance-work-mem",
+                PgStats.setting(connection, "maintenance_work_mem")));
+        report.put("results", benchmark.run(configs, shapes, k,
+                Integer.parseInt(options.getOrDefault("warmup", "20")), options.get("maintenance-work-mem")));
+        write("retrieval-" + corpus.path("chunks").asLong(), report);
+        return 0;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static void write(String prefix, Map<String, Object> report) throws Exception {
+        Path results = Path.of("results");
+        Files.createDirectories(results);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = results.resolve(prefix + "-" + stamp + ".json");
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        System.out.println("Report: " + file);
+    }
+}
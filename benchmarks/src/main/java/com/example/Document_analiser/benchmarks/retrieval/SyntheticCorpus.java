@@ -0,0 +1,338 @@
+package com.example.Document_analiser.benchmarks.retrieval;
+
+import com.example.Document_analiser.benchmarks.SampleData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic corpus: documents, chunks, embeddings and questions.
+ *
+ * Everything is a pure function of the seed and an id, so a chunk's text or embedding can
+ * be regenerated anywhere (loader, ground truth, questions) without storing it.
+ *
+ * - Text: a word bigram model trained on {@code sample-data/legal_demo_contract_bg.txt}
+ *   and a short English contract; {@code englishRatio} of the documents are English.
+ * - Embeddings: 1536 dimensions like {@code text-embedding-3-small}, unit length, built as
+ *   common direction + topic + document + chunk noise. Real embeddings are anisotropic
+ *   (unrelated texts still have cosine ~0.5) and clustered by subject; with the weights
+ *   below unrelated chunks have cosine ~0.53, chunks of one topic ~0.73 and chunks of one
+ *   document ~0.83. Topic popularity is skewed, so a few clusters are much larger.
+ * - Questions: the embedding of a random source chunk with noise mixed in (cosine
+ *   {@value #QUESTION_SIMILARITY} to it), so the source chunk is the known relevant one.
+ */
+public final class SyntheticCorpus {
+
+    public static final int DIMENSIONS = 1536;
+
+    private static final float COMMON_WEIGHT = 0.8f;
+    private static final float TOPIC_WEIGHT = 0.5f;
+    private static final float DOCUMENT_WEIGHT = 0.35f;
+    private static final float NOISE_WEIGHT = 0.45f;
+    private static final double QUESTION_SIMILARITY = 0.85;
+
+    private static final long SALT_COMMON = 1;
+    private static final long SALT_TOPIC = 2;
+    private static final long SALT_DOCUMENT = 3;
+    private static final long SALT_CHUNK = 4;
+    private static final long SALT_TEXT = 5;
+    private static final long SALT_QUESTIONS = 6;
+
+    private static final String ENGLISH_SAMPLE = """
+            SERVICE AGREEMENT. This Agreement is entered into between the Client and the Contractor.
+            1. Subject. The Contractor shall provide legal document analysis services and prepare short
+            summaries in accordance with Annex 1. The Client shall provide the documents in electronic form.
+            2. Term. This Agreement enters into force on the date of signature and remains in force for a
+            period of twelve months, unless terminated earlier in accordance with its terms.
+            3. Fees and payment. The Client shall pay the fees set out in Annex 1 within fourteen days of
+            receipt of an invoice. Late payments shall bear interest at the statutory rate.
+            4. Confidentiality. Each party shall keep confidential all information received from the other
+            party and shall not disclose it to third parties without prior written consent.
+            5. Personal data. The parties shall process personal data in accordance with the applicable
+            data protection legislation and only for the purposes of this Agreement.
+            6. Liability. The liability of the Contractor for damages shall be limited to the fees paid
+            under this Agreement during the twelve months preceding the claim.
+            7. Termination. Either party may terminate this Agreement with thirty days written notice.
+            The Client may terminate the Agreement immediately in case of material breach by the Contractor.
+            8. Governing law. This Agreement shall be governed by the laws of the Republic of Bulgaria and
+            disputes shall be resolved by the competent court in Sofia.
+            """;
+
+    private final long seed;
+    private final long chunks;
+    private final int chunksPerDocument;
+    private final int topics;
+    private final double englishRatio;
+    private final int chunkChars;
+
+    private final float[] common;
+    private final float[][] topicVectors;
+    private final TextModel bulgarian;
+    private final TextModel english;
+
+    public SyntheticCorpus(long seed, long chunks, int chunksPerDocument, int topics, double englishRatio, int chunkChars) {
+        if (chunks < 1 || chunksPerDocument < 1) {
+            throw new IllegalArgumentException("chunks and chunksPerDocument must be positive");
+        }
+        this.seed = seed;
+        this.chunks = chunks;
+        this.chunksPerDocument = chunksPerDocument;
+        this.topics = topics > 0 ? topics : defaultTopics(chunks, chunksPerDocument);
+        this.englishRatio = englishRatio;
+        this.chunkChars = chunkChars;
+        this.common = randomUnit(random(SALT_COMMON, 0));
+        this.topicVectors = new float[this.topics][];
+        for (int t = 0; t < this.topics; t++) {
+            topicVectors[t] = randomUnit(random(SALT_TOPIC, t));
+        }
+        this.bulgarian = new TextModel(SampleData.read(SampleData.LEGAL_CONTRACT_BG));
+        this.english = new TextModel(ENGLISH_SAMPLE);
+    }
+
+    /** About one topic per 20 documents, between 16 and 4096 topics. */
+    private static int defaultTopics(long chunks, int chunksPerDocument) {
+        long documents = (chunks + chunksPerDocument - 1) / chunksPerDocument;
+        return (int) Math.max(16, Math.min(4096, documents / 20));
+    }
+
+    public long getSeed() { return seed; }
+    public long getChunks() { return chunks; }
+    public int getChunksPerDocument() { return chunksPerDocument; }
+    public int getTopics() { return topics; }
+    public double getEnglishRatio() { return englishRatio; }
+    public int getChunkChars() { return chunkChars; }
+
+    public long documents() {
+        return (chunks + chunksPerDocument - 1) / chunksPerDocument;
+    }
+
+    /** Chunk ids run from 1 to {@code chunks}; document ids from 1, in blocks of chunksPerDocument. */
+    public long documentOf(long chunkId) {
+        return (chunkId - 1) / chunksPerDocument + 1;
+    }
+
+    public long firstChunkOf(long documentId) {
+        return (documentId - 1) * chunksPerDocument + 1;
+    }
+
+    public long lastChunkOf(long documentId) {
+        return Math.min(chunks, documentId * chunksPerDocument);
+    }
+
+    public int chunkIndexOf(long chunkId) {
+        return (int) ((chunkId - 1) % chunksPerDocument);
+    }
+
+    /** Skewed towards low topic numbers: topic t is picked with probability ~ 1/sqrt(t). */
+    public int topicOf(long documentId) {
+        double u = random(SALT_DOCUMENT, documentId).nextDouble();
+        return (int) Math.min(topics - 1, Math.floor(topics * u * u));
+    }
+
+    public boolean isEnglish(long documentId) {
+        return random(SALT_TEXT, -documentId).nextDouble() < englishRatio;
+    }
+
+    /** The topic and document part shared by all chunks of a document (not normalised). */
+    public float[] documentVector(long documentId) {
+        float[] topic = topicVectors[topicOf(documentId)];
+        SplittableRandom random = random(SALT_DOCUMENT, documentId);
+        random.nextDouble(); // consumed by topicOf
+        float[] own = randomUnit(random);
+        float[] out = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            out[i] = TOPIC_WEIGHT * topic[i] + DOCUMENT_WEIGHT * own[i];
+        }
+        return out;
+    }
+
+    /** Unit-length embedding of a chunk, written to {@code out}. */
+    public void chunkEmbedding(long chunkId, float[] documentVector, float[] out) {
+        SplittableRandom random = random(SALT_CHUNK, chunkId);
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            float x = (float) random.nextGaussian();
+            out[i] = x;
+            norm += (double) x * x;
+        }
+        float noiseScale = (float) (NOISE_WEIGHT / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            out[i] = COMMON_WEIGHT * common[i] + documentVector[i] + noiseScale * out[i];
+        }
+        normalize(out);
+    }
+
+    public float[] chunkEmbedding(long chunkId) {
+        float[] out = new float[DIMENSIONS];
+        chunkEmbedding(chunkId, documentVector(documentOf(chunkId)), out);
+        return out;
+    }
+
+    public String chunkText(long chunkId) {
+        TextModel model = isEnglish(documentOf(chunkId)) ? english : bulgarian;
+        return model.generate(random(SALT_TEXT, chunkId), chunkChars);
+    }
+
+    /** {@code count} questions with distinct source chunks (fewer if the corpus is smaller). */
+    public List<Question> questions(int count) {
+        SplittableRandom random = random(SALT_QUESTIONS, 0);
+        Map<Long, Question> bySource = new LinkedHashMap<>();
+        int target = (int) Math.min(count, chunks);
+        while (bySource.size() < target) {
+            long source = 1 + random.nextLong(chunks);
+            if (bySource.containsKey(source)) {
+                continue;
+            }
+            float[] embedding = chunkEmbedding(source);
+            float[] noise = randomUnit(random);
+            double mix = Math.sqrt(1 - QUESTION_SIMILARITY * QUESTION_SIMILARITY);
+            for (int i = 0; i < DIMENSIONS; i++) {
+                embedding[i] = (float) (QUESTION_SIMILARITY * embedding[i] + mix * noise[i]);
+            }
+            normalize(embedding);
+            bySource.put(source, new Question(bySource.size() + 1, source, documentOf(source),
+                    questionText(source, random), embedding));
+        }
+        return new ArrayList<>(bySource.values());
+    }
+
+    private String questionText(long source, SplittableRandom random) {
+        String[] words = chunkText(source).split(" ");
+        int length = Math.min(words.length, 3 + random.nextInt(4));
+        int from = words.length > length ? random.nextInt(words.length - length) : 0;
+        String phrase = String.join(" ", List.of(words).subList(from, from + length));
+        return isEnglish(documentOf(source))
+                ? "What does the agreement say about " + phrase + "?"
+                : "Какво предвижда договорът относно " + phrase + "?";
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("seed", seed);
+        out.put("chunks", chunks);
+        out.put("documents", documents());
+        out.put("chunksPerDocument", chunksPerDocument);
+        out.put("topics", topics);
+        out.put("englishRatio", englishRatio);
+        out.put("chunkChars", chunkChars);
+        out.put("dimensions", DIMENSIONS);
+        out.put("questionSimilarity", QUESTION_SIMILARITY);
+        return out;
+    }
+
+    private SplittableRandom random(long salt, long id) {
+        return new SplittableRandom(mix(seed ^ mix(salt * 0x9E3779B97F4A7C15L + id)));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static float[] randomUnit(SplittableRandom random) {
+        float[] out = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            out[i] = (float) random.nextGaussian();
+        }
+        normalize(out);
+        return out;
+    }
+
+    static void normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) {
+            norm += (double) x * x;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < v.length; i++) {
+            v[i] *= scale;
+        }
+    }
+
+    /** A generated question and the chunk it was derived from. */
+    public static final class Question {
+        private final int id;
+        private final long sourceChunkId;
+        private final long documentId;
+        private final String text;
+        private final float[] embedding;
+
+        public Question(int id, long sourceChunkId, long documentId, String text, float[] embedding) {
+            this.id = id;
+            this.sourceChunkId = sourceChunkId;
+            this.documentId = documentId;
+            this.text = text;
+            this.embedding = embedding;
+        }
+
+        public int getId() { return id; }
+        public long getSourceChunkId() { return sourceChunkId; }
+        public long getDocumentId() { return documentId; }
+        public String getText() { return text; }
+        public float[] getEmbedding() { return embedding; }
+    }
+
+    /** Word bigram model; sentences restart at words that started a sentence in the sample. */
+    private static final class TextModel {
+        private final String[] words;
+        private final int[][] successors;
+        private final int[] starts;
+
+        TextModel(String sample) {
+            String[] tokens = sample.trim().split("\\s+");
+            Map<String, Integer> ids = new HashMap<>();
+            List<String> vocabulary = new ArrayList<>();
+            int[] sequence = new int[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                sequence[i] = ids.computeIfAbsent(tokens[i], word -> {
+                    vocabulary.add(word);
+                    return vocabulary.size() - 1;
+                });
+            }
+            List<List<Integer>> next = new ArrayList<>();
+            for (int i = 0; i < vocabulary.size(); i++) {
+                next.add(new ArrayList<>());
+            }
+            List<Integer> sentenceStarts = new ArrayList<>();
+            sentenceStarts.add(sequence[0]);
+            for (int i = 0; i + 1 < sequence.length; i++) {
+                next.get(sequence[i]).add(sequence[i + 1]);
+                if (endsSentence(tokens[i])) {
+                    sentenceStarts.add(sequence[i + 1]);
+                }
+            }
+            this.words = vocabulary.toArray(new String[0]);
+            this.successors = new int[words.length][];
+            for (int i = 0; i < words.length; i++) {
+                successors[i] = next.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+            this.starts = sentenceStarts.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        String generate(SplittableRandom random, int chars) {
+            StringBuilder out = new StringBuilder(chars + 32);
+            int word = starts[random.nextInt(starts.length)];
+            while (out.length() < chars) {
+                if (!out.isEmpty()) {
+                    out.append(' ');
+                }
+                out.append(words[word]);
+                int[] options = successors[word];
+                word = options.length == 0 || endsSentence(words[word]) && random.nextInt(4) == 0
+                        ? starts[random.nextInt(starts.length)]
+                        : options[random.nextInt(options.length)];
+            }
+            return out.toString();
+        }
+
+        private static boolean endsSentence(String token) {
+            char last = token.charAt(token.length() - 1);
+            return last == '.' || last == '?' || last == '!' || last == ';';
+        }
+    }
+}
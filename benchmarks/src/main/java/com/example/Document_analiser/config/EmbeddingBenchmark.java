@@ -0,0 +1,51 @@
+package com.example.Document_analiser.config;
+
+import com.example.Document_analiser.benchmarks.SampleData;
+import com.example.Document_analiser.service.QuestionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The local embedder from {@link EmbeddingConfig} (1536 dimensions) on a question and on a
+ * chunk-sized piece of the Bulgarian legal sample.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingBenchmark {
+
+    private QuestionService.EmbeddingClient embedder;
+    private String question;
+    private String chunk;
+
+    @Setup
+    public void setUp() {
+        embedder = new EmbeddingConfig().embeddingClient();
+        question = "Какъв е срокът за плащане и каква е неустойката при забава?";
+        String sample = SampleData.read(SampleData.LEGAL_CONTRACT_BG);
+        chunk = sample.substring(0, Math.min(2000, sample.length()));
+    }
+
+    @Benchmark
+    public float[] embedQuestion() {
+        return embedder.embed(question, "text-embedding-3-small");
+    }
+
+    @Benchmark
+    public float[] embedChunk() {
+        return embedder.embed(chunk, "text-embedding-3-small");
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.benchmarks.SampleData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DocumentService#chunkText} on the Bulgarian legal sample, as uploaded (~7 KB) and
+ * repeated to a long document. Only chunking is measured; the service's collaborators
+ * are not needed for it and are left null.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentChunkingBenchmark {
+
+    @Param({"7000", "200000"})
+    public int documentChars;
+
+    @Param({"512"})
+    public int maxTokens;
+
+    private DocumentService documentService;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        documentService = new DocumentService(null, null, null, null, List.of(), "text-embedding-3-small");
+        text = SampleData.repeat(SampleData.read(SampleData.LEGAL_CONTRACT_BG), documentChars);
+    }
+
+    @Benchmark
+    public List<String> chunkText() {
+        return documentService.chunkText(text, maxTokens);
+    }
+}
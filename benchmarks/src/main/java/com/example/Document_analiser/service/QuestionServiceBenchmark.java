@@ -0,0 +1,98 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.benchmarks.SampleData;
+import com.example.Document_analiser.config.EmbeddingConfig;
+import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.util.KeywordScorer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU-bound parts of answering a question: keyword extraction and scoring of the
+ * retrieved chunks, cosine similarity of two embeddings and building the context prompt
+ * from the top matches. Chunks come from the Bulgarian legal sample; the prompt settings
+ * are the defaults from application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionServiceBenchmark {
+
+    private static final String QUESTION = "Какъв е срокът за плащане и каква е неустойката при забава?";
+    private static final int TOP_K = 5;
+
+    private QuestionService questionService;
+    private List<DocumentChunk> chunks;
+    private List<DocumentChunk> matches;
+    private Set<String> keywords;
+    private float[] questionEmbedding;
+    private float[] chunkEmbedding;
+
+    @Setup
+    public void setUp() {
+        ContextPacker contextPacker = new ContextPacker(new SimpleMeterRegistry(), 1500, 2, 2, 0.8);
+        questionService = new QuestionService(null, null, null, null, null, null, null, null, null, null,
+                contextPacker, null, null, null,
+                "You are an expert assistant helping users understand documents.",
+                "Отговорът трябва да бъде ясен, кратък и базиран само на контекста. Не предполагай нищо извън предоставената информация.",
+                "Example Question: \"Коя е столицата на България?\"\nExample Answer: \"Столицата на България е София.\"");
+
+        DocumentService documentService = new DocumentService(null, null, null, null, List.of(), "text-embedding-3-small");
+        List<String> texts = documentService.chunkText(SampleData.read(SampleData.LEGAL_CONTRACT_BG), 128);
+        chunks = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            DocumentChunk chunk = new DocumentChunk();
+            chunk.setId((long) i + 1);
+            chunk.setChunkIndex(i);
+            chunk.setContent(texts.get(i));
+            chunks.add(chunk);
+        }
+        matches = chunks.subList(0, Math.min(TOP_K, chunks.size()));
+        keywords = KeywordScorer.extractKeywords(QUESTION);
+
+        QuestionService.EmbeddingClient embedder = new EmbeddingConfig().embeddingClient();
+        questionEmbedding = embedder.embed(QUESTION, "text-embedding-3-small");
+        chunkEmbedding = embedder.embed(texts.get(0), "text-embedding-3-small");
+    }
+
+    @Benchmark
+    public Set<String> extractKeywords() {
+        return KeywordScorer.extractKeywords(QUESTION);
+    }
+
+    /** Scores every chunk of the document, as the keyword fallback does. */
+    @Benchmark
+    public void scoreChunks(Blackhole blackhole) {
+        for (DocumentChunk chunk : chunks) {
+            blackhole.consume(KeywordScorer.scoreContent(chunk.getContent(), keywords));
+        }
+    }
+
+    @Benchmark
+    public float cosineSimilarity() {
+        return QuestionService.cosineSimilarity(questionEmbedding, chunkEmbedding);
+    }
+
+    @Benchmark
+    public String buildContextPrompt() {
+        return questionService.buildContextPrompt(matches, QUESTION);
+    }
+}
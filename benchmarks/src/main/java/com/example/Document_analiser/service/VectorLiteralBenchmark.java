@@ -0,0 +1,41 @@
+package com.example.Document_analiser.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** {@link VectorSearchService#toPgVectorLiteral} for a 1536-dimensional query embedding. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorLiteralBenchmark {
+
+    private float[] embedding;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        embedding = new float[1536];
+        for (int i = 0; i < embedding.length; i++) {
+            embedding[i] = (float) (random.nextDouble() * 2 - 1);
+        }
+    }
+
+    @Benchmark
+    public String toPgVectorLiteral() {
+        return VectorSearchService.toPgVectorLiteral(embedding);
+    }
+}
@@ -1,32 +1,73 @@
 package com.example.Document_analiser;
 
+import com.example.Document_analiser.service.LlmCallGuard;
+import com.example.Document_analiser.service.LlmPriority;
+import com.example.Document_analiser.service.LlmScheduler;
+import com.example.Document_analiser.util.RequestDeadline;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Тънък адаптер над Spring AI {@link ChatClient} за да запазим
  * съществуващия начин на извикване от QuestionService/контролери.
+ * Всички извиквания първо чакат ред в {@link LlmScheduler} (приоритет,
+ * справедлива опашка по потребител, лимити за заявки/токени в минута), след
+ * което минават през {@link LlmCallGuard} (таймаут, hedging, circuit breaker,
+ * bulkhead). Ако текущата нишка има {@link RequestDeadline}, чакането и самото
+ * извикване се ограничават до оставащото време, а отказ от заявката (затворена
+ * връзка) прекъсва извикването към доставчика. Hedge опитите на guard-а се таксуват
+ * в същите лимити и се пропускат, ако в момента няма бюджет.
+ * Блокиращото извикване се наблюдава като {@code llm.call} (span при tracing) с броя
+ * prompt/completion токени, върнати от доставчика, като атрибути.
  */
 @Component
 public class AiChatClient {
 
     private final ChatClient ai;
+    private final LlmCallGuard guard;
+    private final LlmScheduler scheduler;
+    private final ObservationRegistry observationRegistry;
 
-    public AiChatClient(ChatClient.Builder builder) {
+    public AiChatClient(ChatClient.Builder builder, LlmCallGuard guard, LlmScheduler scheduler,
+                        ObservationRegistry observationRegistry) {
         this.ai = builder.build();
+        this.guard = guard;
+        this.scheduler = scheduler;
+        this.observationRegistry = observationRegistry;
     }
 
     public ChatClientPrompt prompt() {
-        return new ChatClientPrompt(ai);
+        return new ChatClientPrompt(ai, guard, scheduler, observationRegistry);
     }
 
     public static class ChatClientPrompt {
         private final ChatClient ai;
+        private final LlmCallGuard guard;
+        private final LlmScheduler scheduler;
+        private final ObservationRegistry observationRegistry;
         private String system;
         private String user;
+        private LlmPriority priority = LlmPriority.API;
+        private String requester;
 
-        public ChatClientPrompt(ChatClient ai) {
+        public ChatClientPrompt(ChatClient ai, LlmCallGuard guard, LlmScheduler scheduler,
+                                ObservationRegistry observationRegistry) {
             this.ai = ai;
+            this.guard = guard;
+            this.scheduler = scheduler;
+            this.observationRegistry = observationRegistry;
         }
 
         public ChatClientPrompt system(String message) {
@@ -37,15 +78,113 @@ public class AiChatClient {
             this.user = question;
             return this;
         }
+        /** Клас на приоритет в опашката (по подразбиране API). */
+        public ChatClientPrompt priority(LlmPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+        /** Потребител, за когото е извикването (ключ за справедливата опашка). */
+        public ChatClientPrompt requester(String username) {
+            this.requester = username;
+            return this;
+        }
         public ChatClientPrompt call() {
             return this;
         }
+        /**
+         * Блокиращо извикване през guard-а.
+         * При изтекъл срок, отворен breaker, пълен bulkhead или отказана заявка хвърля
+         * {@link com.example.Document_analiser.exception.LlmUnavailableException}.
+         */
         public String content() {
-            return ai.prompt()
-                    .system(system != null ? system : "")
-                    .user(user != null ? user : "")
-                    .call()
-                    .content();
+            String s = system != null ? system : "";
+            String u = user != null ? user : "";
+            int promptTokens = LlmScheduler.estimateTokens(s, u);
+            RequestDeadline deadline = RequestDeadline.get();
+            Duration timeout = guard.getCallTimeout();
+            if (deadline != null) {
+                timeout = Duration.ofMillis(Math.min(timeout.toMillis(), deadline.remainingMillis()));
+            }
+            // Отказът прекъсва тази нишка; guard-ът тогава спира и самите опити към доставчика
+            Thread caller = Thread.currentThread();
+            Runnable unregister = deadline != null ? deadline.onCancel(caller::interrupt) : () -> { };
+            Observation observation = Observation.createNotStarted("llm.call", observationRegistry)
+                    .contextualName("llm call")
+                    .lowCardinalityKeyValue("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .highCardinalityKeyValue("llm.prompt.tokens.estimated", String.valueOf(promptTokens))
+                    .start();
+            AtomicReference<Usage> usage = new AtomicReference<>();
+            try (Observation.Scope scope = observation.openScope()) {
+                LlmScheduler.Permit permit = scheduler.acquire(priority, resolveRequester(), promptTokens, timeout);
+                String answer = null;
+                try {
+                    answer = guard.call(() -> {
+                        ChatResponse response = ai.prompt()
+                                .system(s)
+                                .user(u)
+                                .call()
+                                .chatResponse();
+                        if (response == null || response.getResult() == null) {
+                            return null;
+                        }
+                        if (response.getMetadata() != null) {
+                            usage.set(response.getMetadata().getUsage());
+                        }
+                        return response.getResult().getOutput().getText();
+                    }, timeout, permit::tryHedge);
+                    return answer;
+                } finally {
+                    permit.release(promptTokens, answer);
+                }
+            } catch (RuntimeException e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                Usage tokens = usage.get();
+                if (tokens != null) {
+                    if (tokens.getPromptTokens() != null) {
+                        observation.highCardinalityKeyValue("gen_ai.usage.input_tokens", String.valueOf(tokens.getPromptTokens()));
+                    }
+                    if (tokens.getCompletionTokens() != null) {
+                        observation.highCardinalityKeyValue("gen_ai.usage.output_tokens", String.valueOf(tokens.getCompletionTokens()));
+                    }
+                }
+                observation.stop();
+                unregister.run();
+                if (deadline != null && deadline.isCancelled()) {
+                    Thread.interrupted(); // не оставяме прекъсването да засегне следваща работа на нишката
+                }
+            }
+        }
+        /**
+         * Поточно връщане на отговора – по един фрагмент (token) при пристигането му.
+         * Чакането в опашката и в bulkhead-а блокира, затова абонирането става на
+         * boundedElastic, а не на нишката на абоната (напр. event loop).
+         */
+        public Flux<String> stream() {
+            String s = system != null ? system : "";
+            String u = user != null ? user : "";
+            int promptTokens = LlmScheduler.estimateTokens(s, u);
+            String who = resolveRequester();
+            return Flux.defer(() -> {
+                LlmScheduler.Permit permit = scheduler.acquire(priority, who, promptTokens);
+                StringBuilder answer = new StringBuilder();
+                return guard.stream(() -> ai.prompt()
+                                .system(s)
+                                .user(u)
+                                .stream()
+                                .content())
+                        .doOnNext(answer::append)
+                        .doFinally(signal -> permit.release(promptTokens, answer.toString()));
+            }).subscribeOn(Schedulers.boundedElastic());
+        }
+
+        private String resolveRequester() {
+            if (requester != null) {
+                return requester;
+            }
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            return auth != null ? auth.getName() : null;
         }
     }
 }
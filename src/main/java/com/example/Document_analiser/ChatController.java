@@ -1,5 +1,6 @@
 package com.example.Document_analiser;
 
+import com.example.Document_analiser.util.StageTimings;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -23,10 +24,15 @@ public class ChatController {
     @PostMapping("/api/ask")
     /** Приема въпрос като текст и връща генерирания отговор. */
     public String ask(@RequestBody String question) {
-        return chatClient.prompt()
-                .system(systemPrompt)
-                .user(question)
-                .call()
-                .content();
+        long start = StageTimings.start();
+        try {
+            return chatClient.prompt()
+                    .system(systemPrompt)
+                    .user(question)
+                    .call()
+                    .content();
+        } finally {
+            StageTimings.stop(StageTimings.Stage.LLM, start);
+        }
     }
 }
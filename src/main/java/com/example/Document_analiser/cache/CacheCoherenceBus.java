@@ -0,0 +1,527 @@
+package com.example.Document_analiser.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts cache invalidations to the other application nodes over Postgres
+ * {@code LISTEN/NOTIFY}, so no infrastructure beyond the database is needed.
+ *
+ * Publishing: tags invalidated locally ({@link CacheInvalidationListener}) and caches
+ * cleared through {@code CacheService} are collected for {@code cache.coherence.batch-ms}
+ * and sent as one {@code pg_notify} (split when the payload would exceed the 8000 byte
+ * limit). A tag invalidated again before the flush is sent once.
+ *
+ * Receiving: a dedicated connection (outside the pool) listens on the channel. All
+ * notifications read in one poll are merged, so repeated tags are applied once; a node
+ * ignores its own messages and any message with a sequence number it has already seen.
+ * {@code cache.coherence.lag} is the time from the first invalidation of a batch on the
+ * sending node to its application here (so it includes clock skew between nodes).
+ *
+ * A batch that cannot be sent goes back to the pending set and is retried with the next
+ * batch, every {@code cache.coherence.reconnect-ms}, at most
+ * {@code cache.coherence.publish-retries} times. A failed send leaves a gap in this
+ * node's sequence numbers; a receiver that sees the gap clears its tagged caches, so
+ * even a batch dropped after the last retry is covered by the node's next message.
+ * Notifications sent while a listener is disconnected are lost too; after reconnecting
+ * it clears the tagged caches the same way.
+ */
+@Component
+public class CacheCoherenceBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheCoherenceBus.class);
+    /** Postgres rejects payloads of 8000 bytes or more. */
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final String ALL_CACHES = "*";
+
+    private final CacheInvalidator invalidator;
+    private final List<CacheManager> cacheManagers;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final String channel;
+    private final long batchMs;
+    private final long pollMs;
+    private final long reconnectMs;
+    private final int publishRetries;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> lastSequenceByNode = new ConcurrentHashMap<>();
+
+    private final Object pendingLock = new Object();
+    private Set<String> pendingTags = new LinkedHashSet<>();
+    private Set<String> pendingClears = new LinkedHashSet<>();
+    private long pendingSinceMillis;
+    // Publisher thread only
+    private int failedFlushes;
+
+    private final Counter messagesSent;
+    private final Counter messagesReceived;
+    private final Counter tagsSent;
+    private final Counter tagsApplied;
+    private final Counter duplicatesDropped;
+    private final Counter publishFailures;
+    private final Counter reconnects;
+    private final Counter resyncs;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile long lastReceivedMillis;
+    private Thread publisher;
+    private Thread listener;
+
+    public CacheCoherenceBus(CacheInvalidator invalidator,
+                             List<CacheManager> cacheManagers,
+                             JdbcTemplate jdbcTemplate,
+                             DataSourceProperties dataSourceProperties,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${cache.coherence.enabled:true}") boolean enabled,
+                             @Value("${cache.coherence.channel:cache_invalidation}") String channel,
+                             @Value("${cache.coherence.batch-ms:50}") long batchMs,
+                             @Value("${cache.coherence.poll-ms:500}") long pollMs,
+                             @Value("${cache.coherence.reconnect-ms:5000}") long reconnectMs,
+                             @Value("${cache.coherence.publish-retries:3}") int publishRetries) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("cache.coherence.channel must be a lower-case SQL identifier: " + channel);
+        }
+        this.invalidator = invalidator;
+        this.cacheManagers = cacheManagers;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.batchMs = batchMs;
+        this.pollMs = pollMs;
+        this.reconnectMs = reconnectMs;
+        this.publishRetries = publishRetries;
+
+        this.messagesSent = Counter.builder("cache.coherence.messages")
+                .tag("direction", "sent")
+                .description("Invalidation notifications sent or received")
+                .register(meterRegistry);
+        this.messagesReceived = Counter.builder("cache.coherence.messages")
+                .tag("direction", "received")
+                .description("Invalidation notifications sent or received")
+                .register(meterRegistry);
+        this.tagsSent = Counter.builder("cache.coherence.tags")
+                .tag("direction", "sent")
+                .description("Tags and cache clears sent or applied")
+                .register(meterRegistry);
+        this.tagsApplied = Counter.builder("cache.coherence.tags")
+                .tag("direction", "applied")
+                .description("Tags and cache clears sent or applied")
+                .register(meterRegistry);
+        this.duplicatesDropped = Counter.builder("cache.coherence.duplicates")
+                .description("Tags or messages dropped because they were already pending or seen")
+                .register(meterRegistry);
+        this.publishFailures = Counter.builder("cache.coherence.publish.failures")
+                .description("Batches that could not be sent")
+                .register(meterRegistry);
+        this.reconnects = Counter.builder("cache.coherence.reconnects")
+                .description("Listener reconnects (each clears the tagged caches)")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("cache.coherence.resyncs")
+                .description("Tagged cache clears after a gap in another node's messages")
+                .register(meterRegistry);
+        this.lag = Timer.builder("cache.coherence.lag")
+                .description("Time from the first invalidation of a batch on another node to its application here")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("cache.coherence.pending", this, CacheCoherenceBus::pendingCount)
+                .description("Tags and cache clears waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("cache.coherence.connected", this, b -> b.connected ? 1 : 0)
+                .description("Whether the listener connection is up")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        publisher = Thread.ofPlatform().name("cache-coherence-publisher").daemon(true).start(this::publishLoop);
+        listener = Thread.ofPlatform().name("cache-coherence-listener").daemon(true).start(this::listenLoop);
+        log.info("Cache coherence bus enabled on channel '{}' (node {})", channel, nodeId);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        publisher.interrupt();
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        flush();
+        listener.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Queues tags, already invalidated on this node, for the other nodes.
+     */
+    public void publish(Collection<String> tags) {
+        if (!running || tags.isEmpty()) {
+            return;
+        }
+        synchronized (pendingLock) {
+            markPending();
+            for (String tag : tags) {
+                if (!pendingTags.add(tag)) {
+                    duplicatesDropped.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues cache clears, already done on this node, for the other nodes.
+     *
+     * @param cacheNames cache names, or empty for all caches
+     */
+    public void publishClear(Collection<String> cacheNames) {
+        if (!running) {
+            return;
+        }
+        synchronized (pendingLock) {
+            markPending();
+            if (cacheNames.isEmpty()) {
+                pendingClears.add(ALL_CACHES);
+            } else {
+                pendingClears.addAll(cacheNames);
+            }
+        }
+    }
+
+    private void markPending() {
+        if (pendingTags.isEmpty() && pendingClears.isEmpty()) {
+            pendingSinceMillis = System.currentTimeMillis();
+        }
+    }
+
+    private int pendingCount() {
+        synchronized (pendingLock) {
+            return pendingTags.size() + pendingClears.size();
+        }
+    }
+
+    private void publishLoop() {
+        while (running) {
+            try {
+                // After a failed send wait for the database instead of failing every batch
+                Thread.sleep(failedFlushes > 0 ? reconnectMs : batchMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    private void flush() {
+        Set<String> tags;
+        Set<String> clears;
+        long since;
+        synchronized (pendingLock) {
+            if (pendingTags.isEmpty() && pendingClears.isEmpty()) {
+                return;
+            }
+            tags = pendingTags;
+            clears = pendingClears;
+            since = pendingSinceMillis;
+            pendingTags = new LinkedHashSet<>();
+            pendingClears = new LinkedHashSet<>();
+        }
+        List<Message> messages = List.of();
+        int sent = 0;
+        try {
+            messages = split(tags, clears, since);
+            for (Message message : messages) {
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                        channel, objectMapper.writeValueAsString(message));
+                sent++;
+                messagesSent.increment();
+                tagsSent.increment(message.getTags().size() + message.getClears().size());
+            }
+            failedFlushes = 0;
+        } catch (Exception e) {
+            publishFailures.increment();
+            if (messages.isEmpty()) {
+                log.error("Could not encode {} cache invalidations", tags.size() + clears.size(), e);
+                return;
+            }
+            if (++failedFlushes > publishRetries) {
+                // The receivers' sequence gap check covers the dropped batch
+                failedFlushes = 0;
+                log.warn("Dropping cache invalidations after {} attempts; other nodes resync on the next message: {}",
+                        publishRetries + 1, e.getMessage());
+                return;
+            }
+            requeue(messages.subList(sent, messages.size()), since);
+            log.warn("Could not broadcast cache invalidations, retrying in {} ms: {}", reconnectMs, e.getMessage());
+        }
+    }
+
+    /** Puts the entries of unsent messages back into the pending batch. */
+    private void requeue(List<Message> unsent, long since) {
+        synchronized (pendingLock) {
+            pendingSinceMillis = pendingTags.isEmpty() && pendingClears.isEmpty()
+                    ? since : Math.min(pendingSinceMillis, since);
+            for (Message message : unsent) {
+                pendingTags.addAll(message.getTags());
+                pendingClears.addAll(message.getClears());
+            }
+        }
+    }
+
+    /**
+     * Splits a batch into messages whose JSON stays below the payload limit; clears and
+     * tags keep their kind. Package-private for tests.
+     */
+    List<Message> split(Set<String> tags, Set<String> clears, long since) throws JsonProcessingException {
+        List<Message> messages = new ArrayList<>();
+        Message current = newMessage(since);
+        int size = objectMapper.writeValueAsBytes(current).length;
+        List<String> entries = new ArrayList<>(clears);
+        entries.addAll(tags);
+        int clearCount = clears.size();
+        for (int i = 0; i < entries.size(); i++) {
+            String entry = entries.get(i);
+            // the entry as a JSON string (quotes and escapes included) plus a comma
+            int entrySize = objectMapper.writeValueAsBytes(entry).length + 1;
+            if (size + entrySize > MAX_PAYLOAD_BYTES && !current.isEmpty()) {
+                messages.add(current);
+                current = newMessage(since);
+                size = objectMapper.writeValueAsBytes(current).length;
+            }
+            (i < clearCount ? current.getClears() : current.getTags()).add(entry);
+            size += entrySize;
+        }
+        messages.add(current);
+        return messages;
+    }
+
+    private Message newMessage(long since) {
+        Message message = new Message();
+        message.setNode(nodeId);
+        message.setSeq(sequence.incrementAndGet());
+        message.setSince(since);
+        return message;
+    }
+
+    private void listenLoop() {
+        boolean firstConnect = true;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                connected = true;
+                if (!firstConnect) {
+                    // notifications sent while disconnected are lost
+                    reconnects.increment();
+                    invalidator.invalidateAll();
+                    log.info("Cache coherence listener reconnected; cleared tagged caches");
+                }
+                firstConnect = false;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollMs);
+                    if (notifications != null && notifications.length > 0) {
+                        apply(notifications);
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache coherence listener lost its connection: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                log.error("Cache coherence listener failed", e);
+            } finally {
+                connected = false;
+            }
+            sleepBeforeReconnect();
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        if (!running) {
+            return;
+        }
+        try {
+            Thread.sleep(reconnectMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /** Merges one poll's notifications and applies each tag and clear once. Package-private for tests. */
+    void apply(PGNotification[] notifications) {
+        Set<String> tags = new LinkedHashSet<>();
+        Set<String> clears = new LinkedHashSet<>();
+        List<Long> sentAt = new ArrayList<>();
+        boolean gap = false;
+        for (PGNotification notification : notifications) {
+            Message message;
+            try {
+                message = objectMapper.readValue(notification.getParameter(), Message.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Ignoring malformed cache invalidation message: {}", e.getMessage());
+                continue;
+            }
+            if (nodeId.equals(message.getNode())) {
+                continue;
+            }
+            messagesReceived.increment();
+            Long last = lastSequenceByNode.get(message.getNode());
+            if (last != null && message.getSeq() <= last) {
+                duplicatesDropped.increment();
+                continue;
+            }
+            if (last != null && message.getSeq() > last + 1) {
+                // the sender failed to send a batch (retried or dropped)
+                gap = true;
+            }
+            lastSequenceByNode.put(message.getNode(), message.getSeq());
+            for (String tag : message.getTags()) {
+                if (!tags.add(tag)) {
+                    duplicatesDropped.increment();
+                }
+            }
+            clears.addAll(message.getClears());
+            sentAt.add(message.getSince());
+        }
+        if (gap) {
+            resyncs.increment();
+            invalidator.invalidateAll();
+            log.info("Missed cache invalidations from another node; cleared tagged caches");
+        }
+        if (tags.isEmpty() && clears.isEmpty()) {
+            return;
+        }
+
+        invalidator.invalidate(tags);
+        clearCaches(clears);
+        tagsApplied.increment(tags.size() + clears.size());
+        long now = System.currentTimeMillis();
+        lastReceivedMillis = now;
+        for (long since : sentAt) {
+            lag.record(Duration.ofMillis(Math.max(0, now - since)));
+        }
+    }
+
+    private void clearCaches(Set<String> cacheNames) {
+        if (cacheNames.isEmpty()) {
+            return;
+        }
+        boolean all = cacheNames.contains(ALL_CACHES);
+        for (CacheManager manager : cacheManagers) {
+            for (String name : manager.getCacheNames()) {
+                if (all || cacheNames.contains(name)) {
+                    Cache cache = manager.getCache(name);
+                    if (cache != null) {
+                        cache.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * State of the bus and its counters.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        report.put("node", nodeId);
+        report.put("channel", channel);
+        report.put("connected", connected);
+        report.put("pending", pendingCount());
+        report.put("messagesSent", (long) messagesSent.count());
+        report.put("messagesReceived", (long) messagesReceived.count());
+        report.put("tagsSent", (long) tagsSent.count());
+        report.put("tagsApplied", (long) tagsApplied.count());
+        report.put("duplicatesDropped", (long) duplicatesDropped.count());
+        report.put("publishFailures", (long) publishFailures.count());
+        report.put("reconnects", (long) reconnects.count());
+        report.put("resyncs", (long) resyncs.count());
+        report.put("lagMeanMs", lag.mean(TimeUnit.MILLISECONDS));
+        report.put("lagMaxMs", lag.max(TimeUnit.MILLISECONDS));
+        report.put("lastReceivedAt", lastReceivedMillis == 0 ? null : Instant.ofEpochMilli(lastReceivedMillis).toString());
+        report.put("knownNodes", lastSequenceByNode.keySet());
+        return report;
+    }
+
+    /** JSON payload of one notification. */
+    public static class Message {
+        private String node;
+        private long seq;
+        /** Epoch millis of the first invalidation in the batch. */
+        private long since;
+        private List<String> tags = new ArrayList<>();
+        private List<String> clears = new ArrayList<>();
+
+        public String getNode() { return node; }
+        public void setNode(String node) { this.node = node; }
+        public long getSeq() { return seq; }
+        public void setSeq(long seq) { this.seq = seq; }
+        public long getSince() { return since; }
+        public void setSince(long since) { this.since = since; }
+        public List<String> getTags() { return tags; }
+        public void setTags(List<String> tags) { this.tags = tags; }
+        public List<String> getClears() { return clears; }
+        public void setClears(List<String> clears) { this.clears = clears; }
+
+        @JsonIgnore
+        public boolean isEmpty() {
+            return tags.isEmpty() && clears.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.Document_analiser.cache;
+
+import com.example.Document_analiser.event.DocumentDeletedEvent;
+import com.example.Document_analiser.event.DocumentStoredEvent;
+import com.example.Document_analiser.event.QuestionAnsweredEvent;
+import com.example.Document_analiser.event.QuestionChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps domain events to the cache tags they make stale.
+ *
+ * Runs after the publishing transaction commits, so a concurrent read cannot re-cache
+ * the old rows between the eviction and the commit; events published outside a
+ * transaction are handled immediately. The tags are then broadcast to the other nodes
+ * ({@link CacheCoherenceBus}).
+ */
+@Component
+public class CacheInvalidationListener {
+
+    private final CacheInvalidator invalidator;
+    private final CacheCoherenceBus coherenceBus;
+    private final MeterRegistry meterRegistry;
+
+    public CacheInvalidationListener(CacheInvalidator invalidator, CacheCoherenceBus coherenceBus,
+                                     MeterRegistry meterRegistry) {
+        this.invalidator = invalidator;
+        this.coherenceBus = coherenceBus;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentStored(DocumentStoredEvent event) {
+        List<String> tags = new ArrayList<>(List.of(CacheKeys.DOCUMENT_LIST, CacheKeys.CHUNK_AGGREGATES,
+                CacheKeys.documentTag(event.getDocumentId())));
+        if (event.getReplacedDocumentId() != null) {
+            tags.add(CacheKeys.documentTag(event.getReplacedDocumentId()));
+            // questions of the replaced document lose it in unfiltered history pages
+            tags.add(CacheKeys.ANY_DOCUMENT);
+        }
+        apply("document_stored", tags);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        apply("document_deleted", List.of(CacheKeys.DOCUMENT_LIST, CacheKeys.CHUNK_AGGREGATES,
+                CacheKeys.documentTag(event.getDocumentId()), CacheKeys.ANY_DOCUMENT));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionAnswered(QuestionAnsweredEvent event) {
+        apply("question_answered", List.of(CacheKeys.userTag(event.getUsername())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        apply("question_changed", List.of(CacheKeys.userTag(event.getUsername())));
+    }
+
+    private void apply(String eventName, List<String> tags) {
+        meterRegistry.counter("cache.invalidation.events", "event", eventName).increment();
+        invalidator.invalidate(tags);
+        coherenceBus.publish(tags);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.Document_analiser.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Evicts the entries of the tagged caches ({@link CacheKeys#TAGGED_CACHES}) whose
+ * {@link TaggedKey} carries any of the given tags, in both tiers of a {@link TieredCache}.
+ *
+ * Matching is a scan over the keys of the tagged caches, which are bounded by their byte
+ * budgets; entries of other documents and users stay cached. Afterwards the
+ * {@link TagInvalidationObserver}s are notified.
+ */
+@Component
+public class CacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private final List<Cache> taggedCaches = new ArrayList<>();
+    private final Counter invalidations;
+    private final ObjectProvider<TagInvalidationObserver> observers;
+
+    public CacheInvalidator(List<CacheManager> cacheManagers, MeterRegistry meterRegistry,
+                            ObjectProvider<TagInvalidationObserver> observers) {
+        this.observers = observers;
+        for (CacheManager manager : cacheManagers) {
+            for (String name : manager.getCacheNames()) {
+                if (CacheKeys.TAGGED_CACHES.contains(name)) {
+                    taggedCaches.add(manager.getCache(name));
+                }
+            }
+        }
+        this.invalidations = Counter.builder("cache.tag.invalidations")
+                .description("Tag invalidations applied to the tagged caches")
+                .register(meterRegistry);
+    }
+
+    public void invalidate(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        Predicate<Object> tagged = key -> key instanceof TaggedKey taggedKey && taggedKey.hasAnyTag(tags);
+        for (Cache cache : taggedCaches) {
+            evictIf(cache, tagged);
+        }
+        invalidations.increment();
+        observers.orderedStream().forEach(observer -> observer.onInvalidated(tags));
+        log.debug("Invalidated cache entries tagged {}", tags);
+    }
+
+    /**
+     * Clears the tagged caches, for when invalidations may have been missed.
+     */
+    public void invalidateAll() {
+        for (Cache cache : taggedCaches) {
+            cache.clear();
+        }
+        invalidations.increment();
+        observers.orderedStream().forEach(TagInvalidationObserver::onInvalidatedAll);
+        log.debug("Cleared all tagged caches");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void evictIf(Cache cache, Predicate<Object> keyPredicate) {
+        if (cache instanceof TieredCache tieredCache) {
+            tieredCache.evictIf(keyPredicate);
+        } else if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap().keySet()
+                    .removeIf(keyPredicate);
+        } else {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Document_analiser.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keys and invalidation tags of the entity-derived caches, used from {@code @Cacheable}
+ * key expressions, e.g. {@code key = "T(com.example.Document_analiser.cache.CacheKeys).chunkStats()"}.
+ *
+ * Tags name what an entry was computed from:
+ * <ul>
+ *   <li>{@code document:<id>} – chunks or questions of one document</li>
+ *   <li>{@code document:*} – history pages across all documents of a user</li>
+ *   <li>{@code user:<username>} – a user's question history</li>
+ *   <li>{@code documents} / {@code chunks} – the document list signal (the catalog itself is queried, see {@code DocumentCatalogService})
+ *       and chunk aggregates</li>
+ * </ul>
+ */
+public final class CacheKeys {
+
+    /** Caches whose keys are {@link TaggedKey}s; only these are scanned on invalidation. */
+    public static final Set<String> TAGGED_CACHES =
+            Set.of("relevantChunks", "documentChunks", "chunkStats", "questionHistory");
+
+    private static final String DOCUMENT_TAG_PREFIX = "document:";
+
+    public static final String ANY_DOCUMENT = DOCUMENT_TAG_PREFIX + "*";
+    public static final String DOCUMENT_LIST = "documents";
+    public static final String CHUNK_AGGREGATES = "chunks";
+
+    private CacheKeys() {}
+
+    public static String documentTag(Long documentId) {
+        return DOCUMENT_TAG_PREFIX + documentId;
+    }
+
+    /** Id of the document a {@code document:<id>} tag names, or {@code null} for other tags. */
+    public static Long documentIdOf(String tag) {
+        if (!tag.startsWith(DOCUMENT_TAG_PREFIX) || tag.equals(ANY_DOCUMENT)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag.substring(DOCUMENT_TAG_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String userTag(String username) {
+        return "user:" + username;
+    }
+
+    public static TaggedKey relevantChunks(Long documentId, int limit) {
+        return TaggedKey.of(documentId + "_" + limit, documentTag(documentId));
+    }
+
+    /** Keyed by the id list itself (not its hash code, which can collide). */
+    public static TaggedKey documentChunks(List<Long> documentIds) {
+        List<String> tags = new ArrayList<>(documentIds.size());
+        for (Long documentId : documentIds) {
+            tags.add(documentTag(documentId));
+        }
+        return TaggedKey.of(List.copyOf(documentIds), tags);
+    }
+
+    public static TaggedKey chunkStats() {
+        return TaggedKey.of("all", CHUNK_AGGREGATES);
+    }
+
+    public static TaggedKey history(String username, Long documentId, int page, int size, boolean ascending) {
+        String key = username + "_" + documentId + "_" + page + "_" + size + "_" + ascending;
+        return TaggedKey.of(key, userTag(username), documentId != null ? documentTag(documentId) : ANY_DOCUMENT);
+    }
+}
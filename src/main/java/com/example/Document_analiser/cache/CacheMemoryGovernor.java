@@ -0,0 +1,271 @@
+package com.example.Document_analiser.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scales the on-heap byte budgets of all caches with old-generation pressure.
+ *
+ * After every GC the governor reads the old-generation occupancy left by the last
+ * collection of that pool ({@link MemoryPoolMXBean#getCollectionUsage()}), which unlike the
+ * current usage does not count garbage waiting for the next cycle. Above
+ * {@code high-occupancy} the budgets are halved (down to {@code min-scale} of the configured
+ * values), above {@code critical-occupancy} they drop to the minimum at once. Once the
+ * occupancy stays below {@code low-occupancy} for {@code grow-after-gcs} readings, the
+ * budgets grow back step by step. Shrinking a tiered cache demotes its L1 entries to the
+ * off-heap tier instead of dropping them.
+ */
+@Component
+public class CacheMemoryGovernor {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheMemoryGovernor.class);
+    private static final double SHRINK_FACTOR = 0.5;
+    private static final double GROW_FACTOR = 1.25;
+
+    private final List<Budget> budgets = new ArrayList<>();
+    private final boolean enabled;
+    private final double highOccupancy;
+    private final double criticalOccupancy;
+    private final double lowOccupancy;
+    private final double minScale;
+    private final int growAfterGcs;
+    private final Counter shrinks;
+    private final Counter grows;
+    private final MemoryPoolMXBean oldGen;
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = (notification, handback) -> onGc();
+
+    private volatile double scale = 1.0;
+    private volatile double lastOccupancy = -1;
+    private volatile Instant lastAdjustmentAt;
+    private long lastCollectionUsed = -1;
+    private int calmReadings;
+
+    public CacheMemoryGovernor(List<CacheManager> cacheManagers,
+                               MeterRegistry meterRegistry,
+                               @Value("${cache.governor.enabled:true}") boolean enabled,
+                               @Value("${cache.governor.high-occupancy:0.70}") double highOccupancy,
+                               @Value("${cache.governor.critical-occupancy:0.85}") double criticalOccupancy,
+                               @Value("${cache.governor.low-occupancy:0.50}") double lowOccupancy,
+                               @Value("${cache.governor.min-scale:0.10}") double minScale,
+                               @Value("${cache.governor.grow-after-gcs:3}") int growAfterGcs) {
+        this.enabled = enabled;
+        this.highOccupancy = highOccupancy;
+        this.criticalOccupancy = criticalOccupancy;
+        this.lowOccupancy = lowOccupancy;
+        this.minScale = minScale;
+        this.growAfterGcs = Math.max(1, growAfterGcs);
+        this.oldGen = findOldGen();
+        for (CacheManager manager : cacheManagers) {
+            for (String name : manager.getCacheNames()) {
+                Budget budget = Budget.of(manager.getCache(name));
+                if (budget != null) {
+                    budgets.add(budget);
+                }
+            }
+        }
+        this.shrinks = Counter.builder("cache.governor.adjustments").tag("direction", "shrink")
+                .description("Cache budget changes made by the heap-pressure governor")
+                .register(meterRegistry);
+        this.grows = Counter.builder("cache.governor.adjustments").tag("direction", "grow")
+                .description("Cache budget changes made by the heap-pressure governor")
+                .register(meterRegistry);
+        Gauge.builder("cache.governor.scale", this, g -> g.scale)
+                .description("Fraction of the configured cache byte budgets currently allowed")
+                .register(meterRegistry);
+        Gauge.builder("cache.governor.old.gen.occupancy", this, g -> g.lastOccupancy)
+                .description("Old-generation occupancy after the last collection of the pool")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (oldGen == null) {
+            log.warn("No old-generation memory pool found; cache budgets stay fixed");
+            return;
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+        log.info("Cache memory governor watching '{}' for {} caches", oldGen.getName(), budgets.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException ignored) {
+                // already removed
+            }
+        }
+        emitters.clear();
+    }
+
+    /** Runs on the JMX notification thread after each collection. */
+    private synchronized void onGc() {
+        MemoryUsage afterGc = oldGen.getCollectionUsage();
+        if (afterGc == null || afterGc.getUsed() == lastCollectionUsed) {
+            // the old generation has not been collected since the last reading
+            return;
+        }
+        lastCollectionUsed = afterGc.getUsed();
+        long max = afterGc.getMax() > 0 ? afterGc.getMax() : Runtime.getRuntime().maxMemory();
+        double occupancy = afterGc.getUsed() / (double) max;
+        lastOccupancy = occupancy;
+
+        double target = scale;
+        if (occupancy >= criticalOccupancy) {
+            target = minScale;
+            calmReadings = 0;
+        } else if (occupancy >= highOccupancy) {
+            target = Math.max(minScale, scale * SHRINK_FACTOR);
+            calmReadings = 0;
+        } else if (occupancy < lowOccupancy) {
+            if (++calmReadings >= growAfterGcs) {
+                target = Math.min(1.0, scale * GROW_FACTOR);
+                calmReadings = 0;
+            }
+        } else {
+            calmReadings = 0;
+        }
+        if (target != scale) {
+            applyScale(target, occupancy);
+        }
+    }
+
+    private void applyScale(double target, double occupancy) {
+        (target < scale ? shrinks : grows).increment();
+        log.info("Old gen at {}% after GC: cache budgets {} to {}% of configured",
+                Math.round(occupancy * 100), target < scale ? "shrunk" : "grown", Math.round(target * 100));
+        scale = target;
+        lastAdjustmentAt = Instant.now();
+        for (Budget budget : budgets) {
+            budget.setMaxBytes(Math.max(1, Math.round(budget.baseMaxBytes * target)));
+        }
+    }
+
+    /**
+     * Prefers the pool named old/tenured; single-pool collectors (ZGC without generations,
+     * Shenandoah) have one heap pool with collection usage, which is used instead.
+     */
+    private static MemoryPoolMXBean findOldGen() {
+        MemoryPoolMXBean onlyCollected = null;
+        int collected = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+            String name = pool.getName().toLowerCase();
+            if (name.contains("old") || name.contains("tenured")) {
+                return pool;
+            }
+            onlyCollected = pool;
+            collected++;
+        }
+        return collected == 1 ? onlyCollected : null;
+    }
+
+    /**
+     * Governor state and per-cache byte usage for the admin API.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+        long totalBytes = 0;
+        for (Budget budget : budgets) {
+            Map<String, Object> cache = new HashMap<>();
+            long weighted = budget.weightedBytes();
+            totalBytes += weighted;
+            cache.put("weightedBytes", weighted);
+            cache.put("maxBytes", budget.maxBytes());
+            cache.put("configuredMaxBytes", budget.baseMaxBytes);
+            cache.put("entries", budget.entries());
+            caches.put(budget.name, cache);
+        }
+        Map<String, Object> report = new HashMap<>();
+        report.put("enabled", enabled);
+        report.put("oldGenPool", oldGen != null ? oldGen.getName() : null);
+        report.put("oldGenOccupancyAfterGc", lastOccupancy);
+        report.put("highOccupancy", highOccupancy);
+        report.put("criticalOccupancy", criticalOccupancy);
+        report.put("lowOccupancy", lowOccupancy);
+        report.put("scale", scale);
+        report.put("shrinks", (long) shrinks.count());
+        report.put("grows", (long) grows.count());
+        report.put("lastAdjustmentAt", lastAdjustmentAt != null ? lastAdjustmentAt.toString() : null);
+        report.put("totalWeightedBytes", totalBytes);
+        report.put("caches", caches);
+        return report;
+    }
+
+    /** The byte-weighted on-heap limit of one cache. */
+    private abstract static class Budget {
+        final String name;
+        final long baseMaxBytes;
+
+        Budget(String name, long baseMaxBytes) {
+            this.name = name;
+            this.baseMaxBytes = baseMaxBytes;
+        }
+
+        abstract long weightedBytes();
+        abstract long maxBytes();
+        abstract long entries();
+        abstract void setMaxBytes(long maxBytes);
+
+        static Budget of(org.springframework.cache.Cache cache) {
+            if (cache instanceof TieredCache tiered) {
+                return new Budget(tiered.getName(), tiered.getL1MaxBytes()) {
+                    long weightedBytes() { return tiered.getL1WeightedBytes(); }
+                    long maxBytes() { return tiered.getL1MaxBytes(); }
+                    long entries() { return tiered.getL1Size(); }
+                    void setMaxBytes(long maxBytes) { tiered.setL1MaxBytes(maxBytes); }
+                };
+            }
+            if (cache instanceof CaffeineCache caffeine) {
+                var nativeCache = caffeine.getNativeCache();
+                var eviction = nativeCache.policy().eviction().orElse(null);
+                if (eviction == null || !eviction.isWeighted()) {
+                    return null;
+                }
+                return new Budget(caffeine.getName(), eviction.getMaximum()) {
+                    long weightedBytes() { return eviction.weightedSize().orElse(0); }
+                    long maxBytes() { return eviction.getMaximum(); }
+                    long entries() { return nativeCache.estimatedSize(); }
+                    void setMaxBytes(long maxBytes) { eviction.setMaximum(maxBytes); }
+                };
+            }
+            return null;
+        }
+    }
+}
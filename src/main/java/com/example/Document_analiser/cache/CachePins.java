@@ -0,0 +1,53 @@
+package com.example.Document_analiser.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Documents whose cache entries must stay cached.
+ *
+ * An entry is pinned when its {@link TaggedKey} carries the tag of a pinned document.
+ * Pinned entries weigh zero, so Caffeine never evicts them for size, and in a
+ * {@link TieredCache} they do not expire either. They are still evicted when the document
+ * changes ({@link CacheInvalidator}). Pinning is decided when an entry is written: after
+ * (un)pinning, the document's entries have to be evicted and loaded again.
+ *
+ * Initial pins come from {@code cache.pinned-documents}; the admin API changes them at runtime.
+ */
+@Component
+public class CachePins {
+
+    private final Set<Long> documentIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> tags = ConcurrentHashMap.newKeySet();
+
+    public CachePins(@Value("${cache.pinned-documents:}") List<Long> pinnedDocuments) {
+        for (Long documentId : pinnedDocuments) {
+            pin(documentId);
+        }
+    }
+
+    /** @return {@code false} if the document was already pinned */
+    public boolean pin(Long documentId) {
+        tags.add(CacheKeys.documentTag(documentId));
+        return documentIds.add(documentId);
+    }
+
+    /** @return {@code false} if the document was not pinned */
+    public boolean unpin(Long documentId) {
+        tags.remove(CacheKeys.documentTag(documentId));
+        return documentIds.remove(documentId);
+    }
+
+    public boolean isPinned(Object key) {
+        return !tags.isEmpty() && key instanceof TaggedKey taggedKey && taggedKey.hasAnyTag(tags);
+    }
+
+    public Set<Long> getPinnedDocumentIds() {
+        return new TreeSet<>(documentIds);
+    }
+}
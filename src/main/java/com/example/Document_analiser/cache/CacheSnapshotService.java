@@ -0,0 +1,482 @@
+package com.example.Document_analiser.cache;
+
+import com.example.Document_analiser.service.DocumentCatalogService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves selected tiered caches to a local file on graceful shutdown and loads them back,
+ * in the background, on the next start, so a rolling deploy does not start every node
+ * with cold caches at the same time.
+ *
+ * File layout (big-endian, {@link #SNAPSHOT_VERSION} 1):
+ * <pre>
+ * int magic "DACS", int snapshot version, int {@link CacheValueCodec#FORMAT_VERSION},
+ * long created-at millis, UTF embedding model,
+ * int n, n x (long document id, long version stamp),
+ * per cache: true, UTF cache name, per entry: true, long expires-at millis,
+ *            int tag count (-1 for a plain key), tags as UTF,
+ *            int length + encoded key, int length + encoded value; then false
+ * false, long CRC32 of everything before it
+ * </pre>
+ * Keys and values use {@link CacheValueCodec}, the same encoding as the off-heap tier, so
+ * values are written and restored as bytes without being decoded; restored entries go to
+ * L2 with their original expiry and are promoted on first use.
+ *
+ * A snapshot with another version, a bad checksum or older than {@code cache.snapshot.max-age}
+ * is ignored. An entry is restored only if what it was computed from is unchanged:
+ * <ul>
+ *   <li>{@code document:<id>} – the document still exists with the same version stamp
+ *       ({@link DocumentCatalogService#getVersionStamps()})</li>
+ *   <li>{@code documents}, {@code chunks}, {@code document:*} – all stamps are unchanged</li>
+ *   <li>{@code user:<name>} – never: other nodes may have added to the history meanwhile</li>
+ *   <li>plain keys (embeddings by text) – always, if the embedding model is the same</li>
+ * </ul>
+ * Tags invalidated while a restore runs are invalidated again once it finishes.
+ */
+@Component
+public class CacheSnapshotService implements TagInvalidationObserver {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSnapshotService.class);
+    private static final int MAGIC = 0x44414353;
+    /** Bumped whenever the file layout changes. */
+    public static final int SNAPSHOT_VERSION = 1;
+    private static final String EMBEDDINGS_CACHE = "embeddings";
+
+    private final Map<String, TieredCache> caches = new LinkedHashMap<>();
+    private final DocumentCatalogService documentCatalogService;
+    private final CacheInvalidator invalidator;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Path file;
+    private final boolean restoreOnStartup;
+    private final Duration maxAge;
+    private final String embeddingModel;
+
+    private final AtomicBoolean restoring = new AtomicBoolean();
+    private final Set<String> invalidatedDuringRestore = ConcurrentHashMap.newKeySet();
+    private volatile boolean allInvalidatedDuringRestore;
+    private final AtomicLong snapshotBytes = new AtomicLong();
+    private volatile Map<String, Object> lastSnapshot = Map.of("status", "NONE");
+    private volatile Map<String, Object> lastRestore = Map.of("status", "NONE");
+
+    public CacheSnapshotService(List<CacheManager> cacheManagers,
+                                DocumentCatalogService documentCatalogService,
+                                CacheInvalidator invalidator,
+                                MeterRegistry meterRegistry,
+                                @Value("${cache.snapshot.enabled:false}") boolean enabled,
+                                @Value("${cache.snapshot.file:./data/cache-snapshot.bin}") String file,
+                                @Value("${cache.snapshot.caches:relevantChunks,documentChunks,chunkStats,embeddings}") List<String> cacheNames,
+                                @Value("${cache.snapshot.restore-on-startup:true}") boolean restoreOnStartup,
+                                @Value("${cache.snapshot.max-age:6h}") Duration maxAge,
+                                @Value("${embedding.model}") String embeddingModel) {
+        this.documentCatalogService = documentCatalogService;
+        this.invalidator = invalidator;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.file = Paths.get(file);
+        this.restoreOnStartup = restoreOnStartup;
+        this.maxAge = maxAge;
+        this.embeddingModel = embeddingModel;
+        for (String name : cacheNames) {
+            for (CacheManager manager : cacheManagers) {
+                Cache cache = manager.getCache(name);
+                if (cache instanceof TieredCache tieredCache) {
+                    caches.put(name, tieredCache);
+                }
+            }
+            if (enabled && !caches.containsKey(name)) {
+                log.warn("Cache '{}' is not a tiered cache and is left out of snapshots", name);
+            }
+        }
+        Gauge.builder("cache.snapshot.bytes", snapshotBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .description("Size of the last written or restored cache snapshot")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void restoreInBackground() {
+        if (enabled && restoreOnStartup && Files.exists(file)) {
+            Thread.ofPlatform().name("cache-snapshot-restore").daemon(true).start(this::restore);
+        }
+    }
+
+    @PreDestroy
+    void snapshotOnShutdown() {
+        if (enabled) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Writes the selected caches to the snapshot file (through a temporary file, so a
+     * crash never leaves a partial snapshot).
+     */
+    public synchronized Map<String, Object> snapshot() {
+        long start = System.nanoTime();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        Map<String, Long> entriesPerCache = new LinkedHashMap<>();
+        long[] skipped = new long[1];
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            CRC32 crc = new CRC32();
+            try (DataOutputStream raw = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+                out.writeInt(MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(CacheValueCodec.FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeUTF(embeddingModel);
+                Map<Long, Long> stamps = documentCatalogService.getVersionStamps();
+                out.writeInt(stamps.size());
+                for (Map.Entry<Long, Long> stamp : stamps.entrySet()) {
+                    out.writeLong(stamp.getKey());
+                    out.writeLong(stamp.getValue());
+                }
+                for (TieredCache cache : caches.values()) {
+                    out.writeBoolean(true);
+                    out.writeUTF(cache.getName());
+                    long[] written = new long[1];
+                    try {
+                        skipped[0] += cache.forEachEncoded((key, value, expiresAtMillis) -> {
+                            if (writeEntry(out, key, value, expiresAtMillis)) {
+                                written[0]++;
+                            } else {
+                                skipped[0]++;
+                            }
+                        });
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                    out.writeBoolean(false);
+                    entriesPerCache.put(cache.getName(), written[0]);
+                }
+                out.writeBoolean(false);
+                out.flush();
+                raw.writeLong(crc.getValue());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long bytes = Files.size(file);
+            snapshotBytes.set(bytes);
+            long total = entriesPerCache.values().stream().mapToLong(Long::longValue).sum();
+            meterRegistry.counter("cache.snapshot.entries", "result", "written").increment(total);
+            report.put("status", "WRITTEN");
+            report.put("entries", total);
+            report.put("entriesPerCache", entriesPerCache);
+            report.put("skippedNotEncodable", skipped[0]);
+            report.put("bytes", bytes);
+            log.info("Wrote cache snapshot {} ({} entries, {} bytes)", file, total, bytes);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write cache snapshot {}: {}", file, e.getMessage());
+            report.put("status", "FAILED");
+            report.put("error", e.getMessage());
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // best effort
+            }
+        }
+        finish("write", start, report);
+        lastSnapshot = report;
+        return report;
+    }
+
+    private static boolean writeEntry(DataOutputStream out, Object key, byte[] value, long expiresAtMillis) {
+        Set<String> tags = key instanceof TaggedKey taggedKey ? taggedKey.getTags() : null;
+        byte[] keyBytes = CacheValueCodec.encode(key instanceof TaggedKey taggedKey ? taggedKey.getKey() : key);
+        if (keyBytes == null) {
+            return false;
+        }
+        try {
+            out.writeBoolean(true);
+            out.writeLong(expiresAtMillis);
+            out.writeInt(tags == null ? -1 : tags.size());
+            if (tags != null) {
+                for (String tag : tags) {
+                    out.writeUTF(tag);
+                }
+            }
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeInt(value.length);
+            out.write(value);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the snapshot file into L2 of the selected caches, dropping stale and expired
+     * entries.
+     */
+    public Map<String, Object> restore() {
+        if (!restoring.compareAndSet(false, true)) {
+            return lastRestore;
+        }
+        long start = System.nanoTime();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("status", "RUNNING");
+        lastRestore = report;
+        invalidatedDuringRestore.clear();
+        allInvalidatedDuringRestore = false;
+        Map<String, Long> results = new LinkedHashMap<>();
+        try {
+            long bytes = Files.size(file);
+            verifyChecksum(bytes);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                String rejected = readHeader(in);
+                if (rejected != null) {
+                    report.put("status", "REJECTED");
+                    report.put("reason", rejected);
+                    log.info("Ignoring cache snapshot {}: {}", file, rejected);
+                } else {
+                    String model = in.readUTF();
+                    Map<Long, Long> snapshotStamps = new HashMap<>();
+                    int stampCount = in.readInt();
+                    for (int i = 0; i < stampCount; i++) {
+                        snapshotStamps.put(in.readLong(), in.readLong());
+                    }
+                    Stamps stamps = new Stamps(snapshotStamps, documentCatalogService.getVersionStamps());
+                    while (in.readBoolean()) {
+                        String name = in.readUTF();
+                        TieredCache target = caches.get(name);
+                        boolean modelChanged = EMBEDDINGS_CACHE.equals(name) && !embeddingModel.equals(model);
+                        while (in.readBoolean()) {
+                            String result = restoreEntry(in, target, modelChanged, stamps);
+                            results.merge(result, 1L, Long::sum);
+                        }
+                    }
+                    snapshotBytes.set(bytes);
+                    report.put("status", "RESTORED");
+                    report.put("bytes", bytes);
+                    report.put("documentsChanged", !stamps.allUnchanged);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore cache snapshot {}: {}", file, e.getMessage());
+            report.put("status", "FAILED");
+            report.put("error", e.getMessage());
+        } finally {
+            restoring.set(false);
+            reapplyInvalidations();
+        }
+        results.forEach((result, count) ->
+                meterRegistry.counter("cache.snapshot.entries", "result", result).increment(count));
+        report.put("entries", results);
+        finish("restore", start, report);
+        lastRestore = report;
+        if ("RESTORED".equals(report.get("status"))) {
+            log.info("Restored cache snapshot {} in {} ms: {}", file, report.get("durationMs"), results);
+        }
+        return report;
+    }
+
+    /** @return the reason to reject the snapshot, or {@code null} if it can be used */
+    private String readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            return "not a cache snapshot";
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            return "snapshot version " + version + ", expected " + SNAPSHOT_VERSION;
+        }
+        int codecVersion = in.readInt();
+        if (codecVersion != CacheValueCodec.FORMAT_VERSION) {
+            return "value format version " + codecVersion + ", expected " + CacheValueCodec.FORMAT_VERSION;
+        }
+        long age = System.currentTimeMillis() - in.readLong();
+        if (age > maxAge.toMillis()) {
+            return "written " + Duration.ofMillis(age).toMinutes() + " minutes ago, max age " + maxAge;
+        }
+        return null;
+    }
+
+    /** @return the result counted in the report */
+    private static String restoreEntry(DataInputStream in, TieredCache target, boolean modelChanged,
+                                       Stamps stamps) throws IOException {
+        long expiresAtMillis = in.readLong();
+        int tagCount = in.readInt();
+        Set<String> tags = null;
+        if (tagCount >= 0) {
+            String[] read = new String[tagCount];
+            for (int i = 0; i < tagCount; i++) {
+                read[i] = in.readUTF();
+            }
+            tags = Set.of(read);
+        }
+        byte[] keyBytes = new byte[in.readInt()];
+        in.readFully(keyBytes);
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+
+        if (target == null) {
+            return "unknownCache";
+        }
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return "expired";
+        }
+        if (tags == null ? modelChanged : !stamps.valid(tags)) {
+            return "stale";
+        }
+        Object key;
+        try {
+            key = CacheValueCodec.decode(keyBytes);
+        } catch (RuntimeException e) {
+            return "undecodable";
+        }
+        if (tags != null) {
+            key = TaggedKey.of(key, tags);
+        }
+        return target.restore(key, value, expiresAtMillis) ? "restored" : "present";
+    }
+
+    private void verifyChecksum(long fileBytes) throws IOException {
+        if (fileBytes < Long.BYTES) {
+            throw new EOFException("snapshot file is truncated");
+        }
+        CRC32 crc = new CRC32();
+        long expected;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            byte[] buffer = new byte[1 << 16];
+            long remaining = fileBytes - Long.BYTES;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("snapshot file is truncated");
+                }
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+            expected = new DataInputStream(in).readLong();
+        }
+        if (crc.getValue() != expected) {
+            throw new IOException("snapshot checksum mismatch");
+        }
+    }
+
+    private void reapplyInvalidations() {
+        if (allInvalidatedDuringRestore) {
+            invalidator.invalidateAll();
+        } else if (!invalidatedDuringRestore.isEmpty()) {
+            invalidator.invalidate(Set.copyOf(invalidatedDuringRestore));
+        }
+        invalidatedDuringRestore.clear();
+    }
+
+    private void finish(String operation, long startNanos, Map<String, Object> report) {
+        Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+        meterRegistry.timer("cache.snapshot.time", "operation", operation).record(duration);
+        report.put("durationMs", duration.toMillis());
+    }
+
+    @Override
+    public void onInvalidated(Collection<String> tags) {
+        if (restoring.get()) {
+            invalidatedDuringRestore.addAll(tags);
+        }
+    }
+
+    @Override
+    public void onInvalidatedAll() {
+        if (restoring.get()) {
+            allInvalidatedDuringRestore = true;
+        }
+    }
+
+    /**
+     * Snapshot file, its size, the caches included and the results of the last write
+     * and restore.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        report.put("file", file.toAbsolutePath().toString());
+        long fileBytes = -1;
+        try {
+            fileBytes = Files.exists(file) ? Files.size(file) : -1;
+        } catch (IOException ignored) {
+            // reported as missing
+        }
+        report.put("fileBytes", fileBytes);
+        report.put("caches", caches.keySet());
+        report.put("lastSnapshot", lastSnapshot);
+        report.put("lastRestore", lastRestore);
+        return report;
+    }
+
+    /** Document version stamps at snapshot time and now. */
+    private static final class Stamps {
+        final Map<Long, Long> snapshot;
+        final Map<Long, Long> current;
+        final boolean allUnchanged;
+
+        Stamps(Map<Long, Long> snapshot, Map<Long, Long> current) {
+            this.snapshot = snapshot;
+            this.current = current;
+            this.allUnchanged = snapshot.equals(current);
+        }
+
+        boolean valid(Set<String> tags) {
+            for (String tag : tags) {
+                Long documentId = CacheKeys.documentIdOf(tag);
+                if (documentId != null) {
+                    Long stamp = current.get(documentId);
+                    if (stamp == null || !stamp.equals(snapshot.get(documentId))) {
+                        return false;
+                    }
+                } else if (!isAggregate(tag) || !allUnchanged) {
+                    // user tags and anything unknown
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isAggregate(String tag) {
+            return tag.equals(CacheKeys.DOCUMENT_LIST) || tag.equals(CacheKeys.CHUNK_AGGREGATES)
+                    || tag.equals(CacheKeys.ANY_DOCUMENT);
+        }
+    }
+}
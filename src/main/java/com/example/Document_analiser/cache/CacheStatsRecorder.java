@@ -0,0 +1,82 @@
+package com.example.Document_analiser.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caffeine {@link StatsCounter} that also keeps evictions per {@link RemovalCause}
+ * (size, expiry, collected), which {@link CacheStats} only reports as a total.
+ * One instance per cache, so the counts can be read back by cache name.
+ */
+public class CacheStatsRecorder implements StatsCounter {
+
+    private final ConcurrentStatsCounter delegate = new ConcurrentStatsCounter();
+    private final Map<RemovalCause, LongAdder> evictionsByCause = new EnumMap<>(RemovalCause.class);
+
+    public CacheStatsRecorder() {
+        for (RemovalCause cause : RemovalCause.values()) {
+            if (cause.wasEvicted()) {
+                evictionsByCause.put(cause, new LongAdder());
+            }
+        }
+    }
+
+    @Override
+    public void recordHits(int count) {
+        delegate.recordHits(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        delegate.recordMisses(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        delegate.recordLoadSuccess(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        delegate.recordLoadFailure(loadTime);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        delegate.recordEviction(weight, cause);
+        LongAdder counter = evictionsByCause.get(cause);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return delegate.snapshot();
+    }
+
+    public long evictionCount(RemovalCause cause) {
+        LongAdder counter = evictionsByCause.get(cause);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /** Eviction counts keyed by lower-case cause name. */
+    public Map<String, Long> evictionsByCause() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        evictionsByCause.forEach((cause, counter) -> counts.put(cause.name().toLowerCase(), counter.sum()));
+        return counts;
+    }
+
+    /** Causes that count as evictions (not explicit removals or replacements). */
+    public Set<RemovalCause> evictionCauses() {
+        return evictionsByCause.keySet();
+    }
+}
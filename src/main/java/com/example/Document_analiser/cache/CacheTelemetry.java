@@ -0,0 +1,251 @@
+package com.example.Document_analiser.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-cache telemetry for every Caffeine-backed cache of all cache managers.
+ *
+ * Spring Boot already binds the standard {@code cache.*} meters (gets, puts, evictions,
+ * size, load duration; see {@link TieredCacheMeterBinderProvider}). This binder adds what
+ * those lack: {@code cache.hit.ratio} (over both tiers for a tiered cache),
+ * {@code cache.evictions.by.cause{cause}}, and the estimated {@code cache.weighted.bytes}
+ * against the current {@code cache.max.bytes} budget. The same data, plus a sample of the
+ * hottest keys, is served through the cache admin API.
+ */
+@Component
+public class CacheTelemetry implements MeterBinder {
+
+    private static final int MAX_KEY_LENGTH = 120;
+    private static final int TYPE_SAMPLE_SIZE = 1000;
+
+    private final Map<String, View> views = new LinkedHashMap<>();
+
+    /**
+     * @param cacheManagers cache managers by bean name (used as the {@code cache.manager} tag)
+     */
+    public CacheTelemetry(Map<String, CacheManager> cacheManagers) {
+        cacheManagers.forEach((managerName, manager) -> {
+            for (String name : manager.getCacheNames()) {
+                View view = View.of(managerName, manager, manager.getCache(name));
+                if (view != null) {
+                    views.put(name, view);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (View view : views.values()) {
+            Gauge.builder("cache.hit.ratio", view, View::hitRatio)
+                    .tag("cache", view.name).tag("cache.manager", view.manager)
+                    .description("Hits over lookups (both tiers for a tiered cache)")
+                    .register(registry);
+            Gauge.builder("cache.weighted.bytes", view, View::weightedBytes)
+                    .tag("cache", view.name).tag("cache.manager", view.manager)
+                    .baseUnit("bytes")
+                    .description("Estimated heap bytes held by the cache")
+                    .register(registry);
+            Gauge.builder("cache.max.bytes", view, View::maxBytes)
+                    .tag("cache", view.name).tag("cache.manager", view.manager)
+                    .baseUnit("bytes")
+                    .description("Current byte budget of the cache")
+                    .register(registry);
+            if (view.recorder != null) {
+                for (RemovalCause cause : view.recorder.evictionCauses()) {
+                    FunctionCounter.builder("cache.evictions.by.cause", view.recorder, r -> r.evictionCount(cause))
+                            .tag("cache", view.name).tag("cache.manager", view.manager)
+                            .tag("cause", cause.name().toLowerCase())
+                            .description("Entries evicted from the cache, per cause")
+                            .register(registry);
+                }
+            }
+        }
+    }
+
+    public Collection<String> getCacheNames() {
+        return views.keySet();
+    }
+
+    /**
+     * Statistics of every cache, grouped by cache manager bean name.
+     */
+    public Map<String, Map<String, Object>> describeAll() {
+        Map<String, Map<String, Object>> byManager = new LinkedHashMap<>();
+        for (View view : views.values()) {
+            byManager.computeIfAbsent(view.manager, m -> new LinkedHashMap<>()).put(view.name, describe(view));
+        }
+        return byManager;
+    }
+
+    /** Statistics of one cache, or {@code null} if there is no such cache. */
+    public Map<String, Object> describe(String cacheName) {
+        View view = views.get(cacheName);
+        return view == null ? null : describe(view);
+    }
+
+    private Map<String, Object> describe(View view) {
+        CacheStats stats = view.nativeCache.stats();
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("manager", view.manager);
+        info.put("estimatedSize", view.nativeCache.estimatedSize());
+        info.put("weightedBytes", view.weightedBytes());
+        info.put("maxBytes", view.maxBytes());
+        info.put("hitCount", stats.hitCount());
+        info.put("missCount", stats.missCount());
+        info.put("hitRatio", view.hitRatio());
+        info.put("loadCount", stats.loadCount());
+        info.put("loadFailureCount", stats.loadFailureCount());
+        info.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        info.put("totalLoadMillis", stats.totalLoadTime() / 1_000_000);
+        info.put("evictionCount", stats.evictionCount());
+        info.put("evictionWeight", stats.evictionWeight());
+        if (view.recorder != null) {
+            info.put("evictionsByCause", view.recorder.evictionsByCause());
+        }
+        if (view.tiered != null) {
+            info.put("tiers", view.tiered.getStats());
+        }
+        return info;
+    }
+
+    /**
+     * The hottest on-heap entries of a cache (by Caffeine's frequency and recency
+     * estimate) and a breakdown of the value types in it.
+     *
+     * @return {@code null} if there is no such cache
+     */
+    public Map<String, Object> hotKeys(String cacheName, int limit) {
+        View view = views.get(cacheName);
+        if (view == null) {
+            return null;
+        }
+        Policy.Eviction<Object, ?> eviction = view.eviction();
+        List<Map<String, Object>> entries = new ArrayList<>();
+        if (eviction != null) {
+            eviction.hottest(limit).forEach((key, value) -> entries.add(describeEntry(key, value, view)));
+        }
+
+        Map<String, long[]> types = new HashMap<>();
+        int sampled = 0;
+        for (Map.Entry<Object, ?> entry : view.nativeCache.asMap().entrySet()) {
+            if (sampled++ >= TYPE_SAMPLE_SIZE) {
+                break;
+            }
+            Object value = TieredCache.unwrapL1Value(entry.getValue());
+            long[] countAndBytes = types.computeIfAbsent(typeOf(value), t -> new long[2]);
+            countAndBytes[0]++;
+            countAndBytes[1] += CacheValueSizer.weigh(entry.getKey(), value);
+        }
+        Map<String, Object> valueTypes = new LinkedHashMap<>();
+        types.forEach((type, countAndBytes) -> valueTypes.put(type,
+                Map.of("entries", countAndBytes[0], "estimatedBytes", countAndBytes[1])));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cache", cacheName);
+        result.put("estimatedSize", view.nativeCache.estimatedSize());
+        result.put("weightedBytes", view.weightedBytes());
+        result.put("hottest", entries);
+        result.put("valueTypes", valueTypes);
+        result.put("valueTypesSampled", Math.min(sampled, TYPE_SAMPLE_SIZE));
+        return result;
+    }
+
+    private static Map<String, Object> describeEntry(Object key, Object l1Value, View view) {
+        Object value = TieredCache.unwrapL1Value(l1Value);
+        Map<String, Object> entry = new LinkedHashMap<>();
+        String keyText = String.valueOf(key);
+        entry.put("key", keyText.length() > MAX_KEY_LENGTH ? keyText.substring(0, MAX_KEY_LENGTH) + "…" : keyText);
+        if (key instanceof TaggedKey taggedKey) {
+            entry.put("tags", taggedKey.getTags());
+        }
+        entry.put("valueType", typeOf(value));
+        entry.put("estimatedBytes", CacheValueSizer.weigh(key, value));
+        return entry;
+    }
+
+    /** Simple class name; collections also name the type of their first element. */
+    private static String typeOf(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof org.springframework.data.domain.Page<?> page) {
+            return "Page<" + elementType(page.getContent()) + ">";
+        }
+        if (value instanceof Collection<?> collection) {
+            return value.getClass().getSimpleName() + "<" + elementType(collection) + ">";
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private static String elementType(Collection<?> collection) {
+        Object first = collection.isEmpty() ? null : collection.iterator().next();
+        return first == null ? "?" : first.getClass().getSimpleName();
+    }
+
+    /** A Spring cache resolved to its Caffeine cache and statistics recorder. */
+    private static final class View {
+        final String name;
+        final String manager;
+        final com.github.benmanes.caffeine.cache.Cache<Object, ?> nativeCache;
+        final CacheStatsRecorder recorder;
+        final TieredCache tiered;
+
+        private View(String name, String manager, com.github.benmanes.caffeine.cache.Cache<Object, ?> nativeCache,
+                     CacheStatsRecorder recorder, TieredCache tiered) {
+            this.name = name;
+            this.manager = manager;
+            this.nativeCache = nativeCache;
+            this.recorder = recorder;
+            this.tiered = tiered;
+        }
+
+        static View of(String managerName, CacheManager manager, Cache cache) {
+            if (cache instanceof TieredCache tieredCache) {
+                return new View(cache.getName(), managerName, tieredCache.getL1Cache(),
+                        tieredCache.getStatsRecorder(), tieredCache);
+            }
+            if (cache instanceof CaffeineCache caffeineCache) {
+                CacheStatsRecorder recorder = manager instanceof WeightedCaffeineCacheManager weighted
+                        ? weighted.getStatsRecorder(cache.getName()) : null;
+                return new View(cache.getName(), managerName, caffeineCache.getNativeCache(), recorder, null);
+            }
+            return null;
+        }
+
+        Policy.Eviction<Object, ?> eviction() {
+            return nativeCache.policy().eviction().orElse(null);
+        }
+
+        double hitRatio() {
+            return tiered != null ? tiered.getHitRate() : nativeCache.stats().hitRate();
+        }
+
+        long weightedBytes() {
+            Policy.Eviction<Object, ?> eviction = eviction();
+            return eviction == null ? 0 : eviction.weightedSize().orElse(0);
+        }
+
+        long maxBytes() {
+            Policy.Eviction<Object, ?> eviction = eviction();
+            return eviction == null || !eviction.isWeighted() ? 0 : eviction.getMaximum();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.Document_analiser.cache;
+
+import com.example.Document_analiser.dto.QuestionHistoryDto;
+import com.example.Document_analiser.entity.Document;
+import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.service.QueryOptimizationService;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of cached values for the off-heap tier.
+ *
+ * Each value is a one-byte type tag followed by its fields; strings are length-prefixed
+ * UTF-8 and embeddings are raw floats (4 bytes per dimension instead of an object per
+ * element). Only the types the application caches are supported: {@link #encode} returns
+ * {@code null} for anything else and such values simply stay in the on-heap tier.
+ *
+ * Entities are encoded with the columns read from the cache (a chunk keeps only the id
+ * of its document), so decoded instances are detached and lazy associations are absent.
+ */
+public final class CacheValueCodec {
+
+    /** Bumped whenever the encoding of a type changes. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte NULL_VALUE = 1;
+    private static final byte STRING = 2;
+    private static final byte LONG = 3;
+    private static final byte INTEGER = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte FLOAT_ARRAY = 7;
+    private static final byte LIST = 8;
+    private static final byte LOCAL_DATE_TIME = 9;
+    private static final byte DOCUMENT_CHUNK = 10;
+    private static final byte CHUNK_STATISTICS = 11;
+    private static final byte QUESTION_HISTORY = 12;
+    private static final byte PAGE = 13;
+
+    private CacheValueCodec() {}
+
+    /**
+     * @return the encoded value, or {@code null} if the value (or something inside it)
+     *         has no binary encoding
+     */
+    public static byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (!write(out, value)) {
+                return null;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode cache value", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Decodes a value produced by {@link #encode}. */
+    public static Object decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt cache value", e);
+        }
+    }
+
+    private static boolean write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof NullValue) {
+            out.writeByte(NULL_VALUE);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INTEGER);
+            out.writeInt(i);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof float[] floats) {
+            out.writeByte(FLOAT_ARRAY);
+            writeFloats(out, floats);
+        } else if (value instanceof LocalDateTime time) {
+            out.writeByte(LOCAL_DATE_TIME);
+            writeTime(out, time);
+        } else if (value instanceof DocumentChunk chunk) {
+            out.writeByte(DOCUMENT_CHUNK);
+            writeNullableLong(out, chunk.getId());
+            out.writeInt(chunk.getChunkIndex());
+            writeString(out, chunk.getContent());
+            writeFloats(out, chunk.getEmbedding());
+            writeNullableLong(out, chunk.getDocument() != null ? chunk.getDocument().getId() : null);
+        } else if (value instanceof QueryOptimizationService.ChunkStatistics stats) {
+            out.writeByte(CHUNK_STATISTICS);
+            out.writeLong(stats.getTotalChunks());
+            out.writeLong(stats.getDocumentsWithChunks());
+            out.writeDouble(stats.getAvgChunksPerDocument());
+        } else if (value instanceof QuestionHistoryDto dto) {
+            out.writeByte(QUESTION_HISTORY);
+            writeString(out, dto.getQuestionText());
+            writeString(out, dto.getAnswerText());
+            writeTime(out, dto.getAskedAt());
+            writeTime(out, dto.getAnsweredAt());
+            writeNullableLong(out, dto.getDocumentId());
+            writeString(out, dto.getDocumentName());
+            writeString(out, dto.getTopic());
+        } else if (value instanceof Page<?> page) {
+            out.writeByte(PAGE);
+            out.writeInt(page.getNumber());
+            out.writeInt(page.getSize());
+            out.writeLong(page.getTotalElements());
+            List<Sort.Order> orders = page.getSort().toList();
+            out.writeInt(orders.size());
+            for (Sort.Order order : orders) {
+                writeString(out, order.getProperty());
+                out.writeBoolean(order.isAscending());
+            }
+            return writeList(out, page.getContent());
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            return writeList(out, list);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean writeList(DataOutputStream out, List<?> list) throws IOException {
+        out.writeInt(list.size());
+        for (Object element : list) {
+            if (!write(out, element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object read(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case NULL_VALUE:
+                return NullValue.INSTANCE;
+            case STRING:
+                return readString(in);
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return in.readInt();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case FLOAT_ARRAY:
+                return readFloats(in);
+            case LOCAL_DATE_TIME:
+                return readTime(in);
+            case DOCUMENT_CHUNK: {
+                DocumentChunk chunk = new DocumentChunk();
+                chunk.setId(readNullableLong(in));
+                chunk.setChunkIndex(in.readInt());
+                chunk.setContent(readString(in));
+                chunk.setEmbedding(readFloats(in));
+                Long documentId = readNullableLong(in);
+                if (documentId != null) {
+                    Document document = new Document();
+                    document.setId(documentId);
+                    chunk.setDocument(document);
+                }
+                return chunk;
+            }
+            case CHUNK_STATISTICS:
+                return new QueryOptimizationService.ChunkStatistics(in.readLong(), in.readLong(), in.readDouble());
+            case QUESTION_HISTORY: {
+                QuestionHistoryDto dto = new QuestionHistoryDto();
+                dto.setQuestionText(readString(in));
+                dto.setAnswerText(readString(in));
+                dto.setAskedAt(readTime(in));
+                dto.setAnsweredAt(readTime(in));
+                dto.setDocumentId(readNullableLong(in));
+                dto.setDocumentName(readString(in));
+                dto.setTopic(readString(in));
+                return dto;
+            }
+            case PAGE: {
+                int number = in.readInt();
+                int size = in.readInt();
+                long total = in.readLong();
+                int orderCount = in.readInt();
+                List<Sort.Order> orders = new ArrayList<>(orderCount);
+                for (int i = 0; i < orderCount; i++) {
+                    String property = readString(in);
+                    orders.add(in.readBoolean() ? Sort.Order.asc(property) : Sort.Order.desc(property));
+                }
+                List<Object> content = readList(in);
+                return new PageImpl<>(content, PageRequest.of(number, Math.max(1, size), Sort.by(orders)), total);
+            }
+            case LIST:
+                return readList(in);
+            default:
+                throw new IOException("Unknown cache value tag " + tag);
+        }
+    }
+
+    private static List<Object> readList(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(read(in));
+        }
+        return list;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] floats) throws IOException {
+        if (floats == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(floats.length);
+        for (float f : floats) {
+            out.writeFloat(f);
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        float[] floats = new float[length];
+        for (int i = 0; i < length; i++) {
+            floats[i] = in.readFloat();
+        }
+        return floats;
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.Document_analiser.cache;
+
+import com.example.Document_analiser.dto.QuestionHistoryDto;
+import com.example.Document_analiser.entity.Document;
+import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.service.QueryOptimizationService;
+import org.hibernate.Hibernate;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.Page;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimates the heap bytes retained by a cached value, for byte-weighted cache limits.
+ *
+ * The estimate assumes a 64-bit JVM with compressed oops and counts strings as UTF-16
+ * (document text is mostly Cyrillic, which does not fit the compact Latin-1 form). It
+ * follows only what the cache entry keeps alive: a chunk's parent document is shared with
+ * other entries and is not counted, and lazy entity fields or collections that were never
+ * loaded are counted as their proxy only, so estimating never triggers a database load.
+ */
+public final class CacheValueSizer {
+
+    /** Object header plus a few fields: the floor for any value of an unknown type. */
+    static final int UNKNOWN_OBJECT_BYTES = 64;
+
+    /** Caffeine node, {@link TieredCache}'s entry wrapper and the map slot for one key. */
+    static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_SHELL = 40;
+    private static final int ARRAY_HEADER = 16;
+
+    private CacheValueSizer() {}
+
+    /** Caffeine weight of a key/value pair: estimated bytes, capped at {@code int}. */
+    public static int weigh(Object key, Object value) {
+        long bytes = ENTRY_OVERHEAD_BYTES + estimate(key) + estimate(value);
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    /** Estimated retained bytes of the value. */
+    public static long estimate(Object value) {
+        if (value == null || value instanceof NullValue) {
+            return 0;
+        }
+        if (!Hibernate.isInitialized(value)) {
+            return UNKNOWN_OBJECT_BYTES;
+        }
+        if (value instanceof String s) {
+            return string(s);
+        }
+        if (value instanceof TaggedKey taggedKey) {
+            return OBJECT_HEADER + 8 + estimate(taggedKey.getKey()) + estimate(taggedKey.getTags());
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return OBJECT_HEADER + 8;
+        }
+        if (value instanceof float[] floats) {
+            return align(ARRAY_HEADER + 4L * floats.length);
+        }
+        if (value instanceof byte[] bytes) {
+            return align(ARRAY_HEADER + (long) bytes.length);
+        }
+        if (value instanceof LocalDateTime) {
+            return 72;
+        }
+        if (value instanceof DocumentChunk chunk) {
+            return OBJECT_HEADER + 32
+                    + (Hibernate.isPropertyInitialized(chunk, "content") ? string(chunk.getContent()) : 0)
+                    + (chunk.getEmbedding() != null ? estimate(chunk.getEmbedding()) : 0);
+        }
+        if (value instanceof Document document) {
+            long bytes = OBJECT_HEADER + 40 + string(document.getName()) + string(document.getType()) + 72;
+            if (Hibernate.isPropertyInitialized(document, "content")) {
+                bytes += string(document.getContent());
+            }
+            if (document.getChunks() != null && Hibernate.isInitialized(document.getChunks())) {
+                bytes += estimate(document.getChunks());
+            }
+            return bytes;
+        }
+        if (value instanceof QuestionHistoryDto dto) {
+            return OBJECT_HEADER + 32 + string(dto.getQuestionText()) + string(dto.getAnswerText())
+                    + string(dto.getDocumentName()) + string(dto.getTopic()) + 2 * 72 + 24;
+        }
+        if (value instanceof QueryOptimizationService.ChunkStatistics) {
+            return OBJECT_HEADER + 24;
+        }
+        if (value instanceof Page<?> page) {
+            return 2 * UNKNOWN_OBJECT_BYTES + estimate(page.getContent());
+        }
+        if (value instanceof Collection<?> collection) {
+            long bytes = 40 + align(ARRAY_HEADER + (long) REFERENCE * collection.size());
+            for (Object element : collection) {
+                bytes += estimate(element);
+            }
+            return bytes;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long bytes = 48 + align(ARRAY_HEADER + (long) REFERENCE * map.size()) + 32L * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return bytes;
+        }
+        return UNKNOWN_OBJECT_BYTES;
+    }
+
+    private static long string(String s) {
+        return s == null ? 0 : STRING_SHELL + align(2L * s.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
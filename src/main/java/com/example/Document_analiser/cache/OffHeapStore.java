@@ -0,0 +1,243 @@
+package com.example.Document_analiser.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Byte-bounded LRU store whose values live in direct (off-heap) buffers.
+ *
+ * Only the keys and small buffer headers stay on the Java heap, so large values (encoded
+ * embeddings, chunk lists) do not add to GC work. When adding an entry would exceed
+ * {@code maxBytes}, the least recently used entries are dropped. Entries also carry an
+ * absolute expiry time. Direct memory is bounded by {@code -XX:MaxDirectMemorySize}
+ * (defaults to the max heap size). Each entry is its own direct buffer, released only
+ * when the garbage collector clears it, so under churn the direct memory in use can run
+ * above {@code maxBytes}; keep the combined capacity of all stores well below the limit.
+ */
+public class OffHeapStore {
+
+    private static final long PURGE_INTERVAL_MS = 60_000;
+
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Object, Slot> slots = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+    private final LongAdder evictions = new LongAdder();
+    private long lastPurgeMillis = System.currentTimeMillis();
+
+    public OffHeapStore(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Stores the bytes; values larger than the whole store are rejected.
+     *
+     * @return {@code true} if stored
+     */
+    public boolean put(Object key, byte[] value, long expiresAtMillis) {
+        return store(key, value, expiresAtMillis, false);
+    }
+
+    /**
+     * Stores the bytes unless the key is present already.
+     *
+     * @return {@code true} if stored
+     */
+    public boolean putIfAbsent(Object key, byte[] value, long expiresAtMillis) {
+        return store(key, value, expiresAtMillis, true);
+    }
+
+    private boolean store(Object key, byte[] value, long expiresAtMillis, boolean onlyIfAbsent) {
+        if (value.length > maxBytes) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(value.length);
+        buffer.put(value).flip();
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastPurgeMillis > PURGE_INTERVAL_MS) {
+                lastPurgeMillis = now;
+                purgeExpiredLocked(now);
+            }
+            if (onlyIfAbsent && slots.containsKey(key)) {
+                return false;
+            }
+            Slot previous = slots.put(key, new Slot(buffer, expiresAtMillis));
+            if (previous != null) {
+                usedBytes -= previous.buffer.capacity();
+            }
+            usedBytes += value.length;
+            Iterator<Map.Entry<Object, Slot>> eldest = slots.entrySet().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<Object, Slot> entry = eldest.next();
+                usedBytes -= entry.getValue().buffer.capacity();
+                eldest.remove();
+                evictions.increment();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes and returns the value, or {@code null} if absent or expired. */
+    public Stored take(Object key) {
+        Slot slot;
+        lock.lock();
+        try {
+            slot = slots.remove(key);
+            if (slot == null) {
+                return null;
+            }
+            usedBytes -= slot.buffer.capacity();
+        } finally {
+            lock.unlock();
+        }
+        if (slot.expiresAtMillis <= System.currentTimeMillis()) {
+            return null;
+        }
+        byte[] value = new byte[slot.buffer.capacity()];
+        slot.buffer.duplicate().get(value);
+        return new Stored(value, slot.expiresAtMillis);
+    }
+
+    /** Copies the value without removing it, or returns {@code null} if absent or expired. */
+    public Stored peek(Object key) {
+        lock.lock();
+        try {
+            Slot slot = slots.get(key);
+            if (slot == null || slot.expiresAtMillis <= System.currentTimeMillis()) {
+                return null;
+            }
+            byte[] value = new byte[slot.buffer.capacity()];
+            slot.buffer.duplicate().get(value);
+            return new Stored(value, slot.expiresAtMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Keys that match, in least recently used order (values can be read with {@link #peek}). */
+    public List<Object> keys(Predicate<Object> keyPredicate) {
+        lock.lock();
+        try {
+            List<Object> keys = new ArrayList<>();
+            for (Object key : slots.keySet()) {
+                if (keyPredicate.test(key)) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Object key) {
+        lock.lock();
+        try {
+            Slot slot = slots.remove(key);
+            if (slot != null) {
+                usedBytes -= slot.buffer.capacity();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes every entry whose key matches. */
+    public void removeIf(Predicate<Object> keyPredicate) {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Object, Slot>> it = slots.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Object, Slot> entry = it.next();
+                if (keyPredicate.test(entry.getKey())) {
+                    usedBytes -= entry.getValue().buffer.capacity();
+                    it.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drops expired entries (also done at most once a minute from {@link #put}). */
+    public void purgeExpired() {
+        lock.lock();
+        try {
+            purgeExpiredLocked(System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void purgeExpiredLocked(long now) {
+        Iterator<Map.Entry<Object, Slot>> it = slots.entrySet().iterator();
+        while (it.hasNext()) {
+            Slot slot = it.next().getValue();
+            if (slot.expiresAtMillis <= now) {
+                usedBytes -= slot.buffer.capacity();
+                it.remove();
+            }
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /** A value copied back onto the heap, with its expiry time. */
+    public static final class Stored {
+        private final byte[] bytes;
+        private final long expiresAtMillis;
+
+        Stored(byte[] bytes, long expiresAtMillis) {
+            this.bytes = bytes;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public byte[] getBytes() { return bytes; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    private static final class Slot {
+        final ByteBuffer buffer;
+        final long expiresAtMillis;
+
+        Slot(ByteBuffer buffer, long expiresAtMillis) {
+            this.buffer = buffer;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
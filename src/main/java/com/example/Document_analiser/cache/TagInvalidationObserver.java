@@ -0,0 +1,16 @@
+package com.example.Document_analiser.cache;
+
+import java.util.Collection;
+
+/**
+ * Keeps derived state other than Spring caches in step with {@link CacheInvalidator}:
+ * notified of every tag invalidation, whether it originated on this node or arrived over
+ * the {@link CacheCoherenceBus}.
+ */
+public interface TagInvalidationObserver {
+
+    void onInvalidated(Collection<String> tags);
+
+    /** Invalidations may have been missed; everything derived has to be reloaded. */
+    void onInvalidatedAll();
+}
@@ -0,0 +1,66 @@
+package com.example.Document_analiser.cache;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cache key carrying the invalidation tags of its entry (e.g. {@code document:42},
+ * {@code user:alice}). Equality is by the plain key only; the tags are derived from the
+ * same method arguments, so equal keys always carry equal tags.
+ *
+ * Built by {@link CacheKeys} from {@code @Cacheable} key expressions and matched by
+ * {@link CacheInvalidator}.
+ */
+public final class TaggedKey {
+
+    private final Object key;
+    private final Set<String> tags;
+
+    private TaggedKey(Object key, Set<String> tags) {
+        this.key = key;
+        this.tags = tags;
+    }
+
+    public static TaggedKey of(Object key, String... tags) {
+        return new TaggedKey(key, Set.of(tags));
+    }
+
+    public static TaggedKey of(Object key, Collection<String> tags) {
+        return new TaggedKey(key, Set.copyOf(tags));
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public boolean hasAnyTag(Collection<String> candidates) {
+        for (String tag : candidates) {
+            if (tags.contains(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaggedKey other)) return false;
+        return Objects.equals(key, other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,422 @@
+package com.example.Document_analiser.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with two tiers:
+ * L1 is an on-heap Caffeine cache holding live objects, bounded by the retained bytes
+ * estimated by {@link CacheValueSizer}; L2 a byte-bounded {@link OffHeapStore} holding
+ * values encoded by {@link CacheValueCodec}.
+ *
+ * Entries evicted from L1 for size are demoted to L2; an L1 miss that hits L2 decodes
+ * the value and promotes it back (the tiers are exclusive). An entry keeps its original
+ * expiry time across both tiers. Values without a binary encoding live in L1 only.
+ * The L1 byte budget can be changed at runtime ({@link #setL1MaxBytes}); shrinking it
+ * demotes the evicted entries like any other size eviction. Entries pinned by
+ * {@link CachePins} weigh nothing and never expire, so they stay in L1.
+ *
+ * Every operation that moves a key between the tiers or drops it runs inside the L1
+ * map's per-key atomic section: demotion is an eviction listener (called while the
+ * evicted entry is still locked), and promotion, put and evict use
+ * {@code asMap().compute}. A concurrent evict can therefore never be undone by a
+ * demotion or promotion of the old value.
+ *
+ * {@link #forEachEncoded} and {@link #restore} let {@link CacheSnapshotService} save the
+ * encoded entries of both tiers and load them back into L2.
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredCache.class);
+
+    private final String name;
+    private final Cache<Object, Entry> l1;
+    private final OffHeapStore l2;
+    private final long ttlMillis;
+    private final CachePins pins;
+    private final CacheStatsRecorder statsRecorder = new CacheStatsRecorder();
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder demotions = new LongAdder();
+    private final LongAdder notEncodable = new LongAdder();
+
+    /**
+     * @param l1MaxBytes   estimated heap bytes the on-heap tier may retain
+     * @param ttl          time to live from the write, in either tier
+     * @param l2           off-heap tier, possibly shared with other caches of the manager
+     * @param pins         pinned documents
+     */
+    public TieredCache(String name, long l1MaxBytes, Duration ttl, OffHeapStore l2, CachePins pins,
+                       boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.l2 = l2;
+        this.ttlMillis = ttl.toMillis();
+        this.pins = pins;
+        this.l1 = Caffeine.newBuilder()
+                .maximumWeight(l1MaxBytes)
+                .weigher((Object key, Entry entry) -> pins.isPinned(key) ? 0 : CacheValueSizer.weigh(key, entry.value))
+                .expireAfter(new RemainingTtl(pins))
+                .evictionListener((Object key, Entry entry, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && key != null && entry != null) {
+                        demote(key, entry);
+                    }
+                })
+                .recordStats(() -> statsRecorder)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry = l1.getIfPresent(key);
+        if (entry != null) {
+            l1Hits.increment();
+            return entry.value;
+        }
+        entry = promote(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        Entry entry = l1.get(key, k -> {
+            loaded[0] = true;
+            Entry fromL2 = promoteFromL2(k);
+            if (fromL2 != null) {
+                l2Hits.increment();
+                return fromL2;
+            }
+            misses.increment();
+            try {
+                return new Entry(toStoreValue(valueLoader.call()), System.currentTimeMillis() + ttlMillis);
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+        });
+        if (!loaded[0]) {
+            l1Hits.increment();
+        }
+        return (T) fromStoreValue(entry.value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Entry entry = new Entry(toStoreValue(value), System.currentTimeMillis() + ttlMillis);
+        l1.asMap().compute(key, (k, existing) -> {
+            l2.remove(new L2Key(name, k));
+            return entry;
+        });
+    }
+
+    @Override
+    public void evict(Object key) {
+        l1.asMap().compute(key, (k, existing) -> {
+            l2.remove(new L2Key(name, k));
+            return null;
+        });
+    }
+
+    @Override
+    public void clear() {
+        l1.invalidateAll();
+        l2.removeIf(k -> k instanceof L2Key l2Key && l2Key.cacheName.equals(name));
+    }
+
+    /**
+     * Evicts every entry (in both tiers) whose key matches. L1 keys are collected first:
+     * an entry demoted meanwhile is still evicted from L2 by its key.
+     */
+    public void evictIf(Predicate<Object> keyPredicate) {
+        Set<Object> keys = new HashSet<>();
+        for (Object key : l1.asMap().keySet()) {
+            if (keyPredicate.test(key)) {
+                keys.add(key);
+            }
+        }
+        for (Object k : l2.keys(k -> k instanceof L2Key l2Key && l2Key.cacheName.equals(name)
+                && keyPredicate.test(l2Key.key))) {
+            keys.add(((L2Key) k).key);
+        }
+        keys.forEach(this::evict);
+    }
+
+    /**
+     * Promotes a value from L2 into L1; returns the L1 value instead if a concurrent
+     * put or load got there first.
+     */
+    private Entry promote(Object key) {
+        return l1.asMap().compute(key, (k, existing) -> {
+            if (existing != null) {
+                l1Hits.increment();
+                return existing;
+            }
+            Entry fromL2 = promoteFromL2(k);
+            if (fromL2 != null) {
+                l2Hits.increment();
+            }
+            return fromL2;
+        });
+    }
+
+    private Entry promoteFromL2(Object key) {
+        OffHeapStore.Stored stored = l2.take(new L2Key(name, key));
+        if (stored == null) {
+            return null;
+        }
+        try {
+            return new Entry(CacheValueCodec.decode(stored.getBytes()), stored.getExpiresAtMillis());
+        } catch (RuntimeException e) {
+            log.warn("Dropping undecodable L2 entry of cache '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void demote(Object key, Entry entry) {
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        byte[] bytes = encode(entry);
+        if (bytes == null) {
+            notEncodable.increment();
+            return;
+        }
+        if (l2.put(new L2Key(name, key), bytes, entry.expiresAtMillis)) {
+            demotions.increment();
+        }
+    }
+
+    private byte[] encode(Entry entry) {
+        try {
+            return CacheValueCodec.encode(entry.value);
+        } catch (RuntimeException e) {
+            // e.g. a lazy entity field that can no longer be loaded
+            log.debug("Could not encode value of cache '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Visits the unexpired entries of both tiers with their encoded value; entries without
+     * an encoding are skipped.
+     *
+     * @return the number of entries skipped for having no encoding
+     */
+    public int forEachEncoded(EncodedEntryVisitor visitor) {
+        long now = System.currentTimeMillis();
+        int skipped = 0;
+        for (Map.Entry<Object, Entry> e : l1.asMap().entrySet()) {
+            if (e.getValue().expiresAtMillis <= now) {
+                continue;
+            }
+            byte[] bytes = encode(e.getValue());
+            if (bytes == null) {
+                skipped++;
+            } else {
+                visitor.visit(e.getKey(), bytes, e.getValue().expiresAtMillis);
+            }
+        }
+        for (Object k : l2.keys(k -> k instanceof L2Key l2Key && l2Key.cacheName.equals(name))) {
+            OffHeapStore.Stored stored = l2.peek(k);
+            if (stored != null) {
+                visitor.visit(((L2Key) k).key, stored.getBytes(), stored.getExpiresAtMillis());
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Adds an encoded entry to L2 unless the key is cached in either tier already (a live
+     * entry is never older than a restored one).
+     *
+     * @return {@code true} if added
+     */
+    public boolean restore(Object key, byte[] value, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return false;
+        }
+        boolean[] added = new boolean[1];
+        l1.asMap().compute(key, (k, existing) -> {
+            if (existing == null) {
+                added[0] = l2.putIfAbsent(new L2Key(name, k), value, expiresAtMillis);
+            }
+            return existing;
+        });
+        return added[0];
+    }
+
+    /** Receives entries from {@link #forEachEncoded}. */
+    @FunctionalInterface
+    public interface EncodedEntryVisitor {
+        void visit(Object key, byte[] value, long expiresAtMillis);
+    }
+
+    /** The on-heap tier; its values are wrapped, see {@link #unwrapL1Value}. */
+    public Cache<Object, ?> getL1Cache() {
+        return l1;
+    }
+
+    /** Caffeine statistics of L1, with evictions per cause. */
+    public CacheStatsRecorder getStatsRecorder() {
+        return statsRecorder;
+    }
+
+    /** The cached value inside an L1 value of {@link #getL1Cache()}. */
+    public static Object unwrapL1Value(Object l1Value) {
+        return l1Value instanceof Entry entry ? entry.value : l1Value;
+    }
+
+    public long getL1Hits() { return l1Hits.sum(); }
+    public long getL2Hits() { return l2Hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getL1Size() { return l1.estimatedSize(); }
+
+    /** Estimated heap bytes currently held by L1. */
+    public long getL1WeightedBytes() {
+        return l1.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    public long getL1MaxBytes() {
+        return l1.policy().eviction().map(e -> e.getMaximum()).orElse(0L);
+    }
+
+    /** Changes the L1 byte budget; entries over the new budget are demoted to L2. */
+    public void setL1MaxBytes(long maxBytes) {
+        l1.policy().eviction().ifPresent(e -> e.setMaximum(maxBytes));
+    }
+
+    /** Hits in L1 over all lookups. */
+    public double getL1HitRate() {
+        long total = l1Hits.sum() + l2Hits.sum() + misses.sum();
+        return total == 0 ? 0 : l1Hits.sum() / (double) total;
+    }
+
+    /** Hits in L2 over the lookups that missed L1. */
+    public double getL2HitRate() {
+        long reached = l2Hits.sum() + misses.sum();
+        return reached == 0 ? 0 : l2Hits.sum() / (double) reached;
+    }
+
+    /** Hits in either tier over all lookups. */
+    public double getHitRate() {
+        long total = l1Hits.sum() + l2Hits.sum() + misses.sum();
+        return total == 0 ? 0 : (l1Hits.sum() + l2Hits.sum()) / (double) total;
+    }
+
+    /**
+     * Per-tier statistics for the admin API.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("l1Size", getL1Size());
+        stats.put("l1WeightedBytes", getL1WeightedBytes());
+        stats.put("l1MaxBytes", getL1MaxBytes());
+        stats.put("l1Hits", getL1Hits());
+        stats.put("l2Hits", getL2Hits());
+        stats.put("misses", getMisses());
+        stats.put("l1HitRate", getL1HitRate());
+        stats.put("l2HitRate", getL2HitRate());
+        stats.put("hitRate", getHitRate());
+        stats.put("demotedToL2", demotions.sum());
+        stats.put("notEncodable", notEncodable.sum());
+        return stats;
+    }
+
+    /** A cached value with the absolute time it expires. */
+    private static final class Entry {
+        final Object value;
+        final long expiresAtMillis;
+
+        Entry(Object value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * Expires L1 entries at their absolute expiry time, also after a promotion; pinned
+     * entries do not expire.
+     */
+    private static final class RemainingTtl implements Expiry<Object, Entry> {
+        private final CachePins pins;
+
+        RemainingTtl(CachePins pins) {
+            this.pins = pins;
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Entry entry, long currentTime) {
+            return pins.isPinned(key) ? Long.MAX_VALUE : remaining(entry);
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Entry entry, long currentTime, long currentDuration) {
+            return pins.isPinned(key) ? Long.MAX_VALUE : remaining(entry);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static long remaining(Entry entry) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAtMillis - System.currentTimeMillis()));
+        }
+    }
+
+    /** L2 key: the off-heap store is shared by all caches of a manager. */
+    static final class L2Key {
+        final String cacheName;
+        final Object key;
+
+        L2Key(String cacheName, Object key) {
+            this.cacheName = cacheName;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof L2Key other)) return false;
+            return cacheName.equals(other.cacheName) && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cacheName.hashCode() + Objects.hashCode(key);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.Document_analiser.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link CacheManager} of {@link TieredCache}s with a fixed set of names. All caches of
+ * the manager share one off-heap L2 store, so its byte budget goes to whichever cache
+ * needs it.
+ */
+public class TieredCacheManager implements CacheManager {
+
+    private final String managerName;
+    private final OffHeapStore l2;
+    private final Map<String, TieredCache> caches;
+
+    /**
+     * @param managerName  label used in metrics and reports
+     * @param cacheNames   caches to create
+     * @param l1MaxBytes   on-heap byte budget per cache (estimated retained bytes)
+     * @param ttl          time to live from the write
+     * @param l2MaxBytes   off-heap capacity shared by the caches
+     * @param pins         pinned documents, exempt from L1 eviction
+     */
+    public TieredCacheManager(String managerName, Collection<String> cacheNames, long l1MaxBytes,
+                              Duration ttl, long l2MaxBytes, CachePins pins) {
+        this.managerName = managerName;
+        this.l2 = new OffHeapStore(l2MaxBytes);
+        Map<String, TieredCache> created = new LinkedHashMap<>();
+        for (String cacheName : cacheNames) {
+            created.put(cacheName, new TieredCache(cacheName, l1MaxBytes, ttl, l2, pins, true));
+        }
+        this.caches = Collections.unmodifiableMap(created);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    public String getManagerName() {
+        return managerName;
+    }
+
+    public OffHeapStore getOffHeapStore() {
+        return l2;
+    }
+
+    /**
+     * Registers per-tier hit/miss counters and hit-rate gauges for every cache, plus the
+     * size of the shared L2 store.
+     */
+    public void bindTo(MeterRegistry registry) {
+        for (TieredCache cache : caches.values()) {
+            FunctionCounter.builder("cache.tier.hits", cache, TieredCache::getL1Hits)
+                    .tag("cache", cache.getName()).tag("tier", "l1")
+                    .description("Lookups served by the cache tier")
+                    .register(registry);
+            FunctionCounter.builder("cache.tier.hits", cache, TieredCache::getL2Hits)
+                    .tag("cache", cache.getName()).tag("tier", "l2")
+                    .description("Lookups served by the cache tier")
+                    .register(registry);
+            FunctionCounter.builder("cache.tier.misses", cache, TieredCache::getMisses)
+                    .tag("cache", cache.getName())
+                    .description("Lookups that missed both tiers")
+                    .register(registry);
+            Gauge.builder("cache.tier.hit.ratio", cache, TieredCache::getL1HitRate)
+                    .tag("cache", cache.getName()).tag("tier", "l1")
+                    .description("Tier hit ratio (L2: over lookups that reached it)")
+                    .register(registry);
+            Gauge.builder("cache.tier.hit.ratio", cache, TieredCache::getL2HitRate)
+                    .tag("cache", cache.getName()).tag("tier", "l2")
+                    .description("Tier hit ratio (L2: over lookups that reached it)")
+                    .register(registry);
+        }
+        Gauge.builder("cache.l2.bytes", l2, OffHeapStore::usedBytes)
+                .tag("manager", managerName)
+                .baseUnit("bytes")
+                .description("Off-heap bytes used by the L2 tier")
+                .register(registry);
+        Gauge.builder("cache.l2.entries", l2, OffHeapStore::size)
+                .tag("manager", managerName)
+                .description("Entries in the L2 tier")
+                .register(registry);
+        FunctionCounter.builder("cache.l2.evictions", l2, OffHeapStore::evictionCount)
+                .tag("manager", managerName)
+                .description("L2 entries dropped to stay within the byte capacity")
+                .register(registry);
+    }
+
+    /**
+     * Per-cache tier statistics and L2 usage for the admin API.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> perCache = new HashMap<>();
+        for (TieredCache cache : caches.values()) {
+            perCache.put(cache.getName(), cache.getStats());
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("caches", perCache);
+        stats.put("l2UsedBytes", l2.usedBytes());
+        stats.put("l2MaxBytes", l2.maxBytes());
+        stats.put("l2Entries", l2.size());
+        stats.put("l2Evictions", l2.evictionCount());
+        return stats;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.Document_analiser.cache;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets Spring Boot bind {@link TieredCache}s like plain Caffeine caches: the standard
+ * {@code cache.gets}, {@code cache.puts}, {@code cache.evictions}, {@code cache.size} and
+ * {@code cache.load.duration} meters report the L1 tier (an L2 hit counts as an L1 miss
+ * followed by a load). Tier-level counters are registered by {@link TieredCacheManager}.
+ */
+@Component
+public class TieredCacheMeterBinderProvider implements CacheMeterBinderProvider<TieredCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TieredCache cache, Iterable<Tag> tags) {
+        return new CaffeineCacheMetrics<>(cache.getL1Cache(), cache.getName(), tags);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Document_analiser.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-tier {@link CaffeineCacheManager} with byte-weighted caches (see
+ * {@link CacheValueSizer}) and one {@link CacheStatsRecorder} per cache, so evictions
+ * by cause can be reported by cache name. Pinned entries ({@link CachePins}) weigh nothing
+ * and are never evicted for size; unlike in a {@link TieredCache} they still expire.
+ */
+public class WeightedCaffeineCacheManager extends CaffeineCacheManager {
+
+    private final long maxBytes;
+    private final Duration expireAfterWrite;
+    private final Duration expireAfterAccess;
+    private final CachePins pins;
+    private final Map<String, CacheStatsRecorder> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxBytes byte budget per cache (estimated retained bytes)
+     */
+    public WeightedCaffeineCacheManager(Collection<String> cacheNames, long maxBytes,
+                                        Duration expireAfterWrite, Duration expireAfterAccess, CachePins pins) {
+        this.maxBytes = maxBytes;
+        this.pins = pins;
+        this.expireAfterWrite = expireAfterWrite;
+        this.expireAfterAccess = expireAfterAccess;
+        setCacheNames(cacheNames);
+    }
+
+    @Override
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+        CacheStatsRecorder recorder = recorders.computeIfAbsent(name, n -> new CacheStatsRecorder());
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Object key, Object value) -> pins.isPinned(key) ? 0 : CacheValueSizer.weigh(key, value))
+                .expireAfterWrite(expireAfterWrite)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats(() -> recorder)
+                .build();
+    }
+
+    /** Statistics recorder of the named cache, or {@code null} if there is no such cache. */
+    public CacheStatsRecorder getStatsRecorder(String cacheName) {
+        return recorders.get(cacheName);
+    }
+}
@@ -1,60 +1,110 @@
 package com.example.Document_analiser.config;
 
+import com.example.Document_analiser.cache.CachePins;
+import com.example.Document_analiser.cache.CacheValueSizer;
+import com.example.Document_analiser.cache.TieredCacheManager;
+import com.example.Document_analiser.cache.WeightedCaffeineCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
  * Cache configuration using Caffeine for high-performance in-memory caching.
  * Optimized for document analysis use cases with different TTL strategies.
+ *
+ * On-heap limits are byte budgets per cache ({@code cache.<manager>.l1-max-bytes}) weighed
+ * by {@link CacheValueSizer}, not entry counts: a single {@code documentChunks} entry can
+ * hold thousands of entities with their embeddings. The budgets are the upper bound;
+ * {@link com.example.Document_analiser.cache.CacheMemoryGovernor} lowers them while the old generation is under pressure. Entries of documents pinned in
+ * {@link CachePins} are exempt from the budgets.
+ *
+ * With {@code cache.tiered.enabled=true} every manager is a {@link TieredCacheManager}:
+ * the on-heap Caffeine cache (L1) is backed by an off-heap L2 with a byte capacity
+ * ({@code cache.<manager>.l2-max-bytes}), so large values such as embeddings and chunk
+ * lists can be kept without growing the heap.
+ *
+ * TTLs ({@code cache.<manager>.ttl}; without tiering entries also expire after half the TTL
+ * without access) only bound staleness from writes that bypass the application: writes
+ * through it invalidate by tag on every node
+ * ({@link com.example.Document_analiser.cache.CacheCoherenceBus}).
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    private final boolean tiered;
+    private final MeterRegistry meterRegistry;
+    private final CachePins cachePins;
+
+    public CacheConfig(@Value("${cache.tiered.enabled:false}") boolean tiered, MeterRegistry meterRegistry,
+                       CachePins cachePins) {
+        this.tiered = tiered;
+        this.meterRegistry = meterRegistry;
+        this.cachePins = cachePins;
+    }
+
     /**
      * Primary cache manager with default settings for general use cases.
      */
     @Bean
     @Primary
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCacheSpecification("maximumSize=1000,expireAfterWrite=30m,expireAfterAccess=15m,recordStats");
-        cacheManager.setCacheNames(List.of("questions", "documents", "users"));
-        return cacheManager;
+    public CacheManager cacheManager(@Value("${cache.default.l1-max-bytes:64MB}") DataSize l1MaxBytes,
+                                     @Value("${cache.default.l2-max-bytes:64MB}") DataSize l2MaxBytes,
+                                     @Value("${cache.default.ttl:30m}") Duration ttl) {
+        List<String> names = List.of("questions", "users");
+        if (tiered) {
+            return tieredManager("default", names, l1MaxBytes, ttl, l2MaxBytes);
+        }
+        return new WeightedCaffeineCacheManager(names, l1MaxBytes.toBytes(), ttl, ttl.dividedBy(2), cachePins);
     }
 
     /**
      * Cache manager for embeddings with longer TTL due to expensive computation.
      */
     @Bean("embeddingCacheManager")
-    public CacheManager embeddingCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCacheSpecification("maximumSize=500,expireAfterWrite=2h,expireAfterAccess=1h,recordStats");
-        cacheManager.setCacheNames(List.of("embeddings"));
-        return cacheManager;
+    public CacheManager embeddingCacheManager(@Value("${cache.embedding.l1-max-bytes:32MB}") DataSize l1MaxBytes,
+                                              @Value("${cache.embedding.l2-max-bytes:256MB}") DataSize l2MaxBytes,
+                                              @Value("${cache.embedding.ttl:2h}") Duration ttl) {
+        List<String> names = List.of("embeddings");
+        if (tiered) {
+            return tieredManager("embedding", names, l1MaxBytes, ttl, l2MaxBytes);
+        }
+        return new WeightedCaffeineCacheManager(names, l1MaxBytes.toBytes(), ttl, ttl.dividedBy(2), cachePins);
     }
 
     /**
      * Cache manager for frequently accessed data with shorter TTL.
      */
     @Bean("quickCacheManager")
-    public CacheManager quickCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCacheSpecification("maximumSize=2000,expireAfterWrite=10m,expireAfterAccess=5m,recordStats");
-        cacheManager.setCacheNames(List.of(
+    public CacheManager quickCacheManager(@Value("${cache.quick.l1-max-bytes:64MB}") DataSize l1MaxBytes,
+                                          @Value("${cache.quick.l2-max-bytes:128MB}") DataSize l2MaxBytes,
+                                          @Value("${cache.quick.ttl:10m}") Duration ttl) {
+        List<String> names = List.of(
                 "relevantChunks",
                 "documentChunks",
                 "chunkStats",
                 // used by QuestionService.getHistory()
                 "questionHistory"
-        ));
-        return cacheManager;
+        );
+        if (tiered) {
+            return tieredManager("quick", names, l1MaxBytes, ttl, l2MaxBytes);
+        }
+        return new WeightedCaffeineCacheManager(names, l1MaxBytes.toBytes(), ttl, ttl.dividedBy(2), cachePins);
     }
 
+    private TieredCacheManager tieredManager(String name, List<String> cacheNames, DataSize l1MaxBytes,
+                                             Duration ttl, DataSize l2MaxBytes) {
+        TieredCacheManager manager = new TieredCacheManager(name, cacheNames, l1MaxBytes.toBytes(), ttl,
+                l2MaxBytes.toBytes(), cachePins);
+        manager.bindTo(meterRegistry);
+        return manager;
+    }
 }
@@ -0,0 +1,57 @@
+package com.example.Document_analiser.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills {@code document.chunk_count} and {@code document.size_bytes} for documents uploaded
+ * before the columns existed ({@code ddl-auto=update} adds them as null).
+ *
+ * The catalog query falls back to counting the chunks and measuring the text of such rows
+ * on every read; after this runs it only reads the columns. The uploaded file size is not
+ * known for old documents, so their size is the byte length of the extracted text. Rows are
+ * updated in batches of {@code document.backfill.batch-size} so no single statement holds
+ * locks on the whole table; a failure is logged and leaves the fallback in place.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class DocumentStatsBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentStatsBackfill.class);
+    static final String BACKFILL_BATCH = "UPDATE document d SET "
+            + "chunk_count = COALESCE(d.chunk_count, (SELECT COUNT(*) FROM document_chunks c WHERE c.document_id = d.id)), "
+            + "size_bytes = COALESCE(d.size_bytes, COALESCE(octet_length(d.content), 0)) "
+            + "WHERE d.id IN (SELECT id FROM document WHERE chunk_count IS NULL OR size_bytes IS NULL LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public DocumentStatsBackfill(JdbcTemplate jdbcTemplate,
+                                 @Value("${document.backfill.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @PostConstruct
+    public void backfill() {
+        long updated = 0;
+        try {
+            int batch;
+            do {
+                batch = jdbcTemplate.update(BACKFILL_BATCH, batchSize);
+                updated += batch;
+            } while (batch > 0);
+        } catch (Exception e) {
+            log.warn("Document size/chunk count backfill stopped after {} documents: {}", updated, e.getMessage());
+            return;
+        }
+        if (updated > 0) {
+            log.info("Backfilled size and chunk count of {} documents", updated);
+        }
+    }
+}
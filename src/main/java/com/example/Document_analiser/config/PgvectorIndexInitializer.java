@@ -1,16 +1,62 @@
 package com.example.Document_analiser.config;
 
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Creates the approximate nearest neighbour index on {@code document_chunks.embedding}.
+ *
+ * {@code vector.index.type} selects ivfflat ({@code vector.index.lists}), hnsw
+ * ({@code vector.index.m}, {@code vector.index.ef-construction}) or none (exact search).
+ * The retrieval benchmark ({@code benchmarks/}, {@code retrieval} command) measures recall
+ * and latency of these options on synthetic corpora. An existing index with a different
+ * definition is left in place with a warning: rebuilding it can take long on a large table,
+ * so drop it deliberately to switch.
+ */
 @Component
 public class PgvectorIndexInitializer {
 
+    private static final Logger log = LoggerFactory.getLogger(PgvectorIndexInitializer.class);
+    static final String INDEX_NAME = "document_chunks_embedding_idx";
+
     private final JdbcTemplate jdbcTemplate;
+    private final String type;
+    private final int lists;
+    private final int m;
+    private final int efConstruction;
 
-    public PgvectorIndexInitializer(JdbcTemplate jdbcTemplate) {
+    public PgvectorIndexInitializer(JdbcTemplate jdbcTemplate,
+                                    @Value("${vector.index.type:ivfflat}") String type,
+                                    @Value("${vector.index.lists:100}") int lists,
+                                    @Value("${vector.index.m:16}") int m,
+                                    @Value("${vector.index.ef-construction:64}") int efConstruction) {
         this.jdbcTemplate = jdbcTemplate;
+        this.type = type.toLowerCase(Locale.ROOT);
+        this.lists = lists;
+        this.m = m;
+        this.efConstruction = efConstruction;
+    }
+
+    /**
+     * {@code CREATE INDEX} statement for the embedding column of {@code table}, or null for
+     * type {@code none}. Shared with the retrieval benchmark so it measures the same index.
+     */
+    public static String indexDefinition(String indexName, String table, String type, int lists, int m, int efConstruction) {
+        return switch (type) {
+            case "none" -> null;
+            case "ivfflat" -> "CREATE INDEX IF NOT EXISTS " + indexName + " ON " + table
+                    + " USING ivfflat (embedding vector_cosine_ops) WITH (lists = " + lists + ")";
+            case "hnsw" -> "CREATE INDEX IF NOT EXISTS " + indexName + " ON " + table
+                    + " USING hnsw (embedding vector_cosine_ops) WITH (m = " + m + ", ef_construction = " + efConstruction + ")";
+            default -> throw new IllegalArgumentException("Unknown vector.index.type: " + type);
+        };
     }
 
     @PostConstruct
@@ -24,8 +70,19 @@ public class PgvectorIndexInitializer {
             // If the column already has dimensions or table missing during bootstrap, ignore
         }
 
-        jdbcTemplate.execute(
-                "CREATE INDEX IF NOT EXISTS document_chunks_embedding_idx " +
-                        "ON document_chunks USING ivfflat (embedding vector_cosine_ops) WITH (lists = 100)");
+        String definition = indexDefinition(INDEX_NAME, "document_chunks", type, lists, m, efConstruction);
+        List<String> existing = jdbcTemplate.queryForList(
+                "SELECT indexdef FROM pg_indexes WHERE indexname = ?", String.class, INDEX_NAME);
+        if (!existing.isEmpty()) {
+            String current = existing.get(0).toLowerCase(Locale.ROOT);
+            if (definition == null || !current.contains("using " + type)) {
+                log.warn("Vector index {} ({}) does not match vector.index.type={}; drop it to rebuild",
+                        INDEX_NAME, existing.get(0), type);
+            }
+            return;
+        }
+        if (definition != null) {
+            jdbcTemplate.execute(definition);
+        }
     }
 }
@@ -57,7 +57,10 @@ public class SecurityConfig {
                         "/images/**",
                         "/static/**",
                         "/public/**",
+                        "/stub/**",
                         "/actuator/health",
+                        "/actuator/health/liveness",
+                        "/actuator/health/readiness",
                         "/actuator/info"
                     ).permitAll()
                     .anyRequest().authenticated()
@@ -0,0 +1,60 @@
+package com.example.Document_analiser.config;
+
+import com.example.Document_analiser.service.QuestionService;
+import com.example.Document_analiser.stub.HttpEmbeddingClient;
+import com.example.Document_analiser.stub.StubAi;
+import com.example.Document_analiser.stub.StubAiBehavior;
+import com.example.Document_analiser.stub.StubChatModel;
+import com.example.Document_analiser.stub.StubEmbeddingClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Simulated AI providers for performance and resilience testing without network access
+ * ({@code stub} profile, see {@code application-stub.properties}).
+ *
+ * With {@code stub.ai.mode=in-process} (default) the chat model behind {@code AiChatClient}
+ * and the embedding client are replaced by simulations, so the scheduler, guard, caches and
+ * observations all run as with the real provider. With {@code stub.ai.mode=http} the real
+ * OpenAI chat client and an HTTP embedding client talk to the OpenAI-compatible stand-in
+ * at {@code stub.ai.http.base-url} (profile {@code stub-http}).
+ */
+@Configuration
+@Profile("stub")
+public class StubAiConfig {
+
+    @Bean
+    public StubAi stubAi(Environment environment) {
+        return new StubAi(new StubAiBehavior("chat", environment, 800),
+                new StubAiBehavior("embedding", environment, 40),
+                environment.getProperty("stub.ai.mode", "in-process"));
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "stub.ai.mode", havingValue = "in-process", matchIfMissing = true)
+    public ChatModel stubChatModel(StubAi stubAi) {
+        return new StubChatModel(stubAi.getChat());
+    }
+
+    /** Simulated embeddings; the vectors still come from the local embedder. */
+    @Bean
+    @Primary
+    public QuestionService.EmbeddingClient stubEmbeddingClient(StubAi stubAi,
+                                                               @Qualifier("embeddingClient") QuestionService.EmbeddingClient local,
+                                                               Environment environment) {
+        if ("http".equals(environment.getProperty("stub.ai.mode"))) {
+            return new HttpEmbeddingClient(
+                    environment.getProperty("stub.ai.http.base-url", "http://localhost:8080/stub/openai"),
+                    environment.getProperty("spring.ai.openai.api-key", "stub"),
+                    stubAi.getEmbedding().getMaxBatchSize());
+        }
+        return new StubEmbeddingClient(stubAi.getEmbedding(), local);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.Document_analiser.config;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threading configuration for the request path and application executors.
+ *
+ * With {@code spring.threads.virtual.enabled=true} (Java 21+) Spring Boot runs Tomcat
+ * request handling and the {@code applicationTaskExecutor} used by {@code @Async} on
+ * virtual threads. Executors owned by the application follow the same switch here, so
+ * threads blocked on the LLM, embeddings or JDBC no longer cap concurrency.
+ *
+ * Executors that continue a request's work carry its observation (trace) context over to
+ * their threads, so spans created there stay in the request's trace.
+ */
+@Configuration
+@EnableAsync
+public class ThreadingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadingConfig.class);
+    private static final int PLATFORM_TEST_POOL_SIZE = 10;
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    /**
+     * Executor for the performance test endpoints: one virtual thread per task in
+     * virtual mode, otherwise the historical fixed pool. Shut down with the context.
+     */
+    @Bean(name = "performanceTestExecutor", destroyMethod = "shutdown")
+    public ExecutorService performanceTestExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Virtual-thread mode active: performance test executor uses virtual threads");
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newFixedThreadPool(PLATFORM_TEST_POOL_SIZE);
+    }
+
+    /**
+     * Dedicated, bounded executor for asynchronous answer generation. Concurrency and
+     * queue depth are explicit so overload is rejected (503) instead of piling up
+     * behind the servlet pool. Runs on virtual threads in virtual mode; the bound
+     * still applies because it caps concurrent LLM calls, not threads.
+     */
+    @Bean(name = "answerGenerationExecutor", destroyMethod = "shutdown")
+    public ThreadPoolExecutor answerGenerationExecutor(Environment environment,
+                                                       MeterRegistry meterRegistry,
+                                                       @Value("${questions.async.concurrency:8}") int concurrency,
+                                                       @Value("${questions.async.queue-capacity:100}") int queueCapacity) {
+        ThreadFactory threadFactory = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("answer-gen-", 0).factory()
+                : Thread.ofPlatform().name("answer-gen-", 0).daemon(true).factory();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "answerGeneration");
+        return executor;
+    }
+
+    /**
+     * Unbounded thread-per-call executor for chat model calls made by the LLM call guard.
+     * Concurrency is capped by the guard's bulkhead, so the executor only has to make
+     * calls cancellable and time-boxed.
+     */
+    @Bean(name = "llmCallExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService llmCallExecutor(Environment environment) {
+        ThreadFactory threadFactory = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("llm-call-", 0).factory()
+                : Thread.ofPlatform().name("llm-call-", 0).daemon(true).factory();
+        return propagatingContext(Executors.newThreadPerTaskExecutor(threadFactory));
+    }
+
+    /**
+     * Thread-per-task executor for {@code POST /api/questions}. The request is processed
+     * asynchronously so the servlet container can signal a client disconnect, which
+     * cancels the request's deadline and the work behind it.
+     */
+    @Bean(name = "questionRequestExecutor", destroyMethod = "shutdown")
+    public ExecutorService questionRequestExecutor(Environment environment) {
+        ThreadFactory threadFactory = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("question-req-", 0).factory()
+                : Thread.ofPlatform().name("question-req-", 0).daemon(true).factory();
+        return propagatingContext(Executors.newThreadPerTaskExecutor(threadFactory));
+    }
+
+    private static ExecutorService propagatingContext(ExecutorService executor) {
+        return ContextExecutorService.wrap(executor, () -> CONTEXT_SNAPSHOTS.captureAll());
+    }
+}
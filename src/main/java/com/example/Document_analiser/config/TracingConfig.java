@@ -0,0 +1,50 @@
+package com.example.Document_analiser.config;
+
+import com.example.Document_analiser.tracing.HeadTailSampler;
+import com.example.Document_analiser.tracing.TailSamplingSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.ConditionalOnEnabledTracing;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Tracing configuration: OpenTelemetry spans exported over OTLP.
+ *
+ * Spring Boot traces HTTP requests and observations (JDBC statements through
+ * datasource-micrometer, {@code vector.search}, {@code embedding.call}, {@code llm.call},
+ * Spring AI calls); request stages become spans in {@code StageTimingFilter}. Here the
+ * sampler is replaced: head sampling keeps {@code management.tracing.sampling.probability}
+ * of traces and, with {@code tracing.tail.enabled=true}, the rest are recorded and exported
+ * only when slow or failed.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public Sampler otelSampler(@Value("${management.tracing.sampling.probability:0.05}") double probability,
+                               @Value("${tracing.tail.enabled:false}") boolean tail) {
+        return new HeadTailSampler(probability, tail);
+    }
+
+    /**
+     * Exports head-unsampled traces that are slow or failed. Recording every trace costs
+     * more than head sampling alone, so it is off by default.
+     */
+    @Bean
+    @ConditionalOnEnabledTracing
+    @ConditionalOnProperty(name = "tracing.tail.enabled", havingValue = "true")
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor(
+            ObjectProvider<SpanExporter> spanExporters,
+            @Value("${tracing.tail.latency-threshold-ms:2000}") long latencyThresholdMs,
+            @Value("${tracing.tail.max-traces:2000}") int maxTraces,
+            @Value("${tracing.tail.max-spans-per-trace:200}") int maxSpansPerTrace) {
+        return new TailSamplingSpanProcessor(SpanExporter.composite(spanExporters.orderedStream().toList()),
+                Duration.ofMillis(latencyThresholdMs), maxTraces, maxSpansPerTrace, Duration.ofMinutes(2));
+    }
+}
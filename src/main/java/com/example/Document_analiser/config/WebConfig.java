@@ -1,5 +1,6 @@
 package com.example.Document_analiser.config;
 
+import com.example.Document_analiser.web.ServerTimingAdvice;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -11,9 +12,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
     private final PerformanceInterceptor performanceInterceptor;
+    private final ServerTimingAdvice serverTimingAdvice;
 
-    public WebConfig(PerformanceInterceptor performanceInterceptor) {
+    public WebConfig(PerformanceInterceptor performanceInterceptor, ServerTimingAdvice serverTimingAdvice) {
         this.performanceInterceptor = performanceInterceptor;
+        this.serverTimingAdvice = serverTimingAdvice;
     }
 
     @Override
@@ -21,5 +24,7 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addInterceptor(performanceInterceptor)
                 .addPathPatterns("/api/**") // Only track API endpoints
                 .excludePathPatterns("/api/admin/performance/**"); // Avoid recursive tracking
+        // Server-Timing for view and redirect responses (bodies are handled by the advice)
+        registry.addInterceptor(serverTimingAdvice);
     }
 }
\ No newline at end of file
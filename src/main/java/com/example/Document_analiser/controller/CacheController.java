@@ -1,5 +1,11 @@
 package com.example.Document_analiser.controller;
 
+import com.example.Document_analiser.cache.CacheCoherenceBus;
+import com.example.Document_analiser.cache.CacheMemoryGovernor;
+import com.example.Document_analiser.cache.CacheSnapshotService;
+import com.example.Document_analiser.cache.TieredCacheManager;
+import com.example.Document_analiser.service.CacheService;
+import com.example.Document_analiser.service.WarmupService;
 import org.springframework.cache.CacheManager;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -7,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Controller for cache management and monitoring.
@@ -19,32 +26,45 @@ public class CacheController {
     private final CacheManager cacheManager;
     private final CacheManager embeddingCacheManager;
     private final CacheManager quickCacheManager;
+    private final CacheMemoryGovernor memoryGovernor;
+    private final CacheService cacheService;
+    private final WarmupService warmupService;
+    private final CacheCoherenceBus coherenceBus;
+    private final CacheSnapshotService snapshotService;
 
     public CacheController(CacheManager cacheManager,
                           CacheManager embeddingCacheManager,
-                          CacheManager quickCacheManager) {
+                          CacheManager quickCacheManager,
+                          CacheMemoryGovernor memoryGovernor,
+                          CacheService cacheService,
+                          WarmupService warmupService,
+                          CacheCoherenceBus coherenceBus,
+                          CacheSnapshotService snapshotService) {
         this.cacheManager = cacheManager;
         this.embeddingCacheManager = embeddingCacheManager;
         this.quickCacheManager = quickCacheManager;
+        this.memoryGovernor = memoryGovernor;
+        this.cacheService = cacheService;
+        this.warmupService = warmupService;
+        this.coherenceBus = coherenceBus;
+        this.snapshotService = snapshotService;
     }
 
     /**
-     * Clear all caches.
+     * Clear all caches, on every node.
      */
     @PostMapping("/clear-all")
     public ResponseEntity<String> clearAllCaches() {
-        clearCacheManager(cacheManager);
-        clearCacheManager(embeddingCacheManager);
-        clearCacheManager(quickCacheManager);
+        cacheService.clearAllCaches();
         return ResponseEntity.ok("All caches cleared successfully");
     }
 
     /**
-     * Clear a specific cache by name.
+     * Clear a specific cache by name, on every node.
      */
     @PostMapping("/clear/{cacheName}")
     public ResponseEntity<String> clearCache(@PathVariable String cacheName) {
-        boolean cleared = clearSpecificCache(cacheName);
+        boolean cleared = cacheService.clearCache(cacheName);
         if (cleared) {
             return ResponseEntity.ok("Cache '" + cacheName + "' cleared successfully");
         } else {
@@ -53,7 +73,8 @@ public class CacheController {
     }
 
     /**
-     * Get cache statistics.
+     * Get cache statistics: per cache hit ratio, load latency, evictions by cause,
+     * estimated size and weighted bytes (under {@code "caches"}), plus tier details.
      */
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getCacheStats() {
@@ -62,10 +83,98 @@ public class CacheController {
         stats.put("defaultCaches", getCacheManagerStats(cacheManager));
         stats.put("embeddingCaches", getCacheManagerStats(embeddingCacheManager));
         stats.put("quickCaches", getCacheManagerStats(quickCacheManager));
+        stats.put("caches", cacheService.getCacheStats());
         
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Sample the hottest keys of a cache with their estimated size, and the value types
+     * it holds.
+     */
+    @GetMapping("/{cacheName}/hot-keys")
+    public ResponseEntity<Map<String, Object>> getHotKeys(@PathVariable String cacheName,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> hotKeys = cacheService.getHotKeys(cacheName, Math.max(1, Math.min(limit, 200)));
+        if (hotKeys == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(hotKeys);
+    }
+
+    /**
+     * Get estimated on-heap bytes per cache, the current byte budgets and the
+     * heap-pressure governor state.
+     */
+    @GetMapping("/memory")
+    public ResponseEntity<Map<String, Object>> getCacheMemory() {
+        return ResponseEntity.ok(memoryGovernor.getReport());
+    }
+
+    /**
+     * Get the state of the cross-node invalidation bus: connection, messages and tags
+     * sent and applied, duplicates dropped and propagation lag.
+     */
+    @GetMapping("/coherence")
+    public ResponseEntity<Map<String, Object>> getCoherence() {
+        return ResponseEntity.ok(coherenceBus.getReport());
+    }
+
+    /**
+     * Get the snapshot file size and the results (entries, bytes, duration) of the last
+     * snapshot and restore.
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> getSnapshot() {
+        return ResponseEntity.ok(snapshotService.getReport());
+    }
+
+    /**
+     * Write a snapshot of the selected caches now.
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> writeSnapshot() {
+        return ResponseEntity.ok(snapshotService.snapshot());
+    }
+
+    /**
+     * Restore the snapshot file; stale and expired entries are skipped.
+     */
+    @PostMapping("/snapshot/restore")
+    public ResponseEntity<Map<String, Object>> restoreSnapshot() {
+        return ResponseEntity.ok(snapshotService.restore());
+    }
+
+    /**
+     * Get the ids of the pinned documents, whose cache entries are never evicted for size.
+     */
+    @GetMapping("/pins")
+    public ResponseEntity<Set<Long>> getPinnedDocuments() {
+        return ResponseEntity.ok(warmupService.getPinnedDocuments());
+    }
+
+    /**
+     * Pin a document and load its chunk caches.
+     */
+    @PostMapping("/pins/{documentId}")
+    public ResponseEntity<Set<Long>> pinDocument(@PathVariable Long documentId) {
+        if (!warmupService.pinDocument(documentId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(warmupService.getPinnedDocuments());
+    }
+
+    /**
+     * Unpin a document; its entries are cached normally again.
+     */
+    @DeleteMapping("/pins/{documentId}")
+    public ResponseEntity<Set<Long>> unpinDocument(@PathVariable Long documentId) {
+        if (!warmupService.unpinDocument(documentId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(warmupService.getPinnedDocuments());
+    }
+
     /**
      * Get list of all cache names.
      */
@@ -80,44 +189,16 @@ public class CacheController {
         return ResponseEntity.ok(cacheNames);
     }
 
-    private void clearCacheManager(CacheManager manager) {
-        manager.getCacheNames().forEach(cacheName -> {
-            var cache = manager.getCache(cacheName);
-            if (cache != null) {
-                cache.clear();
-            }
-        });
-    }
-
-    private boolean clearSpecificCache(String cacheName) {
-        var cache = cacheManager.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-            return true;
-        }
-        
-        cache = embeddingCacheManager.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-            return true;
-        }
-        
-        cache = quickCacheManager.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-            return true;
-        }
-        
-        return false;
-    }
-
     private Map<String, Object> getCacheManagerStats(CacheManager manager) {
         Map<String, Object> stats = new HashMap<>();
         Collection<String> cacheNames = manager.getCacheNames();
         
         stats.put("cacheCount", cacheNames.size());
         stats.put("cacheNames", cacheNames);
+        if (manager instanceof TieredCacheManager tiered) {
+            stats.put("tiers", tiered.getStats());
+        }
         
         return stats;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,17 @@
 package com.example.Document_analiser.controller;
 
+import com.example.Document_analiser.repository.projection.DocumentCatalogView;
+import com.example.Document_analiser.service.DocumentCatalogService;
 import com.example.Document_analiser.service.DocumentService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * REST controller for managing document uploads.
@@ -15,9 +21,41 @@ import java.io.IOException;
 public class DocumentController {
 
     private final DocumentService documentService;
+    private final DocumentCatalogService documentCatalogService;
 
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService, DocumentCatalogService documentCatalogService) {
         this.documentService = documentService;
+        this.documentCatalogService = documentCatalogService;
+    }
+
+    /**
+     * Lists documents (id, name, type, upload date, chunk count, size), newest first.
+     *
+     * @param q optional case-insensitive part of the name
+     * @param page zero-based page number
+     * @param size page size (1-200)
+     * @return one page of the catalog
+     */
+    @GetMapping("/documents")
+    public ResponseEntity<Page<DocumentCatalogView>> list(@RequestParam(value = "q", required = false) String q,
+                                                          @RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "20") int size) {
+        PageRequest pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, 200)));
+        return ResponseEntity.ok(documentCatalogService.find(q, pageable));
+    }
+
+    /**
+     * Documents for a dropdown as the user types: the newest ones whose name contains
+     * {@code q}, without the page count.
+     *
+     * @param q optional case-insensitive part of the name
+     * @param limit number of documents (1-50)
+     * @return id, name, type, upload date, chunk count and size of each match
+     */
+    @GetMapping("/documents/suggest")
+    public ResponseEntity<List<DocumentCatalogView>> suggest(@RequestParam(value = "q", required = false) String q,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(documentCatalogService.suggest(q, limit, null));
     }
 
     /**
@@ -32,4 +70,19 @@ public class DocumentController {
         documentService.store(file);
         return ResponseEntity.ok("Document uploaded.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Deletes a document and its chunks; questions about it stay in the users' history.
+     *
+     * @param id document id
+     * @return confirmation message, or 404 if there is no such document
+     */
+    @DeleteMapping("/documents/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> delete(@PathVariable Long id) {
+        if (!documentService.delete(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok("Document deleted.");
+    }
+}
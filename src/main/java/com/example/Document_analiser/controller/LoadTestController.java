@@ -0,0 +1,105 @@
+package com.example.Document_analiser.controller;
+
+import com.example.Document_analiser.loadtest.LoadReport;
+import com.example.Document_analiser.loadtest.LoadScenario;
+import com.example.Document_analiser.service.LoadTestService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoints for open-loop load tests ({@link LoadTestService}).
+ * Start a built-in scenario by name or post a scenario as JSON, follow its progress and
+ * read the result as JSON or as an HTML report with the throughput-vs-latency curves.
+ */
+@RestController
+@RequestMapping("/api/admin/load-test")
+public class LoadTestController {
+
+    private final LoadTestService loadTestService;
+
+    public LoadTestController(LoadTestService loadTestService) {
+        this.loadTestService = loadTestService;
+    }
+
+    /**
+     * Built-in scenarios.
+     */
+    @GetMapping("/scenarios")
+    public ResponseEntity<Map<String, Object>> getScenarios() {
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        for (String name : LoadScenario.BUILT_IN) {
+            scenarios.put(name, LoadScenario.builtIn(name));
+        }
+        return ResponseEntity.ok(scenarios);
+    }
+
+    /**
+     * Starts a built-in scenario, optionally with other rates and stage length, or the
+     * scenario in the body. Returns 409 while another run is in progress.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> start(@RequestParam(defaultValue = "mixed") String scenario,
+                                                     @RequestParam(required = false) List<Double> rates,
+                                                     @RequestParam(required = false) Integer stageSeconds,
+                                                     @RequestBody(required = false) LoadScenario body) throws IOException {
+        LoadScenario definition;
+        try {
+            definition = body != null ? body : LoadScenario.builtIn(scenario);
+            if (rates != null && !rates.isEmpty()) {
+                definition.setRates(rates);
+            }
+            if (stageSeconds != null) {
+                definition.setStageSeconds(stageSeconds);
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(loadTestService.start(definition).summary());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Recent runs, newest last.
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> list() {
+        return ResponseEntity.ok(loadTestService.list());
+    }
+
+    /**
+     * Progress of a run, with the full result once it has finished.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> get(@PathVariable long id) {
+        return loadTestService.get(id)
+                .map(run -> ResponseEntity.ok(run.toMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * HTML report of a finished run.
+     */
+    @GetMapping(value = "/{id}/report", produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<String> getReport(@PathVariable long id) {
+        return loadTestService.get(id)
+                .filter(run -> run.getResult() != null)
+                .map(run -> ResponseEntity.ok(LoadReport.toHtml(run.getResult())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancels a running test; the stages completed so far are still reported.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable long id) {
+        return loadTestService.cancel(id) ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+}
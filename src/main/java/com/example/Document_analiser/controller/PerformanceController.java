@@ -1,9 +1,20 @@
 package com.example.Document_analiser.controller;
 
+import com.example.Document_analiser.service.ExtractiveAnswerService;
+import com.example.Document_analiser.service.LlmCallGuard;
+import com.example.Document_analiser.service.LlmScheduler;
 import com.example.Document_analiser.service.LogAnalysisService;
 import com.example.Document_analiser.service.PerformanceMonitoringService;
+import com.example.Document_analiser.service.RequestDeadlineService;
 import com.example.Document_analiser.service.ResponseTimeAnalyzer;
+import com.example.Document_analiser.service.VirtualThreadPinningMonitor;
+import com.example.Document_analiser.service.WarmupService;
+import com.example.Document_analiser.service.WriteBehindService;
+import com.example.Document_analiser.stub.StubAi;
+import com.example.Document_analiser.tracing.TailSamplingSpanProcessor;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,15 +33,45 @@ public class PerformanceController {
     private final ResponseTimeAnalyzer responseTimeAnalyzer;
     private final LogAnalysisService logAnalysisService;
     private final MeterRegistry meterRegistry;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final LlmCallGuard llmCallGuard;
+    private final LlmScheduler llmScheduler;
+    private final ExtractiveAnswerService extractiveAnswerService;
+    private final WriteBehindService writeBehindService;
+    private final RequestDeadlineService requestDeadlineService;
+    private final WarmupService warmupService;
+    private final Sampler sampler;
+    private final ObjectProvider<TailSamplingSpanProcessor> tailSampling;
+    private final ObjectProvider<StubAi> stubAi;
 
     public PerformanceController(PerformanceMonitoringService performanceService,
                                ResponseTimeAnalyzer responseTimeAnalyzer,
                                LogAnalysisService logAnalysisService,
-                               MeterRegistry meterRegistry) {
+                               MeterRegistry meterRegistry,
+                               VirtualThreadPinningMonitor pinningMonitor,
+                               LlmCallGuard llmCallGuard,
+                               LlmScheduler llmScheduler,
+                               ExtractiveAnswerService extractiveAnswerService,
+                               WriteBehindService writeBehindService,
+                               RequestDeadlineService requestDeadlineService,
+                               WarmupService warmupService,
+                               Sampler sampler,
+                               ObjectProvider<TailSamplingSpanProcessor> tailSampling,
+                               ObjectProvider<StubAi> stubAi) {
         this.performanceService = performanceService;
         this.responseTimeAnalyzer = responseTimeAnalyzer;
         this.logAnalysisService = logAnalysisService;
         this.meterRegistry = meterRegistry;
+        this.pinningMonitor = pinningMonitor;
+        this.llmCallGuard = llmCallGuard;
+        this.llmScheduler = llmScheduler;
+        this.extractiveAnswerService = extractiveAnswerService;
+        this.writeBehindService = writeBehindService;
+        this.requestDeadlineService = requestDeadlineService;
+        this.warmupService = warmupService;
+        this.sampler = sampler;
+        this.tailSampling = tailSampling;
+        this.stubAi = stubAi;
     }
 
     /**
@@ -142,6 +183,99 @@ public class PerformanceController {
         return ResponseEntity.ok(responseTimeAnalyzer.getPerformanceRecommendations());
     }
 
+    /**
+     * Get threading mode and virtual-thread pinning diagnostics (JFR VirtualThreadPinned).
+     */
+    @GetMapping("/virtual-threads")
+    public ResponseEntity<Map<String, Object>> getVirtualThreadReport() {
+        return ResponseEntity.ok(pinningMonitor.getReport());
+    }
+
+    /**
+     * Get AI call resilience state: circuit breaker, bulkhead and hedging statistics.
+     */
+    @GetMapping("/llm-resilience")
+    public ResponseEntity<Map<String, Object>> getLlmResilience() {
+        return ResponseEntity.ok(llmCallGuard.getReport());
+    }
+
+    /**
+     * Get AI scheduler state: queue depth, running calls and queue wait per priority class,
+     * plus the remaining requests/min and tokens/min budget.
+     */
+    @GetMapping("/llm-scheduler")
+    public ResponseEntity<Map<String, Object>> getLlmScheduler() {
+        return ResponseEntity.ok(llmScheduler.getReport());
+    }
+
+    /**
+     * Get extractive fast-path statistics: share of answers without a chat model call
+     * and the estimated latency saved.
+     */
+    @GetMapping("/extractive-answers")
+    public ResponseEntity<Map<String, Object>> getExtractiveAnswers() {
+        return ResponseEntity.ok(extractiveAnswerService.getReport());
+    }
+
+    /**
+     * Get write-behind persistence statistics: queue size, lag and flush batches.
+     */
+    @GetMapping("/write-behind")
+    public ResponseEntity<Map<String, Object>> getWriteBehind() {
+        return ResponseEntity.ok(writeBehindService.getReport());
+    }
+
+    /**
+     * Get work abandoned (stopped early) and wasted (finished for nobody) on dead requests.
+     */
+    @GetMapping("/request-deadlines")
+    public ResponseEntity<Map<String, Object>> getRequestDeadlines() {
+        return ResponseEntity.ok(requestDeadlineService.getReport());
+    }
+
+    /**
+     * Get duration, per-step timings and coverage of the last cache and JIT warm-up.
+     */
+    @GetMapping("/warmup")
+    public ResponseEntity<Map<String, Object>> getWarmup() {
+        return ResponseEntity.ok(warmupService.getReport());
+    }
+
+    /**
+     * Run the warm-up again (e.g. after clearing caches).
+     */
+    @PostMapping("/warmup")
+    public ResponseEntity<Map<String, Object>> runWarmup() {
+        return ResponseEntity.ok(warmupService.warmUp());
+    }
+
+    /**
+     * Get the trace sampler and, when tail sampling is on, traces kept and discarded.
+     */
+    @GetMapping("/tracing")
+    public ResponseEntity<Map<String, Object>> getTracing() {
+        Map<String, Object> report = new HashMap<>();
+        report.put("sampler", sampler.getDescription());
+        TailSamplingSpanProcessor tail = tailSampling.getIfAvailable();
+        if (tail != null) {
+            report.put("tailSampling", tail.getReport());
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Get the simulated AI providers' settings and call, throttle and failure counts
+     * ({@code stub} profile only).
+     */
+    @GetMapping("/stub-ai")
+    public ResponseEntity<Map<String, Object>> getStubAi() {
+        StubAi stub = stubAi.getIfAvailable();
+        if (stub == null) {
+            return ResponseEntity.ok(Map.of("enabled", false));
+        }
+        return ResponseEntity.ok(stub.getReport());
+    }
+
     /**
      * Get log analysis report.
      */
@@ -1,128 +1,180 @@
 package com.example.Document_analiser.controller;
 
+import com.example.Document_analiser.service.LatencyRecorder;
 import com.example.Document_analiser.service.QueryOptimizationService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Controller for performance testing and benchmarking.
- * Provides endpoints to test various performance scenarios.
+ * Controller for in-process performance experiments: the concurrency sweep, the latency
+ * recorder micro-benchmark and memory/GC checks. Load tests against the HTTP API are
+ * run by {@link LoadTestController}.
  */
 @RestController
 @RequestMapping("/api/admin/performance-test")
 public class PerformanceTestController {
 
     private final QueryOptimizationService queryOptimizationService;
-    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    private final ExecutorService executorService;
+    private final Environment environment;
 
-    public PerformanceTestController(QueryOptimizationService queryOptimizationService) {
+    public PerformanceTestController(QueryOptimizationService queryOptimizationService,
+                                     @Qualifier("performanceTestExecutor") ExecutorService executorService,
+                                     Environment environment) {
         this.queryOptimizationService = queryOptimizationService;
+        this.executorService = executorService;
+        this.environment = environment;
     }
 
     /**
-     * Test database query performance.
+     * Finds the highest concurrency that keeps p99 under a target while each simulated
+     * question blocks for {@code blockingMs} (standing in for the provider call) after a
+     * chunk statistics lookup. Latency is measured from submission, so executor queueing
+     * counts. Run once per threading mode to compare platform and virtual threads.
      */
-    @PostMapping("/database-queries")
-    public ResponseEntity<Map<String, Object>> testDatabaseQueries(@RequestParam(defaultValue = "100") int iterations) {
-        Map<String, Object> results = new HashMap<>();
-        
-        Instant start = Instant.now();
-        
-        // Test chunk statistics query
-        Instant chunkStatsStart = Instant.now();
-        for (int i = 0; i < iterations; i++) {
-            queryOptimizationService.getChunkStatistics();
+    @PostMapping("/concurrency-sweep")
+    public ResponseEntity<Map<String, Object>> runConcurrencySweep(
+            @RequestParam(defaultValue = "200") long blockingMs,
+            @RequestParam(defaultValue = "1000") double p99TargetMs,
+            @RequestParam(defaultValue = "1024") int maxConcurrency,
+            @RequestParam(defaultValue = "4") int requestsPerClient) {
+
+        List<Map<String, Object>> levels = new ArrayList<>();
+        int maxWithinTarget = 0;
+
+        for (int concurrency = 8; concurrency <= maxConcurrency; concurrency *= 2) {
+            int total = concurrency * requestsPerClient;
+            long[] latenciesNanos = new long[total];
+            List<CompletableFuture<Void>> futures = new ArrayList<>(total);
+            Instant levelStart = Instant.now();
+
+            for (int i = 0; i < total; i++) {
+                final int slot = i;
+                final long submittedAt = System.nanoTime();
+                futures.add(CompletableFuture.runAsync(() -> {
+                    queryOptimizationService.getChunkStatistics();
+                    sleepQuietly(blockingMs);
+                    latenciesNanos[slot] = System.nanoTime() - submittedAt;
+                }, executorService));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            Arrays.sort(latenciesNanos);
+            double p50 = latenciesNanos[(int) Math.ceil(0.50 * total) - 1] / 1_000_000.0;
+            double p99 = latenciesNanos[(int) Math.ceil(0.99 * total) - 1] / 1_000_000.0;
+            long wallMs = Duration.between(levelStart, Instant.now()).toMillis();
+
+            Map<String, Object> level = new HashMap<>();
+            level.put("concurrency", concurrency);
+            level.put("requests", total);
+            level.put("p50Ms", p50);
+            level.put("p99Ms", p99);
+            level.put("throughputPerSecond", total / Math.max(wallMs / 1000.0, 0.001));
+            levels.add(level);
+
+            if (p99 > p99TargetMs) {
+                break;
+            }
+            maxWithinTarget = concurrency;
         }
-        Duration chunkStatsDuration = Duration.between(chunkStatsStart, Instant.now());
-        
-        Duration totalDuration = Duration.between(start, Instant.now());
-        
-        results.put("iterations", iterations);
-        results.put("chunkStatsAvgMs", chunkStatsDuration.toMillis() / (double) iterations);
-        results.put("totalDurationMs", totalDuration.toMillis());
-        results.put("queriesPerSecond", iterations / (totalDuration.toMillis() / 1000.0));
-        
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("virtualThreads", Threading.VIRTUAL.isActive(environment));
+        results.put("blockingMs", blockingMs);
+        results.put("p99TargetMs", p99TargetMs);
+        results.put("maxConcurrencyWithinTarget", maxWithinTarget);
+        results.put("levels", levels);
         return ResponseEntity.ok(results);
     }
 
-    /**
-     * Test cache performance.
-     */
-    @PostMapping("/cache-performance")
-    public ResponseEntity<Map<String, Object>> testCachePerformance(@RequestParam(defaultValue = "50") int iterations) {
-        Map<String, Object> results = new HashMap<>();
-        
-        // Test cache hit/miss patterns
-        Instant start = Instant.now();
-        
-        // First run - cache misses
-        Instant coldStart = Instant.now();
-        for (int i = 0; i < iterations; i++) {
-            queryOptimizationService.getChunkStatistics();
-        }
-        Duration coldDuration = Duration.between(coldStart, Instant.now());
-        
-        // Second run - cache hits
-        Instant warmStart = Instant.now();
-        for (int i = 0; i < iterations; i++) {
-            queryOptimizationService.getChunkStatistics();
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        Duration warmDuration = Duration.between(warmStart, Instant.now());
-        
-        Duration totalDuration = Duration.between(start, Instant.now());
-        
-        results.put("iterations", iterations);
-        results.put("coldRunAvgMs", coldDuration.toMillis() / (double) iterations);
-        results.put("warmRunAvgMs", warmDuration.toMillis() / (double) iterations);
-        results.put("cacheSpeedupRatio", coldDuration.toMillis() / (double) warmDuration.toMillis());
-        results.put("totalDurationMs", totalDuration.toMillis());
-        
-        return ResponseEntity.ok(results);
     }
 
     /**
-     * Test concurrent request handling.
+     * Measures the recording overhead of {@link LatencyRecorder} under contention: each of
+     * {@code threads} platform threads records pseudo-random latencies for {@code seconds}
+     * (after a one-second warm-up) while another thread rotates intervals every 100 ms.
+     * Reports throughput, nanoseconds per record and heap bytes allocated per record.
      */
-    @PostMapping("/concurrent-requests")
-    public ResponseEntity<Map<String, Object>> testConcurrentRequests(
-            @RequestParam(defaultValue = "10") int concurrency,
-            @RequestParam(defaultValue = "5") int requestsPerThread) {
-        
-        Map<String, Object> results = new HashMap<>();
-        
-        Instant start = Instant.now();
-        
-        CompletableFuture<Void>[] futures = new CompletableFuture[concurrency];
-        
-        for (int i = 0; i < concurrency; i++) {
-            futures[i] = CompletableFuture.runAsync(() -> {
-                for (int j = 0; j < requestsPerThread; j++) {
-                    queryOptimizationService.getChunkStatistics();
+    @PostMapping("/latency-recorder")
+    public ResponseEntity<Map<String, Object>> benchmarkLatencyRecorder(
+            @RequestParam(defaultValue = "8") int threads,
+            @RequestParam(defaultValue = "5") int seconds) throws InterruptedException {
+
+        LatencyRecorder recorder = new LatencyRecorder(4, Duration.ofMillis(100), Duration.ofMinutes(1));
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LongAdder operations = new LongAdder();
+        LongAdder allocatedBytes = new LongAdder();
+        LongAdder busyNanos = new LongAdder();
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        long measureEnd = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+
+        Thread rotator = Thread.ofPlatform().name("latency-bench-rotator").daemon(true).start(() -> {
+            while (System.nanoTime() < measureEnd) {
+                recorder.rotate();
+                sleepQuietly(100);
+            }
+        });
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final long seed = t + 1;
+            workers.add(Thread.ofPlatform().name("latency-bench-", t).daemon(true).start(() -> {
+                long x = seed * 0x9E3779B97F4A7C15L;
+                while (System.nanoTime() < warmupEnd) {
+                    x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+                    recorder.record((x & 0x3FFFFFFFL) + 100_000);
                 }
-            }, executorService);
+                long threadId = Thread.currentThread().threadId();
+                long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                long count = 0;
+                while (System.nanoTime() < measureEnd) {
+                    x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+                    recorder.record((x & 0x3FFFFFFFL) + 100_000);
+                    count++;
+                }
+                busyNanos.add(System.nanoTime() - start);
+                allocatedBytes.add(threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore);
+                operations.add(count);
+            }));
         }
-        
-        // Wait for all threads to complete
-        CompletableFuture.allOf(futures).join();
-        
-        Duration totalDuration = Duration.between(start, Instant.now());
-        int totalRequests = concurrency * requestsPerThread;
-        
-        results.put("concurrency", concurrency);
-        results.put("requestsPerThread", requestsPerThread);
-        results.put("totalRequests", totalRequests);
-        results.put("totalDurationMs", totalDuration.toMillis());
-        results.put("avgRequestTimeMs", totalDuration.toMillis() / (double) totalRequests);
-        results.put("requestsPerSecond", totalRequests / (totalDuration.toMillis() / 1000.0));
-        
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        rotator.join();
+        recorder.rotate();
+
+        long ops = Math.max(1, operations.sum());
+        Map<String, Object> results = new HashMap<>();
+        results.put("threads", threads);
+        results.put("seconds", seconds);
+        results.put("operations", ops);
+        results.put("operationsPerSecond", ops / (double) seconds);
+        // includes the System.nanoTime() loop check, so an upper bound on recording cost
+        results.put("nanosPerOperation", busyNanos.sum() / (double) ops);
+        results.put("allocatedBytesPerOperation", allocatedBytes.sum() / (double) ops);
+        results.put("recorded", recorder.total().getCount());
         return ResponseEntity.ok(results);
     }
 
@@ -170,33 +222,4 @@ public class PerformanceTestController {
         
         return ResponseEntity.ok(results);
     }
-
-    /**
-     * Comprehensive performance benchmark.
-     */
-    @PostMapping("/benchmark")
-    public ResponseEntity<Map<String, Object>> runBenchmark() {
-        Map<String, Object> benchmark = new HashMap<>();
-        
-        // Database performance
-        ResponseEntity<Map<String, Object>> dbTest = testDatabaseQueries(50);
-        benchmark.put("databasePerformance", dbTest.getBody());
-        
-        // Cache performance
-        ResponseEntity<Map<String, Object>> cacheTest = testCachePerformance(25);
-        benchmark.put("cachePerformance", cacheTest.getBody());
-        
-        // Concurrent performance
-        ResponseEntity<Map<String, Object>> concurrentTest = testConcurrentRequests(5, 10);
-        benchmark.put("concurrentPerformance", concurrentTest.getBody());
-        
-        // Memory usage
-        ResponseEntity<Map<String, Object>> memoryTest = getMemoryUsage();
-        benchmark.put("memoryUsage", memoryTest.getBody());
-        
-        benchmark.put("timestamp", Instant.now().toString());
-        benchmark.put("benchmarkDurationMs", "Comprehensive benchmark completed");
-        
-        return ResponseEntity.ok(benchmark);
-    }
-}
\ No newline at end of file
+}
@@ -1,13 +1,25 @@
 package com.example.Document_analiser.controller;
 
 import com.example.Document_analiser.dto.AnswerResponse;
+import com.example.Document_analiser.dto.BatchQuestionRequest;
 import com.example.Document_analiser.dto.QuestionRequest;
 import com.example.Document_analiser.dto.QuestionHistoryDto;
 import com.example.Document_analiser.dto.QuestionUpdateRequest;
 import com.example.Document_analiser.entity.Question;
 import com.example.Document_analiser.service.QuestionService;
+import com.example.Document_analiser.service.QuestionStreamingService;
+import com.example.Document_analiser.service.AsyncQuestionService;
+import com.example.Document_analiser.service.BatchQuestionService;
+import com.example.Document_analiser.service.RequestDeadlineService;
+import com.example.Document_analiser.util.RequestDeadline;
+import com.example.Document_analiser.util.StageTimings;
+import jakarta.validation.Valid;
 import com.example.Document_analiser.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,23 +27,151 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @RestController
 @RequestMapping("/api")
 public class QuestionController {
     private final QuestionService questionService;
     private final AuthService authService;
+    private final QuestionStreamingService questionStreamingService;
+    private final AsyncQuestionService asyncQuestionService;
+    private final BatchQuestionService batchQuestionService;
+    private final RequestDeadlineService requestDeadlineService;
+    private final AsyncTaskExecutor questionRequestExecutor;
+    private static final long MAX_POLL_WAIT_MS = 30_000;
+    private static final long ASYNC_TIMEOUT_GRACE_MS = 1_000;
 
-    public QuestionController(QuestionService questionService, AuthService authService) {
+    public QuestionController(QuestionService questionService, AuthService authService,
+                              QuestionStreamingService questionStreamingService,
+                              AsyncQuestionService asyncQuestionService,
+                              BatchQuestionService batchQuestionService,
+                              RequestDeadlineService requestDeadlineService,
+                              @Qualifier("questionRequestExecutor") ExecutorService questionRequestExecutor) {
         this.questionService = questionService;
         this.authService = authService;
+        this.questionStreamingService = questionStreamingService;
+        this.asyncQuestionService = asyncQuestionService;
+        this.batchQuestionService = batchQuestionService;
+        this.requestDeadlineService = requestDeadlineService;
+        this.questionRequestExecutor = new TaskExecutorAdapter(questionRequestExecutor);
     }
 
-    @Operation(summary = "Ask a question about a document")
+    @Operation(summary = "Ask a question about a document",
+            description = "Honours X-Request-Timeout-Ms: work stops (504) when the deadline passes.")
     @PostMapping("/questions")
-    public ResponseEntity<AnswerResponse> ask(@RequestBody QuestionRequest request) {
-        AnswerResponse response = questionService.askQuestion(request);
-        return ResponseEntity.ok(response);
+    public WebAsyncTask<ResponseEntity<AnswerResponse>> ask(@RequestBody QuestionRequest request) {
+        RequestDeadline deadline = RequestDeadline.get();
+        StageTimings timings = StageTimings.get();
+        Callable<ResponseEntity<AnswerResponse>> work = () -> {
+            RequestDeadline.set(deadline);
+            StageTimings.set(timings);
+            try {
+                AnswerResponse response = questionService.askQuestion(request);
+                requestDeadlineService.recordIfWasted("/api/questions", deadline);
+                return ResponseEntity.ok(response);
+            } finally {
+                RequestDeadline.clear();
+                StageTimings.clear();
+            }
+        };
+        // Async processing lets the container answer 504 at the deadline while the work is
+        // cancelled; -1 means no container timeout when the request has no deadline.
+        // A client disconnect is not detected here: nothing is written until the answer
+        long timeoutMs = deadline != null ? deadline.remainingMillis() + ASYNC_TIMEOUT_GRACE_MS : -1;
+        WebAsyncTask<ResponseEntity<AnswerResponse>> task = new WebAsyncTask<>(timeoutMs, questionRequestExecutor, work);
+        if (deadline != null) {
+            task.onTimeout(() -> {
+                deadline.cancel();
+                return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+            });
+        }
+        return task;
+    }
+
+    @Operation(summary = "Ask a question and stream the answer (SSE)",
+            description = "Emits 'token' events as the model generates, then a 'done' event with the persisted answer.")
+    @PostMapping(value = "/questions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter askStreaming(@RequestBody QuestionRequest request) {
+        return questionStreamingService.stream(request);
+    }
+
+    @Operation(summary = "Ask many questions about one document (SSE)",
+            description = "Shares embedding and retrieval across the batch; streams an 'answer' event per question and a final 'summary'.")
+    @PostMapping(value = "/questions/batch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter askBatch(@Valid @RequestBody BatchQuestionRequest request) {
+        return batchQuestionService.ask(request);
+    }
+
+    @Operation(summary = "Ask a question without holding a servlet thread",
+            description = "Completes when the answer is ready; generation runs on the bounded answer executor.")
+    @PostMapping("/questions/deferred")
+    public CompletableFuture<AnswerResponse> askDeferred(@RequestBody QuestionRequest request) {
+        return asyncQuestionService.submit(request).getAnswer();
+    }
+
+    @Operation(summary = "Submit a question for asynchronous answering",
+            description = "Returns 202 with the question id; poll GET /api/questions/{id}/answer for the result.")
+    @PostMapping("/questions/async")
+    public ResponseEntity<Map<String, Object>> askAsync(@RequestBody QuestionRequest request) {
+        Long questionId = asyncQuestionService.submit(request).getQuestionId();
+        Map<String, Object> body = new HashMap<>();
+        body.put("questionId", questionId);
+        body.put("status", "PENDING");
+        body.put("answerUrl", "/api/questions/" + questionId + "/answer");
+        return ResponseEntity.accepted().location(URI.create("/api/questions/" + questionId + "/answer")).body(body);
+    }
+
+    @Operation(summary = "Poll or long-poll for an asynchronous answer",
+            description = "200 with the answer when ready, 202 while pending; waitMs > 0 holds the request (no thread) until ready.")
+    @GetMapping("/questions/{id}/answer")
+    public DeferredResult<ResponseEntity<?>> getAnswer(@PathVariable Long id,
+                                                       @RequestParam(value = "waitMs", defaultValue = "0") long waitMs) {
+        // Look up the in-flight generation first: once it is gone, the answer is already persisted
+        Optional<CompletableFuture<AnswerResponse>> inFlight = asyncQuestionService.findPending(id);
+        Optional<Question> found = questionService.findQuestion(id);
+        String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
+        long timeout = Math.max(1, Math.min(waitMs, MAX_POLL_WAIT_MS));
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeout, pendingResponse(id));
+        if (found.isEmpty()) {
+            result.setResult(ResponseEntity.notFound().build());
+            return result;
+        }
+        Question question = found.get();
+        if (!question.getUser().getUsername().equals(currentUser) && !authService.isCurrentUserAdmin()) {
+            result.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+            return result;
+        }
+
+        if (inFlight.isEmpty()) {
+            result.setResult(asyncQuestionService.findAnswer(question)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build()));
+        } else if (waitMs <= 0) {
+            result.setResult(pendingResponse(id));
+        } else {
+            inFlight.get().whenComplete((answer, error) -> result.setResult(error == null
+                    ? ResponseEntity.ok(answer)
+                    : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Answer generation failed")));
+        }
+        return result;
+    }
+
+    private ResponseEntity<Map<String, Object>> pendingResponse(Long questionId) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("questionId", questionId);
+        body.put("status", "PENDING");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
     }
 
     @GetMapping("/questions/history")
@@ -41,6 +181,7 @@ public class QuestionController {
             @RequestParam(value = "order", defaultValue = "asc") String order,
             @RequestParam(value = "page", defaultValue = "0") int page) {
         boolean asc = !"desc".equalsIgnoreCase(order);
+        questionService.awaitPersisted(user.getUsername());
         return questionService.getHistory(user.getUsername(), documentId, page, 10, asc);
     }
 
@@ -48,14 +189,13 @@ public class QuestionController {
     @PutMapping("/questions/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> updateQuestion(@PathVariable Long id, @RequestBody QuestionUpdateRequest request) {
-        Question question = questionService.getQuestionRepository().findById(id).orElseThrow();
+        Question question = questionService.findQuestion(id).orElseThrow();
         String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
         boolean isAdmin = authService.isCurrentUserAdmin();
         if (!question.getUser().getUsername().equals(currentUser) && !isAdmin) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        question.setText(request.getNewText());
-        questionService.getQuestionRepository().save(question);
+        questionService.updateQuestionText(question, request.getNewText());
         return ResponseEntity.ok("Question updated.");
     }
 
@@ -63,13 +203,13 @@ public class QuestionController {
     @DeleteMapping("/questions/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> deleteQuestion(@PathVariable Long id) {
-        Question question = questionService.getQuestionRepository().findById(id).orElseThrow();
+        Question question = questionService.findQuestion(id).orElseThrow();
         String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
         boolean isAdmin = authService.isCurrentUserAdmin();
         if (!question.getUser().getUsername().equals(currentUser) && !isAdmin) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        questionService.getQuestionRepository().delete(question);
+        questionService.deleteQuestion(question);
         return ResponseEntity.ok("Question deleted.");
     }
 }
\ No newline at end of file
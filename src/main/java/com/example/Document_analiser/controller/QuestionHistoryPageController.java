@@ -1,7 +1,7 @@
 package com.example.Document_analiser.controller;
 
-import com.example.Document_analiser.entity.Document;
-import com.example.Document_analiser.service.DocumentService;
+import com.example.Document_analiser.repository.projection.DocumentCatalogView;
+import com.example.Document_analiser.service.DocumentCatalogService;
 import com.example.Document_analiser.service.QuestionService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.User;
@@ -17,11 +17,11 @@ import java.util.List;
 @RequestMapping("/history")
 public class QuestionHistoryPageController {
     private final QuestionService questionService;
-    private final DocumentService documentService;
+    private final DocumentCatalogService documentCatalogService;
 
-    public QuestionHistoryPageController(QuestionService questionService, DocumentService documentService) {
+    public QuestionHistoryPageController(QuestionService questionService, DocumentCatalogService documentCatalogService) {
         this.questionService = questionService;
-        this.documentService = documentService;
+        this.documentCatalogService = documentCatalogService;
     }
 
     @GetMapping
@@ -32,8 +32,9 @@ public class QuestionHistoryPageController {
             @RequestParam(value = "page", defaultValue = "0") int page,
             Model model) {
         boolean asc = !"desc".equalsIgnoreCase(order);
+        questionService.awaitPersisted(user.getUsername());
         var historyPage = questionService.getHistory(user.getUsername(), documentId, page, 10, asc);
-        List<Document> docs = documentService.getAllDocuments();
+        List<DocumentCatalogView> docs = documentCatalogService.suggest(null, DocumentCatalogService.DROPDOWN_SIZE, documentId);
         model.addAttribute("historyPage", historyPage);
         model.addAttribute("documents", docs);
         model.addAttribute("currentOrder", asc ? "asc" : "desc");
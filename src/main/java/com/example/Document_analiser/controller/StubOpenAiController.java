@@ -0,0 +1,187 @@
+package com.example.Document_analiser.controller;
+
+import com.example.Document_analiser.service.QuestionService;
+import com.example.Document_analiser.stub.StubAi;
+import com.example.Document_analiser.stub.StubAiBehavior;
+import com.example.Document_analiser.stub.StubAiException;
+import com.example.Document_analiser.stub.StubChatModel;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP stand-in for the OpenAI chat completions and embeddings APIs ({@code stub}
+ * profile). Point an OpenAI client at {@code http://<host>:<port>/stub/openai} to get the
+ * latency, streaming pace, errors and rate limits configured under {@code stub.ai.*},
+ * without network access or an API key. Streamed completions use the provider's SSE chunk
+ * format and end with {@code data: [DONE]}; errors use its error body and 429s carry
+ * {@code Retry-After}.
+ */
+@RestController
+@Profile("stub")
+@RequestMapping("/stub/openai/v1")
+public class StubOpenAiController {
+
+    private final StubAi stubAi;
+    private final QuestionService.EmbeddingClient vectors;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong ids = new AtomicLong();
+
+    public StubOpenAiController(StubAi stubAi,
+                                @Qualifier("embeddingClient") QuestionService.EmbeddingClient vectors,
+                                ObjectMapper objectMapper) {
+        this.stubAi = stubAi;
+        this.vectors = vectors;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping("/chat/completions")
+    public ResponseEntity<StreamingResponseBody> chatCompletions(@RequestBody JsonNode request) {
+        StubAiBehavior chat = stubAi.getChat();
+        StringBuilder prompt = new StringBuilder();
+        for (JsonNode message : request.path("messages")) {
+            prompt.append(message.path("content").asText()).append('\n');
+        }
+        int promptTokens = StubChatModel.estimateTokens(prompt.toString());
+        try {
+            chat.admit(promptTokens);
+        } catch (StubAiException e) {
+            return error(e);
+        }
+        String model = request.path("model").asText("stub-chat");
+        String id = "chatcmpl-stub-" + ids.incrementAndGet();
+        long created = Instant.now().getEpochSecond();
+        List<String> tokens = StubChatModel.answerTokens(prompt.toString(), chat.nextCompletionTokens());
+        ObjectNode usage = objectMapper.createObjectNode()
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", tokens.size())
+                .put("total_tokens", promptTokens + tokens.size());
+
+        if (!request.path("stream").asBoolean(false)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+                long nanos = chat.latencyNanos();
+                for (int i = 1; i < tokens.size(); i++) {
+                    nanos += chat.tokenGapNanos();
+                }
+                StubAiBehavior.pause(nanos);
+                chat.recordOutput(tokens.size());
+                ObjectNode body = completion(id, "chat.completion", created, model);
+                ObjectNode choice = body.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop");
+                choice.putObject("message").put("role", "assistant").put("content", String.join("", tokens));
+                body.set("usage", usage);
+                objectMapper.writeValue(out, body);
+            });
+        }
+
+        boolean includeUsage = request.path("stream_options").path("include_usage").asBoolean(false);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(out -> {
+            StubAiBehavior.pause(chat.latencyNanos());
+            for (int i = 0; i < tokens.size(); i++) {
+                if (i > 0) {
+                    StubAiBehavior.pause(chat.tokenGapNanos());
+                }
+                ObjectNode chunk = completion(id, "chat.completion.chunk", created, model);
+                ObjectNode choice = chunk.putArray("choices").addObject().put("index", 0);
+                choice.putObject("delta").put("content", tokens.get(i));
+                choice.putNull("finish_reason");
+                event(out, chunk);
+            }
+            ObjectNode finish = completion(id, "chat.completion.chunk", created, model);
+            finish.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop").putObject("delta");
+            event(out, finish);
+            if (includeUsage) {
+                ObjectNode usageChunk = completion(id, "chat.completion.chunk", created, model);
+                usageChunk.putArray("choices");
+                usageChunk.set("usage", usage);
+                event(out, usageChunk);
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            chat.recordOutput(tokens.size());
+        });
+    }
+
+    @PostMapping("/embeddings")
+    public ResponseEntity<StreamingResponseBody> embeddings(@RequestBody JsonNode request) {
+        StubAiBehavior embedding = stubAi.getEmbedding();
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(text -> inputs.add(text.asText()));
+        } else {
+            inputs.add(input.asText());
+        }
+        if (inputs.size() > embedding.getMaxBatchSize()) {
+            return error(HttpStatus.BAD_REQUEST, "invalid_request_error",
+                    "'input' must have at most " + embedding.getMaxBatchSize() + " items", 0);
+        }
+        int tokens = 0;
+        for (String text : inputs) {
+            tokens += StubChatModel.estimateTokens(text);
+        }
+        try {
+            embedding.admit(tokens);
+        } catch (StubAiException e) {
+            return error(e);
+        }
+        String model = request.path("model").asText("stub-embedding");
+        int promptTokens = tokens;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+            StubAiBehavior.pause(embedding.batchNanos(inputs.size()));
+            ObjectNode body = objectMapper.createObjectNode().put("object", "list").put("model", model);
+            ArrayNode data = body.putArray("data");
+            for (int i = 0; i < inputs.size(); i++) {
+                ArrayNode values = data.addObject().put("object", "embedding").put("index", i).putArray("embedding");
+                for (float value : vectors.embed(inputs.get(i), model)) {
+                    values.add(value);
+                }
+            }
+            body.putObject("usage").put("prompt_tokens", promptTokens).put("total_tokens", promptTokens);
+            objectMapper.writeValue(out, body);
+        });
+    }
+
+    private ObjectNode completion(String id, String object, long created, String model) {
+        return objectMapper.createObjectNode()
+                .put("id", id)
+                .put("object", object)
+                .put("created", created)
+                .put("model", model);
+    }
+
+    private void event(OutputStream out, JsonNode data) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private ResponseEntity<StreamingResponseBody> error(StubAiException e) {
+        String type = e.getStatus() == 429 ? "rate_limit_exceeded" : "server_error";
+        return error(HttpStatus.valueOf(e.getStatus()), type, e.getMessage(), e.getRetryAfterMs());
+    }
+
+    private ResponseEntity<StreamingResponseBody> error(HttpStatus status, String type, String message, long retryAfterMs) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("error").put("message", message).put("type", type).put("code", type);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON);
+        if (retryAfterMs > 0) {
+            response.header("Retry-After", String.valueOf(Math.max(1, (retryAfterMs + 999) / 1000)));
+        }
+        return response.body(out -> objectMapper.writeValue(out, body));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.Document_analiser.controller;
 
 import com.example.Document_analiser.dto.DocumentUploadRequest;
 import com.example.Document_analiser.dto.QuestionRequest;
+import com.example.Document_analiser.service.DocumentCatalogService;
 import com.example.Document_analiser.service.DocumentService;
 import com.example.Document_analiser.service.QuestionService;
 import jakarta.validation.Valid;
@@ -19,9 +20,12 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class UiController {
     private final QuestionService questionService;
     private final DocumentService documentService;
-    public UiController(QuestionService questionService, DocumentService documentService) {
+    private final DocumentCatalogService documentCatalogService;
+    public UiController(QuestionService questionService, DocumentService documentService,
+                        DocumentCatalogService documentCatalogService) {
         this.questionService = questionService;
         this.documentService = documentService;
+        this.documentCatalogService = documentCatalogService;
     }
 
     @GetMapping("/")
@@ -40,7 +44,8 @@ public class UiController {
             qr.setDocumentId(((Number) selectedDoc).longValue());
         }
         model.addAttribute("questionRequest", qr);
-        model.addAttribute("documents", documentService.getAllDocuments());
+        model.addAttribute("documents",
+                documentCatalogService.suggest(null, DocumentCatalogService.DROPDOWN_SIZE, qr.getDocumentId()));
         model.addAttribute("username", user.getUsername());
         return "ask";
     }
@@ -51,11 +56,13 @@ public class UiController {
                                  RedirectAttributes redirectAttributes,
                                  Model model) {
         if (bindingResult.hasErrors()) {
-            model.addAttribute("documents", documentService.getAllDocuments());
+            model.addAttribute("documents", documentCatalogService.suggest(null, DocumentCatalogService.DROPDOWN_SIZE,
+                    questionRequest.getDocumentId()));
             return "ask";
         }
         try {
             com.example.Document_analiser.util.RequestTextHolder.set(questionRequest.getText());
+            com.example.Document_analiser.util.LlmPriorityHolder.set(com.example.Document_analiser.service.LlmPriority.INTERACTIVE);
             var response = questionService.askQuestion(questionRequest);
             redirectAttributes.addFlashAttribute("answer", response.getAnswer());
             redirectAttributes.addFlashAttribute("selectedDocumentId", questionRequest.getDocumentId());
@@ -69,6 +76,7 @@ public class UiController {
             redirectAttributes.addFlashAttribute("selectedDocumentId", questionRequest.getDocumentId());
         } finally {
             com.example.Document_analiser.util.RequestTextHolder.clear();
+            com.example.Document_analiser.util.LlmPriorityHolder.clear();
         }
         return "redirect:/ask";
     }
@@ -0,0 +1,13 @@
+package com.example.Document_analiser.dto;
+
+/**
+ * How a question may be answered.
+ */
+public enum AnswerMode {
+    /** Extract the answer sentence when retrieval is decisive, otherwise generate. */
+    AUTO,
+    /** Always call the chat model. */
+    GENERATIVE,
+    /** Prefer the best matching sentence; the chat model is used only when nothing matches. */
+    EXTRACTIVE
+}
@@ -3,10 +3,20 @@ package com.example.Document_analiser.dto;
 import java.time.LocalDateTime;
 
 public class AnswerResponse {
+    private Long questionId;
     private String answer;
     private LocalDateTime generatedAt;
+    private boolean extractive;
 
     // Getters and Setters
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
     public String getAnswer() {
         return answer;
     }
@@ -22,4 +32,12 @@ public class AnswerResponse {
     public void setGeneratedAt(LocalDateTime generatedAt) {
         this.generatedAt = generatedAt;
     }
+
+    public boolean isExtractive() {
+        return extractive;
+    }
+
+    public void setExtractive(boolean extractive) {
+        this.extractive = extractive;
+    }
 } 
\ No newline at end of file
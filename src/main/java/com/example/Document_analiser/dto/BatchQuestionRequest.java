@@ -0,0 +1,28 @@
+package com.example.Document_analiser.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchQuestionRequest {
+
+    @NotNull(message = "Please select a document")
+    private Long documentId;
+
+    @NotEmpty(message = "At least one question is required")
+    @Size(max = 100, message = "At most 100 questions per batch")
+    private List<@NotBlank @Size(max = 500) String> questions;
+
+    // Optional; applies to every question in the batch
+    private AnswerMode answerMode;
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+    public List<String> getQuestions() { return questions; }
+    public void setQuestions(List<String> questions) { this.questions = questions; }
+    public AnswerMode getAnswerMode() { return answerMode; }
+    public void setAnswerMode(AnswerMode answerMode) { this.answerMode = answerMode; }
+}
@@ -13,6 +13,9 @@ public class QuestionRequest {
     @NotNull(message = "Please select a document")
     private Long documentId;
 
+    // Optional; null uses the configured default (answers.extractive.default-mode)
+    private AnswerMode answerMode;
+
     // Getters and Setters
     public String getText() {
         return text;
@@ -29,4 +32,12 @@ public class QuestionRequest {
     public void setDocumentId(Long documentId) {
         this.documentId = documentId;
     }
+
+    public AnswerMode getAnswerMode() {
+        return answerMode;
+    }
+
+    public void setAnswerMode(AnswerMode answerMode) {
+        this.answerMode = answerMode;
+    }
 }
\ No newline at end of file
@@ -12,6 +12,9 @@ public class Answer {
     @Column(columnDefinition = "text")
     private String text;
     private LocalDateTime generatedAt;
+    // True when the text was extracted from the document without calling the AI model
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean extractive;
     @OneToOne
     @JoinColumn(name = "question_id")
     private Question question;
@@ -41,6 +44,14 @@ public class Answer {
         this.generatedAt = generatedAt;
     }
 
+    public boolean isExtractive() {
+        return extractive;
+    }
+
+    public void setExtractive(boolean extractive) {
+        this.extractive = extractive;
+    }
+
     public Question getQuestion() {
         return question;
     }
@@ -13,6 +13,9 @@ public class Document {
     private String name;
     private String type;
     private LocalDateTime uploadDate;
+    // Размер на качения файл и брой chunk-ове – за каталога, без четене на content/chunks
+    private Long sizeBytes;
+    private Integer chunkCount;
     // Large text; store as PostgreSQL text and load lazily to avoid LOB stream issues
     @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "text")
@@ -54,6 +57,22 @@ public class Document {
         this.uploadDate = uploadDate;
     }
 
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public Integer getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(Integer chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
     public String getContent() {
         return content;
     }
@@ -0,0 +1,15 @@
+package com.example.Document_analiser.event;
+
+/**
+ * Публикува се след изтриване на документ (заедно с неговите chunk-ове).
+ */
+public class DocumentDeletedEvent {
+
+    private final Long documentId;
+
+    public DocumentDeletedEvent(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    public Long getDocumentId() { return documentId; }
+}
@@ -0,0 +1,19 @@
+package com.example.Document_analiser.event;
+
+/**
+ * Публикува се след запис на нов документ. Ако документ със същото име е бил заменен,
+ * {@code replacedDocumentId} е неговото id, иначе {@code null}.
+ */
+public class DocumentStoredEvent {
+
+    private final Long documentId;
+    private final Long replacedDocumentId;
+
+    public DocumentStoredEvent(Long documentId, Long replacedDocumentId) {
+        this.documentId = documentId;
+        this.replacedDocumentId = replacedDocumentId;
+    }
+
+    public Long getDocumentId() { return documentId; }
+    public Long getReplacedDocumentId() { return replacedDocumentId; }
+}
@@ -0,0 +1,16 @@
+package com.example.Document_analiser.event;
+
+/**
+ * Публикува се, когато отговор на въпрос е записан в базата
+ * (при write-behind – след като записът е изпратен от опашката).
+ */
+public class QuestionAnsweredEvent {
+
+    private final String username;
+
+    public QuestionAnsweredEvent(String username) {
+        this.username = username;
+    }
+
+    public String getUsername() { return username; }
+}
@@ -0,0 +1,18 @@
+package com.example.Document_analiser.event;
+
+/**
+ * Публикува се след редакция или изтриване на въпрос от потребителя.
+ */
+public class QuestionChangedEvent {
+
+    private final Long questionId;
+    private final String username;
+
+    public QuestionChangedEvent(Long questionId, String username) {
+        this.questionId = questionId;
+        this.username = username;
+    }
+
+    public Long getQuestionId() { return questionId; }
+    public String getUsername() { return username; }
+}
@@ -34,6 +34,27 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>("Forbidden: " + ex.getMessage(), headers, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(LlmUnavailableException.class)
+    public ResponseEntity<String> handleLlmUnavailable(LlmUnavailableException ex) {
+        String cid = MDC.get("cid");
+        log.warn("503 AI unavailable [cid={}] reason={} {}", cid, ex.getReason(), ex.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        if (cid != null) headers.add("X-Correlation-Id", cid);
+        if (!"timeout".equals(ex.getReason()) && !"failure".equals(ex.getReason())) {
+            headers.add(HttpHeaders.RETRY_AFTER, "5");
+        }
+        return new ResponseEntity<>("AI unavailable: " + ex.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(RequestAbandonedException.class)
+    public ResponseEntity<String> handleRequestAbandoned(RequestAbandonedException ex) {
+        String cid = MDC.get("cid");
+        log.info("Request abandoned [cid={}] stage={} reason={}", cid, ex.getStage(), ex.getReason());
+        HttpHeaders headers = new HttpHeaders();
+        if (cid != null) headers.add("X-Correlation-Id", cid);
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).headers(headers).body("Request deadline exceeded: " + ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneric(Exception ex) {
         String cid = MDC.get("cid");
@@ -0,0 +1,28 @@
+package com.example.Document_analiser.exception;
+
+/**
+ * Thrown when a chat model call is not attempted or not completed: circuit open,
+ * bulkhead full, deadline exceeded, every attempt failed, or it waited too long for
+ * admission in the scheduler.
+ */
+public class LlmUnavailableException extends RuntimeException {
+    private final String reason;
+
+    public LlmUnavailableException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public LlmUnavailableException(String reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    /**
+     * Short machine-readable reason: circuit_open, bulkhead_full, timeout, failure,
+     * queue_timeout or cancelled.
+     */
+    public String getReason() {
+        return reason;
+    }
+}
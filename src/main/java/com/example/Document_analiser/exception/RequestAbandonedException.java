@@ -0,0 +1,29 @@
+package com.example.Document_analiser.exception;
+
+/**
+ * Thrown when request processing stops early because its deadline expired, so no
+ * further work is done for a response nobody will read.
+ */
+public class RequestAbandonedException extends RuntimeException {
+
+    private final String stage;
+    private final String reason;
+
+    /**
+     * @param stage  processing stage that was skipped (e.g. {@code retrieval}, {@code generation})
+     * @param reason why the request is dead, e.g. {@code deadline}
+     */
+    public RequestAbandonedException(String stage, String reason) {
+        super("Request abandoned before " + stage + " (" + reason + ")");
+        this.stage = stage;
+        this.reason = reason;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
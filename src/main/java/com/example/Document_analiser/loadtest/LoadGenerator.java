@@ -0,0 +1,336 @@
+package com.example.Document_analiser.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator.
+ *
+ * For each arrival rate of the scenario, requests are dispatched at precomputed intended
+ * start times (evenly spaced or exponential gaps) on virtual threads, independent of how
+ * long earlier requests take. A closed loop - N threads each waiting for its response -
+ * stops sending while the server stalls, so the stall shows up in a handful of samples
+ * instead of every request that would have arrived (coordinated omission). Here the
+ * response time is measured from the intended start: time spent queued behind a slow
+ * server, waiting for an in-flight slot or behind a late dispatcher all count. The service
+ * time (from the actual send) is reported next to it, and the gap between the two shows
+ * how much a closed-loop measurement would have hidden.
+ *
+ * Latencies of successful (2xx) requests are recorded in HdrHistograms per stage and per
+ * action; errors, timeouts and status codes are counted separately.
+ */
+public class LoadGenerator {
+
+    private static final long HIGHEST_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int STATUS_TIMEOUT = -1;
+    private static final int STATUS_IO_ERROR = -2;
+
+    private final LoadTarget target;
+    private final LoadScenario scenario;
+    private final double[] cumulativeWeights;
+
+    private volatile boolean cancelled;
+    private volatile String phase = "pending";
+
+    public LoadGenerator(LoadTarget target, LoadScenario scenario) {
+        this.target = target;
+        this.scenario = scenario;
+        List<LoadScenario.Step> steps = scenario.getSteps();
+        this.cumulativeWeights = new double[steps.size()];
+        double sum = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            sum += steps.get(i).getWeight();
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /** Stops after the current request dispatch; the partial result is still returned. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** What the generator is doing, e.g. {@code stage 3/6 at 10.0/s}. */
+    public String getPhase() {
+        return phase;
+    }
+
+    /** Runs warm-up and every stage; returns the result as nested maps, ready for JSON. */
+    public Map<String, Object> run() throws IOException, InterruptedException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", describeScenario());
+        result.put("target", target.getBaseUrl());
+        result.put("startedAt", Instant.now().toString());
+
+        phase = "preparing";
+        target.prepare();
+        result.put("documents", target.getDocumentIds().size());
+
+        List<Map<String, Object>> stages = new ArrayList<>();
+        String stopReason = null;
+        Semaphore inFlight = new Semaphore(scenario.getMaxInFlight());
+        SplittableRandom random = new SplittableRandom(scenario.getSeed());
+        List<Double> rates = scenario.getRates();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (scenario.getWarmupSeconds() > 0) {
+                phase = "warm-up at " + rates.get(0) + "/s";
+                runStage(new StageStats(rates.get(0)), scenario.getWarmupSeconds(), executor, inFlight, random);
+            }
+            for (int i = 0; i < rates.size() && !cancelled; i++) {
+                double rate = rates.get(i);
+                phase = "stage " + (i + 1) + "/" + rates.size() + " at " + rate + "/s";
+                StageStats stats = new StageStats(rate);
+                runStage(stats, scenario.getStageSeconds(), executor, inFlight, random);
+                Map<String, Object> stage = stats.toMap();
+                stages.add(stage);
+
+                double p99 = stats.response.getTotalCount() > 0 ? microsToMillis(stats.response.getValueAtPercentile(99)) : 0;
+                if (scenario.getStopAboveP99Ms() > 0 && p99 > scenario.getStopAboveP99Ms()) {
+                    stopReason = "p99 " + Math.round(p99) + " ms above " + scenario.getStopAboveP99Ms() + " ms at " + rate + "/s";
+                    break;
+                }
+                if ((double) stage.get("errorRatio") > scenario.getStopAboveErrorRatio()) {
+                    stopReason = "error ratio " + stage.get("errorRatio") + " at " + rate + "/s";
+                    break;
+                }
+            }
+        } finally {
+            phase = cancelled ? "cancelled" : "finished";
+        }
+
+        result.put("finishedAt", Instant.now().toString());
+        result.put("stopReason", cancelled ? "cancelled" : stopReason != null ? stopReason : "all stages completed");
+        result.put("stages", stages);
+        result.put("maxRateWithinTarget", maxRateWithinTarget(stages));
+        return result;
+    }
+
+    /** Dispatches requests for one stage on the open-loop schedule, then waits for them to finish. */
+    private void runStage(StageStats stats, int seconds, ExecutorService executor, Semaphore inFlight,
+                          SplittableRandom random) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        double meanGapNanos = 1e9 / stats.offeredRate;
+        boolean poisson = scenario.getArrival() == LoadScenario.Arrival.POISSON;
+        double intended = start;
+
+        while (!cancelled) {
+            intended += poisson ? -Math.log(1.0 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+            long intendedAt = (long) intended;
+            if (intendedAt >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intendedAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            stats.dispatchLag.recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(-wait)));
+            LoadScenario.Action action = pick(random.nextDouble());
+            SplittableRandom requestRandom = random.split();
+            stats.scheduled.increment();
+            stats.active.incrementAndGet();
+            executor.execute(() -> execute(action, intendedAt, stats, inFlight, requestRandom));
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+
+        // let this stage's requests finish so they are not attributed to the next stage
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(scenario.getRequestTimeoutMs() + 1000);
+        while (stats.active.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void execute(LoadScenario.Action action, long intendedAt, StageStats stats, Semaphore inFlight,
+                         SplittableRandom random) {
+        try {
+            inFlight.acquire();
+            int concurrent = scenario.getMaxInFlight() - inFlight.availablePermits();
+            stats.maxInFlight.accumulateAndGet(concurrent, Math::max);
+            long sentAt = System.nanoTime();
+            int status;
+            try {
+                status = target.execute(action, random);
+            } catch (HttpTimeoutException e) {
+                status = STATUS_TIMEOUT;
+            } catch (IOException e) {
+                status = STATUS_IO_ERROR;
+            } finally {
+                inFlight.release();
+            }
+            stats.record(action, intendedAt, sentAt, System.nanoTime(), status);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stats.active.decrementAndGet();
+        }
+    }
+
+    private LoadScenario.Action pick(double uniform) {
+        double point = uniform * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return scenario.getSteps().get(i).getAction();
+            }
+        }
+        return scenario.getSteps().get(cumulativeWeights.length - 1).getAction();
+    }
+
+    private Map<String, Object> describeScenario() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("name", scenario.getName());
+        description.put("description", scenario.getDescription());
+        Map<String, Object> mix = new LinkedHashMap<>();
+        scenario.getSteps().forEach(step -> mix.put(step.getAction().name(), step.getWeight()));
+        description.put("mix", mix);
+        description.put("rates", scenario.getRates());
+        description.put("arrival", scenario.getArrival().name());
+        description.put("warmupSeconds", scenario.getWarmupSeconds());
+        description.put("stageSeconds", scenario.getStageSeconds());
+        description.put("maxInFlight", scenario.getMaxInFlight());
+        description.put("requestTimeoutMs", scenario.getRequestTimeoutMs());
+        description.put("seed", scenario.getSeed());
+        description.put("stopAboveP99Ms", scenario.getStopAboveP99Ms());
+        return description;
+    }
+
+    /** Highest offered rate whose stage stayed within the p99 and error targets. */
+    @SuppressWarnings("unchecked")
+    private Object maxRateWithinTarget(List<Map<String, Object>> stages) {
+        Double best = null;
+        for (Map<String, Object> stage : stages) {
+            Map<String, Object> response = (Map<String, Object>) stage.get("responseTime");
+            boolean p99Ok = scenario.getStopAboveP99Ms() <= 0
+                    || ((Number) response.getOrDefault("p99Ms", 0)).doubleValue() <= scenario.getStopAboveP99Ms();
+            boolean errorsOk = (double) stage.get("errorRatio") <= scenario.getStopAboveErrorRatio();
+            if (!p99Ok || !errorsOk) {
+                break;
+            }
+            best = (Double) stage.get("offeredRate");
+        }
+        return best;
+    }
+
+    private static double microsToMillis(double micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        if (histogram.getTotalCount() == 0) {
+            return summary;
+        }
+        summary.put("meanMs", microsToMillis(histogram.getMean()));
+        summary.put("p50Ms", microsToMillis(histogram.getValueAtPercentile(50)));
+        summary.put("p90Ms", microsToMillis(histogram.getValueAtPercentile(90)));
+        summary.put("p99Ms", microsToMillis(histogram.getValueAtPercentile(99)));
+        summary.put("p999Ms", microsToMillis(histogram.getValueAtPercentile(99.9)));
+        summary.put("maxMs", microsToMillis(histogram.getMaxValue()));
+        return summary;
+    }
+
+    /** Counters and histograms of one stage, written by the request threads. */
+    private static final class StageStats {
+        final double offeredRate;
+        final ConcurrentHistogram response = new ConcurrentHistogram(HIGHEST_MICROS, 2);
+        final ConcurrentHistogram service = new ConcurrentHistogram(HIGHEST_MICROS, 2);
+        final ConcurrentHistogram dispatchLag = new ConcurrentHistogram(HIGHEST_MICROS, 2);
+        final Map<LoadScenario.Action, ActionStats> actions = new EnumMap<>(LoadScenario.Action.class);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder scheduled = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        volatile long elapsedNanos;
+
+        StageStats(double offeredRate) {
+            this.offeredRate = offeredRate;
+            for (LoadScenario.Action action : LoadScenario.Action.values()) {
+                actions.put(action, new ActionStats());
+            }
+        }
+
+        void record(LoadScenario.Action action, long intendedAt, long sentAt, long doneAt, int status) {
+            completed.increment();
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            ActionStats stats = actions.get(action);
+            stats.count.increment();
+            if (status < 200 || status >= 300) {
+                errors.increment();
+                stats.errors.increment();
+                return;
+            }
+            long responseMicros = Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(doneAt - intendedAt));
+            long serviceMicros = Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(doneAt - sentAt));
+            response.recordValue(responseMicros);
+            service.recordValue(serviceMicros);
+            stats.response.recordValue(responseMicros);
+        }
+
+        Map<String, Object> toMap() {
+            double seconds = Math.max(elapsedNanos / 1e9, 0.001);
+            long done = completed.sum();
+            Map<String, Object> stage = new LinkedHashMap<>();
+            stage.put("offeredRate", offeredRate);
+            stage.put("scheduled", scheduled.sum());
+            stage.put("completed", done);
+            stage.put("achievedRate", Math.round((done - errors.sum()) / seconds * 100) / 100.0);
+            stage.put("errors", errors.sum());
+            stage.put("errorRatio", done > 0 ? Math.round(errors.sum() * 10_000.0 / done) / 10_000.0 : 0.0);
+            Map<String, Long> statusCounts = new TreeMap<>();
+            statuses.forEach((status, count) -> statusCounts.put(statusName(status), count.sum()));
+            stage.put("statuses", statusCounts);
+            stage.put("maxInFlight", maxInFlight.get());
+            stage.put("responseTime", percentiles(response));
+            stage.put("serviceTime", percentiles(service));
+            stage.put("dispatchLagP99Ms", dispatchLag.getTotalCount() > 0
+                    ? microsToMillis(dispatchLag.getValueAtPercentile(99)) : 0.0);
+            Map<String, Object> byAction = new LinkedHashMap<>();
+            actions.forEach((action, stats) -> {
+                if (stats.count.sum() > 0) {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("requests", stats.count.sum());
+                    entry.put("errors", stats.errors.sum());
+                    entry.put("responseTime", percentiles(stats.response));
+                    byAction.put(action.name(), entry);
+                }
+            });
+            stage.put("actions", byAction);
+            return stage;
+        }
+
+        private static String statusName(int status) {
+            return switch (status) {
+                case STATUS_TIMEOUT -> "timeout";
+                case STATUS_IO_ERROR -> "io_error";
+                default -> String.valueOf(status);
+            };
+        }
+    }
+
+    private static final class ActionStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final ConcurrentHistogram response = new ConcurrentHistogram(HIGHEST_MICROS, 2);
+    }
+}
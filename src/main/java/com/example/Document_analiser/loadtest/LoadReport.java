@@ -0,0 +1,227 @@
+package com.example.Document_analiser.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a load test result as JSON and as a self-contained HTML page.
+ *
+ * The page plots the throughput-vs-latency curve - corrected p50/p90/p99 and the
+ * uncorrected (service time) p99 against the offered rate - and achieved against offered
+ * throughput, as inline SVG, followed by a table per stage. It needs no scripts or network.
+ */
+public final class LoadReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 320;
+    private static final int MARGIN = 50;
+
+    private LoadReport() {
+    }
+
+    /** Writes {@code <baseName>.json} and {@code <baseName>.html}; returns both paths. */
+    public static List<Path> write(Map<String, Object> result, Path directory, String baseName) throws IOException {
+        Files.createDirectories(directory);
+        Path json = directory.resolve(baseName + ".json");
+        Path html = directory.resolve(baseName + ".html");
+        MAPPER.writeValue(json.toFile(), result);
+        Files.writeString(html, toHtml(result), StandardCharsets.UTF_8);
+        return List.of(json, html);
+    }
+
+    public static String toJson(Map<String, Object> result) throws IOException {
+        return MAPPER.writeValueAsString(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static String toHtml(Map<String, Object> result) {
+        Map<String, Object> scenario = (Map<String, Object>) result.get("scenario");
+        List<Map<String, Object>> stages = (List<Map<String, Object>>) result.getOrDefault("stages", List.of());
+
+        List<double[]> p50 = new ArrayList<>();
+        List<double[]> p90 = new ArrayList<>();
+        List<double[]> p99 = new ArrayList<>();
+        List<double[]> serviceP99 = new ArrayList<>();
+        List<double[]> achieved = new ArrayList<>();
+        for (Map<String, Object> stage : stages) {
+            double rate = number(stage.get("offeredRate"));
+            Map<String, Object> response = (Map<String, Object>) stage.get("responseTime");
+            Map<String, Object> service = (Map<String, Object>) stage.get("serviceTime");
+            if (response.containsKey("p50Ms")) {
+                p50.add(new double[]{rate, number(response.get("p50Ms"))});
+                p90.add(new double[]{rate, number(response.get("p90Ms"))});
+                p99.add(new double[]{rate, number(response.get("p99Ms"))});
+                serviceP99.add(new double[]{rate, number(service.get("p99Ms"))});
+            }
+            achieved.add(new double[]{rate, number(stage.get("achievedRate"))});
+        }
+
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Load test ")
+                .append(escape(scenario.get("name"))).append("</title><style>")
+                .append("body{font-family:sans-serif;margin:2em;color:#222}")
+                .append("table{border-collapse:collapse;margin:1em 0}td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}")
+                .append("th{background:#f3f3f3}svg{border:1px solid #ddd;margin:1em 1em 0 0}.legend span{margin-right:1.5em}")
+                .append("</style></head><body>");
+        html.append("<h1>Load test: ").append(escape(scenario.get("name"))).append("</h1>");
+        html.append("<p>").append(escape(scenario.get("description"))).append("</p>");
+        html.append("<p>Target ").append(escape(result.get("target")))
+                .append(" &middot; ").append(escape(result.get("startedAt"))).append(" &ndash; ").append(escape(result.get("finishedAt")))
+                .append(" &middot; mix ").append(escape(scenario.get("mix")))
+                .append(" &middot; ").append(escape(scenario.get("arrival"))).append(" arrivals, ")
+                .append(escape(scenario.get("stageSeconds"))).append(" s per stage</p>");
+        html.append("<p>Stopped: ").append(escape(result.get("stopReason")))
+                .append(" &middot; max rate within target: ").append(escape(result.get("maxRateWithinTarget"))).append("/s</p>");
+
+        html.append("<h2>Latency vs offered rate</h2><div class=\"legend\">")
+                .append("<span style=\"color:#1f77b4\">&#9632; p50</span><span style=\"color:#ff7f0e\">&#9632; p90</span>")
+                .append("<span style=\"color:#d62728\">&#9632; p99</span>")
+                .append("<span style=\"color:#7f7f7f\">- - p99 service time (uncorrected)</span></div>");
+        html.append(chart("offered rate (req/s)", "latency (ms)", List.of(
+                new Series(p50, "#1f77b4", false), new Series(p90, "#ff7f0e", false),
+                new Series(p99, "#d62728", false), new Series(serviceP99, "#7f7f7f", true))));
+        html.append("<h2>Achieved vs offered rate</h2>");
+        List<double[]> ideal = new ArrayList<>();
+        achieved.forEach(point -> ideal.add(new double[]{point[0], point[0]}));
+        html.append(chart("offered rate (req/s)", "achieved rate (req/s)", List.of(
+                new Series(ideal, "#cccccc", true), new Series(achieved, "#2ca02c", false))));
+
+        html.append("<h2>Stages</h2><table><tr><th>offered/s</th><th>achieved/s</th><th>completed</th><th>errors</th>")
+                .append("<th>p50 ms</th><th>p90 ms</th><th>p99 ms</th><th>p99.9 ms</th><th>max ms</th>")
+                .append("<th>service p99 ms</th><th>max in flight</th><th>dispatch lag p99 ms</th><th>statuses</th></tr>");
+        for (Map<String, Object> stage : stages) {
+            Map<String, Object> response = (Map<String, Object>) stage.get("responseTime");
+            Map<String, Object> service = (Map<String, Object>) stage.get("serviceTime");
+            html.append("<tr>");
+            cell(html, stage.get("offeredRate"));
+            cell(html, stage.get("achievedRate"));
+            cell(html, stage.get("completed"));
+            cell(html, stage.get("errors"));
+            cell(html, response.get("p50Ms"));
+            cell(html, response.get("p90Ms"));
+            cell(html, response.get("p99Ms"));
+            cell(html, response.get("p999Ms"));
+            cell(html, response.get("maxMs"));
+            cell(html, service.get("p99Ms"));
+            cell(html, stage.get("maxInFlight"));
+            cell(html, stage.get("dispatchLagP99Ms"));
+            cell(html, stage.get("statuses"));
+            html.append("</tr>");
+        }
+        html.append("</table>");
+
+        html.append("<h2>Per action p99 (ms)</h2><table><tr><th>offered/s</th>");
+        for (LoadScenario.Action action : LoadScenario.Action.values()) {
+            html.append("<th>").append(action.name()).append("</th>");
+        }
+        html.append("</tr>");
+        for (Map<String, Object> stage : stages) {
+            Map<String, Object> actions = (Map<String, Object>) stage.get("actions");
+            html.append("<tr>");
+            cell(html, stage.get("offeredRate"));
+            for (LoadScenario.Action action : LoadScenario.Action.values()) {
+                Map<String, Object> entry = (Map<String, Object>) actions.get(action.name());
+                cell(html, entry != null ? ((Map<String, Object>) entry.get("responseTime")).get("p99Ms") : null);
+            }
+            html.append("</tr>");
+        }
+        html.append("</table>");
+        html.append("<p>Response time is measured from each request's scheduled start (corrected for coordinated omission); ")
+                .append("service time from when it was actually sent. Only successful requests are in the latencies.</p>");
+        html.append("</body></html>");
+        return html.toString();
+    }
+
+    private static final class Series {
+        private final List<double[]> points;
+        private final String color;
+        private final boolean dashed;
+
+        Series(List<double[]> points, String color, boolean dashed) {
+            this.points = points;
+            this.color = color;
+            this.dashed = dashed;
+        }
+
+        List<double[]> points() { return points; }
+        String color() { return color; }
+        boolean dashed() { return dashed; }
+    }
+
+    private static String chart(String xLabel, String yLabel, List<Series> series) {
+        double maxX = 0;
+        double maxY = 0;
+        for (Series s : series) {
+            for (double[] point : s.points()) {
+                maxX = Math.max(maxX, point[0]);
+                maxY = Math.max(maxY, point[1]);
+            }
+        }
+        maxX = maxX > 0 ? maxX * 1.05 : 1;
+        maxY = maxY > 0 ? maxY * 1.1 : 1;
+        int plotWidth = WIDTH - 2 * MARGIN;
+        int plotHeight = HEIGHT - 2 * MARGIN;
+
+        StringBuilder svg = new StringBuilder();
+        svg.append(String.format(Locale.ROOT, "<svg width=\"%d\" height=\"%d\" xmlns=\"http://www.w3.org/2000/svg\" font-size=\"11\">",
+                WIDTH, HEIGHT));
+        svg.append(String.format(Locale.ROOT, "<line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#333\"/>",
+                MARGIN, HEIGHT - MARGIN, WIDTH - MARGIN, HEIGHT - MARGIN));
+        svg.append(String.format(Locale.ROOT, "<line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#333\"/>",
+                MARGIN, MARGIN, MARGIN, HEIGHT - MARGIN));
+        for (int tick = 0; tick <= 4; tick++) {
+            double fraction = tick / 4.0;
+            int x = MARGIN + (int) (fraction * plotWidth);
+            int y = HEIGHT - MARGIN - (int) (fraction * plotHeight);
+            svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"middle\">%.1f</text>",
+                    x, HEIGHT - MARGIN + 15, fraction * maxX));
+            svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"end\">%.0f</text>",
+                    MARGIN - 5, y + 4, fraction * maxY));
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#eee\"/>",
+                    MARGIN + 1, y, WIDTH - MARGIN, y));
+        }
+        svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"middle\">%s</text>",
+                WIDTH / 2, HEIGHT - 10, escape(xLabel)));
+        svg.append(String.format(Locale.ROOT, "<text x=\"12\" y=\"%d\" text-anchor=\"middle\" transform=\"rotate(-90 12 %d)\">%s</text>",
+                HEIGHT / 2, HEIGHT / 2, escape(yLabel)));
+        for (Series s : series) {
+            if (s.points().isEmpty()) {
+                continue;
+            }
+            StringBuilder points = new StringBuilder();
+            for (double[] point : s.points()) {
+                double x = MARGIN + point[0] / maxX * plotWidth;
+                double y = HEIGHT - MARGIN - point[1] / maxY * plotHeight;
+                points.append(String.format(Locale.ROOT, "%.1f,%.1f ", x, y));
+                svg.append(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"3\" fill=\"%s\"/>", x, y, s.color()));
+            }
+            svg.append("<polyline fill=\"none\" stroke=\"").append(s.color()).append("\" stroke-width=\"2\"")
+                    .append(s.dashed() ? " stroke-dasharray=\"5,4\"" : "")
+                    .append(" points=\"").append(points.toString().trim()).append("\"/>");
+        }
+        svg.append("</svg>");
+        return svg.toString();
+    }
+
+    private static void cell(StringBuilder html, Object value) {
+        html.append("<td>").append(value != null ? escape(value) : "&ndash;").append("</td>");
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0.0;
+    }
+
+    private static String escape(Object value) {
+        return String.valueOf(value).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
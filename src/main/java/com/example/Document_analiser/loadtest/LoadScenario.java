@@ -0,0 +1,148 @@
+package com.example.Document_analiser.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A load test script: a weighted mix of actions offered at a series of arrival rates.
+ *
+ * Each rate in {@link #getRates()} is one stage lasting {@link #getStageSeconds()}; the
+ * first stage is preceded by {@link #getWarmupSeconds()} of unrecorded load at that rate.
+ * Requests arrive on a fixed schedule (open loop) whether or not earlier ones finished,
+ * either evenly spaced ({@link Arrival#CONSTANT}) or as a Poisson process.
+ *
+ * Scenarios are JSON; the built-in ones are in {@code classpath:loadtest/<name>.json}.
+ */
+public class LoadScenario {
+
+    /** Requests a virtual user can make. */
+    public enum Action {
+        /** Uploads the sample document under one of a few fixed names, replacing earlier uploads. */
+        UPLOAD,
+        /** {@code POST /api/questions} about one of the known documents. */
+        ASK,
+        /** {@code GET /api/questions/history}. */
+        HISTORY,
+        /** {@code GET /public/search}. */
+        PUBLIC_SEARCH,
+        /** {@code GET /api/documents}. */
+        DOCUMENTS
+    }
+
+    public enum Arrival { CONSTANT, POISSON }
+
+    /** One action and its share of the traffic. */
+    public static class Step {
+        private Action action;
+        private double weight = 1.0;
+
+        public Step() {
+        }
+
+        public Step(Action action, double weight) {
+            this.action = action;
+            this.weight = weight;
+        }
+
+        public Action getAction() { return action; }
+        public void setAction(Action action) { this.action = action; }
+        public double getWeight() { return weight; }
+        public void setWeight(double weight) { this.weight = weight; }
+    }
+
+    /** Scenarios shipped in {@code classpath:loadtest/}. */
+    public static final List<String> BUILT_IN = List.of("mixed", "ask", "read-only", "upload");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private String name = "custom";
+    private String description;
+    private List<Step> steps = new ArrayList<>();
+    private List<Double> rates = new ArrayList<>();
+    private int warmupSeconds = 10;
+    private int stageSeconds = 30;
+    private Arrival arrival = Arrival.POISSON;
+    private int maxInFlight = 512;
+    private long requestTimeoutMs = 30_000;
+    private long seed = 42;
+    /** Stop after a stage whose corrected p99 exceeds this (0 = run every stage). */
+    private double stopAboveP99Ms;
+    /** Stop after a stage whose error ratio exceeds this. */
+    private double stopAboveErrorRatio = 0.5;
+
+    /** Loads a built-in scenario by name. */
+    public static LoadScenario builtIn(String name) {
+        if (!name.matches("[a-z0-9-]+")) {
+            throw new IllegalArgumentException("Invalid scenario name: " + name);
+        }
+        try (InputStream in = LoadScenario.class.getResourceAsStream("/loadtest/" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown scenario: " + name);
+            }
+            return MAPPER.readValue(in, LoadScenario.class).validate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Loads a scenario from a built-in name or a JSON file path. */
+    public static LoadScenario load(String nameOrFile) {
+        Path file = Path.of(nameOrFile);
+        if (nameOrFile.endsWith(".json") && Files.isRegularFile(file)) {
+            try {
+                return MAPPER.readValue(file.toFile(), LoadScenario.class).validate();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return builtIn(nameOrFile);
+    }
+
+    public LoadScenario validate() {
+        if (steps.isEmpty() || steps.stream().anyMatch(s -> s.getAction() == null || s.getWeight() < 0)
+                || steps.stream().mapToDouble(Step::getWeight).sum() <= 0) {
+            throw new IllegalArgumentException("Scenario needs at least one step with a positive weight");
+        }
+        if (rates.isEmpty() || rates.stream().anyMatch(r -> r == null || r <= 0)) {
+            throw new IllegalArgumentException("Scenario needs at least one positive arrival rate");
+        }
+        if (stageSeconds <= 0 || warmupSeconds < 0 || maxInFlight <= 0 || requestTimeoutMs <= 0) {
+            throw new IllegalArgumentException("stageSeconds, maxInFlight and requestTimeoutMs must be positive");
+        }
+        return this;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public List<Step> getSteps() { return steps; }
+    public void setSteps(List<Step> steps) { this.steps = steps; }
+    public List<Double> getRates() { return rates; }
+    public void setRates(List<Double> rates) { this.rates = rates; }
+    public int getWarmupSeconds() { return warmupSeconds; }
+    public void setWarmupSeconds(int warmupSeconds) { this.warmupSeconds = warmupSeconds; }
+    public int getStageSeconds() { return stageSeconds; }
+    public void setStageSeconds(int stageSeconds) { this.stageSeconds = stageSeconds; }
+    public Arrival getArrival() { return arrival; }
+    public void setArrival(Arrival arrival) { this.arrival = arrival; }
+    public int getMaxInFlight() { return maxInFlight; }
+    public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+    public long getRequestTimeoutMs() { return requestTimeoutMs; }
+    public void setRequestTimeoutMs(long requestTimeoutMs) { this.requestTimeoutMs = requestTimeoutMs; }
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+    public double getStopAboveP99Ms() { return stopAboveP99Ms; }
+    public void setStopAboveP99Ms(double stopAboveP99Ms) { this.stopAboveP99Ms = stopAboveP99Ms; }
+    public double getStopAboveErrorRatio() { return stopAboveErrorRatio; }
+    public void setStopAboveErrorRatio(double stopAboveErrorRatio) { this.stopAboveErrorRatio = stopAboveErrorRatio; }
+}
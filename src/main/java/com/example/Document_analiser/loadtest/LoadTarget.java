@@ -0,0 +1,183 @@
+package com.example.Document_analiser.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The application under test, reached over HTTP like a real client.
+ *
+ * {@link #prepare()} registers (once) and logs in the load test user, uploads the sample
+ * document when there is no document to ask about and collects the document ids. Each
+ * {@link #execute} call then makes one request and returns its HTTP status.
+ */
+public class LoadTarget {
+
+    private static final int UPLOAD_NAMES = 5;
+    private static final String BOUNDARY = "----loadtest-boundary";
+
+    private static final List<String> QUESTIONS = List.of(
+            "Какъв е срокът за плащане по договора?",
+            "Каква е неустойката при забава на плащането?",
+            "Кои са страните по договора?",
+            "Как може да бъде прекратен договорът?",
+            "Какви са задълженията на изпълнителя?",
+            "Как се уреждат споровете между страните?",
+            "What is the payment term?",
+            "Who are the parties to the contract?");
+
+    private static final String FALLBACK_UPLOAD_TEXT = """
+            РАМКОВ ДОГОВОР ЗА УСЛУГИ
+            1. Страни. Изпълнител: Пример ЕООД. Възложител: Тест ООД.
+            2. Плащане. Възложителят заплаща възнаграждението в срок от 14 дни от издаването на фактура.
+            3. Неустойка. При забава на плащането се дължи неустойка в размер на 0,1% на ден, но не повече от 10%.
+            4. Прекратяване. Договорът може да бъде прекратен с едномесечно писмено предизвестие.
+            5. Спорове. Споровете се решават по споразумение, а при непостигане на съгласие - от компетентния съд.
+            """;
+
+    private static final List<String> SEARCH_TERMS = List.of(
+            "договор", "плащане", "неустойка", "срок", "прекратяване", "изпълнител", "payment", "contract");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+    private final String uploadText;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+
+    private volatile String token;
+    private volatile List<Long> documentIds = List.of();
+
+    public LoadTarget(String baseUrl, String username, String password, String uploadText, Duration requestTimeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.username = username;
+        this.password = password;
+        this.uploadText = uploadText;
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /** Text of the uploaded document: the given file if it exists, else a short built-in contract. */
+    public static String uploadText(Path file) throws IOException {
+        return file != null && Files.isRegularFile(file) ? Files.readString(file, StandardCharsets.UTF_8) : FALLBACK_UPLOAD_TEXT;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /** Logs in (registering the user first if needed) and makes sure a document exists. */
+    public void prepare() throws IOException, InterruptedException {
+        ObjectNode credentials = mapper.createObjectNode().put("username", username).put("password", password);
+        HttpResponse<String> login = send(post("/auth/login", credentials));
+        if (login.statusCode() == 401) {
+            send(post("/auth/register", credentials));
+            login = send(post("/auth/login", credentials));
+        }
+        if (login.statusCode() != 200) {
+            throw new IllegalStateException("Load test login failed with HTTP " + login.statusCode() + " at " + baseUrl);
+        }
+        token = mapper.readTree(login.body()).path("token").asText();
+
+        documentIds = listDocuments();
+        if (documentIds.isEmpty()) {
+            HttpResponse<String> upload = send(upload(0));
+            if (upload.statusCode() != 200) {
+                throw new IllegalStateException("Sample document upload failed with HTTP " + upload.statusCode());
+            }
+            documentIds = listDocuments();
+        }
+        if (documentIds.isEmpty()) {
+            throw new IllegalStateException("No documents to ask about");
+        }
+    }
+
+    public List<Long> getDocumentIds() {
+        return documentIds;
+    }
+
+    /** Makes one request for the action; returns the HTTP status. */
+    public int execute(LoadScenario.Action action, SplittableRandom random) throws IOException, InterruptedException {
+        HttpRequest request = switch (action) {
+            case UPLOAD -> upload(random.nextInt(UPLOAD_NAMES));
+            case ASK -> {
+                ObjectNode body = mapper.createObjectNode()
+                        .put("text", QUESTIONS.get(random.nextInt(QUESTIONS.size())))
+                        .put("documentId", documentIds.get(random.nextInt(documentIds.size())));
+                yield post("/api/questions", body);
+            }
+            case HISTORY -> get("/api/questions/history?page=0");
+            case PUBLIC_SEARCH -> get("/public/search?query="
+                    + URLEncoder.encode(SEARCH_TERMS.get(random.nextInt(SEARCH_TERMS.size())), StandardCharsets.UTF_8));
+            case DOCUMENTS -> get("/api/documents?page=0&size=20");
+        };
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private List<Long> listDocuments() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(get("/api/documents?page=0&size=100"));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Listing documents failed with HTTP " + response.statusCode());
+        }
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode document : mapper.readTree(response.body()).path("content")) {
+            ids.add(document.path("id").asLong());
+        }
+        return List.copyOf(ids);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(requestTimeout);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, JsonNode body) throws IOException {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest upload(int nameIndex) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest-" + nameIndex + ".txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(uploadText.getBytes(StandardCharsets.UTF_8));
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return request("/api/documents")
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.Document_analiser.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a load test from the command line against a running instance, without starting
+ * Spring. With the executable jar:
+ *
+ * <pre>
+ * java -cp target/Document_analiser-0.0.1-SNAPSHOT-exec.jar \
+ *      -Dloader.main=com.example.Document_analiser.loadtest.LoadTestCli \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      --base-url http://localhost:8080 --scenario mixed --rates 5,10,20
+ * </pre>
+ *
+ * Options: {@code --base-url}, {@code --scenario} (built-in name or JSON file),
+ * {@code --rates}, {@code --stage-seconds}, {@code --warmup-seconds}, {@code --username},
+ * {@code --password}, {@code --upload-file}, {@code --out}. The JSON and HTML reports go
+ * to {@code --out} (default {@code results/loadtest}); the exit code is 1 when the run
+ * stopped on a p99 or error target.
+ */
+public final class LoadTestCli {
+
+    private LoadTestCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        LoadScenario scenario = LoadScenario.load(options.getOrDefault("scenario", "mixed"));
+        if (options.containsKey("rates")) {
+            scenario.setRates(Arrays.stream(options.get("rates").split(",")).map(String::trim).map(Double::valueOf).toList());
+        }
+        if (options.containsKey("stage-seconds")) {
+            scenario.setStageSeconds(Integer.parseInt(options.get("stage-seconds")));
+        }
+        if (options.containsKey("warmup-seconds")) {
+            scenario.setWarmupSeconds(Integer.parseInt(options.get("warmup-seconds")));
+        }
+        scenario.validate();
+
+        LoadTarget target = new LoadTarget(
+                options.getOrDefault("base-url", "http://localhost:8080"),
+                options.getOrDefault("username", "loadtest"),
+                options.getOrDefault("password", "loadtest-password"),
+                LoadTarget.uploadText(Path.of(options.getOrDefault("upload-file", "sample-data/legal_demo_contract_bg.txt"))),
+                Duration.ofMillis(scenario.getRequestTimeoutMs()));
+        LoadGenerator generator = new LoadGenerator(target, scenario);
+        Runtime.getRuntime().addShutdownHook(new Thread(generator::cancel));
+
+        Thread progress = Thread.ofPlatform().name("load-test-progress").daemon(true).start(() -> {
+            String last = null;
+            while (true) {
+                String phase = generator.getPhase();
+                if (!phase.equals(last)) {
+                    System.out.println("load test: " + phase);
+                    last = phase;
+                }
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        Map<String, Object> result = generator.run();
+        progress.interrupt();
+
+        String baseName = "loadtest-" + scenario.getName() + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        List<Path> files = LoadReport.write(result, Path.of(options.getOrDefault("out", "results/loadtest")), baseName);
+        System.out.println("Stopped: " + result.get("stopReason") + "; max rate within target: " + result.get("maxRateWithinTarget") + "/s");
+        files.forEach(file -> System.out.println("Report: " + file.toAbsolutePath()));
+        System.exit("all stages completed".equals(result.get("stopReason")) ? 0 : 1);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -12,17 +12,40 @@ import java.util.List;
 @Repository
 public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Long> {
 
-    // Return only ids to avoid mapping vector column in entity
-    @Query(value = """
+    /** Top-k по косинусова близост; параметри: ?1 вектор, ?2 документ, ?3 брой. */
+    String TOP_IDS_SQL = """
             SELECT id FROM document_chunks
             WHERE document_id = ?2
             ORDER BY embedding <=> CAST(?1 AS vector(1536))
             LIMIT ?3
-            """, nativeQuery = true)
+            """;
+
+    // Return only ids to avoid mapping vector column in entity
+    @Query(value = TOP_IDS_SQL, nativeQuery = true)
     List<Long> findTopIdsByCosineSimilarity(String embedding,
                                             Long documentId,
                                             int limit);
 
+    /**
+     * Top-k chunk ids for many query vectors in one round trip. The vectors are passed
+     * as pgvector literals joined with '|'; each row is (query ordinal, chunk id, distance).
+     */
+    @Query(value = """
+            SELECT q.ord AS ord, c.id AS id, c.distance AS distance
+            FROM unnest(string_to_array(?1, '|')) WITH ORDINALITY AS q(vec, ord)
+            CROSS JOIN LATERAL (
+                SELECT id, embedding <=> CAST(q.vec AS vector(1536)) AS distance
+                FROM document_chunks
+                WHERE document_id = ?2
+                ORDER BY embedding <=> CAST(q.vec AS vector(1536))
+                LIMIT ?3
+            ) c
+            ORDER BY q.ord, c.distance
+            """, nativeQuery = true)
+    List<Object[]> findTopIdsByCosineSimilarityBatch(String embeddings,
+                                                     Long documentId,
+                                                     int limit);
+
     @Query(value = """
             SELECT * FROM document_chunks
             WHERE document_id = :docId
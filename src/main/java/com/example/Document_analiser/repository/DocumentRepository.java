@@ -1,10 +1,15 @@
 package com.example.Document_analiser.repository;
 
 import com.example.Document_analiser.entity.Document;
+import com.example.Document_analiser.repository.projection.DocumentCatalogView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +23,30 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
      */
     @Query("SELECT DISTINCT d FROM Document d LEFT JOIN FETCH d.chunks")
     List<Document> findAllWithChunks();
-}
\ No newline at end of file
+
+    String CATALOG_SELECT = "SELECT d.id AS id, d.name AS name, d.type AS type, d.uploadDate AS uploadDate, "
+            + "COALESCE(d.chunkCount, (SELECT COUNT(c) FROM DocumentChunk c WHERE c.document = d)) AS chunkCount, "
+            + "COALESCE(d.sizeBytes, LENGTH(d.content)) AS size FROM Document d";
+    String CATALOG_ORDER = " ORDER BY d.uploadDate DESC, d.id DESC";
+    String NAME_LIKE = " WHERE LOWER(d.name) LIKE :pattern ESCAPE '\\'";
+
+    /**
+     * Страница от каталога (без content и chunks), най-новите първи. Броят chunk-ове и
+     * размерът се изчисляват само за документи, които още не са попълнени от
+     * {@link com.example.Document_analiser.config.DocumentStatsBackfill}.
+     */
+    @Query(value = CATALOG_SELECT + CATALOG_ORDER, countQuery = "SELECT COUNT(d) FROM Document d")
+    Page<DocumentCatalogView> findCatalog(Pageable pageable);
+
+    /** Като {@link #findCatalog(Pageable)}, само документите с име, отговарящо на LIKE шаблона (малки букви). */
+    @Query(value = CATALOG_SELECT + NAME_LIKE + CATALOG_ORDER,
+           countQuery = "SELECT COUNT(d) FROM Document d" + NAME_LIKE)
+    Page<DocumentCatalogView> findCatalogByName(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query(CATALOG_SELECT + " WHERE d.id IN :ids")
+    List<DocumentCatalogView> findCatalogByIds(@Param("ids") Collection<Long> ids);
+
+    /** Двойки [id, uploadDate] на всички документи – версиите за snapshot-ите на кеша. */
+    @Query("SELECT d.id, d.uploadDate FROM Document d")
+    List<Object[]> findUploadDates();
+}
@@ -1,13 +1,17 @@
 package com.example.Document_analiser.repository;
 
 import com.example.Document_analiser.entity.Question;
+import com.example.Document_analiser.repository.projection.RecentQuestionView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -25,4 +29,22 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     Page<Question> findHistory(@Param("username") String username,
                                @Param("documentId") Long documentId,
                                Pageable pageable);
+
+    /** Most recently asked questions, newest first. */
+    @Query("SELECT q.text AS text, d.id AS documentId FROM Question q LEFT JOIN q.document d ORDER BY q.askedAt DESC")
+    List<RecentQuestionView> findRecent(Pageable pageable);
+
+    /** Ids of the documents asked about most since the given time, most asked first. */
+    @Query("SELECT d.id FROM Question q JOIN q.document d WHERE q.askedAt >= :since " +
+           "GROUP BY d.id ORDER BY COUNT(q) DESC")
+    List<Long> findMostAskedDocumentIds(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Clears the document reference of its questions so the document can be deleted
+     * while the questions stay in the users' history.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Question q SET q.document = NULL WHERE q.document.id = :documentId")
+    int detachFromDocument(@Param("documentId") Long documentId);
 }
@@ -0,0 +1,17 @@
+package com.example.Document_analiser.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция за каталога с документи (падащи менюта, търсене по име) –
+ * без зареждане на съдържанието и chunk-овете.
+ */
+public interface DocumentCatalogView {
+    Long getId();
+    String getName();
+    String getType();
+    LocalDateTime getUploadDate();
+    Integer getChunkCount();
+    /** Размер на файла в байтове (за стари документи – дължина на текста). */
+    Long getSize();
+}
@@ -0,0 +1,10 @@
+package com.example.Document_analiser.repository.projection;
+
+/**
+ * Проекция за последните зададени въпроси (текст и id на документа),
+ * без зареждане на отговора и документа – използва се при warm-up.
+ */
+public interface RecentQuestionView {
+    String getText();
+    Long getDocumentId();
+}
@@ -4,6 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.example.Document_analiser.util.StageTimings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,12 +36,19 @@ public class JwtFilter extends OncePerRequestFilter {
         this.userDetailsService = userDetailsService;
     }
 
+    /** Заявките към AI stand-in-а ({@code /stub/}) носят API ключ, а не JWT. */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/stub/");
+    }
+
     /** Основна логика на филтъра – изпълнява се веднъж за заявка. */
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain)
             throws ServletException, IOException {
+        long start = StageTimings.start();
         final String authHeader = request.getHeader("Authorization");
         String username = null;
         String jwt = null;
@@ -66,6 +74,7 @@ public class JwtFilter extends OncePerRequestFilter {
                 log.warn("Invalid JWT for user '{}' on {} {}", username, request.getMethod(), request.getRequestURI());
             }
         }
+        StageTimings.stop(StageTimings.Stage.AUTH, start);
         filterChain.doFilter(request, response);
     }
 } 
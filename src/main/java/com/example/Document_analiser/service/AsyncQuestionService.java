@@ -0,0 +1,152 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.dto.AnswerResponse;
+import com.example.Document_analiser.dto.QuestionRequest;
+import com.example.Document_analiser.entity.Answer;
+import com.example.Document_analiser.entity.Question;
+import com.example.Document_analiser.util.RequestTextHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Asynchronous question answering on the bounded {@code answerGenerationExecutor}.
+ *
+ * The request thread only runs the cheap preparation (lookup, persist, retrieval); the
+ * LLM call runs on the executor. Pending answers are tracked by question id until they
+ * are persisted, after which polls are served from the database.
+ */
+@Service
+public class AsyncQuestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncQuestionService.class);
+
+    private final QuestionService questionService;
+    private final ThreadPoolExecutor executor;
+    private final Map<Long, CompletableFuture<AnswerResponse>> pending = new ConcurrentHashMap<>();
+    private final Timer queueTimer;
+    private final Timer generationTimer;
+    private final Counter rejectedCounter;
+
+    public AsyncQuestionService(QuestionService questionService,
+                                @Qualifier("answerGenerationExecutor") ThreadPoolExecutor executor,
+                                MeterRegistry meterRegistry) {
+        this.questionService = questionService;
+        this.executor = executor;
+        this.queueTimer = Timer.builder("questions.async.queue.time")
+                .description("Time async questions wait for a generation slot")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.generationTimer = Timer.builder("questions.async.generation.time")
+                .description("Time spent generating async answers once started")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("questions.async.rejected")
+                .description("Async questions rejected because the generation queue was full")
+                .register(meterRegistry);
+        Gauge.builder("questions.async.pending", pending, Map::size)
+                .description("Async questions accepted but not yet answered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prepares the question on the calling thread and queues its generation.
+     *
+     * @return the persisted question id and a future completed with the persisted answer
+     * @throws ResponseStatusException 503 when the generation queue is full
+     */
+    public Submission submit(QuestionRequest request) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            rejectedCounter.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Answer generation queue is full");
+        }
+
+        QuestionService.PreparedQuestion prepared;
+        RequestTextHolder.set(request.getText());
+        try {
+            prepared = questionService.prepareQuestion(request);
+        } finally {
+            RequestTextHolder.clear();
+        }
+
+        Long questionId = prepared.getQuestion().getId();
+        CompletableFuture<AnswerResponse> future = new CompletableFuture<>();
+        pending.put(questionId, future);
+        future.whenComplete((r, e) -> pending.remove(questionId));
+
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueTimer.record(Duration.ofNanos(startedAt - queuedAt));
+                try {
+                    future.complete(questionService.answerPrepared(prepared));
+                } catch (Exception e) {
+                    log.error("Async answer generation failed for question {}", questionId, e);
+                    future.completeExceptionally(e);
+                } finally {
+                    generationTimer.record(Duration.ofNanos(System.nanoTime() - startedAt));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            pending.remove(questionId);
+            questionService.discardQuestion(prepared.getQuestion());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Answer generation queue is full");
+        }
+        return new Submission(questionId, future);
+    }
+
+    /**
+     * Returns the in-flight generation for a question, if it is still running.
+     */
+    public Optional<CompletableFuture<AnswerResponse>> findPending(Long questionId) {
+        return Optional.ofNullable(pending.get(questionId));
+    }
+
+    /**
+     * Returns the persisted answer of a question, if it has one.
+     */
+    public Optional<AnswerResponse> findAnswer(Question question) {
+        Answer answer = question.getAnswer();
+        if (answer == null) {
+            return Optional.empty();
+        }
+        AnswerResponse response = new AnswerResponse();
+        response.setQuestionId(question.getId());
+        response.setAnswer(answer.getText());
+        response.setGeneratedAt(answer.getGeneratedAt());
+        response.setExtractive(answer.isExtractive());
+        return Optional.of(response);
+    }
+
+    /**
+     * An accepted question: its id is known immediately, the answer later.
+     */
+    public static class Submission {
+        private final Long questionId;
+        private final CompletableFuture<AnswerResponse> answer;
+
+        public Submission(Long questionId, CompletableFuture<AnswerResponse> answer) {
+            this.questionId = questionId;
+            this.answer = answer;
+        }
+
+        public Long getQuestionId() { return questionId; }
+        public CompletableFuture<AnswerResponse> getAnswer() { return answer; }
+    }
+}
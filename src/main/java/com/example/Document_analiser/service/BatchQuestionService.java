@@ -0,0 +1,187 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.dto.AnswerResponse;
+import com.example.Document_analiser.dto.BatchQuestionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers many questions about one document in a single request.
+ *
+ * Retrieval work is shared ({@link QuestionService#prepareBatch}); generation runs on
+ * the {@code answerGenerationExecutor} with at most {@code questions.batch.concurrency}
+ * calls in flight per batch, so one batch cannot monopolise the executor. Each answer
+ * is streamed as an SSE {@code answer} event as soon as it completes, followed by a
+ * {@code summary} event with the wall time.
+ */
+@Service
+public class BatchQuestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchQuestionService.class);
+
+    private final QuestionService questionService;
+    private final ThreadPoolExecutor executor;
+    private final int concurrency;
+    private final long timeoutMs;
+    private final Timer batchTimer;
+
+    public BatchQuestionService(QuestionService questionService,
+                                @Qualifier("answerGenerationExecutor") ThreadPoolExecutor executor,
+                                MeterRegistry meterRegistry,
+                                @Value("${questions.batch.concurrency:4}") int concurrency,
+                                @Value("${questions.batch.timeout-ms:600000}") long timeoutMs) {
+        this.questionService = questionService;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.timeoutMs = timeoutMs;
+        this.batchTimer = Timer.builder("questions.batch.time")
+                .description("Wall time to answer a batch of questions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prepares all questions on the request thread, then streams answers as they finish.
+     */
+    public SseEmitter ask(BatchQuestionRequest request) {
+        long startNanos = System.nanoTime();
+        List<QuestionService.PreparedQuestion> prepared =
+                questionService.prepareBatch(request.getDocumentId(), request.getQuestions(), request.getAnswerMode());
+        long prepareMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Batch batch = new Batch(prepared, emitter, startNanos, prepareMs);
+        emitter.onTimeout(batch::cancel);
+        emitter.onError(e -> batch.cancel());
+        emitter.onCompletion(batch::cancel);
+
+        for (int i = 0; i < Math.min(concurrency, prepared.size()); i++) {
+            batch.launchNext();
+        }
+        return emitter;
+    }
+
+    /** State of one running batch; launches the next question whenever one finishes. */
+    private final class Batch {
+        private final List<QuestionService.PreparedQuestion> items;
+        private final SseEmitter emitter;
+        private final long startNanos;
+        private final long prepareMs;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger finished = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Batch(List<QuestionService.PreparedQuestion> items, SseEmitter emitter, long startNanos, long prepareMs) {
+            this.items = items;
+            this.emitter = emitter;
+            this.startNanos = startNanos;
+            this.prepareMs = prepareMs;
+        }
+
+        void launchNext() {
+            if (cancelled.get()) {
+                return;
+            }
+            int index = nextIndex.getAndIncrement();
+            if (index >= items.size()) {
+                return;
+            }
+            QuestionService.PreparedQuestion item = items.get(index);
+            try {
+                executor.execute(() -> run(index, item));
+            } catch (RejectedExecutionException e) {
+                log.warn("Generation queue full, question {} of batch not answered", index);
+                onFinished(index, item, null, "Answer generation queue is full", 0);
+            }
+        }
+
+        private void run(int index, QuestionService.PreparedQuestion item) {
+            long itemStart = System.nanoTime();
+            AnswerResponse response = null;
+            String error = null;
+            try {
+                if (!cancelled.get()) {
+                    response = questionService.answerPrepared(item);
+                } else {
+                    error = "cancelled";
+                }
+            } catch (Exception e) {
+                log.error("Batch question {} failed", index, e);
+                error = e.getMessage();
+            }
+            onFinished(index, item, response, error, Duration.ofNanos(System.nanoTime() - itemStart).toMillis());
+        }
+
+        private void onFinished(int index, QuestionService.PreparedQuestion item,
+                                AnswerResponse response, String error, long elapsedMs) {
+            if (response == null) {
+                failed.incrementAndGet();
+            }
+            Map<String, Object> event = new HashMap<>();
+            event.put("index", index);
+            event.put("questionId", item.getQuestion().getId());
+            event.put("question", item.getQuestion().getText());
+            event.put("answer", response != null ? response.getAnswer() : null);
+            event.put("extractive", response != null && response.isExtractive());
+            event.put("error", error);
+            event.put("elapsedMs", elapsedMs);
+            send("answer", event);
+
+            if (finished.incrementAndGet() == items.size()) {
+                complete();
+            } else {
+                launchNext();
+            }
+        }
+
+        private void complete() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            Duration wall = Duration.ofNanos(System.nanoTime() - startNanos);
+            batchTimer.record(wall);
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("total", items.size());
+            summary.put("failed", failed.get());
+            summary.put("prepareMs", prepareMs);
+            summary.put("wallTimeMs", wall.toMillis());
+            send("summary", summary);
+            emitter.complete();
+        }
+
+        private void send(String name, Object data) {
+            if (cancelled.get()) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                cancel();
+            }
+        }
+
+        void cancel() {
+            if (!done.get() && cancelled.compareAndSet(false, true)) {
+                log.debug("Batch cancelled after {} of {} answers", finished.get(), items.size());
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.Document_analiser.service;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,8 +10,12 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import com.example.Document_analiser.cache.CacheCoherenceBus;
+import com.example.Document_analiser.cache.CacheTelemetry;
+
 /**
  * Service for centralized cache management and monitoring.
+ * Clears are repeated on the other nodes through the {@link CacheCoherenceBus}.
  */
 @Service
 public class CacheService {
@@ -19,13 +25,19 @@ public class CacheService {
     private final CacheManager cacheManager;
     private final CacheManager embeddingCacheManager;
     private final CacheManager quickCacheManager;
+    private final CacheTelemetry cacheTelemetry;
+    private final CacheCoherenceBus coherenceBus;
 
     public CacheService(CacheManager cacheManager,
                        CacheManager embeddingCacheManager,
-                       CacheManager quickCacheManager) {
+                       CacheManager quickCacheManager,
+                       CacheTelemetry cacheTelemetry,
+                       CacheCoherenceBus coherenceBus) {
         this.cacheManager = cacheManager;
         this.embeddingCacheManager = embeddingCacheManager;
         this.quickCacheManager = quickCacheManager;
+        this.cacheTelemetry = cacheTelemetry;
+        this.coherenceBus = coherenceBus;
     }
 
     /**
@@ -36,47 +48,49 @@ public class CacheService {
         clearCacheManager(cacheManager, "default");
         clearCacheManager(embeddingCacheManager, "embedding");
         clearCacheManager(quickCacheManager, "quick");
+        coherenceBus.publishClear(List.of());
     }
 
     /**
      * Clears a specific cache by name.
+     *
+     * @return {@code false} if there is no such cache
      */
-    public void clearCache(String cacheName) {
+    public boolean clearCache(String cacheName) {
         log.info("Clearing cache: {}", cacheName);
         
         Cache cache = cacheManager.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-            return;
+        if (cache == null) {
+            cache = embeddingCacheManager.getCache(cacheName);
         }
-        
-        cache = embeddingCacheManager.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-            return;
+        if (cache == null) {
+            cache = quickCacheManager.getCache(cacheName);
         }
-        
-        cache = quickCacheManager.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-            return;
+        if (cache == null) {
+            log.warn("Cache not found: {}", cacheName);
+            return false;
         }
         
-        log.warn("Cache not found: {}", cacheName);
+        cache.clear();
+        coherenceBus.publishClear(List.of(cacheName));
+        return true;
     }
 
     /**
-     * Gets cache statistics for monitoring.
+     * Gets per-cache statistics (hit ratio, load latency, evictions by cause, size and
+     * estimated bytes), grouped by cache manager bean name.
      */
-    public String getCacheStats() {
-        StringBuilder stats = new StringBuilder();
-        stats.append("=== Cache Statistics ===\n");
-        
-        appendCacheManagerStats(stats, cacheManager, "Default");
-        appendCacheManagerStats(stats, embeddingCacheManager, "Embedding");
-        appendCacheManagerStats(stats, quickCacheManager, "Quick");
-        
-        return stats.toString();
+    public Map<String, Map<String, Object>> getCacheStats() {
+        return cacheTelemetry.describeAll();
+    }
+
+    /**
+     * Gets the hottest keys and the value types held by a cache.
+     *
+     * @return {@code null} if there is no such cache
+     */
+    public Map<String, Object> getHotKeys(String cacheName, int limit) {
+        return cacheTelemetry.hotKeys(cacheName, limit);
     }
 
     private void clearCacheManager(CacheManager manager, String managerName) {
@@ -91,22 +105,4 @@ public class CacheService {
             }
         }
     }
-
-    private void appendCacheManagerStats(StringBuilder stats, CacheManager manager, String managerName) {
-        stats.append(String.format("\n--- %s Cache Manager ---\n", managerName));
-        Collection<String> cacheNames = manager.getCacheNames();
-        
-        if (cacheNames.isEmpty()) {
-            stats.append("No caches found\n");
-            return;
-        }
-        
-        for (String cacheName : cacheNames) {
-            Cache cache = manager.getCache(cacheName);
-            if (cache != null) {
-                stats.append(String.format("Cache: %s - Native: %s\n", 
-                    cacheName, cache.getNativeCache().getClass().getSimpleName()));
-            }
-        }
-    }
-}
\ No newline at end of file
+}
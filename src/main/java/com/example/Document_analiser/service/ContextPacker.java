@@ -0,0 +1,225 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.util.KeywordScorer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Assembles the document context of a prompt within a token budget.
+ *
+ * Steps, on chunks in retrieval rank order:
+ * 1. Drop near-duplicates of a better ranked chunk (word-shingle Jaccard similarity).
+ * 2. Keep the best ranked chunks in full; trim the rest to their best sentences.
+ * 3. Stop adding once the budget is spent (a chunk that does not fit is trimmed first).
+ * 4. Order the survivors by {@code chunkIndex} and merge adjacent neighbours into one
+ *    passage, so the same retrieval always yields the same text (prompt-cache friendly).
+ *
+ * Token counts are estimates ({@link LlmScheduler#estimateTokens}).
+ */
+@Service
+public class ContextPacker {
+
+    private static final Logger log = LoggerFactory.getLogger(ContextPacker.class);
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[.!?;])\\s+|\\n+");
+    private static final Pattern WORD_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int SHINGLE_SIZE = 3;
+
+    private final int maxContextTokens;
+    private final int fullChunks;
+    private final int trimmedSentences;
+    private final double duplicateThreshold;
+
+    private final DistributionSummary promptTokens;
+    private final DistributionSummary contextTokens;
+    private final Counter duplicatesDropped;
+    private final Counter budgetDropped;
+    private final Counter chunksTrimmed;
+
+    public ContextPacker(MeterRegistry meterRegistry,
+                         @Value("${context.max-tokens:1500}") int maxContextTokens,
+                         @Value("${context.full-chunks:2}") int fullChunks,
+                         @Value("${context.trimmed-sentences:2}") int trimmedSentences,
+                         @Value("${context.duplicate-threshold:0.8}") double duplicateThreshold) {
+        this.maxContextTokens = maxContextTokens;
+        this.fullChunks = fullChunks;
+        this.trimmedSentences = trimmedSentences;
+        this.duplicateThreshold = duplicateThreshold;
+        this.promptTokens = DistributionSummary.builder("ai.prompt.tokens")
+                .description("Estimated prompt tokens per chat model request")
+                .baseUnit("tokens")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.contextTokens = DistributionSummary.builder("ai.context.tokens")
+                .description("Estimated document context tokens per prompt after packing")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.duplicatesDropped = droppedCounter(meterRegistry, "duplicate");
+        this.budgetDropped = droppedCounter(meterRegistry, "budget");
+        this.chunksTrimmed = Counter.builder("ai.context.chunks.trimmed")
+                .description("Retrieved chunks cut down to their best sentences")
+                .register(meterRegistry);
+    }
+
+    private static Counter droppedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("ai.context.chunks.dropped")
+                .tag("reason", reason)
+                .description("Retrieved chunks left out of the prompt")
+                .register(registry);
+    }
+
+    /**
+     * Packs retrieved chunks into passages.
+     *
+     * @param rankedChunks chunks in retrieval rank order (best first)
+     * @param question     question text, used to pick the best sentences
+     * @return passages in document order; empty when no chunk has content
+     */
+    public List<Passage> pack(List<DocumentChunk> rankedChunks, String question) {
+        Set<String> keywords = KeywordScorer.extractKeywords(question);
+        List<Set<String>> keptShingles = new ArrayList<>();
+        List<Passage> selected = new ArrayList<>();
+        int used = 0;
+        int rank = 0;
+
+        for (DocumentChunk chunk : rankedChunks) {
+            String content = chunk.getContent();
+            if (content == null || content.isBlank()) continue;
+            content = content.trim();
+
+            Set<String> shingles = shingles(content);
+            if (isDuplicate(shingles, keptShingles)) {
+                duplicatesDropped.increment();
+                continue;
+            }
+
+            int remaining = maxContextTokens - used;
+            String text = content;
+            boolean full = rank < fullChunks && LlmScheduler.estimateTokens(content) <= remaining;
+            if (!full) {
+                text = bestSentences(content, keywords, rank < fullChunks ? Integer.MAX_VALUE : trimmedSentences, remaining);
+                if (text == null) {
+                    budgetDropped.increment();
+                    rank++;
+                    continue;
+                }
+                chunksTrimmed.increment();
+            }
+            keptShingles.add(shingles);
+            selected.add(new Passage(chunk.getChunkIndex(), chunk.getChunkIndex(), text));
+            used += LlmScheduler.estimateTokens(text);
+            rank++;
+        }
+
+        selected.sort(Comparator.comparingInt(Passage::getFirstChunkIndex));
+        List<Passage> merged = new ArrayList<>();
+        for (Passage p : selected) {
+            Passage last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && p.getFirstChunkIndex() == last.getLastChunkIndex() + 1) {
+                merged.set(merged.size() - 1, new Passage(last.getFirstChunkIndex(), p.getLastChunkIndex(),
+                        last.getText() + " " + p.getText()));
+            } else {
+                merged.add(p);
+            }
+        }
+        contextTokens.record(used);
+        log.debug("Packed {} chunks into {} passages (~{} tokens)", rankedChunks.size(), merged.size(), used);
+        return merged;
+    }
+
+    /** Records the estimated size of the final prompt (system + user message). */
+    public void recordPrompt(String systemPrompt, String userPrompt) {
+        promptTokens.record(LlmScheduler.estimateTokens(systemPrompt, userPrompt));
+    }
+
+    /**
+     * The highest scoring sentences (at most {@code maxSentences}) that fit in
+     * {@code budgetTokens}, in their original order; {@code null} if none fits.
+     */
+    private String bestSentences(String content, Set<String> keywords, int maxSentences, int budgetTokens) {
+        String[] sentences = SENTENCE_BOUNDARY.split(content);
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < sentences.length; i++) {
+            if (!sentences[i].isBlank()) order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> -KeywordScorer.coverage(sentences[i], keywords))
+                .thenComparingInt(i -> i));
+
+        List<Integer> chosen = new ArrayList<>();
+        int used = 0;
+        for (Integer i : order) {
+            if (chosen.size() >= maxSentences) break;
+            int cost = LlmScheduler.estimateTokens(sentences[i]);
+            if (used + cost > budgetTokens) continue;
+            chosen.add(i);
+            used += cost;
+        }
+        if (chosen.isEmpty()) return null;
+        chosen.sort(Integer::compare);
+        StringBuilder sb = new StringBuilder();
+        int previous = -2;
+        for (Integer i : chosen) {
+            if (sb.length() > 0) sb.append(i == previous + 1 ? " " : " ... ");
+            sb.append(sentences[i].trim());
+            previous = i;
+        }
+        return sb.toString();
+    }
+
+    private boolean isDuplicate(Set<String> shingles, List<Set<String>> kept) {
+        if (shingles.isEmpty()) return false;
+        for (Set<String> other : kept) {
+            int intersection = 0;
+            for (String s : shingles) {
+                if (other.contains(s)) intersection++;
+            }
+            int union = shingles.size() + other.size() - intersection;
+            if (union > 0 && intersection / (double) union >= duplicateThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> shingles(String text) {
+        String[] words = WORD_SPLIT.split(text.toLowerCase());
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i + SHINGLE_SIZE <= words.length; i++) {
+            out.add(String.join(" ", Arrays.copyOfRange(words, i, i + SHINGLE_SIZE)));
+        }
+        return out;
+    }
+
+    /**
+     * A contiguous run of chunks ({@code firstChunkIndex..lastChunkIndex}) as it goes
+     * into the prompt.
+     */
+    public static class Passage {
+        private final int firstChunkIndex;
+        private final int lastChunkIndex;
+        private final String text;
+
+        public Passage(int firstChunkIndex, int lastChunkIndex, String text) {
+            this.firstChunkIndex = firstChunkIndex;
+            this.lastChunkIndex = lastChunkIndex;
+            this.text = text;
+        }
+
+        public int getFirstChunkIndex() { return firstChunkIndex; }
+        public int getLastChunkIndex() { return lastChunkIndex; }
+        public String getText() { return text; }
+    }
+}
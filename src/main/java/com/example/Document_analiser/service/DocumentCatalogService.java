@@ -0,0 +1,89 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.repository.DocumentRepository;
+import com.example.Document_analiser.repository.projection.DocumentCatalogView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Каталог на документите (id, име, тип, дата, брой chunk-ове, размер) за падащите
+ * менюта и търсенето по име.
+ *
+ * - Заявки: само проекции ({@link DocumentCatalogView}) – без Document ентитита, content и chunks.
+ * - Страниране и търсене по име се правят в базата, така че нито една заявка не зарежда
+ *   целия каталог; падащите менюта показват първите няколко документа и търсят при писане
+ *   ({@link #suggest(String, int, Long)}).
+ */
+@Service
+public class DocumentCatalogService {
+
+    /** Брой документи, с които се показват падащите менюта, преди потребителят да търси. */
+    public static final int DROPDOWN_SIZE = 20;
+    /** Горна граница за {@link #suggest(String, int, Long)}. */
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private final DocumentRepository documentRepository;
+
+    public DocumentCatalogService(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+    }
+
+    /**
+     * Страница от каталога, най-новите първи; {@code query} (ако не е празно) филтрира
+     * по част от името, без значение от малки/главни букви.
+     */
+    public Page<DocumentCatalogView> find(String query, Pageable pageable) {
+        String needle = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty()) {
+            return documentRepository.findCatalog(pageable);
+        }
+        return documentRepository.findCatalogByName("%" + escapeLike(needle) + "%", pageable);
+    }
+
+    /**
+     * До {@code limit} (най-много {@value #MAX_SUGGESTIONS}) документа за падащо меню, най-новите
+     * първи. Документът {@code selectedId} (ако е зададен) се добавя, ако не е сред тях.
+     */
+    public List<DocumentCatalogView> suggest(String query, int limit, Long selectedId) {
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        List<DocumentCatalogView> views = new ArrayList<>(find(query, PageRequest.of(0, size)).getContent());
+        if (selectedId != null && views.stream().noneMatch(v -> selectedId.equals(v.getId()))) {
+            views.addAll(documentRepository.findCatalogByIds(List.of(selectedId)));
+        }
+        return views;
+    }
+
+    public long size() {
+        return documentRepository.count();
+    }
+
+    /**
+     * Версия на всеки документ (id -> дата на качване в epoch millis). Документ, качен
+     * отново със същото име, получава ново id, така че записи в кеша, изчислени от
+     * документ със същата версия, са още валидни.
+     */
+    public Map<Long, Long> getVersionStamps() {
+        List<Object[]> rows = documentRepository.findUploadDates();
+        Map<Long, Long> stamps = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            LocalDateTime uploaded = (LocalDateTime) row[1];
+            stamps.put(((Number) row[0]).longValue(), uploaded == null ? 0L : uploaded.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        return stamps;
+    }
+
+    /** Екранира обратната наклонена черта, {@code %} и {@code _}, за да се търсят буквално в LIKE. */
+    static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
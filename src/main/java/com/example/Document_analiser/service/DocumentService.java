@@ -2,15 +2,19 @@ package com.example.Document_analiser.service;
 
 import com.example.Document_analiser.entity.Document;
 import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.event.DocumentDeletedEvent;
+import com.example.Document_analiser.event.DocumentStoredEvent;
 import com.example.Document_analiser.exception.UnsupportedFileTypeException;
 import com.example.Document_analiser.repository.DocumentRepository;
+import com.example.Document_analiser.repository.QuestionRepository;
 import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -19,13 +23,16 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 /**
  * Услуга за съхранение и обработка на документи.
  *
  * - Какво прави: извлича текст от качени файлове, разделя го на chunk-ове,
  *   генерира embeddings и записва всичко в базата (Document + DocumentChunk).
- * - Оптимизации: кеширане на embeddings (скъпо за генериране), метрики (@Timed),
- *   изчистване на свързани кешове при запис.
+ * - Оптимизации: кеширане на embeddings (скъпо за генериране), метрики (@Timed).
+ * - Кешове: при запис/изтриване публикува {@link DocumentStoredEvent}/{@link DocumentDeletedEvent};
+ *   от кешовете се изчистват само записите, свързани с този документ. Списъкът с документи
+ *   е в {@link DocumentCatalogService}.
  */
 @Service
 public class DocumentService {
@@ -34,30 +41,33 @@ public class DocumentService {
     private static final int MAX_CHUNK_TOKENS = 512;
 
     private final DocumentRepository documentRepository;
+    private final QuestionRepository questionRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final QuestionService.EmbeddingClient embeddingClient;
     private final List<DocumentTextExtractor> textExtractors;
     private final String embeddingModel;
 
     public DocumentService(DocumentRepository documentRepository,
+                          QuestionRepository questionRepository,
+                          ApplicationEventPublisher eventPublisher,
                           QuestionService.EmbeddingClient embeddingClient,
                           List<DocumentTextExtractor> textExtractors,
                           @Value("${embedding.model}") String embeddingModel) {
         this.documentRepository = documentRepository;
+        this.questionRepository = questionRepository;
+        this.eventPublisher = eventPublisher;
         this.embeddingClient = embeddingClient;
         this.textExtractors = textExtractors;
         this.embeddingModel = embeddingModel;
     }
 
     @Timed(value = "document.store.time", description = "Time taken to store and process document")
-    @org.springframework.cache.annotation.Caching(evict = {
-            @CacheEvict(value = "documents", allEntries = true, cacheManager = "cacheManager"),
-            @CacheEvict(value = "documentChunks", allEntries = true, cacheManager = "quickCacheManager")
-    })
     /**
      * Приема файл, извлича текст, chunk-ва го, генерира embeddings и
      * съхранява Document и неговите DocumentChunk записи.
      * - Валидира размер (примерно ограничение 5MB).
-     * - Изтрива стар документ със същото име за по-лесно демо/повторно качване.
+     * - Изтрива стар документ със същото име за по-лесно демо/повторно качване
+     *   (въпросите към него остават в историята, без документ).
      */
     public void store(MultipartFile file) throws IOException {
         log.info("Storing document: {} (size: {} bytes)", file.getOriginalFilename(), file.getSize());
@@ -65,8 +75,8 @@ public class DocumentService {
             throw new IllegalArgumentException("File size exceeds 5MB limit");
         }
 
-        documentRepository.findByName(file.getOriginalFilename())
-                .ifPresent(documentRepository::delete);
+        Optional<Document> replaced = documentRepository.findByName(file.getOriginalFilename());
+        replaced.ifPresent(this::detachAndDelete);
 
         String documentText = extractTextFromFile(file);
         log.debug("Extracted {} characters from document", documentText.length());
@@ -79,6 +89,7 @@ public class DocumentService {
         document.setType(getFileExtension(file.getOriginalFilename()));
         document.setUploadDate(LocalDateTime.now());
         document.setContent(documentText);
+        document.setSizeBytes(file.getSize());
 
         List<DocumentChunk> chunkEntities = new ArrayList<>();
         int index = 0;
@@ -101,7 +112,33 @@ public class DocumentService {
             index++;
         }
         document.setChunks(chunkEntities);
+        document.setChunkCount(chunkEntities.size());
         documentRepository.save(document);
+        eventPublisher.publishEvent(new DocumentStoredEvent(document.getId(), replaced.map(Document::getId).orElse(null)));
+    }
+
+    /**
+     * Изтрива документ и неговите chunk-ове. Въпросите към него остават в историята
+     * на потребителите, без връзка към документа.
+     *
+     * @return {@code false} ако няма документ с това id
+     */
+    @Transactional
+    @Timed(value = "document.delete.time", description = "Time taken to delete a document")
+    public boolean delete(Long id) {
+        Optional<Document> document = documentRepository.findById(id);
+        if (document.isEmpty()) {
+            return false;
+        }
+        detachAndDelete(document.get());
+        eventPublisher.publishEvent(new DocumentDeletedEvent(id));
+        return true;
+    }
+
+    /** Откача въпросите от документа (външен ключ) и го изтрива заедно с chunk-овете. */
+    private void detachAndDelete(Document document) {
+        questionRepository.detachFromDocument(document.getId());
+        documentRepository.delete(document);
     }
 
     /** Намира подходящия extractor според типа файл и извлича чист текст. */
@@ -146,14 +183,6 @@ public class DocumentService {
         return chunks;
     }
 
-    @Cacheable(value = "documents", cacheManager = "cacheManager")
-    @Timed(value = "document.getAll.time", description = "Time taken to retrieve all documents")
-    /** Връща всички документи (резултатът се кешира). */
-    public List<Document> getAllDocuments() {
-        log.debug("Retrieving all documents from database");
-        return documentRepository.findAll();
-    }
-
     /**
      * Gets cached embedding for text to avoid expensive recomputation.
      */
@@ -0,0 +1,114 @@
+package com.example.Document_analiser.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cached access to the {@link QuestionService.EmbeddingClient}.
+ *
+ * Lives in its own bean so the {@code @Cacheable}/{@code @Timed} proxies actually apply
+ * (they are ignored on private methods). {@link #embedAll} serves cached texts from the
+ * {@code embeddings} cache and embeds the misses in a single batch call. Calls that reach
+ * the embedding client are observed as {@code embedding.call} (a span when traced).
+ */
+@Service
+public class EmbeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingService.class);
+    private static final String CACHE_NAME = "embeddings";
+
+    private final QuestionService.EmbeddingClient embeddingClient;
+    private final LogAnalysisService logAnalysisService;
+    private final CacheManager embeddingCacheManager;
+    private final String embeddingModel;
+    private final ObservationRegistry observationRegistry;
+
+    public EmbeddingService(QuestionService.EmbeddingClient embeddingClient,
+                            LogAnalysisService logAnalysisService,
+                            @Qualifier("embeddingCacheManager") CacheManager embeddingCacheManager,
+                            @Value("${embedding.model}") String embeddingModel,
+                            ObservationRegistry observationRegistry) {
+        this.embeddingClient = embeddingClient;
+        this.logAnalysisService = logAnalysisService;
+        this.embeddingCacheManager = embeddingCacheManager;
+        this.embeddingModel = embeddingModel;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Embeds a single text; the result is cached by text. Returns {@code null} on failure
+     * (never cached).
+     */
+    @Cacheable(value = CACHE_NAME, key = "#text", unless = "#result == null", cacheManager = "embeddingCacheManager")
+    @Timed(value = "embedding.generation.time", description = "Time taken to generate embeddings")
+    public float[] embed(String text) {
+        log.debug("Generating embedding for text: {}", text.substring(0, Math.min(50, text.length())));
+        try {
+            return observation(1).observe(() -> embeddingClient.embed(text, embeddingModel));
+        } catch (Exception e) {
+            log.error("Failed to generate embedding for text: {}", e.getMessage());
+            logAnalysisService.recordError("embedding", "Failed to generate embedding", e);
+            return null;
+        }
+    }
+
+    /**
+     * Embeds many texts with one batch call for the cache misses.
+     *
+     * @return embeddings aligned with {@code texts}; an element is {@code null} if it failed
+     */
+    @Timed(value = "embedding.batch.generation.time", description = "Time taken to generate a batch of embeddings")
+    public List<float[]> embedAll(List<String> texts) {
+        Cache cache = embeddingCacheManager.getCache(CACHE_NAME);
+        List<float[]> out = new ArrayList<>(texts.size());
+        List<Integer> missIndexes = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            float[] cached = cache != null ? cache.get(texts.get(i), float[].class) : null;
+            out.add(cached);
+            if (cached == null) {
+                missIndexes.add(i);
+                missTexts.add(texts.get(i));
+            }
+        }
+        if (missTexts.isEmpty()) {
+            return out;
+        }
+
+        log.debug("Embedding batch: {} cached, {} to generate", texts.size() - missTexts.size(), missTexts.size());
+        try {
+            List<float[]> generated = observation(missTexts.size())
+                    .observe(() -> embeddingClient.embedAll(missTexts, embeddingModel));
+            for (int i = 0; i < missIndexes.size(); i++) {
+                float[] embedding = generated.get(i);
+                out.set(missIndexes.get(i), embedding);
+                if (cache != null && embedding != null) {
+                    cache.put(missTexts.get(i), embedding);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to generate batch embeddings: {}", e.getMessage());
+            logAnalysisService.recordError("embedding", "Failed to generate batch embeddings", e);
+        }
+        return out;
+    }
+
+    private Observation observation(int texts) {
+        return Observation.createNotStarted("embedding.call", observationRegistry)
+                .contextualName("embedding " + embeddingModel)
+                .lowCardinalityKeyValue("model", embeddingModel)
+                .highCardinalityKeyValue("embedding.texts", String.valueOf(texts));
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.dto.AnswerMode;
+import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.util.KeywordScorer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Extractive fast path: answers lookup questions with the best matching sentence of the
+ * retrieved context instead of calling the chat model.
+ *
+ * Every sentence of the retrieved chunks is scored locally by question keyword coverage.
+ * The extraction is <em>decisive</em> when the question looks like a lookup, the best
+ * sentence covers enough of the keywords, and it beats the best sentence of every other
+ * chunk by a clear margin. A usable (not necessarily decisive) extraction is also the
+ * degraded answer when the chat model is unavailable.
+ */
+@Service
+public class ExtractiveAnswerService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractiveAnswerService.class);
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[.!?;])\\s+|\\n+");
+    private static final int MIN_SENTENCE_CHARS = 15;
+    private static final int MAX_SENTENCE_CHARS = 400;
+    private static final int REGEX_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS;
+
+    private final AnswerMode defaultMode;
+    private final Pattern lookupPattern;
+    private final Pattern excludePattern;
+    private final double minCoverage;
+    private final double minMargin;
+    private final double minUsableCoverage;
+    private final int minKeywords;
+
+    private final Counter extractiveCounter;
+    private final Counter extractiveFallbackCounter;
+    private final Counter generativeCounter;
+    private final Counter latencySavedCounter;
+    private final Timer extractionTimer;
+    private final Timer generationTimer;
+
+    public ExtractiveAnswerService(MeterRegistry meterRegistry,
+                                   @Value("${answers.extractive.default-mode:GENERATIVE}") AnswerMode defaultMode,
+                                   @Value("${answers.extractive.lookup-pattern:^(what|when|who|where|which|how (much|many|long|often)|какъв|каква|какво|какви|кога|кой|коя|кое|кои|колко|къде)\\b}") String lookupPattern,
+                                   @Value("${answers.extractive.exclude-pattern:\\b(why|explain|compare|summari[sz]e|describe|list|защо|обясни|сравни|опиши|обобщи|изброй)\\b}") String excludePattern,
+                                   @Value("${answers.extractive.min-coverage:0.75}") double minCoverage,
+                                   @Value("${answers.extractive.min-margin:0.25}") double minMargin,
+                                   @Value("${answers.extractive.min-usable-coverage:0.5}") double minUsableCoverage,
+                                   @Value("${answers.extractive.min-keywords:2}") int minKeywords) {
+        this.defaultMode = defaultMode;
+        this.lookupPattern = Pattern.compile(lookupPattern, REGEX_FLAGS);
+        this.excludePattern = Pattern.compile(excludePattern, REGEX_FLAGS);
+        this.minCoverage = minCoverage;
+        this.minMargin = minMargin;
+        this.minUsableCoverage = minUsableCoverage;
+        this.minKeywords = minKeywords;
+
+        this.extractiveCounter = pathCounter(meterRegistry, "extractive");
+        this.extractiveFallbackCounter = pathCounter(meterRegistry, "extractive_fallback");
+        this.generativeCounter = pathCounter(meterRegistry, "generative");
+        this.latencySavedCounter = Counter.builder("answers.extractive.latency.saved")
+                .baseUnit("milliseconds")
+                .description("Estimated generation time avoided by extractive answers")
+                .register(meterRegistry);
+        this.extractionTimer = Timer.builder("answers.extraction.time")
+                .description("Time spent scoring sentences for the extractive fast path")
+                .register(meterRegistry);
+        this.generationTimer = Timer.builder("answers.generation.time")
+                .description("Time spent generating answers with the chat model")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+        Gauge.builder("answers.extractive.ratio", this, ExtractiveAnswerService::extractiveRatio)
+                .description("Fraction of answers produced without a chat model call")
+                .register(meterRegistry);
+    }
+
+    private static Counter pathCounter(MeterRegistry registry, String path) {
+        return Counter.builder("answers.by.path")
+                .tag("path", path)
+                .description("Answers by how they were produced")
+                .register(registry);
+    }
+
+    /** The requested mode, or the configured default when none was given. */
+    public AnswerMode resolveMode(AnswerMode requested) {
+        return requested != null ? requested : defaultMode;
+    }
+
+    /** {@code true} for short factual questions ("what is the notice period?"). */
+    public boolean isLookup(String question) {
+        if (question == null) return false;
+        String q = question.trim();
+        return lookupPattern.matcher(q).find() && !excludePattern.matcher(q).find();
+    }
+
+    /**
+     * Finds the best answer sentence in the retrieved chunks.
+     *
+     * @param question question text
+     * @param chunks   retrieved chunks (any order)
+     * @return the best sentence with its confidence, or {@code null} when no sentence is usable
+     */
+    public Extraction extract(String question, List<DocumentChunk> chunks) {
+        if (chunks == null || chunks.isEmpty()) return null;
+        long start = System.nanoTime();
+        try {
+            Set<String> keywords = KeywordScorer.extractKeywords(question);
+            if (keywords.isEmpty()) return null;
+
+            String bestSentence = null;
+            Long bestChunkId = null;
+            double best = 0;
+            double runnerUp = 0;
+            for (DocumentChunk chunk : chunks) {
+                String content = chunk.getContent();
+                if (content == null || content.isBlank()) continue;
+                String chunkBest = null;
+                double chunkScore = 0;
+                for (String sentence : SENTENCE_BOUNDARY.split(content)) {
+                    String s = sentence.trim();
+                    if (s.length() < MIN_SENTENCE_CHARS || s.length() > MAX_SENTENCE_CHARS) continue;
+                    double coverage = KeywordScorer.coverage(s, keywords);
+                    // Prefer the shorter sentence on ties: less noise around the answer
+                    if (coverage > chunkScore || (coverage == chunkScore && chunkBest != null && s.length() < chunkBest.length())) {
+                        chunkScore = coverage;
+                        chunkBest = s;
+                    }
+                }
+                if (chunkBest == null) continue;
+                if (chunkScore > best) {
+                    runnerUp = best;
+                    best = chunkScore;
+                    bestSentence = chunkBest;
+                    bestChunkId = chunk.getId();
+                } else if (chunkScore > runnerUp) {
+                    runnerUp = chunkScore;
+                }
+            }
+            if (bestSentence == null || best < minUsableCoverage) return null;
+
+            double margin = best - runnerUp;
+            boolean decisive = isLookup(question)
+                    && keywords.size() >= minKeywords
+                    && best >= minCoverage
+                    && margin >= minMargin;
+            log.debug("Extractive candidate from chunk {}: coverage={}, margin={}, decisive={}",
+                    bestChunkId, best, margin, decisive);
+            return new Extraction(bestSentence, bestChunkId, best, margin, decisive);
+        } finally {
+            extractionTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Records an answer served from an extraction; {@code fallback} when the chat model
+     * was tried and unavailable.
+     */
+    public void recordExtractive(boolean fallback) {
+        if (fallback) {
+            extractiveFallbackCounter.increment();
+            return;
+        }
+        extractiveCounter.increment();
+        double saved = generationTimer.mean(TimeUnit.MILLISECONDS) - extractionTimer.mean(TimeUnit.MILLISECONDS);
+        if (saved > 0) {
+            latencySavedCounter.increment(saved);
+        }
+    }
+
+    /** Records an answer generated by the chat model. */
+    public void recordGenerated(Duration generationTime) {
+        generativeCounter.increment();
+        generationTimer.record(generationTime);
+    }
+
+    private double extractiveRatio() {
+        double extractive = extractiveCounter.count() + extractiveFallbackCounter.count();
+        double total = extractive + generativeCounter.count();
+        return total == 0 ? 0 : extractive / total;
+    }
+
+    /**
+     * Fast-path statistics for the admin API.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new HashMap<>();
+        report.put("defaultMode", defaultMode.name());
+        report.put("extractiveAnswers", extractiveCounter.count());
+        report.put("extractiveFallbackAnswers", extractiveFallbackCounter.count());
+        report.put("generatedAnswers", generativeCounter.count());
+        report.put("extractiveRatio", extractiveRatio());
+        report.put("latencySavedMs", latencySavedCounter.count());
+        report.put("meanGenerationMs", generationTimer.mean(TimeUnit.MILLISECONDS));
+        report.put("meanExtractionMs", extractionTimer.mean(TimeUnit.MILLISECONDS));
+        report.put("minCoverage", minCoverage);
+        report.put("minMargin", minMargin);
+        return report;
+    }
+
+    /**
+     * Best sentence found in the retrieved context.
+     */
+    public static class Extraction {
+        private final String sentence;
+        private final Long chunkId;
+        private final double coverage;
+        private final double margin;
+        private final boolean decisive;
+
+        public Extraction(String sentence, Long chunkId, double coverage, double margin, boolean decisive) {
+            this.sentence = sentence;
+            this.chunkId = chunkId;
+            this.coverage = coverage;
+            this.margin = margin;
+            this.decisive = decisive;
+        }
+
+        public String getSentence() { return sentence; }
+        public Long getChunkId() { return chunkId; }
+        public double getCoverage() { return coverage; }
+        public double getMargin() { return margin; }
+        public boolean isDecisive() { return decisive; }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.Document_analiser.service;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency recorder with HdrHistogram percentiles over rotating time windows.
+ *
+ * Recording is lock-free and allocation-free: the value goes to one of a few striped
+ * {@link Recorder}s (picked by thread id, so concurrent writers rarely share one), each
+ * backed by a fixed-range histogram. Every {@code interval} {@link #rotate()} swaps the
+ * stripes' interval histograms out, merges them into a packed (sparse) histogram and
+ * keeps it in a ring covering the longest window. Reads sum the completed intervals of a
+ * window, so they never touch the write path and lag by at most one interval.
+ *
+ * Values are microseconds with two significant digits (1% precision), up to one hour;
+ * longer values are recorded as one hour.
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder[] stripes;
+    private final Histogram[] recycled;
+    private final int stripeMask;
+    private final long intervalMillis;
+
+    /** Completed intervals, newest at {@code head}; null for an interval without values. */
+    private final PackedHistogram[] ring;
+    private int head;
+    private final PackedHistogram total = new PackedHistogram(SIGNIFICANT_DIGITS);
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    /**
+     * @param stripes   number of striped recorders, rounded up to a power of two
+     * @param interval  rotation interval (the resolution of the windows)
+     * @param retention longest window that can be read
+     */
+    public LatencyRecorder(int stripes, Duration interval, Duration retention) {
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        if (stripes <= 1) {
+            count = 1;
+        }
+        this.stripes = new Recorder[count];
+        this.recycled = new Histogram[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        }
+        this.stripeMask = count - 1;
+        this.intervalMillis = interval.toMillis();
+        this.ring = new PackedHistogram[(int) Math.max(1, retention.toMillis() / intervalMillis)];
+    }
+
+    /** Records one latency; safe to call from any number of threads. */
+    public void record(long nanos) {
+        long micros = nanos / 1000;
+        if (micros > HIGHEST_TRACKABLE_MICROS) {
+            micros = HIGHEST_TRACKABLE_MICROS;
+        } else if (micros < 0) {
+            micros = 0;
+        }
+        stripes[(int) Thread.currentThread().threadId() & stripeMask].recordValue(micros);
+    }
+
+    /** Closes the current interval; called every {@code interval} by a single thread. */
+    public synchronized void rotate() {
+        PackedHistogram interval = null;
+        for (int i = 0; i < stripes.length; i++) {
+            recycled[i] = stripes[i].getIntervalHistogram(recycled[i]);
+            if (recycled[i].getTotalCount() > 0) {
+                if (interval == null) {
+                    interval = new PackedHistogram(SIGNIFICANT_DIGITS);
+                }
+                interval.add(recycled[i]);
+            }
+        }
+        head = (head + 1) % ring.length;
+        ring[head] = interval;
+        if (interval != null) {
+            total.add(interval);
+        }
+    }
+
+    /**
+     * Statistics of the completed intervals of the last {@code window} (rounded to whole
+     * intervals, at most the retention).
+     */
+    public synchronized Snapshot snapshot(Duration window) {
+        int intervals = (int) Math.min(ring.length, Math.max(1, window.toMillis() / intervalMillis));
+        Histogram merged = new Histogram(SIGNIFICANT_DIGITS);
+        for (int i = 0; i < intervals; i++) {
+            PackedHistogram interval = ring[Math.floorMod(head - i, ring.length)];
+            if (interval != null) {
+                merged.add(interval);
+            }
+        }
+        return new Snapshot(merged);
+    }
+
+    /** Statistics of all completed intervals since the recorder was created. */
+    public synchronized Snapshot total() {
+        return new Snapshot(total);
+    }
+
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Immutable latency statistics, in milliseconds.
+     */
+    public static class Snapshot {
+        private final long count;
+        private final double mean;
+        private final double min;
+        private final double max;
+        private final double p50;
+        private final double p90;
+        private final double p95;
+        private final double p99;
+        private final double p999;
+
+        Snapshot(Histogram histogram) {
+            this.count = histogram.getTotalCount();
+            boolean empty = count == 0;
+            this.mean = empty ? 0 : histogram.getMean() / 1000.0;
+            this.min = empty ? 0 : histogram.getMinValue() / 1000.0;
+            this.max = empty ? 0 : histogram.getMaxValue() / 1000.0;
+            this.p50 = percentile(histogram, 50.0);
+            this.p90 = percentile(histogram, 90.0);
+            this.p95 = percentile(histogram, 95.0);
+            this.p99 = percentile(histogram, 99.0);
+            this.p999 = percentile(histogram, 99.9);
+        }
+
+        private static double percentile(Histogram histogram, double percentile) {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+        public double getP50() { return p50; }
+        public double getP90() { return p90; }
+        public double getP95() { return p95; }
+        public double getP99() { return p99; }
+        public double getP999() { return p999; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("meanMs", mean);
+            map.put("minMs", min);
+            map.put("maxMs", max);
+            map.put("p50Ms", p50);
+            map.put("p90Ms", p90);
+            map.put("p95Ms", p95);
+            map.put("p99Ms", p99);
+            map.put("p999Ms", p999);
+            return map;
+        }
+    }
+}
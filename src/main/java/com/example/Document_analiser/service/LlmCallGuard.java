@@ -0,0 +1,510 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.exception.LlmUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer for chat model calls.
+ *
+ * - Deadline: every call is time-boxed; the attempt is cancelled when it expires.
+ * - Hedging: if the first attempt is still running after the recent p95 latency, a
+ *   second attempt is started and the first success wins.
+ * - Circuit breaker: when the failure rate over the last calls crosses the threshold
+ *   the breaker opens and calls fail fast until a half-open probe succeeds.
+ * - Bulkhead: caps concurrent generations (hedges included).
+ *
+ * Failures surface as {@link LlmUnavailableException} so callers can return their
+ * fallback answer immediately.
+ */
+@Service
+public class LlmCallGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmCallGuard.class);
+    private static final int LATENCY_WINDOW = 200;
+
+    enum BreakerState { CLOSED, HALF_OPEN, OPEN }
+
+    private final ExecutorService executor;
+    private final Duration callTimeout;
+    private final boolean hedgingEnabled;
+    private final long minHedgeDelayMs;
+    private final Semaphore bulkhead;
+    private final int bulkheadSize;
+    private final long bulkheadWaitMs;
+
+    // Circuit breaker state, guarded by breakerLock
+    private final ReentrantLock breakerLock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+    private int outcomeCount;
+    private int outcomeCursor;
+    private BreakerState state = BreakerState.CLOSED;
+    private Instant openedAt;
+    private boolean halfOpenProbeInFlight;
+
+    // Recent successful latencies for the hedge delay, guarded by latencyLock
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private final long[] latenciesMs = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int latencyCursor;
+    private volatile long p95Ms;
+
+    private final Timer callTimer;
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter timeoutCounter;
+    private final Counter shortCircuitCounter;
+    private final Counter bulkheadRejectedCounter;
+    private final Counter hedgesLaunched;
+    private final Counter hedgeWins;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public LlmCallGuard(@Qualifier("llmCallExecutor") ExecutorService executor,
+                        MeterRegistry meterRegistry,
+                        @Value("${llm.call.timeout-ms:30000}") long callTimeoutMs,
+                        @Value("${llm.hedging.enabled:true}") boolean hedgingEnabled,
+                        @Value("${llm.hedging.min-delay-ms:1500}") long minHedgeDelayMs,
+                        @Value("${llm.bulkhead.max-concurrent:16}") int bulkheadSize,
+                        @Value("${llm.bulkhead.max-wait-ms:2000}") long bulkheadWaitMs,
+                        @Value("${llm.breaker.window:20}") int breakerWindow,
+                        @Value("${llm.breaker.min-calls:10}") int minCalls,
+                        @Value("${llm.breaker.failure-rate:0.5}") double failureRateThreshold,
+                        @Value("${llm.breaker.open-ms:30000}") long openMs) {
+        this.executor = executor;
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
+        this.hedgingEnabled = hedgingEnabled;
+        this.minHedgeDelayMs = minHedgeDelayMs;
+        this.bulkheadSize = bulkheadSize;
+        this.bulkhead = new Semaphore(bulkheadSize);
+        this.bulkheadWaitMs = bulkheadWaitMs;
+        this.outcomes = new boolean[Math.max(1, breakerWindow)];
+        this.minCalls = Math.min(minCalls, outcomes.length);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = Duration.ofMillis(openMs);
+
+        this.callTimer = Timer.builder("ai.call.duration")
+                .description("Guarded chat model call latency (including hedges)")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.successCounter = outcomeCounter(meterRegistry, "success");
+        this.failureCounter = outcomeCounter(meterRegistry, "failure");
+        this.timeoutCounter = outcomeCounter(meterRegistry, "timeout");
+        this.shortCircuitCounter = outcomeCounter(meterRegistry, "circuit_open");
+        this.bulkheadRejectedCounter = outcomeCounter(meterRegistry, "bulkhead_full");
+        this.hedgesLaunched = Counter.builder("ai.hedge.launched")
+                .description("Hedged chat model attempts started")
+                .register(meterRegistry);
+        this.hedgeWins = Counter.builder("ai.hedge.wins")
+                .description("Calls where the hedged attempt finished first")
+                .register(meterRegistry);
+        Gauge.builder("ai.breaker.state", this, g -> g.getState().ordinal())
+                .description("Chat model circuit breaker state (0=closed, 1=half-open, 2=open)")
+                .register(meterRegistry);
+        Gauge.builder("ai.bulkhead.in.flight", inFlight, AtomicInteger::get)
+                .description("Chat model attempts currently running")
+                .register(meterRegistry);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("ai.calls")
+                .tag("outcome", outcome)
+                .description("Guarded chat model calls by outcome")
+                .register(registry);
+    }
+
+    /**
+     * Runs a blocking chat model call with the default deadline.
+     */
+    public String call(Supplier<String> call) {
+        return call(call, callTimeout);
+    }
+
+    /** Default deadline of a single call ({@code llm.call.timeout-ms}). */
+    public Duration getCallTimeout() {
+        return callTimeout;
+    }
+
+    /**
+     * Runs a blocking chat model call through breaker, bulkhead, hedging and deadline.
+     *
+     * @throws LlmUnavailableException when the call is short-circuited, rejected, times out or fails
+     */
+    public String call(Supplier<String> call, Duration deadline) {
+        return call(call, deadline, () -> true);
+    }
+
+    /**
+     * Like {@link #call(Supplier, Duration)}; a hedge is only started when
+     * {@code hedgeBudget} grants it (e.g. the scheduler's rate limits have room for it).
+     */
+    public String call(Supplier<String> call, Duration deadline, BooleanSupplier hedgeBudget) {
+        boolean probe = acquirePermission();
+        long start = System.nanoTime();
+        long deadlineNanos = start + deadline.toNanos();
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Future<?>[] attempts = new Future<?>[2];
+        AtomicInteger failedAttempts = new AtomicInteger();
+        AtomicInteger launched = new AtomicInteger();
+        AtomicInteger winner = new AtomicInteger(-1);
+
+        try {
+            if (!acquireBulkhead(bulkheadWaitMs)) {
+                bulkheadRejectedCounter.increment();
+                releaseProbe(probe);
+                throw new LlmUnavailableException("bulkhead_full", "Too many concurrent AI generations");
+            }
+            try {
+                attempts[0] = launch(call, 0, result, winner, failedAttempts, launched);
+            } catch (RejectedExecutionException e) {
+                bulkheadRejectedCounter.increment();
+                releaseProbe(probe);
+                throw new LlmUnavailableException("bulkhead_full", "AI call executor rejected the call");
+            }
+
+            long hedgeDelayMs = hedgeDelayMs();
+            if (hedgingEnabled && !probe && hedgeDelayMs < deadline.toMillis()) {
+                try {
+                    return finish(result.get(hedgeDelayMs, TimeUnit.MILLISECONDS), start, probe, false);
+                } catch (TimeoutException stillRunning) {
+                    if (acquireBulkhead(0)) {
+                        if (!hedgeBudget.getAsBoolean()) {
+                            bulkhead.release();
+                            log.debug("No rate-limit budget for a hedged attempt");
+                        } else {
+                            hedgesLaunched.increment();
+                            log.debug("AI call exceeded {} ms, launching hedged attempt", hedgeDelayMs);
+                            try {
+                                attempts[1] = launch(call, 1, result, winner, failedAttempts, launched);
+                            } catch (RejectedExecutionException e) {
+                                log.debug("Hedged attempt rejected by the executor");
+                            }
+                        }
+                    }
+                }
+            }
+
+            long remaining = deadlineNanos - System.nanoTime();
+            String text = result.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            return finish(text, start, probe, winner.get() == 1);
+        } catch (TimeoutException e) {
+            timeoutCounter.increment();
+            recordOutcome(false, probe);
+            throw new LlmUnavailableException("timeout", "AI call exceeded deadline of " + deadline.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            failureCounter.increment();
+            recordOutcome(false, probe);
+            throw new LlmUnavailableException("failure", "AI call failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            // Interrupted by the caller (e.g. the client went away): not a provider failure
+            Thread.currentThread().interrupt();
+            releaseProbe(probe);
+            throw new LlmUnavailableException("cancelled", "AI call cancelled");
+        } finally {
+            for (Future<?> attempt : attempts) {
+                if (attempt != null) {
+                    attempt.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies breaker, bulkhead and an idle deadline (max gap between tokens) to a
+     * streaming call. Hedging does not apply to streams.
+     */
+    public Flux<String> stream(Supplier<Flux<String>> call) {
+        return Flux.defer(() -> {
+            boolean probe = acquirePermission();
+            if (!acquireBulkhead(bulkheadWaitMs)) {
+                bulkheadRejectedCounter.increment();
+                releaseProbe(probe);
+                return Flux.error(new LlmUnavailableException("bulkhead_full", "Too many concurrent AI generations"));
+            }
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            // deferred so a supplier that throws still ends in doOnError/doFinally below
+            return Flux.defer(call::get)
+                    .timeout(callTimeout)
+                    .doOnComplete(() -> {
+                        successCounter.increment();
+                        callTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                        recordOutcome(true, probe);
+                    })
+                    .doOnError(e -> {
+                        (e instanceof TimeoutException ? timeoutCounter : failureCounter).increment();
+                        recordOutcome(false, probe);
+                    })
+                    .doOnCancel(() -> releaseProbe(probe))
+                    .doFinally(signal -> {
+                        inFlight.decrementAndGet();
+                        bulkhead.release();
+                    });
+        });
+    }
+
+    /**
+     * Starts an attempt holding one bulkhead permit (acquired by the caller). The permit and
+     * the in-flight count are released exactly once: by the attempt when it ran, otherwise
+     * when it is cancelled before starting or rejected by the executor.
+     */
+    private Future<?> launch(Supplier<String> call, int attempt, CompletableFuture<String> result,
+                             AtomicInteger winner, AtomicInteger failedAttempts, AtomicInteger launched) {
+        launched.incrementAndGet();
+        inFlight.incrementAndGet();
+        Attempt task = new Attempt(() -> {
+            try {
+                String text = call.get();
+                winner.compareAndSet(-1, attempt);
+                result.complete(text);
+            } catch (Throwable t) {
+                if (failedAttempts.incrementAndGet() == launched.get()) {
+                    result.completeExceptionally(t);
+                }
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            launched.decrementAndGet();
+            task.cancel(false);
+            throw e;
+        }
+        return task;
+    }
+
+    /** Attempt that hands its bulkhead permit back whether or not it got to run. */
+    private final class Attempt extends FutureTask<Void> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Attempt(Runnable body) {
+            super(body, null);
+        }
+
+        @Override
+        public void run() {
+            // Lost to a cancel that already released the permit: do not call the model
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                super.run();
+            } finally {
+                releaseAttempt();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && claimed.compareAndSet(false, true)) {
+                releaseAttempt();
+            }
+        }
+    }
+
+    private void releaseAttempt() {
+        inFlight.decrementAndGet();
+        bulkhead.release();
+    }
+
+    private String finish(String text, long startNanos, boolean probe, boolean hedgeWon) {
+        long elapsed = System.nanoTime() - startNanos;
+        callTimer.record(Duration.ofNanos(elapsed));
+        successCounter.increment();
+        if (hedgeWon) {
+            hedgeWins.increment();
+        }
+        recordLatency(Duration.ofNanos(elapsed).toMillis());
+        recordOutcome(true, probe);
+        return text;
+    }
+
+    private boolean acquireBulkhead(long waitMs) {
+        try {
+            return waitMs <= 0 ? bulkhead.tryAcquire() : bulkhead.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Checks the breaker. Returns {@code true} when this call is the half-open probe.
+     */
+    private boolean acquirePermission() {
+        breakerLock.lock();
+        try {
+            if (state == BreakerState.OPEN) {
+                if (Instant.now().isBefore(openedAt.plus(openDuration))) {
+                    shortCircuitCounter.increment();
+                    throw new LlmUnavailableException("circuit_open", "AI provider circuit is open");
+                }
+                state = BreakerState.HALF_OPEN;
+                halfOpenProbeInFlight = false;
+                log.info("AI circuit breaker half-open, allowing a probe call");
+            }
+            if (state == BreakerState.HALF_OPEN) {
+                if (halfOpenProbeInFlight) {
+                    shortCircuitCounter.increment();
+                    throw new LlmUnavailableException("circuit_open", "AI provider circuit is half-open, probe in flight");
+                }
+                halfOpenProbeInFlight = true;
+                return true;
+            }
+            return false;
+        } finally {
+            breakerLock.unlock();
+        }
+    }
+
+    private void releaseProbe(boolean probe) {
+        if (!probe) {
+            return;
+        }
+        breakerLock.lock();
+        try {
+            halfOpenProbeInFlight = false;
+        } finally {
+            breakerLock.unlock();
+        }
+    }
+
+    private void recordOutcome(boolean success, boolean probe) {
+        breakerLock.lock();
+        try {
+            if (probe) {
+                halfOpenProbeInFlight = false;
+                if (success) {
+                    state = BreakerState.CLOSED;
+                    outcomeCount = 0;
+                    outcomeCursor = 0;
+                    log.info("AI circuit breaker closed after successful probe");
+                } else {
+                    open();
+                }
+                return;
+            }
+            if (state != BreakerState.CLOSED) {
+                return;
+            }
+            outcomes[outcomeCursor] = success;
+            outcomeCursor = (outcomeCursor + 1) % outcomes.length;
+            outcomeCount = Math.min(outcomeCount + 1, outcomes.length);
+            if (outcomeCount >= minCalls && failureRate() >= failureRateThreshold) {
+                open();
+            }
+        } finally {
+            breakerLock.unlock();
+        }
+    }
+
+    private void open() {
+        state = BreakerState.OPEN;
+        openedAt = Instant.now();
+        log.warn("AI circuit breaker opened for {} ms", openDuration.toMillis());
+    }
+
+    private double failureRate() {
+        int failures = 0;
+        for (int i = 0; i < outcomeCount; i++) {
+            if (!outcomes[i]) failures++;
+        }
+        return outcomeCount == 0 ? 0 : failures / (double) outcomeCount;
+    }
+
+    private void recordLatency(long millis) {
+        latencyLock.lock();
+        try {
+            latenciesMs[latencyCursor] = millis;
+            latencyCursor = (latencyCursor + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+            if (latencyCursor % 10 == 0) {
+                long[] sorted = Arrays.copyOf(latenciesMs, latencyCount);
+                Arrays.sort(sorted);
+                p95Ms = sorted[Math.max(0, (int) Math.ceil(0.95 * sorted.length) - 1)];
+            }
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    private long hedgeDelayMs() {
+        return Math.max(minHedgeDelayMs, p95Ms);
+    }
+
+    BreakerState getState() {
+        breakerLock.lock();
+        try {
+            return state;
+        } finally {
+            breakerLock.unlock();
+        }
+    }
+
+    /** {@code true} when calls are currently short-circuited. */
+    public boolean isOpen() {
+        return getState() == BreakerState.OPEN;
+    }
+
+    /**
+     * Breaker, bulkhead and hedging state for the admin API.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new HashMap<>();
+        breakerLock.lock();
+        try {
+            report.put("breakerState", state.name());
+            report.put("breakerOpenedAt", openedAt != null ? openedAt.toString() : null);
+            report.put("recentFailureRate", failureRate());
+            report.put("recentCalls", outcomeCount);
+        } finally {
+            breakerLock.unlock();
+        }
+        report.put("callTimeoutMs", callTimeout.toMillis());
+        report.put("bulkheadMaxConcurrent", bulkheadSize);
+        report.put("bulkheadAvailable", bulkhead.availablePermits());
+        report.put("inFlight", inFlight.get());
+        report.put("hedgingEnabled", hedgingEnabled);
+        report.put("hedgeDelayMs", hedgeDelayMs());
+        report.put("recentP95Ms", p95Ms);
+        report.put("hedgesLaunched", hedgesLaunched.count());
+        report.put("hedgeWins", hedgeWins.count());
+        report.put("successes", successCounter.count());
+        report.put("failures", failureCounter.count());
+        report.put("timeouts", timeoutCounter.count());
+        report.put("shortCircuited", shortCircuitCounter.count());
+        report.put("bulkheadRejected", bulkheadRejectedCounter.count());
+        return report;
+    }
+}
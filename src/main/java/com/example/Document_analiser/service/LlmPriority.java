@@ -0,0 +1,14 @@
+package com.example.Document_analiser.service;
+
+/**
+ * Scheduling class of a chat model call. Lower ordinal is served first by
+ * {@link LlmScheduler}; batch work only gets capacity nobody else is waiting for.
+ */
+public enum LlmPriority {
+    /** A user waiting on the page (the /ask UI and streamed answers). */
+    INTERACTIVE,
+    /** REST integrations under /api/questions and /api/ask. */
+    API,
+    /** Bulk jobs such as batch questions. */
+    BATCH
+}
@@ -0,0 +1,422 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.exception.LlmUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control in front of the chat model.
+ *
+ * - Priority classes: waiting {@link LlmPriority#INTERACTIVE} calls are always admitted
+ *   before API calls, and API calls before batch calls. Batch calls also have their own
+ *   concurrency cap, so some capacity is always left for interactive arrivals.
+ * - Weighted fair queuing per user inside a class: each call gets a virtual finish tag
+ *   advanced by its estimated tokens, so users share the class by token volume and one
+ *   heavy user (or a large batch) cannot starve the others.
+ * - Token buckets for requests/min and tokens/min that mirror the provider limits.
+ *   Calls wait for budget here instead of being answered with 429 by the provider.
+ *   Token usage is estimated before the call and corrected when it finishes. Hedged
+ *   attempts ({@link Permit#tryHedge()}) are charged to the same budgets.
+ */
+@Service
+public class LlmScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmScheduler.class);
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final int maxConcurrent;
+    private final int batchMaxConcurrent;
+    private final int expectedCompletionTokens;
+    private final Map<LlmPriority, Duration> maxQueueWait = new EnumMap<>(LlmPriority.class);
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+
+    // Scheduler state, guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingInt((Waiter w) -> w.priority.ordinal())
+                    .thenComparingDouble(w -> w.finishTag)
+                    .thenComparingLong(w -> w.sequence));
+    private final Map<LlmPriority, Double> virtualTime = new EnumMap<>(LlmPriority.class);
+    private final Map<LlmPriority, Map<String, Double>> lastFinishTag = new EnumMap<>(LlmPriority.class);
+    private final Map<LlmPriority, Integer> queued = new EnumMap<>(LlmPriority.class);
+    private final Map<LlmPriority, Integer> running = new EnumMap<>(LlmPriority.class);
+    private int inFlight;
+    private long sequence;
+
+    private final Map<LlmPriority, Timer> queueWaitTimers = new EnumMap<>(LlmPriority.class);
+    private final Map<LlmPriority, Counter> timeoutCounters = new EnumMap<>(LlmPriority.class);
+    private final Counter rateLimitedCounter;
+
+    public LlmScheduler(MeterRegistry meterRegistry,
+                        @Value("${llm.scheduler.max-concurrent:12}") int maxConcurrent,
+                        @Value("${llm.scheduler.batch-max-concurrent:6}") int batchMaxConcurrent,
+                        @Value("${llm.scheduler.requests-per-minute:500}") int requestsPerMinute,
+                        @Value("${llm.scheduler.tokens-per-minute:200000}") int tokensPerMinute,
+                        @Value("${llm.scheduler.expected-completion-tokens:400}") int expectedCompletionTokens,
+                        @Value("${llm.scheduler.max-wait-ms.interactive:30000}") long interactiveMaxWaitMs,
+                        @Value("${llm.scheduler.max-wait-ms.api:60000}") long apiMaxWaitMs,
+                        @Value("${llm.scheduler.max-wait-ms.batch:600000}") long batchMaxWaitMs) {
+        this.maxConcurrent = maxConcurrent;
+        this.batchMaxConcurrent = Math.min(batchMaxConcurrent, maxConcurrent);
+        this.expectedCompletionTokens = expectedCompletionTokens;
+        this.requestBucket = requestsPerMinute > 0 ? new TokenBucket(requestsPerMinute) : null;
+        this.tokenBucket = tokensPerMinute > 0 ? new TokenBucket(tokensPerMinute) : null;
+        maxQueueWait.put(LlmPriority.INTERACTIVE, Duration.ofMillis(interactiveMaxWaitMs));
+        maxQueueWait.put(LlmPriority.API, Duration.ofMillis(apiMaxWaitMs));
+        maxQueueWait.put(LlmPriority.BATCH, Duration.ofMillis(batchMaxWaitMs));
+
+        for (LlmPriority priority : LlmPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            virtualTime.put(priority, 0.0);
+            lastFinishTag.put(priority, new HashMap<>());
+            queued.put(priority, 0);
+            running.put(priority, 0);
+            queueWaitTimers.put(priority, Timer.builder("ai.scheduler.queue.wait")
+                    .tag("priority", tag)
+                    .description("Time chat model calls wait for admission")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            timeoutCounters.put(priority, Counter.builder("ai.scheduler.queue.timeouts")
+                    .tag("priority", tag)
+                    .description("Chat model calls given up after waiting too long for admission")
+                    .register(meterRegistry));
+            Gauge.builder("ai.scheduler.queue.depth", this, s -> s.countOf(s.queued, priority))
+                    .tag("priority", tag)
+                    .description("Chat model calls waiting for admission")
+                    .register(meterRegistry);
+            Gauge.builder("ai.scheduler.running", this, s -> s.countOf(s.running, priority))
+                    .tag("priority", tag)
+                    .description("Admitted chat model calls in progress")
+                    .register(meterRegistry);
+        }
+        this.rateLimitedCounter = Counter.builder("ai.scheduler.rate.limited")
+                .description("Admissions delayed by the requests/min or tokens/min budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rough token estimate used for the tokens/min budget and fair-queuing cost.
+     */
+    public static int estimateTokens(String... texts) {
+        int chars = 0;
+        for (String text : texts) {
+            chars += text != null ? text.length() : 0;
+        }
+        return Math.max(1, chars / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * Blocks until the call may start. The returned permit must be released exactly
+     * once when the call finishes.
+     *
+     * @param priority     scheduling class
+     * @param requester    user the call is made for (fair-queuing key)
+     * @param promptTokens estimated prompt size; the expected completion is added
+     * @throws LlmUnavailableException {@code queue_timeout} when the class wait limit is exceeded
+     */
+    public Permit acquire(LlmPriority priority, String requester, int promptTokens) {
+        return acquire(priority, requester, promptTokens, maxQueueWait.get(priority));
+    }
+
+    /**
+     * Like {@link #acquire(LlmPriority, String, int)}, but waits at most {@code maxWait}
+     * (or the class limit, whichever is shorter), e.g. the time left until the request deadline.
+     * An interrupted wait gives up with {@code cancelled}.
+     */
+    public Permit acquire(LlmPriority priority, String requester, int promptTokens, Duration maxWait) {
+        long enqueuedAt = System.nanoTime();
+        Duration limit = maxWait.compareTo(maxQueueWait.get(priority)) < 0 ? maxWait : maxQueueWait.get(priority);
+        long deadline = enqueuedAt + limit.toNanos();
+        int cost = promptTokens + expectedCompletionTokens;
+        String user = requester != null ? requester : "anonymous";
+
+        lock.lock();
+        try {
+            Waiter waiter = enqueue(priority, user, cost);
+            boolean rateLimited = false;
+            while (true) {
+                long now = System.nanoTime();
+                long waitNanos = deadline - now;
+                if (waiters.peek() == waiter && hasSlot(priority)) {
+                    long budgetWait = budgetWaitNanos(cost, now);
+                    if (budgetWait == 0) {
+                        admit(waiter, cost);
+                        queueWaitTimers.get(priority).record(Duration.ofNanos(now - enqueuedAt));
+                        changed.signalAll();
+                        return new Permit(priority, cost);
+                    }
+                    if (!rateLimited) {
+                        rateLimited = true;
+                        rateLimitedCounter.increment();
+                    }
+                    waitNanos = Math.min(waitNanos, budgetWait);
+                }
+                if (deadline - now <= 0) {
+                    abandon(waiter);
+                    timeoutCounters.get(priority).increment();
+                    log.warn("{} AI call for '{}' gave up after {} ms in the scheduler queue",
+                            priority, user, Duration.ofNanos(now - enqueuedAt).toMillis());
+                    throw new LlmUnavailableException("queue_timeout",
+                            "AI call waited longer than " + limit.toMillis() + " ms for admission");
+                }
+                try {
+                    changed.awaitNanos(waitNanos);
+                } catch (InterruptedException e) {
+                    abandon(waiter);
+                    Thread.currentThread().interrupt();
+                    throw new LlmUnavailableException("cancelled", "AI call cancelled while queued");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Waiter enqueue(LlmPriority priority, String user, int cost) {
+        Map<String, Double> userTags = lastFinishTag.get(priority);
+        double start = Math.max(virtualTime.get(priority), userTags.getOrDefault(user, 0.0));
+        double finish = start + cost;
+        userTags.put(user, finish);
+        Waiter waiter = new Waiter(priority, start, finish, sequence++);
+        waiters.add(waiter);
+        queued.merge(priority, 1, Integer::sum);
+        return waiter;
+    }
+
+    private boolean hasSlot(LlmPriority priority) {
+        if (inFlight >= maxConcurrent) {
+            return false;
+        }
+        return priority != LlmPriority.BATCH || running.get(LlmPriority.BATCH) < batchMaxConcurrent;
+    }
+
+    private long budgetWaitNanos(int cost, long now) {
+        long wait = 0;
+        if (requestBucket != null) {
+            wait = Math.max(wait, requestBucket.nanosUntil(1, now));
+        }
+        if (tokenBucket != null) {
+            wait = Math.max(wait, tokenBucket.nanosUntil(cost, now));
+        }
+        return wait;
+    }
+
+    private void admit(Waiter waiter, int cost) {
+        waiters.remove(waiter);
+        queued.merge(waiter.priority, -1, Integer::sum);
+        running.merge(waiter.priority, 1, Integer::sum);
+        inFlight++;
+        virtualTime.put(waiter.priority, Math.max(virtualTime.get(waiter.priority), waiter.startTag));
+        if (requestBucket != null) {
+            requestBucket.take(1);
+        }
+        if (tokenBucket != null) {
+            tokenBucket.take(cost);
+        }
+        Map<String, Double> userTags = lastFinishTag.get(waiter.priority);
+        if (userTags.size() > MAX_TRACKED_USERS) {
+            // Users whose tags are behind the class clock would restart from it anyway
+            double clock = virtualTime.get(waiter.priority);
+            userTags.values().removeIf(tag -> tag <= clock);
+        }
+    }
+
+    /**
+     * Takes one request and {@code cost} tokens if the budgets have them right now; never waits.
+     */
+    private boolean tryCharge(int cost) {
+        lock.lock();
+        try {
+            if (budgetWaitNanos(cost, System.nanoTime()) > 0) {
+                rateLimitedCounter.increment();
+                return false;
+            }
+            if (requestBucket != null) {
+                requestBucket.take(1);
+            }
+            if (tokenBucket != null) {
+                tokenBucket.take(cost);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abandon(Waiter waiter) {
+        waiters.remove(waiter);
+        queued.merge(waiter.priority, -1, Integer::sum);
+        changed.signalAll();
+    }
+
+    private void release(LlmPriority priority, int reservedTokens, int actualTokens) {
+        lock.lock();
+        try {
+            inFlight--;
+            running.merge(priority, -1, Integer::sum);
+            if (tokenBucket != null && actualTokens >= 0) {
+                tokenBucket.give(reservedTokens - actualTokens);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int countOf(Map<LlmPriority, Integer> counts, LlmPriority priority) {
+        lock.lock();
+        try {
+            return counts.get(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue depth, running calls, budgets and queue-wait percentiles per class.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new HashMap<>();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            report.put("maxConcurrent", maxConcurrent);
+            report.put("batchMaxConcurrent", batchMaxConcurrent);
+            report.put("inFlight", inFlight);
+            report.put("requestBudgetAvailable", requestBucket != null ? requestBucket.available(now) : null);
+            report.put("tokenBudgetAvailable", tokenBucket != null ? tokenBucket.available(now) : null);
+            Map<String, Object> classes = new HashMap<>();
+            for (LlmPriority priority : LlmPriority.values()) {
+                Timer timer = queueWaitTimers.get(priority);
+                Map<String, Object> stats = new HashMap<>();
+                stats.put("queued", queued.get(priority));
+                stats.put("running", running.get(priority));
+                stats.put("admitted", timer.count());
+                stats.put("meanQueueWaitMs", timer.mean(TimeUnit.MILLISECONDS));
+                stats.put("maxQueueWaitMs", timer.max(TimeUnit.MILLISECONDS));
+                stats.put("queueTimeouts", timeoutCounters.get(priority).count());
+                stats.put("maxQueueWaitLimitMs", maxQueueWait.get(priority).toMillis());
+                classes.put(priority.name().toLowerCase(), stats);
+            }
+            report.put("classes", classes);
+        } finally {
+            lock.unlock();
+        }
+        report.put("rateLimitedAdmissions", rateLimitedCounter.count());
+        return report;
+    }
+
+    /**
+     * Admission to run one chat model call.
+     */
+    public class Permit {
+        private final LlmPriority priority;
+        private final int reservedTokens;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(LlmPriority priority, int reservedTokens) {
+            this.priority = priority;
+            this.reservedTokens = reservedTokens;
+        }
+
+        /**
+         * Charges a hedged attempt of this call (one request and the same token estimate)
+         * to the budgets without waiting. The hedge is not refunded on release: the provider
+         * also bills the losing attempt, and how much it generated is not known.
+         *
+         * @return {@code false} when the budget is exhausted right now and no hedge should start
+         */
+        public boolean tryHedge() {
+            return !released.get() && tryCharge(reservedTokens);
+        }
+
+        /**
+         * Frees the slot and corrects the tokens/min budget with the real usage.
+         *
+         * @param promptTokens     estimated prompt tokens of the call
+         * @param completionText   generated text, or {@code null} if the call failed
+         */
+        public void release(int promptTokens, String completionText) {
+            if (released.compareAndSet(false, true)) {
+                int actual = completionText != null
+                        ? promptTokens + estimateTokens(completionText)
+                        : promptTokens;
+                LlmScheduler.this.release(priority, reservedTokens, actual);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final LlmPriority priority;
+        final double startTag;
+        final double finishTag;
+        final long sequence;
+
+        Waiter(LlmPriority priority, double startTag, double finishTag, long sequence) {
+            this.priority = priority;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Per-minute budget refilled continuously. Not thread-safe; used under the scheduler lock.
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double available;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(int perMinute) {
+            this.capacity = perMinute;
+            this.refillPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = perMinute;
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+
+        long nanosUntil(int amount, long now) {
+            refill(now);
+            double needed = Math.min(amount, capacity) - available;
+            return needed <= 0 ? 0 : (long) Math.ceil(needed / refillPerNano);
+        }
+
+        void take(int amount) {
+            available -= Math.min(amount, capacity);
+        }
+
+        void give(int amount) {
+            available = Math.min(capacity, available + amount);
+        }
+
+        long available(long now) {
+            refill(now);
+            return (long) available;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.loadtest.LoadGenerator;
+import com.example.Document_analiser.loadtest.LoadReport;
+import com.example.Document_analiser.loadtest.LoadScenario;
+import com.example.Document_analiser.loadtest.LoadTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs load test scenarios ({@link LoadGenerator}) from the admin endpoint.
+ *
+ * The generator drives this instance over HTTP ({@code loadtest.base-url}) on a background
+ * thread, one run at a time; the last {@code loadtest.keep-runs} runs are kept in memory and
+ * each finished run is also written as JSON and HTML to {@code loadtest.output-dir}. The
+ * generator shares the JVM and CPU with the server, so for numbers to compare between
+ * releases run {@code LoadTestCli} from another machine.
+ */
+@Service
+public class LoadTestService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestService.class);
+
+    public enum Status { RUNNING, FINISHED, CANCELLED, FAILED }
+
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+    private final Path uploadFile;
+    private final Path outputDir;
+    private final int keepRuns;
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Run> runs = new ArrayList<>();
+
+    public LoadTestService(@Value("${loadtest.base-url:http://localhost:${server.port:8080}}") String baseUrl,
+                           @Value("${loadtest.username:loadtest}") String username,
+                           @Value("${loadtest.password:loadtest-password}") String password,
+                           @Value("${loadtest.upload-file:sample-data/legal_demo_contract_bg.txt}") String uploadFile,
+                           @Value("${loadtest.output-dir:results/loadtest}") String outputDir,
+                           @Value("${loadtest.keep-runs:10}") int keepRuns) {
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+        this.uploadFile = Path.of(uploadFile);
+        this.outputDir = Path.of(outputDir);
+        this.keepRuns = keepRuns;
+    }
+
+    /**
+     * Starts the scenario in the background.
+     *
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public synchronized Run start(LoadScenario scenario) throws IOException {
+        scenario.validate();
+        if (runs.stream().anyMatch(run -> run.status == Status.RUNNING)) {
+            throw new IllegalStateException("A load test is already running");
+        }
+        LoadTarget target = new LoadTarget(baseUrl, username, password, LoadTarget.uploadText(uploadFile),
+                Duration.ofMillis(scenario.getRequestTimeoutMs()));
+        Run run = new Run(ids.incrementAndGet(), scenario.getName(), new LoadGenerator(target, scenario));
+        runs.add(run);
+        while (runs.size() > keepRuns) {
+            runs.remove(0);
+        }
+        Thread.ofPlatform().name("load-test-runner").daemon(true).start(() -> execute(run));
+        log.info("Load test {} started: scenario={} rates={} target={}", run.id, scenario.getName(),
+                scenario.getRates(), baseUrl);
+        return run;
+    }
+
+    public synchronized Optional<Run> get(long id) {
+        return runs.stream().filter(run -> run.id == id).findFirst();
+    }
+
+    public synchronized List<Map<String, Object>> list() {
+        return runs.stream().map(Run::summary).toList();
+    }
+
+    /** Cancels a running test; returns false if there is no such run. */
+    public boolean cancel(long id) {
+        Optional<Run> run = get(id);
+        run.ifPresent(r -> r.generator.cancel());
+        return run.isPresent();
+    }
+
+    private void execute(Run run) {
+        try {
+            Map<String, Object> result = run.generator.run();
+            String baseName = "loadtest-" + run.scenario + "-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            List<Path> files = LoadReport.write(result, outputDir, baseName);
+            run.finish("cancelled".equals(result.get("stopReason")) ? Status.CANCELLED : Status.FINISHED, result,
+                    files.stream().map(Path::toString).toList(), null);
+            log.info("Load test {} finished: {}; reports {}", run.id, result.get("stopReason"), files);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.finish(Status.CANCELLED, null, List.of(), "interrupted");
+        } catch (Exception e) {
+            log.warn("Load test {} failed: {}", run.id, e.getMessage());
+            run.finish(Status.FAILED, null, List.of(), e.getMessage());
+        }
+    }
+
+    /** One load test run and, once finished, its result. */
+    public static final class Run {
+        private final long id;
+        private final String scenario;
+        private final LoadGenerator generator;
+        private final Instant startedAt = Instant.now();
+        private volatile Status status = Status.RUNNING;
+        private volatile Map<String, Object> result;
+        private volatile List<String> reports = List.of();
+        private volatile String error;
+
+        Run(long id, String scenario, LoadGenerator generator) {
+            this.id = id;
+            this.scenario = scenario;
+            this.generator = generator;
+        }
+
+        void finish(Status status, Map<String, Object> result, List<String> reports, String error) {
+            this.result = result;
+            this.reports = reports;
+            this.error = error;
+            this.status = status;
+        }
+
+        public long getId() { return id; }
+        public Status getStatus() { return status; }
+        public Map<String, Object> getResult() { return result; }
+
+        public Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("id", id);
+            summary.put("scenario", scenario);
+            summary.put("status", status.name());
+            summary.put("phase", generator.getPhase());
+            summary.put("startedAt", startedAt.toString());
+            summary.put("reports", reports);
+            if (error != null) {
+                summary.put("error", error);
+            }
+            if (result != null) {
+                summary.put("stopReason", result.get("stopReason"));
+                summary.put("maxRateWithinTarget", result.get("maxRateWithinTarget"));
+            }
+            return summary;
+        }
+
+        /** The summary plus the full result when finished. */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = summary();
+            if (result != null) {
+                map.put("result", result);
+            }
+            return map;
+        }
+    }
+}
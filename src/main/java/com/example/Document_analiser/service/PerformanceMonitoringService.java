@@ -8,6 +8,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,6 +25,8 @@ public class PerformanceMonitoringService {
     private final Counter documentUploadCounter;
     private final Counter cacheHitCounter;
     private final Counter cacheMissCounter;
+    private final Map<String, Counter> cacheHitCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> cacheMissCounters = new ConcurrentHashMap<>();
     private final Timer embeddingGenerationTimer;
     private final Timer aiResponseTimer;
 
@@ -73,13 +77,14 @@ public class PerformanceMonitoringService {
     }
 
     /**
-     * Record a cache hit event.
+     * Record a cache hit event for a lookup outside the cache abstraction. Caches managed by
+     * Spring are measured from their Caffeine statistics (see {@code CacheTelemetry}).
      */
     public void recordCacheHit(String cacheName) {
-        Counter.builder("cache.hits.specific")
-                .tag("cache", cacheName)
-                .description("Cache hits for " + cacheName)
-                .register(meterRegistry)
+        cacheHitCounters.computeIfAbsent(cacheName, name -> Counter.builder("cache.hits.specific")
+                .tag("cache", name)
+                .description("Cache hits per cache")
+                .register(meterRegistry))
                 .increment();
         cacheHitCounter.increment();
         log.debug("Cache hit recorded for cache: {}", cacheName);
@@ -89,10 +94,10 @@ public class PerformanceMonitoringService {
      * Record a cache miss event.
      */
     public void recordCacheMiss(String cacheName) {
-        Counter.builder("cache.misses.specific")
-                .tag("cache", cacheName)
-                .description("Cache misses for " + cacheName)
-                .register(meterRegistry)
+        cacheMissCounters.computeIfAbsent(cacheName, name -> Counter.builder("cache.misses.specific")
+                .tag("cache", name)
+                .description("Cache misses per cache")
+                .register(meterRegistry))
                 .increment();
         cacheMissCounter.increment();
         log.debug("Cache miss recorded for cache: {}", cacheName);
@@ -14,6 +14,8 @@ import java.util.List;
 
 /**
  * Service for optimized database queries with caching and performance monitoring.
+ * Cache keys carry document tags ({@link com.example.Document_analiser.cache.CacheKeys}),
+ * so storing or deleting a document evicts only the entries computed from it.
  */
 @Service
 public class QueryOptimizationService {
@@ -30,7 +32,8 @@ public class QueryOptimizationService {
      * Optimized method to find relevant chunks with caching and pagination.
      * Uses batch processing to avoid loading too many chunks at once.
      */
-    @Cacheable(value = "relevantChunks", key = "#documentId + '_' + #limit", cacheManager = "quickCacheManager")
+    @Cacheable(value = "relevantChunks", key = "T(com.example.Document_analiser.cache.CacheKeys).relevantChunks(#documentId, #limit)",
+               cacheManager = "quickCacheManager")
     @Timed(value = "query.relevant.chunks.time", description = "Time to find relevant chunks")
     public List<DocumentChunk> findRelevantChunksOptimized(Long documentId, int limit) {
         log.debug("Finding relevant chunks for document: {} with limit: {}", documentId, limit);
@@ -42,7 +45,8 @@ public class QueryOptimizationService {
     /**
      * Batch load document chunks to avoid N+1 problems.
      */
-    @Cacheable(value = "documentChunks", key = "#documentIds.hashCode()", cacheManager = "quickCacheManager")
+    @Cacheable(value = "documentChunks", key = "T(com.example.Document_analiser.cache.CacheKeys).documentChunks(#documentIds)",
+               cacheManager = "quickCacheManager")
     @Timed(value = "query.batch.chunks.time", description = "Time to batch load chunks")
     public List<DocumentChunk> batchLoadChunks(List<Long> documentIds) {
         log.debug("Batch loading chunks for {} documents", documentIds.size());
@@ -57,7 +61,7 @@ public class QueryOptimizationService {
     /**
      * Get chunk statistics for performance analysis.
      */
-    @Cacheable(value = "chunkStats", cacheManager = "quickCacheManager")
+    @Cacheable(value = "chunkStats", key = "T(com.example.Document_analiser.cache.CacheKeys).chunkStats()", cacheManager = "quickCacheManager")
     @Timed(value = "query.chunk.stats.time", description = "Time to calculate chunk statistics")
     public ChunkStatistics getChunkStatistics() {
         log.debug("Calculating chunk statistics");
@@ -8,11 +8,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.Document_analiser.AiChatClient;
+import com.example.Document_analiser.dto.AnswerMode;
 import com.example.Document_analiser.dto.AnswerResponse;
 import com.example.Document_analiser.dto.QuestionHistoryDto;
 import com.example.Document_analiser.dto.QuestionRequest;
@@ -21,12 +23,21 @@ import com.example.Document_analiser.entity.Document;
 import com.example.Document_analiser.entity.DocumentChunk;
 import com.example.Document_analiser.entity.Question;
 import com.example.Document_analiser.entity.User;
+import com.example.Document_analiser.event.QuestionAnsweredEvent;
+import com.example.Document_analiser.event.QuestionChangedEvent;
+import com.example.Document_analiser.exception.LlmUnavailableException;
+import com.example.Document_analiser.exception.RequestAbandonedException;
 import com.example.Document_analiser.repository.DocumentChunkRepository;
 import com.example.Document_analiser.repository.DocumentRepository;
 import com.example.Document_analiser.repository.QuestionRepository;
 import com.example.Document_analiser.repository.UserRepository;
+import com.example.Document_analiser.util.KeywordScorer;
+import com.example.Document_analiser.util.LlmPriorityHolder;
+import com.example.Document_analiser.util.StageTimings;
+import com.example.Document_analiser.util.StageTimings.Stage;
 
 import io.micrometer.core.annotation.Timed;
+import reactor.core.publisher.Flux;
 
 /**
  * Обработва въпроси: намира релевантни части от документи и генерира отговори.
@@ -41,14 +52,18 @@ public class QuestionService {
     private final DocumentRepository documentRepository;
     private final UserRepository userRepository;
     private final AiChatClient chatClient;
-    private final EmbeddingClient embeddingClient;
+    private final EmbeddingService embeddingService;
     private final DocumentChunkRepository documentChunkRepository;
     private final VectorSearchService vectorSearchService;
     private final LogAnalysisService logAnalysisService;
+    private final ExtractiveAnswerService extractiveAnswerService;
+    private final ContextPacker contextPacker;
+    private final WriteBehindService writeBehindService;
+    private final RequestDeadlineService requestDeadlineService;
+    private final ApplicationEventPublisher eventPublisher;
     private final String systemPrompt;
     private final String answerInstruction;
     private final String examplePrompt;
-    private final String embeddingModel;
     private static final int TOP_K = 5;
 
     public QuestionService(QuestionRepository questionRepository,
@@ -56,27 +71,35 @@ public class QuestionService {
                           DocumentRepository documentRepository,
                           UserRepository userRepository,
                           AiChatClient chatClient,
-                          EmbeddingClient embeddingClient,
+                          EmbeddingService embeddingService,
                           DocumentChunkRepository documentChunkRepository,
                           VectorSearchService vectorSearchService,
                           LogAnalysisService logAnalysisService,
+                          ExtractiveAnswerService extractiveAnswerService,
+                          ContextPacker contextPacker,
+                          WriteBehindService writeBehindService,
+                          RequestDeadlineService requestDeadlineService,
+                          ApplicationEventPublisher eventPublisher,
                           @Value("${prompt.system}") String systemPrompt,
                           @Value("${prompt.answer}") String answerInstruction,
-                          @Value("${prompt.example}") String examplePrompt,
-                          @Value("${embedding.model}") String embeddingModel) {
+                          @Value("${prompt.example}") String examplePrompt) {
         this.questionRepository = questionRepository;
         this.answerService = answerService;
         this.documentRepository = documentRepository;
         this.userRepository = userRepository;
         this.chatClient = chatClient;
-        this.embeddingClient = embeddingClient;
+        this.embeddingService = embeddingService;
         this.documentChunkRepository = documentChunkRepository;
         this.vectorSearchService = vectorSearchService;
         this.logAnalysisService = logAnalysisService;
+        this.extractiveAnswerService = extractiveAnswerService;
+        this.contextPacker = contextPacker;
+        this.writeBehindService = writeBehindService;
+        this.requestDeadlineService = requestDeadlineService;
+        this.eventPublisher = eventPublisher;
         this.systemPrompt = systemPrompt;
         this.answerInstruction = answerInstruction;
         this.examplePrompt = examplePrompt;
-        this.embeddingModel = embeddingModel;
     }
 
     /**
@@ -88,6 +111,51 @@ public class QuestionService {
         return questionRepository;
     }
 
+    /**
+     * Loads a question by id. With write-behind persistence, first waits (bounded) for a
+     * still queued insert or answer of that question.
+     */
+    public java.util.Optional<Question> findQuestion(Long id) {
+        writeBehindService.awaitQuestionFlushed(id);
+        return questionRepository.findById(id);
+    }
+
+    /**
+     * Waits (bounded) until the user's queued questions and answers are in the database,
+     * so history reads include them. No-op without write-behind persistence.
+     */
+    public void awaitPersisted(String username) {
+        writeBehindService.awaitUserFlushed(username);
+    }
+
+    /**
+     * Changes the text of a question and evicts its owner's cached history.
+     */
+    public void updateQuestionText(Question question, String newText) {
+        question.setText(newText);
+        questionRepository.save(question);
+        eventPublisher.publishEvent(new QuestionChangedEvent(question.getId(), question.getUser().getUsername()));
+    }
+
+    /**
+     * Deletes a question (with its answer) and evicts its owner's cached history.
+     */
+    public void deleteQuestion(Question question) {
+        questionRepository.delete(question);
+        eventPublisher.publishEvent(new QuestionChangedEvent(question.getId(), question.getUser().getUsername()));
+    }
+
+    /**
+     * Removes a question that will not be answered (e.g. rejected by the async queue).
+     */
+    public void discardQuestion(Question question) {
+        if (writeBehindService.isEnabled()) {
+            writeBehindService.deleteQuestion(question);
+        } else {
+            questionRepository.delete(question);
+        }
+    }
+
     /**
      * Persists a question, retrieves relevant document chunks and generates an answer.
      * Optimized with performance monitoring and caching for embeddings.
@@ -97,159 +165,352 @@ public class QuestionService {
      */
     @Timed(value = "question.processing.time", description = "Time taken to process a question")
     public AnswerResponse askQuestion(QuestionRequest request) {
+        PreparedQuestion prepared = prepareQuestion(request);
+        AnswerResponse response = answerPrepared(prepared);
+        log.debug("Generated answer for question: {}", request.getText());
+        return response;
+    }
+
+    /**
+     * Generates and persists the answer for a prepared question (fallback when it has
+     * no prompt). Uses the extracted sentence instead of the chat model when the answer
+     * mode allows it. Does not touch the security context, so it may run on any thread.
+     * When the request behind it is dead (deadline expired) generation is skipped with a
+     * {@link RequestAbandonedException} and the unanswered question is removed; an answer
+     * that was already generated is always persisted.
+     */
+    public AnswerResponse answerPrepared(PreparedQuestion prepared) {
+        if (!prepared.hasPrompt()) {
+            return completeWithFallback(prepared);
+        }
+        if (prepared.useExtractive()) {
+            extractiveAnswerService.recordExtractive(false);
+            return saveAnswer(prepared.getQuestion(), prepared.getExtraction().getSentence(), true);
+        }
+        checkOrDiscard(prepared.getQuestion(), "generation");
+        long start = System.nanoTime();
+        String answerText = generateAnswer(prepared);
+        if (answerText == null) {
+            // A call interrupted by cancellation returns null: do not persist a fallback nobody reads
+            checkOrDiscard(prepared.getQuestion(), "generation");
+            return completeWithFallback(prepared);
+        }
+        extractiveAnswerService.recordGenerated(java.time.Duration.ofNanos(System.nanoTime() - start));
+        return completeQuestion(prepared, answerText);
+    }
+
+    /**
+     * Runs everything before generation: resolves document and user, persists the
+     * question, embeds it, retrieves chunks and builds the context prompt. Must run on
+     * the request thread because it reads the current security context and the
+     * {@link LlmPriorityHolder} priority used later for generation.
+     *
+     * @param request question payload containing text and document ID
+     * @return the persisted question with its prompt, or without one when no context was found
+     */
+    public PreparedQuestion prepareQuestion(QuestionRequest request) {
         log.debug("Processing question: {} for document: {}", request.getText(), request.getDocumentId());
+        LlmPriority priority = LlmPriorityHolder.get();
+        AnswerMode mode = extractiveAnswerService.resolveMode(request.getAnswerMode());
+        long start = StageTimings.start();
         Document document = documentRepository.findById(request.getDocumentId())
                 .orElseThrow(() -> new IllegalArgumentException("Document not found"));
+        StageTimings.stop(Stage.DOCUMENT, start);
 
+        start = StageTimings.start();
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new IllegalStateException("User not found"));
+        StageTimings.stop(Stage.AUTH, start);
 
+        start = StageTimings.start();
         Question question = new Question();
         question.setText(request.getText());
         question.setAskedAt(LocalDateTime.now());
         question.setDocument(document);
         question.setUser(user);
-        question = questionRepository.save(question);
-
-        float[] questionEmbedding = getCachedEmbedding(request.getText());
-        String fallbackMessage = "Няма достатъчно данни в документа за отговор.";
+        if (writeBehindService.isEnabled()) {
+            writeBehindService.saveQuestion(question);
+        } else {
+            question = questionRepository.save(question);
+        }
+        StageTimings.stop(Stage.QUESTION_PERSIST, start);
 
+        checkOrDiscard(question, "embedding");
+        start = StageTimings.start();
+        float[] questionEmbedding = embeddingService.embed(request.getText());
+        StageTimings.stop(Stage.EMBEDDING, start);
         if (questionEmbedding == null) {
             log.warn("Failed to generate embedding for question: {}", request.getText());
-            return saveAnswer(question, getFallbackMessageClean());
+            return new PreparedQuestion(question, null, priority);
         }
 
-        List<DocumentChunk> matches = findRelevantChunks(questionEmbedding, document.getId());
+        List<DocumentChunk> matches;
+        try {
+            matches = findRelevantChunks(questionEmbedding, document.getId(), request.getText());
+        } catch (RequestAbandonedException e) {
+            discardQuestion(question);
+            throw e;
+        }
         if (matches == null || matches.isEmpty()) {
             log.debug("No relevant chunks found for question: {}", request.getText());
-            return saveAnswer(question, getFallbackMessageClean());
+            return new PreparedQuestion(question, null, priority);
         }
 
         log.debug("Found {} relevant chunks for question", matches.size());
-        matches.sort(Comparator.comparingInt(DocumentChunk::getChunkIndex));
-
+        start = StageTimings.start();
+        ExtractiveAnswerService.Extraction extraction = extractiveAnswerService.extract(request.getText(), matches);
         String contextPrompt = buildContextPrompt(matches, request.getText());
-        if (contextPrompt == null) {
-            return saveAnswer(question, getFallbackMessageClean());
+        StageTimings.stop(Stage.PROMPT, start);
+
+        return new PreparedQuestion(question, contextPrompt, priority, mode, extraction);
+    }
+
+    /**
+     * Batch variant of {@link #prepareQuestion} for many questions on one document:
+     * resolves document and user once, persists all questions together, embeds them in
+     * one batch and retrieves context for all of them with a single vector query.
+     * Generation of the returned questions is scheduled as {@link LlmPriority#BATCH}.
+     *
+     * @param documentId document the questions are about
+     * @param texts      question texts
+     * @param mode       answer mode for all questions, {@code null} for the default
+     * @return prepared questions aligned with {@code texts}
+     */
+    @Timed(value = "question.batch.prepare.time", description = "Time taken to prepare a batch of questions")
+    public List<PreparedQuestion> prepareBatch(Long documentId, List<String> texts, AnswerMode mode) {
+        log.debug("Preparing batch of {} questions for document: {}", texts.size(), documentId);
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new IllegalArgumentException("Document not found"));
+
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalStateException("User not found"));
+
+        List<Question> questions = new java.util.ArrayList<>(texts.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (String text : texts) {
+            Question question = new Question();
+            question.setText(text);
+            question.setAskedAt(now);
+            question.setDocument(document);
+            question.setUser(user);
+            questions.add(question);
+        }
+        if (writeBehindService.isEnabled()) {
+            writeBehindService.saveQuestions(questions);
+        } else {
+            questions = questionRepository.saveAll(questions);
+        }
+
+        List<float[]> embeddings = embeddingService.embedAll(texts);
+        List<List<DocumentChunk>> matchesPerQuestion = null;
+        if (embeddings.stream().allMatch(java.util.Objects::nonNull)) {
+            try {
+                matchesPerQuestion = vectorSearchService.findTopByCosineSimilarityBatch(embeddings, documentId, TOP_K);
+            } catch (Exception e) {
+                log.warn("Batch vector SQL search failed, falling back to per-question retrieval", e);
+            }
+        }
+
+        List<PreparedQuestion> prepared = new java.util.ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            List<DocumentChunk> matches;
+            if (matchesPerQuestion != null) {
+                matches = matchesPerQuestion.get(i);
+            } else if (embeddings.get(i) != null) {
+                matches = findRelevantChunks(embeddings.get(i), documentId, text);
+            } else {
+                log.warn("Failed to generate embedding for question: {}", text);
+                matches = java.util.Collections.emptyList();
+            }
+            if (matches == null || matches.isEmpty()) {
+                prepared.add(new PreparedQuestion(questions.get(i), null, LlmPriority.BATCH));
+                continue;
+            }
+            ExtractiveAnswerService.Extraction extraction = extractiveAnswerService.extract(text, matches);
+            prepared.add(new PreparedQuestion(questions.get(i), buildContextPrompt(matches, text), LlmPriority.BATCH,
+                    extractiveAnswerService.resolveMode(mode), extraction));
         }
+        return prepared;
+    }
 
-        String answerText = generateAnswer(contextPrompt);
+    /**
+     * Normalises the generated text (empty or "I don't know" becomes the fallback
+     * message) and persists it as the answer of the prepared question.
+     */
+    public AnswerResponse completeQuestion(PreparedQuestion prepared, String answerText) {
         if (answerText == null || answerText.trim().isEmpty() || answerText.toLowerCase().contains("i don't know")) {
             answerText = getFallbackMessageClean();
         }
+        return saveAnswer(prepared.getQuestion(), answerText, false);
+    }
 
-        log.debug("Generated answer for question: {}", request.getText());
-        return saveAnswer(question, answerText);
+    /**
+     * Persists the answer for a question that could not be generated: the extracted
+     * sentence when one is usable (e.g. while the chat model is unavailable), otherwise
+     * the fallback message.
+     */
+    public AnswerResponse completeWithFallback(PreparedQuestion prepared) {
+        if (prepared.getExtraction() != null) {
+            extractiveAnswerService.recordExtractive(true);
+            return saveAnswer(prepared.getQuestion(), prepared.getExtraction().getSentence(), true);
+        }
+        return saveAnswer(prepared.getQuestion(), getFallbackMessageClean(), false);
+    }
+
+    /**
+     * Streams the answer for a prepared question token by token from the chat model.
+     * Nothing is persisted here; callers finish with {@link #completeQuestion}.
+     */
+    public Flux<String> streamAnswer(PreparedQuestion prepared) {
+        contextPacker.recordPrompt(systemPrompt, prepared.getContextPrompt());
+        return chatClient.prompt()
+                .system(systemPrompt)
+                .user(prepared.getContextPrompt())
+                .priority(prepared.getPriority())
+                .requester(prepared.getRequester())
+                .stream();
     }
 
-    private List<DocumentChunk> findRelevantChunks(float[] questionEmbedding, Long documentId) {
+    /**
+     * A question that went through retrieval and is ready for generation.
+     */
+    public static class PreparedQuestion {
+        private final Question question;
+        private final String contextPrompt;
+        private final LlmPriority priority;
+        private final AnswerMode mode;
+        private final ExtractiveAnswerService.Extraction extraction;
+
+        public PreparedQuestion(Question question, String contextPrompt, LlmPriority priority) {
+            this(question, contextPrompt, priority, AnswerMode.GENERATIVE, null);
+        }
+
+        public PreparedQuestion(Question question, String contextPrompt, LlmPriority priority,
+                                AnswerMode mode, ExtractiveAnswerService.Extraction extraction) {
+            this.question = question;
+            this.contextPrompt = contextPrompt;
+            this.priority = priority;
+            this.mode = mode;
+            this.extraction = extraction;
+        }
+
+        public Question getQuestion() { return question; }
+        public String getContextPrompt() { return contextPrompt; }
+        public LlmPriority getPriority() { return priority; }
+        public String getRequester() { return question.getUser() != null ? question.getUser().getUsername() : null; }
+        public boolean hasPrompt() { return contextPrompt != null; }
+        public AnswerMode getMode() { return mode; }
+        public ExtractiveAnswerService.Extraction getExtraction() { return extraction; }
+
+        /** {@code true} when the answer should be the extracted sentence, without a model call. */
+        public boolean useExtractive() {
+            if (extraction == null) return false;
+            return mode == AnswerMode.EXTRACTIVE || (mode == AnswerMode.AUTO && extraction.isDecisive());
+        }
+    }
+
+    /**
+     * Checks the request deadline before an expensive stage; a dead request's question
+     * is removed so it does not stay in the history without an answer.
+     */
+    private void checkOrDiscard(Question question, String stage) {
+        try {
+            requestDeadlineService.check(stage);
+        } catch (RequestAbandonedException e) {
+            discardQuestion(question);
+            throw e;
+        }
+    }
+
+    private List<DocumentChunk> findRelevantChunks(float[] questionEmbedding, Long documentId, String questionText) {
         try {
             return vectorSearchService.findTopByCosineSimilarity(questionEmbedding, documentId, TOP_K);
         } catch (Exception e) {
+            // A statement_timeout from the request deadline ends retrieval instead of falling back;
+            // the only retrieval check, so an abandoned search is counted once
+            requestDeadlineService.check("retrieval");
             log.warn("Vector SQL search failed, falling back to safer path", e);
-            try {
-                // Smarter fallback: keyword scoring over content-only projection
-                var pageable = org.springframework.data.domain.PageRequest.of(0, 2000);
-                var views = documentChunkRepository.findContentByDocumentId(documentId, pageable);
-                if (views == null || views.isEmpty()) return java.util.Collections.emptyList();
-
-                // Build a simple keyword set from the question
-                String currentQuestion = com.example.Document_analiser.util.RequestTextHolder.get();
-                java.util.Set<String> keywords = extractKeywords(currentQuestion);
-                // Add domain synonyms for Bulgarian "форсмажор"
-                String qLower = currentQuestion == null ? "" : currentQuestion.toLowerCase();
-                if (qLower.contains("форсмажор")) {
-                    keywords.add("непреодолима сила");
-                }
+            return findChunksByKeywords(documentId, questionText);
+        }
+    }
 
-                java.util.List<DocumentChunk> candidates = new java.util.ArrayList<>();
-                java.util.List<ChunkScore> scored = new java.util.ArrayList<>();
-                for (var v : views) {
-                    String content = v.getContent();
-                    if (content == null || content.isBlank()) continue;
-                    int score = scoreContent(content, keywords);
-                    if (score > 0) {
-                        scored.add(new ChunkScore(v.getId(), v.getChunkIndex(), content, score));
-                    }
-                }
+    /**
+     * Fallback retrieval when the vector query fails: keyword scoring over a
+     * content-only projection, or the first chunks when nothing matches.
+     */
+    private List<DocumentChunk> findChunksByKeywords(Long documentId, String questionText) {
+        try {
+            // Smarter fallback: keyword scoring over content-only projection
+            var pageable = org.springframework.data.domain.PageRequest.of(0, 2000);
+            var views = documentChunkRepository.findContentByDocumentId(documentId, pageable);
+            if (views == null || views.isEmpty()) return java.util.Collections.emptyList();
+
+            // Build a simple keyword set from the question
+            String currentQuestion = questionText != null
+                    ? questionText
+                    : com.example.Document_analiser.util.RequestTextHolder.get();
+            java.util.Set<String> keywords = KeywordScorer.extractKeywords(currentQuestion);
+            // Add domain synonyms for Bulgarian "форсмажор"
+            String qLower = currentQuestion == null ? "" : currentQuestion.toLowerCase();
+            if (qLower.contains("форсмажор")) {
+                keywords.add("непреодолима сила");
+            }
 
-                // If nothing matched, fallback to first K by order
-                if (scored.isEmpty()) {
-                    log.debug("Keyword fallback found no matches; using first {} chunks", TOP_K);
-                    var pageK = org.springframework.data.domain.PageRequest.of(0, TOP_K);
-                    var first = documentChunkRepository.findContentByDocumentId(documentId, pageK);
-                    for (var v : first) {
-                        DocumentChunk dc = new DocumentChunk();
-                        dc.setId(v.getId());
-                        dc.setChunkIndex(v.getChunkIndex());
-                        dc.setContent(v.getContent());
-                        candidates.add(dc);
-                    }
-                    candidates.sort(Comparator.comparingInt(DocumentChunk::getChunkIndex));
-                    return candidates;
+            java.util.List<DocumentChunk> candidates = new java.util.ArrayList<>();
+            java.util.List<ChunkScore> scored = new java.util.ArrayList<>();
+            for (var v : views) {
+                String content = v.getContent();
+                if (content == null || content.isBlank()) continue;
+                int score = KeywordScorer.scoreContent(content, keywords);
+                if (score > 0) {
+                    scored.add(new ChunkScore(v.getId(), v.getChunkIndex(), content, score));
                 }
+            }
 
-                scored.sort((a,b) -> Integer.compare(b.score, a.score));
-                for (int i=0; i<Math.min(TOP_K, scored.size()); i++) {
-                    var s = scored.get(i);
+            // If nothing matched, fallback to first K by order
+            if (scored.isEmpty()) {
+                log.debug("Keyword fallback found no matches; using first {} chunks", TOP_K);
+                var pageK = org.springframework.data.domain.PageRequest.of(0, TOP_K);
+                var first = documentChunkRepository.findContentByDocumentId(documentId, pageK);
+                for (var v : first) {
                     DocumentChunk dc = new DocumentChunk();
-                    dc.setId(s.id);
-                    dc.setChunkIndex(s.chunkIndex);
-                    dc.setContent(s.content);
+                    dc.setId(v.getId());
+                    dc.setChunkIndex(v.getChunkIndex());
+                    dc.setContent(v.getContent());
                     candidates.add(dc);
                 }
                 candidates.sort(Comparator.comparingInt(DocumentChunk::getChunkIndex));
                 return candidates;
-            } catch (Exception ex) {
-                log.error("Fallback similarity search failed", ex);
-                return java.util.Collections.emptyList();
             }
-        }
-    }
-
-    // Simple keyword tokenizer and scorer used in fallback path
-    private java.util.Set<String> extractKeywords(String text) {
-        java.util.Set<String> out = new java.util.HashSet<>();
-        if (text == null) return out;
-        String lower = text.toLowerCase(java.util.Locale.of("bg"));
-        // Split on non-letters, keep multi-word phrases later via special cases
-        for (String t : lower.split("[^\u0400-\u04FFa-zA-Z0-9]+")) {
-            if (t.length() < 2) continue;
-            if (STOPWORDS_BG.contains(t)) continue;
-            out.add(t);
-        }
-        return out;
-    }
 
-    private int scoreContent(String content, java.util.Set<String> keywords) {
-        if (keywords.isEmpty() || content == null) return 0;
-        String lower = content.toLowerCase(java.util.Locale.of("bg"));
-        int score = 0;
-        for (String k : keywords) {
-            if (k.contains(" ")) {
-                if (lower.contains(k)) score += 3; // phrase boost
-            } else {
-                // Count occurrences roughly
-                int idx = 0; int c = 0;
-                while ((idx = lower.indexOf(k, idx)) >= 0) { c++; idx += k.length(); }
-                score += c;
+            scored.sort((a,b) -> Integer.compare(b.score, a.score));
+            for (int i=0; i<Math.min(TOP_K, scored.size()); i++) {
+                var s = scored.get(i);
+                DocumentChunk dc = new DocumentChunk();
+                dc.setId(s.id);
+                dc.setChunkIndex(s.chunkIndex);
+                dc.setContent(s.content);
+                candidates.add(dc);
             }
+            candidates.sort(Comparator.comparingInt(DocumentChunk::getChunkIndex));
+            return candidates;
+        } catch (Exception ex) {
+            log.error("Fallback similarity search failed", ex);
+            return java.util.Collections.emptyList();
         }
-        return score;
     }
 
-    private static final java.util.Set<String> STOPWORDS_BG = java.util.Set.of(
-            "какво","какъв","коя","кое","какви","е","са","съм","сме","сте","за","на","в","до","или","и","от","по","дали","има","как"
-    );
-
     // Helper holder for scoring
     private static class ChunkScore {
         final Long id; final int chunkIndex; final String content; final int score;
         ChunkScore(Long id, int chunkIndex, String content, int score) { this.id=id; this.chunkIndex=chunkIndex; this.content=content; this.score=score; }
     }
 
-    private float cosineSimilarity(float[] v1, float[] v2) {
+    /** Cosine similarity of two vectors, -1 when they are not comparable. */
+    static float cosineSimilarity(float[] v1, float[] v2) {
         if (v1 == null || v2 == null || v1.length != v2.length) return -1f;
         double dot = 0, n1 = 0, n2 = 0;
         for (int i = 0; i < v1.length; i++) {
@@ -274,7 +535,8 @@ public class QuestionService {
 
     /**
      * Retrieves paged question history for the given user and optional document filter.
-     * Cached for improved performance on repeated requests.
+     * Cached for improved performance on repeated requests; the entries are tagged with the
+     * user and document and evicted when the user's questions change.
      *
      * @param username   owner of the questions
      * @param documentId document id to filter by, may be {@code null}
@@ -283,7 +545,8 @@ public class QuestionService {
      * @param ascending  true for ascending order, false for descending
      * @return paged list of question history DTOs
      */
-    @Cacheable(value = "questionHistory", key = "#username + '_' + #documentId + '_' + #page + '_' + #size + '_' + #ascending", 
+    @Cacheable(value = "questionHistory",
+               key = "T(com.example.Document_analiser.cache.CacheKeys).history(#username, #documentId, #page, #size, #ascending)",
                cacheManager = "quickCacheManager")
     @Timed(value = "question.history.time", description = "Time taken to retrieve question history")
     @org.springframework.transaction.annotation.Transactional(readOnly = true)
@@ -316,83 +579,102 @@ public class QuestionService {
     // Stub interface for embedding generation
     public interface EmbeddingClient {
         float[] embed(String text, String model);
+
+        /** Batch variant; providers with a native batch API should override it. */
+        default List<float[]> embedAll(List<String> texts, String model) {
+            List<float[]> out = new java.util.ArrayList<>(texts.size());
+            for (String text : texts) {
+                out.add(embed(text, model));
+            }
+            return out;
+        }
     }
 
-    private AnswerResponse saveAnswer(Question question, String answerText) {
+    private AnswerResponse saveAnswer(Question question, String answerText, boolean extractive) {
+        long start = StageTimings.start();
         Answer answer = new Answer();
         answer.setText(answerText);
+        answer.setExtractive(extractive);
         answer.setGeneratedAt(LocalDateTime.now());
         answer.setQuestion(question);
-        answerService.save(answer);
+        if (writeBehindService.isEnabled()) {
+            // the flusher publishes the event once the answer is in the database
+            writeBehindService.saveAnswer(answer);
+        } else {
+            answerService.save(answer);
+            if (question.getUser() != null) {
+                eventPublisher.publishEvent(new QuestionAnsweredEvent(question.getUser().getUsername()));
+            }
+        }
+        StageTimings.stop(Stage.ANSWER_PERSIST, start);
 
         AnswerResponse response = new AnswerResponse();
+        response.setQuestionId(question.getId());
         response.setAnswer(answerText);
         response.setGeneratedAt(answer.getGeneratedAt());
+        response.setExtractive(extractive);
         return response;
     }
 
     /**
-     * Gets cached embedding for text to avoid expensive recomputation.
+     * Builds context prompt from document chunks (in retrieval rank order). The context
+     * is packed within the token budget by {@link ContextPacker}. Static text (instructions
+     * and example) comes first and the question last, so consecutive prompts share the
+     * longest possible prefix for provider-side prompt caching. Package-private for the
+     * JMH benchmarks.
      */
-    @Cacheable(value = "embeddings", key = "#text.hashCode()", cacheManager = "embeddingCacheManager")
-    @Timed(value = "embedding.generation.time", description = "Time taken to generate embeddings")
-    private float[] getCachedEmbedding(String text) {
-        log.debug("Generating embedding for text: {}", text.substring(0, Math.min(50, text.length())));
-        try {
-            return embeddingClient.embed(text, embeddingModel);
-        } catch (Exception e) {
-            log.error("Failed to generate embedding for text: {}", e.getMessage());
-            logAnalysisService.recordError("embedding", "Failed to generate embedding", e);
+    String buildContextPrompt(List<DocumentChunk> matches, String questionText) {
+        List<ContextPacker.Passage> passages = contextPacker.pack(matches, questionText);
+        if (passages.isEmpty()) {
+            log.debug("No valid chunks found for context building");
             return null;
         }
-    }
 
-    /**
-     * Builds context prompt from document chunks.
-     */
-    private String buildContextPrompt(List<DocumentChunk> matches, String questionText) {
-        StringBuilder contextBuilder = new StringBuilder("Document context:\n");
+        StringBuilder contextBuilder = new StringBuilder();
+        contextBuilder.append(answerInstruction).append("\n\n");
+        contextBuilder.append(examplePrompt).append("\n\n");
+        contextBuilder.append("Document context:\n");
         int idx = 1;
-        
-        for (DocumentChunk chunk : matches) {
-            String text = chunk.getContent();
-            if (text != null && !text.isBlank()) {
-                contextBuilder.append(idx++).append(". \"")
-                        .append(text.trim())
-                        .append("\"\n");
-            }
+        for (ContextPacker.Passage passage : passages) {
+            contextBuilder.append(idx++).append(". \"")
+                    .append(passage.getText())
+                    .append("\"\n");
         }
-        
-        if (idx == 1) {
-            log.debug("No valid chunks found for context building");
-            return null;
-        }
-        
-        contextBuilder.append("\n").append(examplePrompt).append("\n");
-        contextBuilder.append("Question: \"")
+        contextBuilder.append("\nQuestion: \"")
                 .append(questionText)
-                .append("\"\n\n")
-                .append(answerInstruction);
+                .append("\"");
 
         return contextBuilder.toString();
     }
 
     /**
-     * Generates answer using AI client with performance monitoring.
+     * Generates answer using AI client; timed as the {@code llm} stage of the request
+     * ({@code @Timed} cannot apply here: the proxy does not see private self-calls).
      */
-    @Timed(value = "ai.answer.generation.time", description = "Time taken for AI to generate answer")
-    private String generateAnswer(String contextPrompt) {
+    private String generateAnswer(PreparedQuestion prepared) {
         log.debug("Generating AI answer");
+        contextPacker.recordPrompt(systemPrompt, prepared.getContextPrompt());
+        long start = StageTimings.start();
         try {
             return chatClient.prompt()
                     .system(systemPrompt)
-                    .user(contextPrompt)
+                    .user(prepared.getContextPrompt())
+                    .priority(prepared.getPriority())
+                    .requester(prepared.getRequester())
                     .call()
                     .content();
+        } catch (LlmUnavailableException e) {
+            log.warn("AI answer unavailable ({}), using fallback: {}", e.getReason(), e.getMessage());
+            if (!"circuit_open".equals(e.getReason()) && !"cancelled".equals(e.getReason())) {
+                logAnalysisService.recordError("ai_generation", "AI call " + e.getReason(), e);
+            }
+            return null;
         } catch (Exception e) {
             log.error("Failed to generate AI answer: {}", e.getMessage());
             logAnalysisService.recordError("ai_generation", "Failed to generate AI answer", e);
             return null;
+        } finally {
+            StageTimings.stop(Stage.LLM, start);
         }
     }
 }
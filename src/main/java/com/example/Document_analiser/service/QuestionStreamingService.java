@@ -0,0 +1,182 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.dto.AnswerResponse;
+import com.example.Document_analiser.dto.QuestionRequest;
+import com.example.Document_analiser.util.LlmPriorityHolder;
+import com.example.Document_analiser.util.RequestDeadline;
+import com.example.Document_analiser.util.RequestTextHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streams answers to the client over Server-Sent Events as tokens arrive from the model.
+ *
+ * Events: {@code token} ({"token": "..."}) for every fragment, then {@code done} with the
+ * persisted answer, or {@code error}. Extractive answers arrive as a single {@code done}. Tokens are JSON-encoded so leading whitespace
+ * survives SSE framing. When the client disconnects the provider stream is cancelled and
+ * no answer is persisted.
+ */
+@Service
+public class QuestionStreamingService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionStreamingService.class);
+
+    private final QuestionService questionService;
+    private final LogAnalysisService logAnalysisService;
+    private final RequestDeadlineService requestDeadlineService;
+    private final long timeoutMs;
+    private final Timer timeToFirstTokenTimer;
+    private final Timer streamDurationTimer;
+    private final Counter cancelledCounter;
+
+    public QuestionStreamingService(QuestionService questionService,
+                                    LogAnalysisService logAnalysisService,
+                                    RequestDeadlineService requestDeadlineService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${questions.stream.timeout-ms:120000}") long timeoutMs) {
+        this.questionService = questionService;
+        this.logAnalysisService = logAnalysisService;
+        this.requestDeadlineService = requestDeadlineService;
+        this.timeoutMs = timeoutMs;
+        this.timeToFirstTokenTimer = Timer.builder("ai.time.to.first.token")
+                .description("Time from question receipt to the first streamed answer token")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.streamDurationTimer = Timer.builder("ai.stream.duration")
+                .description("Time from question receipt to the end of the streamed answer")
+                .register(meterRegistry);
+        this.cancelledCounter = Counter.builder("ai.stream.cancelled")
+                .description("Streamed answers abandoned because the client disconnected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prepares the question on the calling (request) thread, then streams generation.
+     * Streamed answers have a user watching them, so they are scheduled as interactive.
+     *
+     * @param request question payload containing text and document ID
+     * @return emitter that receives token, done and error events
+     */
+    public SseEmitter stream(QuestionRequest request) {
+        long startNanos = System.nanoTime();
+        QuestionService.PreparedQuestion prepared;
+        RequestTextHolder.set(request.getText());
+        LlmPriorityHolder.set(LlmPriority.INTERACTIVE);
+        try {
+            prepared = questionService.prepareQuestion(request);
+        } finally {
+            RequestTextHolder.clear();
+            LlmPriorityHolder.clear();
+        }
+
+        RequestDeadline deadline = RequestDeadline.get();
+        SseEmitter emitter = new SseEmitter(deadline != null
+                ? Math.max(1, Math.min(timeoutMs, deadline.remainingMillis()))
+                : timeoutMs);
+        if (!prepared.hasPrompt() || prepared.useExtractive()) {
+            // Nothing to stream: fallback message or extractive answer, sent in one event
+            AnswerResponse immediate = questionService.answerPrepared(prepared);
+            sendQuietly(emitter, "done", doneEvent(immediate, null));
+            emitter.complete();
+            return emitter;
+        }
+
+        StringBuilder answer = new StringBuilder();
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        AtomicBoolean finished = new AtomicBoolean(false);
+        AtomicReference<Long> ttftMs = new AtomicReference<>();
+        AtomicReference<Disposable> subscription = new AtomicReference<>();
+
+        Consumer<String> cancel = reason -> {
+            if (finished.compareAndSet(false, true)) {
+                Disposable d = subscription.get();
+                if (d != null) {
+                    d.dispose();
+                }
+                cancelledCounter.increment();
+                requestDeadlineService.recordAbandoned("stream", reason);
+                log.debug("Cancelled streamed answer for question {} ({})", prepared.getQuestion().getId(), reason);
+            }
+        };
+        emitter.onTimeout(() -> cancel.accept(RequestDeadline.DEADLINE));
+        emitter.onError(e -> cancel.accept(RequestDeadline.CLIENT_GONE));
+        emitter.onCompletion(() -> cancel.accept(RequestDeadline.CLIENT_GONE));
+
+        Disposable upstream = questionService.streamAnswer(prepared).subscribe(
+                token -> {
+                    if (finished.get()) {
+                        return;
+                    }
+                    if (firstToken.compareAndSet(true, false)) {
+                        long elapsed = System.nanoTime() - startNanos;
+                        timeToFirstTokenTimer.record(Duration.ofNanos(elapsed));
+                        ttftMs.set(Duration.ofNanos(elapsed).toMillis());
+                    }
+                    answer.append(token);
+                    try {
+                        emitter.send(SseEmitter.event().name("token")
+                                .data(Map.of("token", token), MediaType.APPLICATION_JSON));
+                    } catch (IOException | IllegalStateException e) {
+                        cancel.accept(RequestDeadline.CLIENT_GONE);
+                    }
+                },
+                error -> {
+                    if (!finished.compareAndSet(false, true)) {
+                        return;
+                    }
+                    log.error("Streaming AI answer failed: {}", error.getMessage());
+                    logAnalysisService.recordError("ai_generation", "Failed to stream AI answer", error);
+                    AnswerResponse fallback = questionService.completeWithFallback(prepared);
+                    sendQuietly(emitter, "error", doneEvent(fallback, ttftMs.get()));
+                    emitter.complete();
+                },
+                () -> {
+                    if (!finished.compareAndSet(false, true)) {
+                        return;
+                    }
+                    streamDurationTimer.record(Duration.ofNanos(System.nanoTime() - startNanos));
+                    AnswerResponse saved = questionService.completeQuestion(prepared, answer.toString());
+                    sendQuietly(emitter, "done", doneEvent(saved, ttftMs.get()));
+                    emitter.complete();
+                });
+        subscription.set(upstream);
+        // A cancel that ran before the assignment found no subscription to dispose
+        if (finished.get()) {
+            upstream.dispose();
+        }
+        return emitter;
+    }
+
+    private Map<String, Object> doneEvent(AnswerResponse response, Long ttftMs) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("answer", response.getAnswer());
+        event.put("generatedAt", response.getGeneratedAt());
+        event.put("timeToFirstTokenMs", ttftMs);
+        event.put("extractive", response.isExtractive());
+        return event;
+    }
+
+    private void sendQuietly(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Could not send '{}' event, client already gone", name);
+        }
+    }
+}
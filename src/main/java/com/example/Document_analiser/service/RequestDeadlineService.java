@@ -0,0 +1,129 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.exception.RequestAbandonedException;
+import com.example.Document_analiser.util.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the current {@link RequestDeadline} between processing stages and accounts for
+ * work done on dead requests.
+ *
+ * - Abandoned work ({@code requests.work.abandoned{stage,reason}}): a stage that was
+ *   skipped because the request had already expired or the client was gone.
+ * - Wasted work ({@code requests.work.wasted{endpoint}}): a request that ran to
+ *   completion although nobody was left to read the response.
+ */
+@Service
+public class RequestDeadlineService {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestDeadlineService.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Timer wastedTimer;
+
+    public RequestDeadlineService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.wastedTimer = Timer.builder("requests.work.wasted.time")
+                .description("Processing time spent on requests whose client was gone or deadline expired")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stops processing if the current request is dead.
+     *
+     * @param stage the stage about to start
+     * @throws RequestAbandonedException when the request deadline expired
+     */
+    public void check(String stage) {
+        RequestDeadline deadline = RequestDeadline.get();
+        if (deadline == null) {
+            return;
+        }
+        String reason = deadline.deadReason();
+        if (reason != null) {
+            recordAbandoned(stage, reason);
+            throw new RequestAbandonedException(stage, reason);
+        }
+    }
+
+    /**
+     * Counts a stage skipped for a dead request (for callers that stop without throwing,
+     * e.g. a cancelled stream).
+     */
+    public void recordAbandoned(String stage, String reason) {
+        log.debug("Abandoned {} ({})", stage, reason);
+        Counter.builder("requests.work.abandoned")
+                .tag("stage", stage)
+                .tag("reason", reason)
+                .description("Processing stages skipped because the request was dead")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts the request as wasted if it finished after its deadline.
+     *
+     * @return {@code true} when the work was wasted
+     */
+    public boolean recordIfWasted(String endpoint, RequestDeadline deadline) {
+        if (deadline == null || deadline.deadReason() == null) {
+            return false;
+        }
+        Counter.builder("requests.work.wasted")
+                .tag("endpoint", endpoint)
+                .description("Requests completed although nobody was left to read the response")
+                .register(meterRegistry)
+                .increment();
+        wastedTimer.record(deadline.elapsed());
+        log.debug("Completed {} for a dead request ({}) after {} ms", endpoint, deadline.deadReason(),
+                deadline.elapsed().toMillis());
+        return true;
+    }
+
+    /**
+     * Remaining time of the current request, capped at {@code max}; {@code max} when the
+     * request has no deadline.
+     */
+    public Duration remainingOr(Duration max) {
+        RequestDeadline deadline = RequestDeadline.get();
+        if (deadline == null) {
+            return max;
+        }
+        return Duration.ofMillis(Math.min(max.toMillis(), deadline.remainingMillis()));
+    }
+
+    /**
+     * Abandoned and wasted work for the admin API.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> abandoned = new HashMap<>();
+        double abandonedTotal = 0;
+        for (Counter c : meterRegistry.find("requests.work.abandoned").counters()) {
+            abandoned.put(c.getId().getTag("stage") + ":" + c.getId().getTag("reason"), c.count());
+            abandonedTotal += c.count();
+        }
+        Map<String, Object> wasted = new HashMap<>();
+        double wastedTotal = 0;
+        for (Counter c : meterRegistry.find("requests.work.wasted").counters()) {
+            wasted.put(c.getId().getTag("endpoint"), c.count());
+            wastedTotal += c.count();
+        }
+        Map<String, Object> report = new HashMap<>();
+        report.put("abandonedTotal", abandonedTotal);
+        report.put("abandonedByStage", abandoned);
+        report.put("wastedTotal", wastedTotal);
+        report.put("wastedByEndpoint", wasted);
+        report.put("wastedTimeMs", wastedTimer.totalTime(TimeUnit.MILLISECONDS));
+        return report;
+    }
+}
@@ -2,54 +2,93 @@ package com.example.Document_analiser.service;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Service for analyzing endpoint response times and identifying performance bottlenecks.
+ *
+ * Each endpoint has a {@link LatencyRecorder}; a background thread closes an interval
+ * every {@code response-time.interval} and the analysis reads the 1m/5m/15m windows built
+ * from those interval snapshots. Recording takes no lock and allocates nothing once the
+ * endpoint has been seen.
  */
 @Service
 public class ResponseTimeAnalyzer {
 
     private static final Logger log = LoggerFactory.getLogger(ResponseTimeAnalyzer.class);
-    
+    private static final Duration RETENTION = Duration.ofMinutes(15);
+    private static final Map<String, Duration> WINDOWS = windows();
+    /** Window used for slow-endpoint detection. */
+    private static final String SLOW_WINDOW = "5m";
+    /** Window used for recommendations. */
+    private static final String RECOMMENDATION_WINDOW = "15m";
+
     private final MeterRegistry meterRegistry;
+    private final Duration interval;
+    private final int stripes;
     private final Map<String, Timer> endpointTimers = new ConcurrentHashMap<>();
-    private final Map<String, ResponseTimeStats> endpointStats = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> endpointRecorders = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread rotator;
 
-    public ResponseTimeAnalyzer(MeterRegistry meterRegistry) {
+    public ResponseTimeAnalyzer(MeterRegistry meterRegistry,
+                                @Value("${response-time.interval:10s}") Duration interval,
+                                @Value("${response-time.stripes:4}") int stripes) {
         this.meterRegistry = meterRegistry;
+        this.interval = interval;
+        this.stripes = stripes;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        rotator = Thread.ofPlatform().name("response-time-rotator").daemon(true).start(this::rotateLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        rotator.interrupt();
     }
 
     /**
      * Record response time for an endpoint.
      */
     public void recordResponseTime(String endpoint, Duration duration) {
-        Timer timer = endpointTimers.computeIfAbsent(endpoint, 
-            name -> Timer.builder("endpoint.response.time")
-                    .tag("endpoint", name)
-                    .description("Response time for endpoint: " + name)
-                    .register(meterRegistry));
-        
+        // get() first: computeIfAbsent with a capturing lambda allocates on every call
+        Timer timer = endpointTimers.get(endpoint);
+        if (timer == null) {
+            timer = endpointTimers.computeIfAbsent(endpoint,
+                name -> Timer.builder("endpoint.response.time")
+                        .tag("endpoint", name)
+                        .description("Response time for endpoint: " + name)
+                        .register(meterRegistry));
+        }
         timer.record(duration);
-        
-        // Update custom statistics
-        endpointStats.compute(endpoint, (key, stats) -> {
-            if (stats == null) {
-                stats = new ResponseTimeStats();
-            }
-            stats.addMeasurement(duration.toMillis());
-            return stats;
-        });
-        
-        log.debug("Recorded response time for {}: {} ms", endpoint, duration.toMillis());
+
+        LatencyRecorder recorder = endpointRecorders.get(endpoint);
+        if (recorder == null) {
+            recorder = endpointRecorders.computeIfAbsent(endpoint,
+                name -> new LatencyRecorder(stripes, interval, RETENTION));
+        }
+        recorder.record(duration.toNanos());
+
+        if (log.isDebugEnabled()) {
+            log.debug("Recorded response time for {}: {} ms", endpoint, duration.toMillis());
+        }
     }
 
     /**
@@ -57,19 +96,29 @@ public class ResponseTimeAnalyzer {
      */
     public Map<String, Object> getResponseTimeAnalysis() {
         Map<String, Object> analysis = new HashMap<>();
-        
-        for (Map.Entry<String, ResponseTimeStats> entry : endpointStats.entrySet()) {
+
+        for (Map.Entry<String, LatencyRecorder> entry : endpointRecorders.entrySet()) {
             String endpoint = entry.getKey();
-            ResponseTimeStats stats = entry.getValue();
-            
+            LatencyRecorder recorder = entry.getValue();
+            LatencyRecorder.Snapshot total = recorder.total();
+
             Map<String, Object> endpointAnalysis = new HashMap<>();
-            endpointAnalysis.put("count", stats.getCount());
-            endpointAnalysis.put("averageMs", stats.getAverage());
-            endpointAnalysis.put("minMs", stats.getMin());
-            endpointAnalysis.put("maxMs", stats.getMax());
-            endpointAnalysis.put("p95Ms", stats.getP95());
-            endpointAnalysis.put("p99Ms", stats.getP99());
-            
+            endpointAnalysis.put("count", total.getCount());
+            endpointAnalysis.put("averageMs", total.getMean());
+            endpointAnalysis.put("minMs", total.getMin());
+            endpointAnalysis.put("maxMs", total.getMax());
+            endpointAnalysis.put("p95Ms", total.getP95());
+            endpointAnalysis.put("p99Ms", total.getP99());
+
+            Map<String, Object> windows = new LinkedHashMap<>();
+            for (Map.Entry<String, Duration> window : WINDOWS.entrySet()) {
+                LatencyRecorder.Snapshot snapshot = recorder.snapshot(window.getValue());
+                Map<String, Object> stats = snapshot.toMap();
+                stats.put("ratePerSecond", (double) snapshot.getCount() / window.getValue().toSeconds());
+                windows.put(window.getKey(), stats);
+            }
+            endpointAnalysis.put("windows", windows);
+
             // Get timer statistics from Micrometer
             Timer timer = endpointTimers.get(endpoint);
             if (timer != null) {
@@ -77,103 +126,87 @@ public class ResponseTimeAnalyzer {
                 endpointAnalysis.put("micrometerMax", timer.max(TimeUnit.MILLISECONDS));
                 endpointAnalysis.put("totalTime", timer.totalTime(TimeUnit.MILLISECONDS));
             }
-            
+
             analysis.put(endpoint, endpointAnalysis);
         }
-        
+
         return analysis;
     }
 
     /**
-     * Identify slow endpoints based on average response time.
+     * Identify slow endpoints based on average response time over the last 5 minutes.
      */
     public Map<String, Object> getSlowEndpoints(double thresholdMs) {
         Map<String, Object> slowEndpoints = new HashMap<>();
-        
-        for (Map.Entry<String, ResponseTimeStats> entry : endpointStats.entrySet()) {
+
+        for (Map.Entry<String, LatencyRecorder> entry : endpointRecorders.entrySet()) {
             String endpoint = entry.getKey();
-            ResponseTimeStats stats = entry.getValue();
-            
-            if (stats.getAverage() > thresholdMs) {
+            LatencyRecorder.Snapshot stats = entry.getValue().snapshot(WINDOWS.get(SLOW_WINDOW));
+
+            if (stats.getCount() > 0 && stats.getMean() > thresholdMs) {
                 Map<String, Object> details = new HashMap<>();
-                details.put("averageMs", stats.getAverage());
+                details.put("window", SLOW_WINDOW);
+                details.put("averageMs", stats.getMean());
+                details.put("p99Ms", stats.getP99());
                 details.put("maxMs", stats.getMax());
                 details.put("count", stats.getCount());
-                details.put("exceedsThresholdBy", stats.getAverage() - thresholdMs);
-                
+                details.put("exceedsThresholdBy", stats.getMean() - thresholdMs);
+
                 slowEndpoints.put(endpoint, details);
             }
         }
-        
+
         return slowEndpoints;
     }
 
     /**
-     * Get performance recommendations based on response time analysis.
+     * Get performance recommendations based on the last 15 minutes of response times.
      */
     public Map<String, String> getPerformanceRecommendations() {
         Map<String, String> recommendations = new HashMap<>();
-        
-        for (Map.Entry<String, ResponseTimeStats> entry : endpointStats.entrySet()) {
+
+        for (Map.Entry<String, LatencyRecorder> entry : endpointRecorders.entrySet()) {
             String endpoint = entry.getKey();
-            ResponseTimeStats stats = entry.getValue();
-            
-            if (stats.getAverage() > 5000) {
+            LatencyRecorder.Snapshot stats = entry.getValue().snapshot(WINDOWS.get(RECOMMENDATION_WINDOW));
+            if (stats.getCount() == 0) {
+                continue;
+            }
+
+            if (stats.getMean() > 5000) {
                 recommendations.put(endpoint, "CRITICAL: Average response time > 5s. Consider caching, database optimization, or async processing.");
-            } else if (stats.getAverage() > 2000) {
+            } else if (stats.getMean() > 2000) {
                 recommendations.put(endpoint, "WARNING: Average response time > 2s. Review query performance and consider caching.");
-            } else if (stats.getAverage() > 1000) {
+            } else if (stats.getMean() > 1000) {
                 recommendations.put(endpoint, "INFO: Average response time > 1s. Monitor for potential optimization opportunities.");
             } else if (stats.getMax() > 10000) {
                 recommendations.put(endpoint, "WARNING: Maximum response time > 10s. Check for occasional performance spikes.");
+            } else if (stats.getP99() > 5000) {
+                recommendations.put(endpoint, "WARNING: p99 response time > 5s. Look for tail latency (GC pauses, lock contention, slow LLM calls).");
             }
         }
-        
+
         return recommendations;
     }
 
-    /**
-     * Statistics for response times.
-     */
-    private static class ResponseTimeStats {
-        private long count = 0;
-        private double sum = 0;
-        private double min = Double.MAX_VALUE;
-        private double max = Double.MIN_VALUE;
-        private final java.util.List<Double> measurements = new java.util.ArrayList<>();
-
-        public void addMeasurement(double value) {
-            count++;
-            sum += value;
-            min = Math.min(min, value);
-            max = Math.max(max, value);
-            
-            // Keep last 1000 measurements for percentile calculation
-            measurements.add(value);
-            if (measurements.size() > 1000) {
-                measurements.remove(0);
+    private void rotateLoop() {
+        while (running) {
+            try {
+                Thread.sleep(interval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (LatencyRecorder recorder : endpointRecorders.values()) {
+                recorder.rotate();
             }
         }
+    }
 
-        public long getCount() { return count; }
-        public double getAverage() { return count > 0 ? sum / count : 0; }
-        public double getMin() { return min == Double.MAX_VALUE ? 0 : min; }
-        public double getMax() { return max == Double.MIN_VALUE ? 0 : max; }
-
-        public double getP95() {
-            if (measurements.isEmpty()) return 0;
-            java.util.List<Double> sorted = new java.util.ArrayList<>(measurements);
-            sorted.sort(Double::compareTo);
-            int index = (int) Math.ceil(0.95 * sorted.size()) - 1;
-            return sorted.get(Math.max(0, index));
-        }
-
-        public double getP99() {
-            if (measurements.isEmpty()) return 0;
-            java.util.List<Double> sorted = new java.util.ArrayList<>(measurements);
-            sorted.sort(Double::compareTo);
-            int index = (int) Math.ceil(0.99 * sorted.size()) - 1;
-            return sorted.get(Math.max(0, index));
-        }
+    private static Map<String, Duration> windows() {
+        Map<String, Duration> windows = new LinkedHashMap<>();
+        windows.put("1m", Duration.ofMinutes(1));
+        windows.put("5m", Duration.ofMinutes(5));
+        windows.put("15m", RETENTION);
+        return windows;
     }
-}
\ No newline at end of file
+}
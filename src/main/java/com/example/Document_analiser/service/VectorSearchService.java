@@ -2,11 +2,26 @@ package com.example.Document_analiser.service;
 
 import com.example.Document_analiser.entity.DocumentChunk;
 import com.example.Document_analiser.repository.DocumentChunkRepository;
+import com.example.Document_analiser.util.RequestDeadline;
+import com.example.Document_analiser.util.StageTimings;
+import com.example.Document_analiser.util.StageTimings.Stage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Служба за векторно търсене върху pgvector.
@@ -14,14 +29,59 @@ import java.util.List;
  * - Какво прави: намира най-близките по косинусова близост chunk-ове спрямо embedding.
  * - Как: първо взима само идентификатори по векторен ранг (бързо), после зарежда
  *   съдържанието чрез проекции, за да избегне четене на тежката vector колона.
+ * - Срок: ако заявката има {@link RequestDeadline}, транзакцията получава
+ *   {@code statement_timeout} равен на оставащото време, така че Postgres сам
+ *   прекъсва заявка, чийто отговор вече никой не чака.
+ * - Tracing: търсенето се наблюдава като {@code vector.search}; когато се записва span,
+ *   атрибутът {@code vector.plan.sample} е периодична извадка от плана на Postgres (напр.
+ *   дали се ползва индексът): EXPLAIN се прави най-много веднъж на
+ *   {@code tracing.vector-plan.refresh-ms} с параметрите на заявката, която го е
+ *   предизвикала, а не за всеки span. {@code vector.plan.age_ms} показва колко е стар.
+ *   EXPLAIN върви във виртуална нишка на отделна връзка от пула, извън транзакцията на
+ *   заявката: грешка или таймаут в него не прекъсва транзакцията на търсенето и не се
+ *   плаща от срока на заявката.
+ * - Точност/скорост: {@code vector.search.probes} (ivfflat) и {@code vector.search.ef-search}
+ *   (hnsw) се задават за транзакцията; 0 оставя стойността по подразбиране на Postgres.
+ *   Подходящи стойности се избират с retrieval бенчмарка в {@code benchmarks/}.
  */
 @Service
 public class VectorSearchService {
 
+    private static final Logger log = LoggerFactory.getLogger(VectorSearchService.class);
+    private static final Pattern POSITIONAL_PARAMETER = Pattern.compile("\\?(\\d)");
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 5;
+
     private final DocumentChunkRepository documentChunkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObservationRegistry observationRegistry;
+    private final ObjectMapper objectMapper;
+    private final long planRefreshMs;
+    private final int probes;
+    private final int efSearch;
+
+    /** Последната извадка от плана (EXPLAIN) и кога е взета. */
+    private volatile PlanSample plan = new PlanSample("unknown", 0L);
+    private volatile long planCheckedAt;
+    private final AtomicBoolean sampling = new AtomicBoolean();
+    /** За EXPLAIN: собствен таймаут, без statement_timeout на заявката. */
+    private final JdbcTemplate explainTemplate;
 
-    public VectorSearchService(DocumentChunkRepository documentChunkRepository) {
+    public VectorSearchService(DocumentChunkRepository documentChunkRepository,
+                               JdbcTemplate jdbcTemplate,
+                               ObservationRegistry observationRegistry,
+                               ObjectMapper objectMapper,
+                               @Value("${tracing.vector-plan.refresh-ms:300000}") long planRefreshMs,
+                               @Value("${vector.search.probes:0}") int probes,
+                               @Value("${vector.search.ef-search:0}") int efSearch) {
         this.documentChunkRepository = documentChunkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.observationRegistry = observationRegistry;
+        this.objectMapper = objectMapper;
+        this.planRefreshMs = planRefreshMs;
+        this.explainTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.explainTemplate.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+        this.probes = probes;
+        this.efSearch = efSearch;
     }
 
     /**
@@ -35,10 +95,30 @@ public class VectorSearchService {
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
     public List<DocumentChunk> findTopByCosineSimilarity(float[] embedding, Long documentId, int limit) {
-        var ids = documentChunkRepository.findTopIdsByCosineSimilarity(toPgVectorLiteral(embedding), documentId, limit);
+        long start = StageTimings.start();
+        applyStatementTimeout();
+        applyIndexSettings();
+        String vector = toPgVectorLiteral(embedding);
+        Observation observation = Observation.createNotStarted("vector.search", observationRegistry)
+                .contextualName("vector search")
+                .lowCardinalityKeyValue("query", "single")
+                .highCardinalityKeyValue("vector.limit", String.valueOf(limit));
+        if (!observation.isNoop()) {
+            PlanSample sample = plan(vector, documentId, limit);
+            observation.highCardinalityKeyValue("vector.plan.sample", sample.summary);
+            if (sample.takenAt > 0) {
+                observation.highCardinalityKeyValue("vector.plan.age_ms",
+                        String.valueOf(System.currentTimeMillis() - sample.takenAt));
+            }
+        }
+        var ids = observation.observe(() ->
+                documentChunkRepository.findTopIdsByCosineSimilarity(vector, documentId, limit));
+        StageTimings.stop(Stage.VECTOR_QUERY, start);
         if (ids == null || ids.isEmpty()) return java.util.Collections.emptyList();
         // Fetch only content via projection to avoid reading vector column
+        start = StageTimings.start();
         var views = documentChunkRepository.findContentByIdIn(ids);
+        StageTimings.stop(Stage.CONTENT_FETCH, start);
         // Convert to lightweight DocumentChunk instances for downstream code
         java.util.Map<Long, com.example.Document_analiser.repository.projection.ChunkContentView> byId = new java.util.HashMap<>();
         for (var v : views) byId.put(v.getId(), v);
@@ -56,8 +136,138 @@ public class VectorSearchService {
         return out;
     }
 
-    /** Конвертира float[] към pgvector литерал за SQL (например "[0.1,0.2,...]"). */
-    private String toPgVectorLiteral(float[] v) {
+    /**
+     * Пакетен вариант: top-k chunk-ове за много embedding-и с една SQL заявка
+     * (LATERAL join) и едно зареждане на съдържанието за всички резултати.
+     *
+     * @param embeddings вектори на заявките
+     * @param documentId филтър по документ
+     * @param limit брой резултати за всеки вектор
+     * @return списък, подравнен с {@code embeddings}, с подредените chunk-ове за всеки вектор
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<List<DocumentChunk>> findTopByCosineSimilarityBatch(List<float[]> embeddings, Long documentId, int limit) {
+        List<List<DocumentChunk>> out = new java.util.ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) out.add(new java.util.ArrayList<>());
+        if (embeddings.isEmpty()) return out;
+        applyStatementTimeout();
+        applyIndexSettings();
+
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < embeddings.size(); i++) {
+            if (i > 0) joined.append('|');
+            joined.append(toPgVectorLiteral(embeddings.get(i)));
+        }
+        var rows = Observation.createNotStarted("vector.search", observationRegistry)
+                .contextualName("vector search")
+                .lowCardinalityKeyValue("query", "batch")
+                .highCardinalityKeyValue("vector.limit", String.valueOf(limit))
+                .highCardinalityKeyValue("vector.queries", String.valueOf(embeddings.size()))
+                .observe(() -> documentChunkRepository.findTopIdsByCosineSimilarityBatch(joined.toString(), documentId, limit));
+        if (rows == null || rows.isEmpty()) return out;
+
+        java.util.Set<Long> ids = new java.util.LinkedHashSet<>();
+        for (Object[] row : rows) ids.add(((Number) row[1]).longValue());
+        java.util.Map<Long, com.example.Document_analiser.repository.projection.ChunkContentView> byId = new java.util.HashMap<>();
+        for (var v : documentChunkRepository.findContentByIdIn(new java.util.ArrayList<>(ids))) byId.put(v.getId(), v);
+
+        for (Object[] row : rows) {
+            int ordinal = ((Number) row[0]).intValue() - 1; // WITH ORDINALITY is 1-based
+            var v = byId.get(((Number) row[1]).longValue());
+            if (v != null && ordinal >= 0 && ordinal < out.size()) {
+                DocumentChunk dc = new DocumentChunk();
+                dc.setId(v.getId());
+                dc.setChunkIndex(v.getChunkIndex());
+                dc.setContent(v.getContent());
+                out.get(ordinal).add(dc);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Ограничава SQL заявките в текущата транзакция до оставащото време на HTTP заявката
+     * ({@code SET LOCAL statement_timeout}); без срок не прави нищо. Изтекъл срок дава
+     * 1 ms, заявката пада веднага и извикващият отчита отказа (QuestionService).
+     */
+    private void applyStatementTimeout() {
+        RequestDeadline deadline = RequestDeadline.get();
+        if (deadline == null) return;
+        long timeoutMs = Math.max(1, deadline.remainingMillis());
+        jdbcTemplate.queryForObject("SELECT set_config('statement_timeout', ?, true)", String.class, timeoutMs + "ms");
+    }
+
+    /**
+     * Задава {@code ivfflat.probes} / {@code hnsw.ef_search} за текущата транзакция, ако са
+     * конфигурирани; иначе не прави нищо (без допълнителна заявка).
+     */
+    private void applyIndexSettings() {
+        if (probes > 0) {
+            jdbcTemplate.queryForObject("SELECT set_config('ivfflat.probes', ?, true)", String.class, String.valueOf(probes));
+        }
+        if (efSearch > 0) {
+            jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)", String.class, String.valueOf(efSearch));
+        }
+    }
+
+    /**
+     * Извадка от плана на векторната заявка (възлите с индексите им, напр.
+     * {@code Limit > Index Scan(document_chunks_embedding_idx)}). Когато е по-стара от
+     * {@code planRefreshMs}, се пуска нова извадка във фона с параметрите на тази заявка;
+     * дотогава (и при грешка) се връща последната известна.
+     */
+    private PlanSample plan(String vector, Long documentId, int limit) {
+        long now = System.currentTimeMillis();
+        if (now - planCheckedAt >= planRefreshMs && sampling.compareAndSet(false, true)) {
+            planCheckedAt = now;
+            Thread.ofVirtual().name("vector-plan-sample").start(() -> {
+                try {
+                    samplePlan(vector, documentId, limit);
+                } finally {
+                    sampling.set(false);
+                }
+            });
+        }
+        return plan;
+    }
+
+    /** EXPLAIN на векторната заявка; в нишка без транзакция, т.е. на отделна връзка. */
+    private void samplePlan(String vector, Long documentId, int limit) {
+        try {
+            // JDBC не познава ?N: подреждаме параметрите по реда на появата им в SQL-а
+            Object[] values = {vector, documentId, limit};
+            List<Object> args = new ArrayList<>();
+            Matcher matcher = POSITIONAL_PARAMETER.matcher(DocumentChunkRepository.TOP_IDS_SQL);
+            while (matcher.find()) {
+                args.add(values[Integer.parseInt(matcher.group(1)) - 1]);
+            }
+            String sql = "EXPLAIN (FORMAT JSON) " + matcher.replaceAll("?");
+            String json = explainTemplate.queryForObject(sql, String.class, args.toArray());
+            StringBuilder summary = new StringBuilder();
+            describe(objectMapper.readTree(json).path(0).path("Plan"), summary);
+            plan = new PlanSample(summary.toString(), System.currentTimeMillis());
+        } catch (Exception e) {
+            log.debug("EXPLAIN of the vector query failed: {}", e.getMessage());
+        }
+    }
+
+    private static void describe(JsonNode node, StringBuilder summary) {
+        if (node.isMissingNode()) return;
+        if (!summary.isEmpty()) summary.append(" > ");
+        summary.append(node.path("Node Type").asText());
+        if (node.has("Index Name")) {
+            summary.append('(').append(node.path("Index Name").asText()).append(')');
+        }
+        for (JsonNode child : node.path("Plans")) {
+            describe(child, summary);
+        }
+    }
+
+    /**
+     * Конвертира float[] към pgvector литерал за SQL (например "[0.1,0.2,...]").
+     * Package-private за JMH бенчмарковете.
+     */
+    static String toPgVectorLiteral(float[] v) {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
         for (int i = 0; i < v.length; i++) {
@@ -68,4 +278,15 @@ public class VectorSearchService {
         sb.append("]");
         return sb.toString();
     }
+
+    /** План от EXPLAIN и кога е взет (epoch millis; 0 – още не е взет). */
+    private static final class PlanSample {
+        final String summary;
+        final long takenAt;
+
+        PlanSample(String summary, long takenAt) {
+            this.summary = summary;
+            this.takenAt = takenAt;
+        }
+    }
 }
@@ -0,0 +1,152 @@
+package com.example.Document_analiser.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams JFR {@code jdk.VirtualThreadPinned} events while virtual-thread mode is active.
+ *
+ * A pinned virtual thread blocks its carrier (e.g. blocking inside {@code synchronized}),
+ * which silently brings back the platform-thread limit. Events above the configured
+ * threshold are counted per top application frame so the offending call sites show up
+ * in the admin API.
+ */
+@Service
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_SITES = 100;
+    private static final int MAX_RECENT = 50;
+
+    private final Environment environment;
+    private final Timer pinnedTimer;
+    private final Duration threshold;
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private final Map<String, AtomicLong> pinnedBySite = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> recentEvents = new ArrayDeque<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Environment environment,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${threads.virtual.pinning.threshold-ms:20}") long thresholdMs) {
+        this.environment = environment;
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Duration virtual threads stayed pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            return;
+        }
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            rs.onEvent(PINNED_EVENT, this::onPinned);
+            rs.startAsync();
+            stream = rs;
+            log.info("Virtual-thread pinning monitor started (threshold {} ms)", threshold.toMillis());
+        } catch (Exception e) {
+            log.warn("Could not start JFR pinning monitor: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        RecordingStream rs = stream;
+        if (rs != null) {
+            rs.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        pinnedEvents.incrementAndGet();
+        pinnedNanos.addAndGet(duration.toNanos());
+        pinnedTimer.record(duration);
+
+        String site = topFrame(event.getStackTrace());
+        if (pinnedBySite.size() < MAX_SITES || pinnedBySite.containsKey(site)) {
+            pinnedBySite.computeIfAbsent(site, k -> new AtomicLong()).incrementAndGet();
+        }
+
+        Map<String, Object> recent = new HashMap<>();
+        recent.put("at", event.getStartTime().toString());
+        recent.put("durationMs", duration.toMillis());
+        recent.put("site", site);
+        synchronized (recentEvents) {
+            recentEvents.addFirst(recent);
+            if (recentEvents.size() > MAX_RECENT) {
+                recentEvents.removeLast();
+            }
+        }
+    }
+
+    /** Prefers the first application frame; falls back to the top JDK frame. */
+    private String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("com.example.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        RecordedFrame top = frames.get(0);
+        return top.getMethod().getType().getName() + "." + top.getMethod().getName() + ":" + top.getLineNumber();
+    }
+
+    /**
+     * Snapshot of the threading mode and pinning diagnostics for the admin API.
+     */
+    public Map<String, Object> getReport() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<String, Object> report = new HashMap<>();
+        report.put("virtualThreadsEnabled", Threading.VIRTUAL.isActive(environment));
+        report.put("pinningMonitorRunning", stream != null);
+        report.put("pinningThresholdMs", threshold.toMillis());
+        report.put("platformThreadCount", threads.getThreadCount());
+        report.put("peakPlatformThreadCount", threads.getPeakThreadCount());
+        report.put("pinnedEvents", pinnedEvents.get());
+        report.put("pinnedTotalMs", Duration.ofNanos(pinnedNanos.get()).toMillis());
+
+        Map<String, Long> sites = new HashMap<>();
+        pinnedBySite.forEach((site, count) -> sites.put(site, count.get()));
+        report.put("pinnedBySite", sites);
+        synchronized (recentEvents) {
+            report.put("recentPinnedEvents", List.copyOf(recentEvents));
+        }
+        report.put("generatedAt", Instant.now().toString());
+        return report;
+    }
+}
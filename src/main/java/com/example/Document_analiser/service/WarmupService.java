@@ -0,0 +1,426 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.cache.CacheInvalidator;
+import com.example.Document_analiser.cache.CacheKeys;
+import com.example.Document_analiser.cache.CachePins;
+import com.example.Document_analiser.cache.CacheTelemetry;
+import com.example.Document_analiser.cache.CacheValueCodec;
+import com.example.Document_analiser.cache.CacheValueSizer;
+import com.example.Document_analiser.dto.AnswerResponse;
+import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.repository.DocumentRepository;
+import com.example.Document_analiser.repository.QuestionRepository;
+import com.example.Document_analiser.repository.projection.RecentQuestionView;
+import com.example.Document_analiser.util.KeywordScorer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Warms caches, database buffers and JIT-compiled code before the application reports
+ * ready.
+ *
+ * Runs as an {@link ApplicationRunner}: Spring Boot switches the readiness state to
+ * {@code ACCEPTING_TRAFFIC} only after all runners returned, so a readiness probe keeps
+ * traffic away until the warm-up is done. The steps, each bounded by the overall
+ * {@code warmup.max-duration-ms} budget:
+ * <ol>
+ *   <li>documents: the first page of the document catalog (the dropdown query) and the chunk statistics cache</li>
+ *   <li>hot documents: chunk caches of the pinned documents and of the documents asked
+ *       about most in the last {@code warmup.hot-window-hours}</li>
+ *   <li>embeddings (off by default, {@code warmup.recent-questions > 0}): the last distinct
+ *       question texts are embedded into the embedding cache, and one vector search per hot
+ *       document loads its part of the pgvector index. Texts already cached (e.g. restored
+ *       from a snapshot) cost nothing; the rest are paid embedding calls, sent in batches of
+ *       {@code warmup.embedding-batch-size} only while the budget lasts</li>
+ *   <li>index: {@code pg_prewarm} of the vector index, when the extension is installed</li>
+ *   <li>jit: synthetic calls through chunking, keyword scoring, token estimation, cache
+ *       encoding and JSON serialization</li>
+ * </ol>
+ * Duration and coverage of the last run are in {@link #getReport()}.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+    private static final int CHUNK_CACHE_LIMIT = 50;
+    private static final int VECTOR_SEARCH_LIMIT = 5;
+    private static final String VECTOR_INDEX = "document_chunks_embedding_idx";
+    private static final String SYNTHETIC_TEXT =
+            "Договорът влиза в сила от датата на подписването му. Срокът на предизвестие е тридесет дни. "
+            + "The notice period is thirty days and starts on the first day of the following month. "
+            + "Страните се задължават да пазят поверителна информацията, получена при изпълнението. ";
+    private static final String SYNTHETIC_QUESTION = "Какъв е срокът на предизвестие по договора?";
+
+    private final DocumentService documentService;
+    private final DocumentCatalogService documentCatalogService;
+    private final QueryOptimizationService queryOptimizationService;
+    private final EmbeddingService embeddingService;
+    private final VectorSearchService vectorSearchService;
+    private final QuestionRepository questionRepository;
+    private final DocumentRepository documentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final CachePins cachePins;
+    private final CacheInvalidator cacheInvalidator;
+    private final CacheTelemetry cacheTelemetry;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final long maxDurationMs;
+    private final int recentQuestions;
+    private final int embeddingBatchSize;
+    private final int hotDocuments;
+    private final int hotWindowHours;
+    private final int jitIterations;
+    private final boolean pgPrewarm;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+    private volatile Map<String, Object> lastReport = Map.of("status", "NOT_RUN");
+    private volatile long sink;
+
+    public WarmupService(DocumentService documentService,
+                         DocumentCatalogService documentCatalogService,
+                         QueryOptimizationService queryOptimizationService,
+                         EmbeddingService embeddingService,
+                         VectorSearchService vectorSearchService,
+                         QuestionRepository questionRepository,
+                         DocumentRepository documentRepository,
+                         JdbcTemplate jdbcTemplate,
+                         ObjectMapper objectMapper,
+                         CachePins cachePins,
+                         CacheInvalidator cacheInvalidator,
+                         CacheTelemetry cacheTelemetry,
+                         MeterRegistry meterRegistry,
+                         @Value("${warmup.enabled:true}") boolean enabled,
+                         @Value("${warmup.max-duration-ms:60000}") long maxDurationMs,
+                         @Value("${warmup.recent-questions:0}") int recentQuestions,
+                         @Value("${warmup.embedding-batch-size:20}") int embeddingBatchSize,
+                         @Value("${warmup.hot-documents:10}") int hotDocuments,
+                         @Value("${warmup.hot-window-hours:72}") int hotWindowHours,
+                         @Value("${warmup.jit-iterations:2000}") int jitIterations,
+                         @Value("${warmup.pg-prewarm:true}") boolean pgPrewarm) {
+        this.documentService = documentService;
+        this.documentCatalogService = documentCatalogService;
+        this.queryOptimizationService = queryOptimizationService;
+        this.embeddingService = embeddingService;
+        this.vectorSearchService = vectorSearchService;
+        this.questionRepository = questionRepository;
+        this.documentRepository = documentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.cachePins = cachePins;
+        this.cacheInvalidator = cacheInvalidator;
+        this.cacheTelemetry = cacheTelemetry;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxDurationMs = maxDurationMs;
+        this.recentQuestions = recentQuestions;
+        this.embeddingBatchSize = Math.max(1, embeddingBatchSize);
+        this.hotDocuments = hotDocuments;
+        this.hotWindowHours = hotWindowHours;
+        this.jitIterations = jitIterations;
+        this.pgPrewarm = pgPrewarm;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            lastReport = Map.of("status", "DISABLED");
+            return;
+        }
+        warmUp();
+    }
+
+    /**
+     * Runs all warm-up steps (one run at a time) and returns the report.
+     */
+    public Map<String, Object> warmUp() {
+        if (!runLock.tryLock()) {
+            return lastReport;
+        }
+        try {
+            Run run = new Run(System.nanoTime() + Duration.ofMillis(maxDurationMs).toNanos());
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("status", "RUNNING");
+            report.put("startedAt", Instant.now().toString());
+            lastReport = report;
+            long start = System.nanoTime();
+            log.info("Warm-up started (budget {} ms)", maxDurationMs);
+
+            step(run, "documents", this::warmDocumentList);
+            List<Long> hot = hotDocumentIds();
+            step(run, "hotDocuments", r -> warmHotDocuments(r, hot));
+            step(run, "embeddings", r -> replayEmbeddings(r, hot));
+            if (pgPrewarm) {
+                step(run, "index", this::prewarmIndex);
+            }
+            step(run, "jit", this::exerciseHotPaths);
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            Timer.builder("warmup.time")
+                    .description("Duration of the startup warm-up")
+                    .register(meterRegistry)
+                    .record(duration);
+            report.put("durationMs", duration.toMillis());
+            report.put("budgetExceeded", run.expired());
+            report.put("steps", run.steps);
+            report.put("coverage", coverage(run, hot));
+            report.put("pinnedDocuments", cachePins.getPinnedDocumentIds());
+            report.put("cacheEntries", cacheEntries());
+            report.put("status", "COMPLETED");
+            log.info("Warm-up finished in {} ms: {}", duration.toMillis(), report.get("coverage"));
+            return report;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Pins a document: its cache entries are evicted, loaded again as pinned entries and
+     * kept from then on.
+     *
+     * @return {@code false} if there is no such document
+     */
+    public boolean pinDocument(Long documentId) {
+        if (!documentRepository.existsById(documentId)) {
+            return false;
+        }
+        cachePins.pin(documentId);
+        cacheInvalidator.invalidate(List.of(CacheKeys.documentTag(documentId)));
+        warmDocument(documentId);
+        return true;
+    }
+
+    /**
+     * Unpins a document; its entries are evicted and cached again normally on next use.
+     *
+     * @return {@code false} if the document was not pinned
+     */
+    public boolean unpinDocument(Long documentId) {
+        if (!cachePins.unpin(documentId)) {
+            return false;
+        }
+        cacheInvalidator.invalidate(List.of(CacheKeys.documentTag(documentId)));
+        return true;
+    }
+
+    public Set<Long> getPinnedDocuments() {
+        return cachePins.getPinnedDocumentIds();
+    }
+
+    private void warmDocument(Long documentId) {
+        queryOptimizationService.findRelevantChunksOptimized(documentId, CHUNK_CACHE_LIMIT);
+        queryOptimizationService.batchLoadChunks(List.of(documentId));
+    }
+
+    private int warmDocumentList(Run run) {
+        int documents = documentCatalogService.find(null, PageRequest.of(0, DocumentCatalogService.MAX_SUGGESTIONS))
+                .getNumberOfElements();
+        queryOptimizationService.getChunkStatistics();
+        return documents;
+    }
+
+    /** Pinned documents first, then the most asked about ones. */
+    private List<Long> hotDocumentIds() {
+        Set<Long> ids = new LinkedHashSet<>(cachePins.getPinnedDocumentIds());
+        try {
+            ids.addAll(questionRepository.findMostAskedDocumentIds(
+                    LocalDateTime.now().minusHours(hotWindowHours), PageRequest.of(0, Math.max(1, hotDocuments))));
+        } catch (Exception e) {
+            log.warn("Could not load hot documents for warm-up: {}", e.getMessage());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private int warmHotDocuments(Run run, List<Long> documentIds) {
+        int warmed = 0;
+        for (Long documentId : documentIds) {
+            if (run.expired()) break;
+            warmDocument(documentId);
+            warmed++;
+        }
+        run.hotDocumentsWarmed = warmed;
+        return warmed;
+    }
+
+    private int replayEmbeddings(Run run, List<Long> hotDocumentIds) {
+        if (recentQuestions <= 0) return 0;
+        List<RecentQuestionView> recent = questionRepository.findRecent(PageRequest.of(0, recentQuestions));
+        Map<String, Long> documentByText = new LinkedHashMap<>();
+        for (RecentQuestionView question : recent) {
+            if (question.getText() != null && !question.getText().isBlank()) {
+                documentByText.putIfAbsent(question.getText(), question.getDocumentId());
+            }
+        }
+        run.embeddingsRequested = documentByText.size();
+        if (documentByText.isEmpty() || run.expired()) return 0;
+
+        List<String> texts = new ArrayList<>(documentByText.keySet());
+        int cached = 0;
+        Set<Long> searched = new LinkedHashSet<>();
+        // Batches keep each paid call inside the budget; embedAll only embeds cache misses
+        for (int from = 0; from < texts.size() && !run.expired(); from += embeddingBatchSize) {
+            List<String> batch = texts.subList(from, Math.min(texts.size(), from + embeddingBatchSize));
+            List<float[]> embeddings = embeddingService.embedAll(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                float[] embedding = embeddings.get(i);
+                if (embedding == null) continue;
+                cached++;
+                Long documentId = documentByText.get(batch.get(i));
+                if (documentId != null && hotDocumentIds.contains(documentId) && !run.expired()
+                        && searched.add(documentId)) {
+                    vectorSearchService.findTopByCosineSimilarity(embedding, documentId, VECTOR_SEARCH_LIMIT);
+                }
+            }
+        }
+        run.embeddingsCached = cached;
+        run.vectorSearches = searched.size();
+        return cached;
+    }
+
+    private int prewarmIndex(Run run) {
+        try {
+            Long blocks = jdbcTemplate.queryForObject("SELECT pg_prewarm(?::regclass)", Long.class, VECTOR_INDEX);
+            return blocks != null ? blocks.intValue() : 0;
+        } catch (Exception e) {
+            // the pg_prewarm extension is optional
+            log.debug("pg_prewarm not available: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * CPU-only calls that mirror the request path without touching its metrics
+     * (the packer and the extractor record their own timers, so the keyword scoring they
+     * are built on is called directly).
+     */
+    private int exerciseHotPaths(Run run) throws Exception {
+        String text = SYNTHETIC_TEXT.repeat(8);
+        float[] embedding = new float[1536];
+        for (int i = 0; i < embedding.length; i++) {
+            embedding[i] = (float) Math.sin(i);
+        }
+        long local = 0;
+        int iterations = 0;
+        for (; iterations < jitIterations && !run.expired(); iterations++) {
+            List<String> chunks = documentService.chunkText(text, 512);
+            Set<String> keywords = KeywordScorer.extractKeywords(SYNTHETIC_QUESTION);
+            List<DocumentChunk> synthetic = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                String chunk = chunks.get(i);
+                local += KeywordScorer.scoreContent(chunk, keywords);
+                local += (long) (KeywordScorer.coverage(chunk, keywords) * 100);
+                local += LlmScheduler.estimateTokens(chunk);
+                DocumentChunk dc = new DocumentChunk();
+                dc.setId((long) i);
+                dc.setChunkIndex(i);
+                dc.setContent(chunk);
+                dc.setEmbedding(embedding);
+                synthetic.add(dc);
+            }
+            byte[] encoded = CacheValueCodec.encode(synthetic);
+            local += encoded.length + ((List<?>) CacheValueCodec.decode(encoded)).size();
+            local += CacheValueSizer.estimate(synthetic);
+
+            AnswerResponse response = new AnswerResponse();
+            response.setQuestionId((long) iterations);
+            response.setAnswer(chunks.get(0));
+            response.setGeneratedAt(LocalDateTime.now());
+            local += objectMapper.writeValueAsString(response).length();
+        }
+        sink = local;
+        run.jitIterations = iterations;
+        return iterations;
+    }
+
+    private void step(Run run, String name, WarmupStep step) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        run.steps.put(name, result);
+        if (run.expired()) {
+            result.put("skipped", "time budget exhausted");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            result.put("items", step.run(run));
+        } catch (Exception e) {
+            log.warn("Warm-up step '{}' failed: {}", name, e.getMessage());
+            result.put("error", e.getMessage());
+        }
+        long elapsed = System.nanoTime() - start;
+        result.put("durationMs", Duration.ofNanos(elapsed).toMillis());
+        meterRegistry.timer("warmup.step.time", "step", name).record(Duration.ofNanos(elapsed));
+    }
+
+    private Map<String, Object> coverage(Run run, List<Long> hot) {
+        Map<String, Object> coverage = new LinkedHashMap<>();
+        coverage.put("hotDocuments", run.hotDocumentsWarmed + "/" + hot.size());
+        coverage.put("embeddings", run.embeddingsCached + "/" + run.embeddingsRequested);
+        coverage.put("vectorSearches", run.vectorSearches);
+        coverage.put("jitIterations", run.jitIterations + "/" + jitIterations);
+        return coverage;
+    }
+
+    private Map<String, Object> cacheEntries() {
+        Map<String, Object> entries = new HashMap<>();
+        for (String name : cacheTelemetry.getCacheNames()) {
+            Map<String, Object> stats = cacheTelemetry.describe(name);
+            if (stats != null) {
+                entries.put(name, stats.get("estimatedSize"));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Report of the last warm-up run.
+     */
+    public Map<String, Object> getReport() {
+        return lastReport;
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        int run(Run run) throws Exception;
+    }
+
+    /** State of one warm-up run. */
+    private static final class Run {
+        final long deadlineNanos;
+        final Map<String, Object> steps = new LinkedHashMap<>();
+        int hotDocumentsWarmed;
+        int embeddingsRequested;
+        int embeddingsCached;
+        int vectorSearches;
+        int jitIterations;
+
+        Run(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        boolean expired() {
+            return System.nanoTime() - deadlineNanos > 0;
+        }
+    }
+}
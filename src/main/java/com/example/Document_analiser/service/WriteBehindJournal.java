@@ -0,0 +1,135 @@
+package com.example.Document_analiser.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Append-only journal (one JSON record per line) behind the write-behind queue.
+ *
+ * Every record is appended before it is queued, so a crash loses nothing that was
+ * accepted: on startup the records after the last checkpoint are replayed. Appends are
+ * flushed to the OS on every write (survives a process crash); with {@code fsync} they
+ * are also forced to disk (survives a power loss, at the cost of latency).
+ *
+ * Not thread-safe; {@link WriteBehindService} serialises access.
+ */
+public class WriteBehindJournal {
+
+    private static final String CHECKPOINT = "CHECKPOINT";
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+    private FileChannel channel;
+
+    public WriteBehindJournal(Path path, ObjectMapper objectMapper, boolean fsync) throws IOException {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = open(path);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /** Appends one record. */
+    public void append(WriteBehindService.WriteRecord record) throws IOException {
+        write(channel, record);
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    /** Marks every record up to {@code seq} as persisted. */
+    public void checkpoint(long seq) throws IOException {
+        WriteBehindService.WriteRecord marker = new WriteBehindService.WriteRecord();
+        marker.setType(CHECKPOINT);
+        marker.setSeq(seq);
+        append(marker);
+    }
+
+    /** Drops everything: all records are persisted. */
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        if (fsync) {
+            channel.force(true);
+        }
+    }
+
+    /** Current journal size in bytes. */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Rewrites the journal so it contains only the given (unpersisted) records.
+     */
+    public void compact(Collection<WriteBehindService.WriteRecord> unflushed) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (WriteBehindService.WriteRecord record : unflushed) {
+                write(out, record);
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+    }
+
+    /**
+     * Reads the records that were appended after the last checkpoint. A torn last line
+     * (crash during append) is ignored.
+     */
+    public List<WriteBehindService.WriteRecord> readUnflushed() throws IOException {
+        List<WriteBehindService.WriteRecord> records = new ArrayList<>();
+        long checkpoint = -1;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                WriteBehindService.WriteRecord record;
+                try {
+                    record = objectMapper.readValue(line, WriteBehindService.WriteRecord.class);
+                } catch (IOException e) {
+                    break;
+                }
+                if (CHECKPOINT.equals(record.getType())) {
+                    checkpoint = Math.max(checkpoint, record.getSeq());
+                } else {
+                    records.add(record);
+                }
+            }
+        }
+        long lastCheckpoint = checkpoint;
+        records.removeIf(r -> r.getSeq() <= lastCheckpoint);
+        return records;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(FileChannel target, WriteBehindService.WriteRecord record) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,641 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.entity.Answer;
+import com.example.Document_analiser.entity.Question;
+import com.example.Document_analiser.event.QuestionAnsweredEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Optional write-behind persistence for questions and answers
+ * ({@code persistence.write-behind.enabled=true}).
+ *
+ * Instead of a JPA insert on the request path, records get an id from a pre-fetched
+ * block of the table sequence, are appended to a local journal ({@link WriteBehindJournal})
+ * and queued. A single flusher thread writes them to Postgres in batched inserts, one
+ * transaction per batch, in arrival order (a question always before its answer).
+ *
+ * Reads that must see the caller's own writes (history, lookups by id) call
+ * {@link #awaitUserFlushed}/{@link #awaitQuestionFlushed} first; they only wait when
+ * something of theirs is still queued.
+ */
+@Service
+public class WriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindService.class);
+    private static final long MAX_BACKOFF_MS = 5000;
+
+    static final String QUESTION = "QUESTION";
+    static final String ANSWER = "ANSWER";
+    static final String DELETE_QUESTION = "DELETE_QUESTION";
+
+    private static final String INSERT_QUESTION =
+            "INSERT INTO question (id, text, asked_at, topic, document_id, user_id) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO NOTHING";
+    private static final String INSERT_ANSWER =
+            "INSERT INTO answer (id, text, generated_at, extractive, question_id) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO NOTHING";
+    private static final String DELETE_QUESTION_SQL = "DELETE FROM question WHERE id = ?";
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path journalPath;
+    private final boolean fsync;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final long enqueueTimeoutMs;
+    private final long readWaitMs;
+    private final long compactBytes;
+    private final IdBlock questionIds;
+    private final IdBlock answerIds;
+
+    private final BlockingQueue<WriteRecord> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final int queueCapacity;
+    // Journal appends and queue insertion happen together under this lock
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private WriteBehindJournal journal;
+    private long sequence;
+
+    private final Map<Long, Integer> pendingByQuestion = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pendingByUser = new ConcurrentHashMap<>();
+    private final ReentrantLock flushedLock = new ReentrantLock();
+    private final Condition flushed = flushedLock.newCondition();
+    private volatile long inFlightOldestNanos;
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter recordsFlushed;
+    private final Counter flushFailures;
+    private final Counter recordsDropped;
+    private final Counter enqueueRejected;
+    private final Timer readWaitTimer;
+    private final Counter readWaitTimeouts;
+
+    /**
+     * The {@link EntityManagerFactory} dependency makes sure Hibernate has created or
+     * updated the schema before the flusher replays the journal.
+     */
+    public WriteBehindService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              ApplicationEventPublisher eventPublisher,
+                              EntityManagerFactory entityManagerFactory,
+                              MeterRegistry meterRegistry,
+                              @Value("${persistence.write-behind.enabled:false}") boolean enabled,
+                              @Value("${persistence.write-behind.journal:./data/write-behind.journal}") String journalPath,
+                              @Value("${persistence.write-behind.fsync:false}") boolean fsync,
+                              @Value("${persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                              @Value("${persistence.write-behind.max-batch-size:200}") int maxBatchSize,
+                              @Value("${persistence.write-behind.linger-ms:20}") long lingerMs,
+                              @Value("${persistence.write-behind.enqueue-timeout-ms:1000}") long enqueueTimeoutMs,
+                              @Value("${persistence.write-behind.read-wait-ms:2000}") long readWaitMs,
+                              @Value("${persistence.write-behind.id-block-size:50}") int idBlockSize,
+                              @Value("${persistence.write-behind.compact-bytes:67108864}") long compactBytes) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.journalPath = Path.of(journalPath);
+        this.fsync = fsync;
+        this.queueCapacity = queueCapacity;
+        this.capacity = new Semaphore(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMs = lingerMs;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.readWaitMs = readWaitMs;
+        this.compactBytes = compactBytes;
+        this.questionIds = new IdBlock("question", idBlockSize);
+        this.answerIds = new IdBlock("answer", idBlockSize);
+
+        Gauge.builder("persistence.write-behind.queue.size", queue, BlockingQueue::size)
+                .description("Records waiting to be written to the database")
+                .register(meterRegistry);
+        Gauge.builder("persistence.write-behind.lag", this, WriteBehindService::lagMillis)
+                .baseUnit("milliseconds")
+                .description("Age of the oldest record not yet written to the database")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("persistence.write-behind.flush.time")
+                .description("Time to write one batch to the database")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("persistence.write-behind.batch.size")
+                .description("Records per flushed batch")
+                .register(meterRegistry);
+        this.recordsFlushed = Counter.builder("persistence.write-behind.records.flushed")
+                .description("Records written to the database by the flusher")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("persistence.write-behind.flush.failures")
+                .description("Failed batch writes (retried)")
+                .register(meterRegistry);
+        this.recordsDropped = Counter.builder("persistence.write-behind.records.dropped")
+                .description("Records rejected by the database (constraint violations) and skipped")
+                .register(meterRegistry);
+        this.enqueueRejected = Counter.builder("persistence.write-behind.enqueue.rejected")
+                .description("Writes refused because the queue stayed full")
+                .register(meterRegistry);
+        this.readWaitTimer = Timer.builder("persistence.write-behind.read.wait")
+                .description("Time reads waited for the caller's own queued writes")
+                .register(meterRegistry);
+        this.readWaitTimeouts = Counter.builder("persistence.write-behind.read.wait.timeouts")
+                .description("Reads that gave up waiting for queued writes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new WriteBehindJournal(journalPath, objectMapper, fsync);
+        List<WriteRecord> unflushed = journal.readUnflushed();
+        // New records continue the journal's sequence, so the replay's checkpoint covers only old ones
+        for (WriteRecord record : unflushed) {
+            sequence = Math.max(sequence, record.getSeq());
+        }
+        long replayedUpTo = sequence;
+
+        // The replay runs on the flusher thread: a database outage at boot delays the
+        // writes, not the application startup
+        running = true;
+        flusher = Thread.ofPlatform().name("write-behind-flusher").daemon(true).start(() -> {
+            if (replay(unflushed, replayedUpTo)) {
+                flushLoop();
+            }
+        });
+        log.info("Write-behind persistence enabled (journal {})", journalPath.toAbsolutePath());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        if (flusher.isAlive()) {
+            // Still writing a batch; closing the journal under it would lose the checkpoint
+            log.warn("Write-behind flusher did not stop in time; unflushed records are replayed on next start");
+            return;
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} write-behind records left in the journal; they are replayed on next start", queue.size());
+        }
+        journal.close();
+    }
+
+    /**
+     * Writes the records a previous run left in the journal, in batches, then marks
+     * them persisted.
+     *
+     * @return {@code false} when the application stopped before the replay finished
+     */
+    private boolean replay(List<WriteRecord> unflushed, long replayedUpTo) {
+        if (!unflushed.isEmpty()) {
+            log.info("Replaying {} journaled records not yet written to the database", unflushed.size());
+        }
+        try {
+            for (int from = 0; from < unflushed.size(); from += maxBatchSize) {
+                if (!writeWithRetry(unflushed.subList(from, Math.min(unflushed.size(), from + maxBatchSize)))) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        journalLock.lock();
+        try {
+            if (queue.isEmpty()) {
+                journal.truncate();
+            } else {
+                journal.checkpoint(replayedUpTo);
+            }
+        } catch (IOException e) {
+            log.error("Could not checkpoint the replayed write-behind journal", e);
+        } finally {
+            journalLock.unlock();
+        }
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Assigns the question its id and queues the insert. */
+    public void saveQuestion(Question question) {
+        saveQuestions(List.of(question));
+    }
+
+    /** Assigns ids and queues the inserts, in order. */
+    public void saveQuestions(List<Question> questions) {
+        for (Question question : questions) {
+            question.setId(questionIds.next());
+            WriteRecord record = new WriteRecord();
+            record.setType(QUESTION);
+            record.setId(question.getId());
+            record.setText(question.getText());
+            record.setAt(question.getAskedAt());
+            record.setTopic(question.getTopic());
+            record.setDocumentId(question.getDocument() != null ? question.getDocument().getId() : null);
+            record.setUserId(question.getUser() != null ? question.getUser().getId() : null);
+            record.setUsername(question.getUser() != null ? question.getUser().getUsername() : null);
+            enqueue(record, question.getId());
+        }
+    }
+
+    /** Assigns the answer its id and queues the insert. */
+    public void saveAnswer(Answer answer) {
+        answer.setId(answerIds.next());
+        Question question = answer.getQuestion();
+        WriteRecord record = new WriteRecord();
+        record.setType(ANSWER);
+        record.setId(answer.getId());
+        record.setQuestionId(question.getId());
+        record.setText(answer.getText());
+        record.setAt(answer.getGeneratedAt());
+        record.setExtractive(answer.isExtractive());
+        record.setUsername(question.getUser() != null ? question.getUser().getUsername() : null);
+        enqueue(record, question.getId());
+    }
+
+    /** Queues the removal of a question that will not be answered. */
+    public void deleteQuestion(Question question) {
+        WriteRecord record = new WriteRecord();
+        record.setType(DELETE_QUESTION);
+        record.setId(question.getId());
+        record.setUsername(question.getUser() != null ? question.getUser().getUsername() : null);
+        enqueue(record, question.getId());
+    }
+
+    /**
+     * Waits until nothing queued belongs to the question.
+     *
+     * @return {@code false} if the wait timed out (the read may be stale)
+     */
+    public boolean awaitQuestionFlushed(Long questionId) {
+        return awaitFlushed(() -> !pendingByQuestion.containsKey(questionId));
+    }
+
+    /**
+     * Waits until nothing queued belongs to the user.
+     *
+     * @return {@code false} if the wait timed out (the read may be stale)
+     */
+    public boolean awaitUserFlushed(String username) {
+        return awaitFlushed(() -> !pendingByUser.containsKey(username));
+    }
+
+    private boolean awaitFlushed(BooleanSupplier done) {
+        if (!enabled || done.getAsBoolean()) {
+            return true;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(readWaitMs);
+        flushedLock.lock();
+        try {
+            while (!done.getAsBoolean()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    readWaitTimeouts.increment();
+                    return false;
+                }
+                flushed.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            flushedLock.unlock();
+            readWaitTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private void enqueue(WriteRecord record, Long questionId) {
+        try {
+            if (!capacity.tryAcquire(enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                enqueueRejected.increment();
+                throw new IllegalStateException("Write-behind queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind queue", e);
+        }
+        record.setQuestionKey(questionId);
+        pendingByQuestion.merge(questionId, 1, Integer::sum);
+        if (record.getUsername() != null) {
+            pendingByUser.merge(record.getUsername(), 1, Integer::sum);
+        }
+        journalLock.lock();
+        try {
+            record.setSeq(++sequence);
+            record.enqueuedNanos = System.nanoTime();
+            journal.append(record);
+            queue.add(record);
+        } catch (IOException e) {
+            capacity.release();
+            markFlushed(List.of(record));
+            throw new IllegalStateException("Could not append to the write-behind journal", e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<WriteRecord> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                inFlightOldestNanos = first.enqueuedNanos;
+                long lingerUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = lingerUntil - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) break;
+                    WriteRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                if (!writeWithRetry(batch)) {
+                    return; // shutting down with the database unavailable; the journal keeps the rest
+                }
+                afterFlush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Write-behind flusher error", e);
+            }
+        }
+    }
+
+    /**
+     * Writes a batch, retrying with backoff while the database is unavailable. Records
+     * the database rejects (constraint violations) are skipped one by one.
+     *
+     * @return {@code false} only when giving up because the application is stopping
+     */
+    private boolean writeWithRetry(List<WriteRecord> batch) throws InterruptedException {
+        long backoff = 100;
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                writeBatch(batch);
+                flushTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                batchSizeSummary.record(batch.size());
+                recordsFlushed.increment(batch.size());
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Write-behind batch rejected, writing {} records individually", batch.size());
+                writeIndividually(batch);
+                return true;
+            } catch (Exception e) {
+                flushFailures.increment();
+                if (!running) {
+                    return false;
+                }
+                log.warn("Write-behind flush failed, retrying in {} ms: {}", backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+            }
+        }
+    }
+
+    private void writeIndividually(List<WriteRecord> batch) throws InterruptedException {
+        for (WriteRecord record : batch) {
+            try {
+                writeBatch(List.of(record));
+                recordsFlushed.increment();
+            } catch (DataIntegrityViolationException e) {
+                recordsDropped.increment();
+                log.error("Dropping write-behind record {} {}: {}", record.getType(), record.getId(), e.getMessage());
+            } catch (Exception e) {
+                if (!writeWithRetry(List.of(record))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<WriteRecord> batch) {
+        List<Object[]> questions = new ArrayList<>();
+        List<Object[]> answers = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (WriteRecord r : batch) {
+            switch (r.getType()) {
+                case QUESTION -> questions.add(new Object[]{r.getId(), r.getText(), r.getAt(), r.getTopic(),
+                        r.getDocumentId(), r.getUserId()});
+                case ANSWER -> answers.add(new Object[]{r.getId(), r.getText(), r.getAt(), r.isExtractive(),
+                        r.getQuestionId()});
+                case DELETE_QUESTION -> deletes.add(new Object[]{r.getId()});
+                default -> log.warn("Unknown write-behind record type {}", r.getType());
+            }
+        }
+        // Questions before answers (foreign key), deletes last
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!questions.isEmpty()) jdbcTemplate.batchUpdate(INSERT_QUESTION, questions);
+            if (!answers.isEmpty()) jdbcTemplate.batchUpdate(INSERT_ANSWER, answers);
+            if (!deletes.isEmpty()) jdbcTemplate.batchUpdate(DELETE_QUESTION_SQL, deletes);
+        });
+    }
+
+    private void afterFlush(List<WriteRecord> batch) throws IOException {
+        capacity.release(batch.size());
+        journalLock.lock();
+        try {
+            if (queue.isEmpty()) {
+                journal.truncate();
+            } else {
+                journal.checkpoint(batch.get(batch.size() - 1).getSeq());
+                if (journal.size() > compactBytes) {
+                    journal.compact(new ArrayList<>(queue));
+                }
+            }
+        } finally {
+            journalLock.unlock();
+        }
+        inFlightOldestNanos = 0;
+        markFlushed(batch);
+    }
+
+    private void markFlushed(List<WriteRecord> records) {
+        Set<String> users = new HashSet<>();
+        for (WriteRecord r : records) {
+            pendingByQuestion.computeIfPresent(r.getQuestionKey(), (k, n) -> n > 1 ? n - 1 : null);
+            if (r.getUsername() != null) {
+                pendingByUser.computeIfPresent(r.getUsername(), (k, n) -> n > 1 ? n - 1 : null);
+                users.add(r.getUsername());
+            }
+        }
+        evictHistory(users);
+        flushedLock.lock();
+        try {
+            flushed.signalAll();
+        } finally {
+            flushedLock.unlock();
+        }
+    }
+
+    /** Drops cached history pages of users whose writes just landed. */
+    private void evictHistory(Set<String> usernames) {
+        for (String username : usernames) {
+            eventPublisher.publishEvent(new QuestionAnsweredEvent(username));
+        }
+    }
+
+    private double lagMillis() {
+        long oldest = inFlightOldestNanos;
+        WriteRecord head = queue.peek();
+        if (oldest == 0 && head != null) {
+            oldest = head.enqueuedNanos;
+        }
+        return oldest == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+    }
+
+    /**
+     * Queue, lag and flush statistics for the admin API.
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new HashMap<>();
+        report.put("enabled", enabled);
+        report.put("queueSize", queue.size());
+        report.put("queueCapacity", queueCapacity);
+        report.put("lagMs", lagMillis());
+        report.put("pendingQuestions", pendingByQuestion.size());
+        report.put("pendingUsers", pendingByUser.size());
+        report.put("recordsFlushed", recordsFlushed.count());
+        report.put("batches", flushTimer.count());
+        report.put("meanBatchSize", batchSizeSummary.mean());
+        report.put("meanFlushMs", flushTimer.mean(TimeUnit.MILLISECONDS));
+        report.put("flushFailures", flushFailures.count());
+        report.put("recordsDropped", recordsDropped.count());
+        report.put("enqueueRejected", enqueueRejected.count());
+        report.put("readWaits", readWaitTimer.count());
+        report.put("readWaitTimeouts", readWaitTimeouts.count());
+        return report;
+    }
+
+    /**
+     * Ids fetched from the table's sequence in blocks, so only one insert in
+     * {@code blockSize} pays a database round trip for its id.
+     */
+    private final class IdBlock {
+        private final String sql;
+        private final int blockSize;
+        private final Deque<Long> ids = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        IdBlock(String table, int blockSize) {
+            this.sql = "SELECT nextval(pg_get_serial_sequence('" + table + "', 'id')) FROM generate_series(1, ?)";
+            this.blockSize = blockSize;
+        }
+
+        Long next() {
+            lock.lock();
+            try {
+                if (ids.isEmpty()) {
+                    ids.addAll(jdbcTemplate.queryForList(sql, Long.class, blockSize));
+                }
+                return ids.poll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * One journaled write. Serialised as a JSON line by {@link WriteBehindJournal}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class WriteRecord {
+        private String type;
+        private long seq;
+        private Long id;
+        private Long questionId;
+        private Long questionKey;
+        private String text;
+        private LocalDateTime at;
+        private String topic;
+        private Long documentId;
+        private Long userId;
+        private String username;
+        private boolean extractive;
+        // Not serialised: only meaningful in this JVM
+        long enqueuedNanos;
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public long getSeq() { return seq; }
+        public void setSeq(long seq) { this.seq = seq; }
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public Long getQuestionId() { return questionId; }
+        public void setQuestionId(Long questionId) { this.questionId = questionId; }
+        public Long getQuestionKey() { return questionKey; }
+        public void setQuestionKey(Long questionKey) { this.questionKey = questionKey; }
+        public String getText() { return text; }
+        public void setText(String text) { this.text = text; }
+        public LocalDateTime getAt() { return at; }
+        public void setAt(LocalDateTime at) { this.at = at; }
+        public String getTopic() { return topic; }
+        public void setTopic(String topic) { this.topic = topic; }
+        public Long getDocumentId() { return documentId; }
+        public void setDocumentId(Long documentId) { this.documentId = documentId; }
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        public boolean isExtractive() { return extractive; }
+        public void setExtractive(boolean extractive) { this.extractive = extractive; }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.Document_analiser.stub;
+
+import com.example.Document_analiser.service.QuestionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embedding client for an OpenAI-compatible {@code /v1/embeddings} endpoint, used with
+ * {@code stub.ai.mode=http} to reach the HTTP stand-in (this or another instance) so the
+ * network hop, JSON encoding of the vectors and connection handling are part of the cost.
+ * Sends batches of up to {@code max-batch-size} texts; an error response is thrown as
+ * {@link StubAiException} with its status.
+ */
+public class HttpEmbeddingClient implements QuestionService.EmbeddingClient {
+
+    private final RestClient restClient;
+    private final int batchSize;
+
+    public HttpEmbeddingClient(String baseUrl, String apiKey, int batchSize) {
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader("Authorization", "Bearer " + apiKey)
+                .build();
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public float[] embed(String text, String model) {
+        return embedAll(List.of(text), model).get(0);
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts, String model) {
+        List<float[]> out = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            List<String> batch = texts.subList(from, Math.min(texts.size(), from + batchSize));
+            JsonNode response = restClient.post()
+                    .uri("/v1/embeddings")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("model", model, "input", batch))
+                    .retrieve()
+                    .onStatus(HttpStatusCode::isError, (request, error) -> {
+                        String retryAfter = error.getHeaders().getFirst("Retry-After");
+                        throw new StubAiException(error.getStatusCode().value(), "embeddings request failed",
+                                retryAfter != null ? Long.parseLong(retryAfter) * 1000 : 0);
+                    })
+                    .body(JsonNode.class);
+            float[][] vectors = new float[batch.size()][];
+            for (JsonNode item : response.path("data")) {
+                JsonNode values = item.path("embedding");
+                float[] vector = new float[values.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) values.get(i).asDouble();
+                }
+                vectors[item.path("index").asInt()] = vector;
+            }
+            out.addAll(List.of(vectors));
+        }
+        return out;
+    }
+}
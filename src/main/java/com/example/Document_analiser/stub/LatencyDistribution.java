@@ -0,0 +1,90 @@
+package com.example.Document_analiser.stub;
+
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Latency model of a simulated AI provider.
+ *
+ * - {@code fixed}: always {@code median-ms}.
+ * - {@code lognormal}: median {@code median-ms}, spread {@code sigma} (0.5 gives p99 about
+ *   3.2x the median) - the usual shape of provider latencies.
+ * - {@code bimodal}: a {@code slow-ratio} share of calls comes from a second lognormal with
+ *   median {@code slow-median-ms} (cold model replicas, long queues).
+ * - Tail spikes on top of any shape: with {@code spike-probability} a call takes an extra
+ *   {@code spike-ms} (GC pauses, provider incidents).
+ */
+public final class LatencyDistribution {
+
+    public enum Shape { FIXED, LOGNORMAL, BIMODAL }
+
+    private final Shape shape;
+    private final double medianMs;
+    private final double sigma;
+    private final double slowMedianMs;
+    private final double slowRatio;
+    private final double spikeProbability;
+    private final double spikeMs;
+
+    public LatencyDistribution(Shape shape, double medianMs, double sigma, double slowMedianMs, double slowRatio,
+                               double spikeProbability, double spikeMs) {
+        this.shape = shape;
+        this.medianMs = medianMs;
+        this.sigma = sigma;
+        this.slowMedianMs = slowMedianMs;
+        this.slowRatio = slowRatio;
+        this.spikeProbability = spikeProbability;
+        this.spikeMs = spikeMs;
+    }
+
+    /** Reads {@code <prefix>.distribution}, {@code .median-ms}, {@code .sigma}, ... */
+    public static LatencyDistribution fromEnvironment(Environment env, String prefix, double defaultMedianMs) {
+        return new LatencyDistribution(
+                Shape.valueOf(env.getProperty(prefix + ".distribution", "lognormal").toUpperCase(Locale.ROOT)),
+                env.getProperty(prefix + ".median-ms", Double.class, defaultMedianMs),
+                env.getProperty(prefix + ".sigma", Double.class, 0.5),
+                env.getProperty(prefix + ".slow-median-ms", Double.class, defaultMedianMs * 8),
+                env.getProperty(prefix + ".slow-ratio", Double.class, 0.1),
+                env.getProperty(prefix + ".spike-probability", Double.class, 0.0),
+                env.getProperty(prefix + ".spike-ms", Double.class, 0.0));
+    }
+
+    /** One latency sample in milliseconds. */
+    public double sampleMs(Random random) {
+        double ms = switch (shape) {
+            case FIXED -> medianMs;
+            case LOGNORMAL -> lognormal(random, medianMs);
+            case BIMODAL -> lognormal(random, random.nextDouble() < slowRatio ? slowMedianMs : medianMs);
+        };
+        if (spikeProbability > 0 && random.nextDouble() < spikeProbability) {
+            ms += spikeMs;
+        }
+        return ms;
+    }
+
+    private double lognormal(Random random, double median) {
+        return median * Math.exp(sigma * random.nextGaussian());
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("distribution", shape.name().toLowerCase(Locale.ROOT));
+        description.put("medianMs", medianMs);
+        if (shape != Shape.FIXED) {
+            description.put("sigma", sigma);
+        }
+        if (shape == Shape.BIMODAL) {
+            description.put("slowMedianMs", slowMedianMs);
+            description.put("slowRatio", slowRatio);
+        }
+        if (spikeProbability > 0) {
+            description.put("spikeProbability", spikeProbability);
+            description.put("spikeMs", spikeMs);
+        }
+        return description;
+    }
+}
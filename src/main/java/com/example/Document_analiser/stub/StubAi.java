@@ -0,0 +1,37 @@
+package com.example.Document_analiser.stub;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The simulated chat and embeddings APIs of the {@code stub} profile, shared by the
+ * in-process clients and the HTTP stand-in ({@code StubOpenAiController}).
+ */
+public class StubAi {
+
+    private final StubAiBehavior chat;
+    private final StubAiBehavior embedding;
+    private final String mode;
+
+    public StubAi(StubAiBehavior chat, StubAiBehavior embedding, String mode) {
+        this.chat = chat;
+        this.embedding = embedding;
+        this.mode = mode;
+    }
+
+    public StubAiBehavior getChat() {
+        return chat;
+    }
+
+    public StubAiBehavior getEmbedding() {
+        return embedding;
+    }
+
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("mode", mode);
+        report.put("chat", chat.getReport());
+        report.put("embedding", embedding.getReport());
+        return report;
+    }
+}
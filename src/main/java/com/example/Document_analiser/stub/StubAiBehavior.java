@@ -0,0 +1,170 @@
+package com.example.Document_analiser.stub;
+
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Behaviour of one simulated API (chat or embeddings), read from {@code stub.ai.<api>.*}.
+ *
+ * - Latency: {@link LatencyDistribution} for the time to the first token (chat) or the
+ *   base cost of a request (embeddings), plus {@code tokens-per-second} pacing of streamed
+ *   tokens or {@code per-text-ms} per embedded text.
+ * - Failures: {@code error-rate} of calls fail with 500 and {@code throttle-rate} with 429.
+ * - Rate limits: {@code requests-per-minute} and {@code tokens-per-minute} token buckets
+ *   (0 = unlimited); calls over the limit get 429 with the time until capacity frees up,
+ *   like the provider's {@code Retry-After}.
+ * - Batches: at most {@code max-batch-size} inputs per embeddings request; a batch costs
+ *   one request and all its tokens, fails or succeeds as a whole.
+ *
+ * Randomness comes from {@code stub.ai.seed}, so a single-threaded run is repeatable.
+ */
+public final class StubAiBehavior {
+
+    private final String api;
+    private final LatencyDistribution latency;
+    private final double tokensPerSecond;
+    private final double tokenJitter;
+    private final int completionTokens;
+    private final double perTextMs;
+    private final int maxBatchSize;
+    private final double errorRate;
+    private final double throttleRate;
+    private final Bucket requestBucket;
+    private final Bucket tokenBucket;
+    private final Random random;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder inputTokens = new LongAdder();
+    private final LongAdder outputTokens = new LongAdder();
+
+    public StubAiBehavior(String api, Environment env, double defaultMedianMs) {
+        String prefix = "stub.ai." + api;
+        this.api = api;
+        this.latency = LatencyDistribution.fromEnvironment(env, prefix + ".latency", defaultMedianMs);
+        this.tokensPerSecond = env.getProperty(prefix + ".tokens-per-second", Double.class, 50.0);
+        this.tokenJitter = env.getProperty(prefix + ".token-jitter", Double.class, 0.3);
+        this.completionTokens = env.getProperty(prefix + ".completion-tokens", Integer.class, 120);
+        this.perTextMs = env.getProperty(prefix + ".per-text-ms", Double.class, 0.0);
+        this.maxBatchSize = env.getProperty(prefix + ".max-batch-size", Integer.class, 2048);
+        this.errorRate = env.getProperty(prefix + ".error-rate", Double.class, 0.0);
+        this.throttleRate = env.getProperty(prefix + ".throttle-rate", Double.class, 0.0);
+        this.requestBucket = new Bucket(env.getProperty(prefix + ".requests-per-minute", Long.class, 0L));
+        this.tokenBucket = new Bucket(env.getProperty(prefix + ".tokens-per-minute", Long.class, 0L));
+        this.random = new Random(env.getProperty("stub.ai.seed", Long.class, 42L) + api.hashCode());
+    }
+
+    /**
+     * Admits one request with {@code tokens} input tokens.
+     *
+     * @throws StubAiException 429 when rate limited, 500 for a simulated failure
+     */
+    public void admit(int tokens) {
+        calls.increment();
+        inputTokens.add(tokens);
+        long waitMs = random.nextDouble() < throttleRate ? 1000 : requestBucket.tryTake(1);
+        if (waitMs == 0) {
+            waitMs = tokenBucket.tryTake(tokens);
+        }
+        if (waitMs > 0) {
+            throttled.increment();
+            throw new StubAiException(429, "Rate limit reached for " + api + " (stub)", waitMs);
+        }
+        if (random.nextDouble() < errorRate) {
+            failed.increment();
+            throw new StubAiException(500, "The server had an error while processing your request (stub)", 0);
+        }
+    }
+
+    /** Time to the first token (chat) or base request time (embeddings). */
+    public long latencyNanos() {
+        return TimeUnit.MICROSECONDS.toNanos((long) (latency.sampleMs(random) * 1000));
+    }
+
+    /** Gap before the next streamed token. */
+    public long tokenGapNanos() {
+        double jitter = 1.0 + tokenJitter * (2 * random.nextDouble() - 1);
+        return (long) (1e9 / tokensPerSecond * Math.max(0.0, jitter));
+    }
+
+    /** Length of the next completion: the configured mean, +-50%. */
+    public int nextCompletionTokens() {
+        return Math.max(1, (int) Math.round(completionTokens * (0.5 + random.nextDouble())));
+    }
+
+    /** Time for a batch of {@code texts} inputs, including the base latency. */
+    public long batchNanos(int texts) {
+        return latencyNanos() + TimeUnit.MICROSECONDS.toNanos((long) (perTextMs * 1000 * texts));
+    }
+
+    public void recordOutput(int tokens) {
+        outputTokens.add(tokens);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /** Simulated work; an interrupt (cancelled call) ends it early. */
+    public static void pause(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stub AI call interrupted", e);
+        }
+    }
+
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("latency", latency.describe());
+        report.put("tokensPerSecond", tokensPerSecond);
+        report.put("perTextMs", perTextMs);
+        report.put("maxBatchSize", maxBatchSize);
+        report.put("errorRate", errorRate);
+        report.put("throttleRate", throttleRate);
+        report.put("requestsPerMinute", requestBucket.perMinute);
+        report.put("tokensPerMinute", tokenBucket.perMinute);
+        report.put("calls", calls.sum());
+        report.put("throttled", throttled.sum());
+        report.put("failed", failed.sum());
+        report.put("inputTokens", inputTokens.sum());
+        report.put("outputTokens", outputTokens.sum());
+        return report;
+    }
+
+    /** Per-minute budget refilled continuously; 0 means unlimited. */
+    private static final class Bucket {
+        private final long perMinute;
+        private double available;
+        private long refilledAtNanos = System.nanoTime();
+
+        Bucket(long perMinute) {
+            this.perMinute = perMinute;
+            this.available = perMinute;
+        }
+
+        /** Takes {@code amount}; returns 0, or the milliseconds until it would be available. */
+        synchronized long tryTake(long amount) {
+            if (perMinute <= 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            double perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            available = Math.min(perMinute, available + (now - refilledAtNanos) * perNano);
+            refilledAtNanos = now;
+            double needed = Math.min(amount, perMinute);
+            if (available >= needed) {
+                available -= needed;
+                return 0;
+            }
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) ((needed - available) / perNano)));
+        }
+    }
+}
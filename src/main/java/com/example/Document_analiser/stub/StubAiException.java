@@ -0,0 +1,28 @@
+package com.example.Document_analiser.stub;
+
+import org.springframework.ai.retry.TransientAiException;
+
+/**
+ * A simulated provider error: HTTP 429 (rate limited, with a retry-after hint) or 500.
+ * Extends Spring AI's {@link TransientAiException}, which is what the OpenAI client throws
+ * for the same responses.
+ */
+public class StubAiException extends TransientAiException {
+
+    private final int status;
+    private final long retryAfterMs;
+
+    public StubAiException(int status, String message, long retryAfterMs) {
+        super("HTTP " + status + " - " + message);
+        this.status = status;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
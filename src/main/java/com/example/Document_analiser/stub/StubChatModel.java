@@ -0,0 +1,95 @@
+package com.example.Document_analiser.stub;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process chat model that behaves like a remote provider ({@link StubAiBehavior}):
+ * rate limits and failures at admission, then the time to the first token and paced
+ * tokens. Blocking calls sleep for the whole generation; streams emit each token after its
+ * gap without holding a thread. The answer is made of words from the prompt, so it has a
+ * realistic length and alphabet, and usage reports prompt and completion tokens.
+ */
+public class StubChatModel implements ChatModel {
+
+    static final String MODEL = "stub-chat";
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final StubAiBehavior behavior;
+
+    public StubChatModel(StubAiBehavior behavior) {
+        this.behavior = behavior;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String text = prompt.getContents();
+        int promptTokens = estimateTokens(text);
+        behavior.admit(promptTokens);
+        List<String> tokens = answerTokens(text, behavior.nextCompletionTokens());
+        long nanos = behavior.latencyNanos();
+        for (int i = 1; i < tokens.size(); i++) {
+            nanos += behavior.tokenGapNanos();
+        }
+        StubAiBehavior.pause(nanos);
+        behavior.recordOutput(tokens.size());
+        return response(String.join("", tokens), promptTokens, tokens.size());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            String text = prompt.getContents();
+            int promptTokens = estimateTokens(text);
+            behavior.admit(promptTokens);
+            List<String> tokens = answerTokens(text, behavior.nextCompletionTokens());
+            long firstTokenNanos = behavior.latencyNanos();
+            int last = tokens.size() - 1;
+            return Flux.range(0, tokens.size())
+                    .concatMap(i -> Mono.just(i).delayElement(
+                            Duration.ofNanos(i == 0 ? firstTokenNanos : behavior.tokenGapNanos())))
+                    .map(i -> {
+                        if (i == last) {
+                            behavior.recordOutput(tokens.size());
+                            return response(tokens.get(i), promptTokens, tokens.size());
+                        }
+                        return new ChatResponse(List.of(new Generation(new AssistantMessage(tokens.get(i)))));
+                    });
+        });
+    }
+
+    /** Roughly {@code count} tokens of words taken from the prompt. */
+    public static List<String> answerTokens(String prompt, int count) {
+        String[] words = prompt.split("\\s+");
+        List<String> tokens = new ArrayList<>(count);
+        int start = Math.max(0, words.length / 2 - count / 2);
+        for (int i = 0; i < count; i++) {
+            String word = words.length > 0 ? words[(start + i) % words.length] : "отговор";
+            tokens.add(i == 0 ? word : " " + word);
+        }
+        return tokens;
+    }
+
+    public static int estimateTokens(String text) {
+        return Math.max(1, (text != null ? text.length() : 0) / CHARS_PER_TOKEN);
+    }
+
+    private static ChatResponse response(String text, int promptTokens, int completionTokens) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                ChatResponseMetadata.builder()
+                        .model(MODEL)
+                        .usage(new DefaultUsage(promptTokens, completionTokens))
+                        .build());
+    }
+}
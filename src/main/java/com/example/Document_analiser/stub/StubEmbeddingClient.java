@@ -0,0 +1,55 @@
+package com.example.Document_analiser.stub;
+
+import com.example.Document_analiser.service.QuestionService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedding client with the cost profile of a remote embeddings API
+ * ({@link StubAiBehavior}) and the deterministic vectors of the local embedder.
+ *
+ * {@link #embedAll} sends batches of up to {@code max-batch-size} texts; each batch is one
+ * request (admission, base latency plus per-text time) and fails as a whole, so batching
+ * pays off here the way it does against the real API.
+ */
+public class StubEmbeddingClient implements QuestionService.EmbeddingClient {
+
+    private final StubAiBehavior behavior;
+    private final QuestionService.EmbeddingClient vectors;
+
+    public StubEmbeddingClient(StubAiBehavior behavior, QuestionService.EmbeddingClient vectors) {
+        this.behavior = behavior;
+        this.vectors = vectors;
+    }
+
+    @Override
+    public float[] embed(String text, String model) {
+        return embedAll(List.of(text), model).get(0);
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts, String model) {
+        List<float[]> out = new ArrayList<>(texts.size());
+        int batchSize = behavior.getMaxBatchSize();
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            out.addAll(embedBatch(texts.subList(from, Math.min(texts.size(), from + batchSize)), model));
+        }
+        return out;
+    }
+
+    /** One simulated embeddings request. */
+    List<float[]> embedBatch(List<String> batch, String model) {
+        int tokens = 0;
+        for (String text : batch) {
+            tokens += StubChatModel.estimateTokens(text);
+        }
+        behavior.admit(tokens);
+        StubAiBehavior.pause(behavior.batchNanos(batch.size()));
+        List<float[]> out = new ArrayList<>(batch.size());
+        for (String text : batch) {
+            out.add(vectors.embed(text, model));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.Document_analiser.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * Head sampler with an optional tail-sampling mode.
+ *
+ * Root spans are sampled with the configured probability and children follow their parent,
+ * like the default parent-based ratio sampler. With tail sampling on, traces that lose the
+ * head decision are still recorded (RECORD_ONLY, not exported by the batch processor) so
+ * {@link TailSamplingSpanProcessor} can export them when they turn out slow or failed.
+ * Remote parents always decide: their traces are not recorded locally when unsampled.
+ */
+public class HeadTailSampler implements Sampler {
+
+    private final Sampler root;
+    private final boolean tail;
+
+    public HeadTailSampler(double probability, boolean tail) {
+        this.root = Sampler.traceIdRatioBased(probability);
+        this.tail = tail;
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        Span parentSpan = Span.fromContext(parentContext);
+        SpanContext parent = parentSpan.getSpanContext();
+        if (!parent.isValid()) {
+            SamplingResult head = root.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+            if (tail && head.getDecision() == SamplingDecision.DROP) {
+                return SamplingResult.recordOnly();
+            }
+            return head;
+        }
+        if (parent.isSampled()) {
+            return SamplingResult.recordAndSample();
+        }
+        if (tail && !parent.isRemote() && parentSpan.isRecording()) {
+            return SamplingResult.recordOnly();
+        }
+        return SamplingResult.drop();
+    }
+
+    @Override
+    public String getDescription() {
+        return "HeadTailSampler{root=" + root.getDescription() + ", tail=" + tail + "}";
+    }
+}
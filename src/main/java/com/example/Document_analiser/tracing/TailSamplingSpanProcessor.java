@@ -0,0 +1,191 @@
+package com.example.Document_analiser.tracing;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tail sampling for traces that lost the head sampling decision.
+ *
+ * Spans recorded but not sampled (see {@link HeadTailSampler}) are buffered per trace. When
+ * the trace's local root span ends, the trace is exported if the root took at least
+ * {@code latencyThreshold} or any of its spans ended with an error; otherwise it is
+ * discarded. Sampled spans are left to the regular batch processor. Buffers are bounded
+ * (traces, spans per trace) and traces whose root never ends locally are evicted after
+ * {@code maxTraceAge}; exports run on a background thread.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(TailSamplingSpanProcessor.class);
+    private static final int EXPORT_QUEUE_CAPACITY = 256;
+
+    private final SpanExporter exporter;
+    private final long latencyThresholdNanos;
+    private final int maxTraces;
+    private final int maxSpansPerTrace;
+    private final long maxTraceAgeNanos;
+
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<List<SpanData>> exportQueue = new ArrayBlockingQueue<>(EXPORT_QUEUE_CAPACITY);
+    private final AtomicLong kept = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    private volatile boolean running = true;
+    private final Thread exporterThread;
+
+    public TailSamplingSpanProcessor(SpanExporter exporter, Duration latencyThreshold, int maxTraces,
+                                     int maxSpansPerTrace, Duration maxTraceAge) {
+        this.exporter = exporter;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.maxTraces = maxTraces;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.maxTraceAgeNanos = maxTraceAge.toNanos();
+        this.exporterThread = Thread.ofPlatform().name("tail-sampling-exporter").daemon(true).start(this::exportLoop);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext context = span.getSpanContext();
+        if (context.isSampled()) {
+            return;
+        }
+        String traceId = context.getTraceId();
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            if (pending.size() >= maxTraces) {
+                overflowed.incrementAndGet();
+                return;
+            }
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace());
+        }
+        boolean full = !trace.add(span.toSpanData(), maxSpansPerTrace);
+        if (full) {
+            overflowed.incrementAndGet();
+        }
+
+        SpanContext parent = span.getParentSpanContext();
+        if (!parent.isValid() || parent.isRemote()) {
+            pending.remove(traceId);
+            if (span.getLatencyNanos() >= latencyThresholdNanos || trace.hasError()) {
+                if (exportQueue.offer(trace.spans())) {
+                    kept.incrementAndGet();
+                } else {
+                    overflowed.incrementAndGet();
+                }
+            } else {
+                discarded.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        running = false;
+        exporterThread.interrupt();
+        try {
+            exporterThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /** Traces exported, discarded and dropped because a buffer was full. */
+    public Map<String, Object> getReport() {
+        return Map.of(
+                "pendingTraces", pending.size(),
+                "keptTraces", kept.get(),
+                "discardedTraces", discarded.get(),
+                "overflowed", overflowed.get(),
+                "latencyThresholdMs", TimeUnit.NANOSECONDS.toMillis(latencyThresholdNanos));
+    }
+
+    private void exportLoop() {
+        while (running) {
+            try {
+                List<SpanData> first = exportQueue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    List<SpanData> batch = new ArrayList<>(first);
+                    List<List<SpanData>> more = new ArrayList<>();
+                    exportQueue.drainTo(more);
+                    more.forEach(batch::addAll);
+                    exporter.export(batch).join(10, TimeUnit.SECONDS);
+                }
+                evictStale();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Tail-sampled span export failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void evictStale() {
+        long now = System.nanoTime();
+        Iterator<PendingTrace> traces = pending.values().iterator();
+        while (traces.hasNext()) {
+            if (now - traces.next().createdAtNanos > maxTraceAgeNanos) {
+                traces.remove();
+                discarded.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class PendingTrace {
+        final long createdAtNanos = System.nanoTime();
+        private final List<SpanData> spans = new ArrayList<>();
+        private boolean error;
+
+        synchronized boolean add(SpanData span, int max) {
+            error |= span.getStatus().getStatusCode() == StatusCode.ERROR;
+            if (spans.size() >= max) {
+                return false;
+            }
+            spans.add(span);
+            return true;
+        }
+
+        synchronized boolean hasError() {
+            return error;
+        }
+
+        synchronized List<SpanData> spans() {
+            return new ArrayList<>(spans);
+        }
+    }
+}
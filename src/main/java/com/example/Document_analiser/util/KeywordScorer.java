@@ -0,0 +1,85 @@
+package com.example.Document_analiser.util;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Локално (без модел) оценяване на текст спрямо ключови думи от въпроса.
+ *
+ * - За какво служи: fallback търсене по ключови думи, когато векторната заявка
+ *   не работи, и извличане на изречение-отговор без извикване на AI модела.
+ * - Как: въпросът се разделя на думи без стоп-думи; съвпадението е по подниз,
+ *   а за по-дългите думи се пробва и съкратена основа (членувани/склонени форми).
+ * - Стоп-думите са по език според писмеността на думата: кирилските думи се
+ *   сравняват само с българския списък, латинските – само с английския. Така
+ *   английският списък не променя ключовите думи на български въпроси.
+ */
+public final class KeywordScorer {
+
+    private static final Locale BG = Locale.of("bg");
+
+    private static final Set<String> STOPWORDS_BG = Set.of(
+            "какво","какъв","коя","кое","какви","е","са","съм","сме","сте","за","на","в","до","или","и","от","по","дали","има","как"
+    );
+
+    private static final Set<String> STOPWORDS_EN = Set.of(
+            "what","is","are","the","a","an","of","in","on","for","to","and","or","does","do","which","who","when","where","how"
+    );
+
+    private KeywordScorer() {}
+
+    /** Връща ключовите думи (малки букви, без стоп-думи) на текста. */
+    public static Set<String> extractKeywords(String text) {
+        Set<String> out = new HashSet<>();
+        if (text == null) return out;
+        String lower = text.toLowerCase(BG);
+        // Split on non-letters, keep multi-word phrases later via special cases
+        for (String t : lower.split("[^\u0400-\u04FFa-zA-Z0-9]+")) {
+            if (t.length() < 2) continue;
+            if (isStopword(t)) continue;
+            out.add(t);
+        }
+        return out;
+    }
+
+    /** Стоп-дума на езика на думата (кирилица – български, иначе английски). */
+    static boolean isStopword(String word) {
+        boolean cyrillic = Character.UnicodeScript.of(word.codePointAt(0)) == Character.UnicodeScript.CYRILLIC;
+        return (cyrillic ? STOPWORDS_BG : STOPWORDS_EN).contains(word);
+    }
+
+    /** Брой срещания на ключовите думи; фразите (с интервал) носят бонус. */
+    public static int scoreContent(String content, Set<String> keywords) {
+        if (keywords.isEmpty() || content == null) return 0;
+        String lower = content.toLowerCase(BG);
+        int score = 0;
+        for (String k : keywords) {
+            if (k.contains(" ")) {
+                if (lower.contains(k)) score += 3; // phrase boost
+            } else {
+                // Count occurrences roughly
+                int idx = 0; int c = 0;
+                while ((idx = lower.indexOf(k, idx)) >= 0) { c++; idx += k.length(); }
+                score += c;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Дял (0..1) от ключовите думи, които се срещат в текста поне веднъж.
+     * Думи от 6+ букви се търсят и без последните две букви (напр. "срокът" ~ "срок").
+     */
+    public static double coverage(String content, Set<String> keywords) {
+        if (keywords.isEmpty() || content == null) return 0;
+        String lower = content.toLowerCase(BG);
+        int found = 0;
+        for (String k : keywords) {
+            if (lower.contains(k) || (k.length() >= 6 && lower.contains(k.substring(0, k.length() - 2)))) {
+                found++;
+            }
+        }
+        return found / (double) keywords.size();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.Document_analiser.util;
+
+import com.example.Document_analiser.service.LlmPriority;
+
+/**
+ * ThreadLocal държач за приоритета на текущата заявка към AI модела.
+ *
+ * - За какво служи: входната точка (UI, REST, batch) задава приоритета, а
+ *   QuestionService го записва в подготвения въпрос, така че генерирането
+ *   да се нареди правилно в LlmScheduler, дори да върви в друга нишка.
+ * - Ако не е зададен, се използва {@link LlmPriority#API}.
+ */
+public final class LlmPriorityHolder {
+    private static final ThreadLocal<LlmPriority> HOLDER = new ThreadLocal<>();
+    private LlmPriorityHolder() {}
+
+    /** Задава приоритета за текущата нишка. */
+    public static void set(LlmPriority priority) { HOLDER.set(priority); }
+    /** Връща приоритета, или API ако не е зададен. */
+    public static LlmPriority get() {
+        LlmPriority priority = HOLDER.get();
+        return priority != null ? priority : LlmPriority.API;
+    }
+    /** Изчиства стойността, за да избегнем изтичане на памет. */
+    public static void clear() { HOLDER.remove(); }
+}
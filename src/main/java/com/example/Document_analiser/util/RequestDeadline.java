@@ -0,0 +1,89 @@
+package com.example.Document_analiser.util;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Краен срок (deadline) на текущата HTTP заявка и сигнал за отказ от нея.
+ *
+ * - За какво служи: RequestDeadlineFilter го създава от хедъра
+ *   {@code X-Request-Timeout-Ms} или от стойността по подразбиране за endpoint-а,
+ *   а търсенето (statement_timeout), AI извикването и записът на отговора го
+ *   проверяват, за да не вършат работа, която никой няма да прочете.
+ * - {@link #cancel()} се вика, когато контейнерът прекъсне заявката при изтекъл срок;
+ *   регистрираните слушатели (напр. прекъсване на чакаща нишка) се изпълняват веднага.
+ * - Затворена връзка се открива само при поточните отговори (SSE), където записът на
+ *   токен се проваля; обикновена заявка не пише нищо, докато чака отговора.
+ * - Държи се в ThreadLocal; при асинхронна обработка се предава ръчно на работната нишка.
+ */
+public final class RequestDeadline {
+    private static final ThreadLocal<RequestDeadline> HOLDER = new ThreadLocal<>();
+
+    /** Причина: изтекъл срок. */
+    public static final String DEADLINE = "deadline";
+    /** Причина: клиентът е затворил връзката (само при поточни отговори). */
+    public static final String CLIENT_GONE = "client_gone";
+
+    private final long startedAtNanos;
+    private final long expiresAtNanos;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final List<Runnable> cancelListeners = new CopyOnWriteArrayList<>();
+
+    private RequestDeadline(Duration timeout) {
+        this.startedAtNanos = System.nanoTime();
+        this.expiresAtNanos = startedAtNanos + timeout.toNanos();
+    }
+
+    /** Нов срок, който изтича след {@code timeout}. */
+    public static RequestDeadline after(Duration timeout) { return new RequestDeadline(timeout); }
+
+    /** Задава срока за текущата нишка. */
+    public static void set(RequestDeadline deadline) { HOLDER.set(deadline); }
+    /** Връща срока на текущата нишка, или null ако няма. */
+    public static RequestDeadline get() { return HOLDER.get(); }
+    /** Изчиства стойността, за да избегнем изтичане на памет. */
+    public static void clear() { HOLDER.remove(); }
+
+    /** Оставащо време в милисекунди (0 ако е изтекъл). */
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    /** Време от началото на заявката. */
+    public Duration elapsed() { return Duration.ofNanos(System.nanoTime() - startedAtNanos); }
+
+    public boolean isExpired() { return System.nanoTime() - expiresAtNanos >= 0; }
+
+    public boolean isCancelled() { return cancelled.get(); }
+
+    /**
+     * Защо работата вече е безполезна: {@link #DEADLINE} (изтекъл или прекъснат срок),
+     * или null докато заявката е жива.
+     */
+    public String deadReason() {
+        return isExpired() || cancelled.get() ? DEADLINE : null;
+    }
+
+    /** Отказва заявката и изпълнява слушателите (само първия път). */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            cancelListeners.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Регистрира слушател за отказ; ако заявката вече е отказана, го изпълнява веднага.
+     *
+     * @return действие, което премахва слушателя
+     */
+    public Runnable onCancel(Runnable listener) {
+        cancelListeners.add(listener);
+        if (cancelled.get()) {
+            listener.run();
+        }
+        return () -> cancelListeners.remove(listener);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.Document_analiser.util;
+
+import java.util.Locale;
+
+/**
+ * Времена по етапи (auth, търсене на документ, запис на въпроса, embedding, векторна
+ * заявка, зареждане на съдържание, prompt, LLM, запис на отговора) за текущата HTTP заявка.
+ *
+ * - За какво служи: StageTimingFilter го създава за заявката и накрая го публикува като
+ *   {@code Server-Timing} хедър, Micrometer таймери по етап и един структуриран лог ред.
+ * - Използване: {@code long t = StageTimings.start(); ... StageTimings.stop(Stage.LLM, t);}
+ *   Без активни времена (изключено) {@link #start()} връща 0 без да чете часовника, а
+ *   {@link #stop} не прави нищо – цената е едно четене на ThreadLocal.
+ * - Етап, изпълнен няколко пъти, се натрупва. Етапите на една заявка вървят
+ *   последователно (и при смяна на нишка), затова масивите не са синхронизирани.
+ * - Държи се в ThreadLocal; при асинхронна обработка се предава ръчно на работната нишка.
+ * - {@link Listener} (ако е зададен) получава всеки завършен етап – така се създават
+ *   tracing span-ове за етапите.
+ */
+public final class StageTimings {
+    private static final ThreadLocal<StageTimings> HOLDER = new ThreadLocal<>();
+
+    /** Етапи на обработката на въпрос, в реда, в който се изпълняват. */
+    public enum Stage {
+        AUTH, DOCUMENT, QUESTION_PERSIST, EMBEDDING, VECTOR_QUERY, CONTENT_FETCH, PROMPT, LLM, ANSWER_PERSIST;
+
+        private final String metricName = name().toLowerCase(Locale.ROOT);
+
+        /** Име за хедъра, метриките и лога (напр. {@code vector_query}). */
+        public String metricName() { return metricName; }
+    }
+
+    /** Получава всеки завършен етап с началото и края му (System.nanoTime()). */
+    @FunctionalInterface
+    public interface Listener {
+        void onStage(Stage stage, long startNanos, long endNanos);
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final Listener listener;
+    private final long startedAtNanos = System.nanoTime();
+    private final long[] nanos = new long[STAGES.length];
+    private final int[] counts = new int[STAGES.length];
+
+    public StageTimings() {
+        this(null);
+    }
+
+    public StageTimings(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Задава времената за текущата нишка. */
+    public static void set(StageTimings timings) { HOLDER.set(timings); }
+    /** Връща времената на текущата нишка, или null ако не се измерва. */
+    public static StageTimings get() { return HOLDER.get(); }
+    /** Изчиства стойността, за да избегнем изтичане на памет. */
+    public static void clear() { HOLDER.remove(); }
+
+    /** Начало на етап: System.nanoTime(), или 0 ако текущата заявка не се измерва. */
+    public static long start() {
+        return HOLDER.get() != null ? System.nanoTime() : 0L;
+    }
+
+    /** Край на етап, започнат с {@link #start()}. */
+    public static void stop(Stage stage, long startNanos) {
+        StageTimings timings = HOLDER.get();
+        if (timings != null && startNanos != 0L) {
+            timings.record(stage, startNanos, System.nanoTime());
+        }
+    }
+
+    /** Добавя изпълнение на етап към натрупаното време. */
+    public void record(Stage stage, long startNanos, long endNanos) {
+        nanos[stage.ordinal()] += endNanos - startNanos;
+        counts[stage.ordinal()]++;
+        if (listener != null) {
+            listener.onStage(stage, startNanos, endNanos);
+        }
+    }
+
+    public boolean isEmpty() {
+        for (int count : counts) {
+            if (count > 0) return false;
+        }
+        return true;
+    }
+
+    /** Натрупано време на етапа в наносекунди (0 ако не е изпълняван). */
+    public long nanos(Stage stage) { return nanos[stage.ordinal()]; }
+
+    /** Колко пъти е изпълнен етапът. */
+    public int count(Stage stage) { return counts[stage.ordinal()]; }
+
+    /** Време от създаването (началото на заявката) в наносекунди. */
+    public long elapsedNanos() { return System.nanoTime() - startedAtNanos; }
+
+    /**
+     * Стойност за хедъра {@code Server-Timing}: изпълнените етапи и общото време,
+     * напр. {@code embedding;dur=12.4, llm;dur=1830.2, total;dur=1875.0}.
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Stage stage : STAGES) {
+            if (counts[stage.ordinal()] > 0) {
+                appendMetric(header, stage.metricName(), nanos[stage.ordinal()]);
+            }
+        }
+        appendMetric(header, "total", elapsedNanos());
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) header.append(", ");
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.Document_analiser.web;
+
+import com.example.Document_analiser.util.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Attaches a {@link RequestDeadline} to question requests.
+ *
+ * The timeout comes from the {@code X-Request-Timeout-Ms} header (capped at
+ * {@code request.deadline.max-ms}) or from the longest matching path prefix in
+ * {@code request.deadline.endpoints}. Paths without an entry get no deadline.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final boolean enabled;
+    private final Map<String, Long> endpointDefaults;
+    private final long maxMs;
+
+    public RequestDeadlineFilter(@Value("${request.deadline.enabled:true}") boolean enabled,
+                                 @Value("#{${request.deadline.endpoints:{:}}}") Map<String, Long> endpointDefaults,
+                                 @Value("${request.deadline.max-ms:600000}") long maxMs) {
+        this.enabled = enabled;
+        this.endpointDefaults = endpointDefaults;
+        this.maxMs = maxMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || defaultFor(request.getRequestURI()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long timeoutMs = Math.min(maxMs, requestedTimeout(request, defaultFor(request.getRequestURI())));
+        RequestDeadline.set(RequestDeadline.after(Duration.ofMillis(timeoutMs)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private long requestedTimeout(HttpServletRequest request, long defaultMs) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null && !header.isBlank()) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested > 0) {
+                    return requested;
+                }
+            } catch (NumberFormatException ignored) {
+                // fall through to the endpoint default
+            }
+        }
+        return defaultMs;
+    }
+
+    private Long defaultFor(String path) {
+        String best = null;
+        for (String prefix : endpointDefaults.keySet()) {
+            if (path.startsWith(prefix) && (best == null || prefix.length() > best.length())) {
+                best = prefix;
+            }
+        }
+        return best != null ? endpointDefaults.get(best) : null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.Document_analiser.web;
+
+import com.example.Document_analiser.util.StageTimings;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Writes the {@code Server-Timing} header from the request's {@link StageTimings}.
+ *
+ * Headers must be set before the response is committed: as a {@link ResponseBodyAdvice}
+ * right before a response body is written (including the async dispatch of
+ * {@code /api/questions}), and as an interceptor before a view is rendered or a redirect
+ * is sent. Streamed responses (SSE) commit their headers before any stage has run and
+ * carry no header.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object>, HandlerInterceptor {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final boolean enabled;
+
+    public ServerTimingAdvice(@Value("${request.stages.header:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            StageTimings timings = (StageTimings) servletRequest.getServletRequest().getAttribute(StageTimingFilter.ATTRIBUTE);
+            if (timings != null) {
+                response.getHeaders().set(HEADER, timings.toServerTiming());
+            }
+        }
+        return body;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (!enabled || response.isCommitted()) {
+            return;
+        }
+        StageTimings timings = (StageTimings) request.getAttribute(StageTimingFilter.ATTRIBUTE);
+        if (timings != null) {
+            response.setHeader(HEADER, timings.toServerTiming());
+        }
+    }
+}
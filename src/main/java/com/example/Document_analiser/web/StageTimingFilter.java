@@ -0,0 +1,154 @@
+package com.example.Document_analiser.web;
+
+import com.example.Document_analiser.util.StageTimings;
+import com.example.Document_analiser.util.StageTimings.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pipeline stages of each request with {@link StageTimings}.
+ *
+ * The timings are bound to the request thread and stored as a request attribute
+ * ({@link #ATTRIBUTE}) so {@link ServerTimingAdvice} can write the {@code Server-Timing}
+ * header before the response is committed. When the request completes (after the async
+ * dispatch for async requests) each executed stage is recorded in the
+ * {@code request.stage.time{stage}} timer and one {@code stages ...} log line with the
+ * per-stage milliseconds is written. With {@code request.stages.enabled=false} nothing is
+ * bound and the stage probes reduce to a ThreadLocal read.
+ *
+ * When the request is traced, each stage also becomes a child span of the HTTP server span
+ * with the stage's own start and end time, also for stages run on the worker thread.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class StageTimingFilter extends OncePerRequestFilter {
+
+    public static final String ATTRIBUTE = StageTimings.class.getName();
+
+    private static final Logger log = LoggerFactory.getLogger(StageTimingFilter.class);
+
+    private final ObjectProvider<Tracer> tracer;
+    private final boolean enabled;
+    private final long logMinMs;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+
+    public StageTimingFilter(MeterRegistry meterRegistry,
+                             ObjectProvider<Tracer> tracer,
+                             @Value("${request.stages.enabled:true}") boolean enabled,
+                             @Value("${request.stages.log-min-ms:0}") long logMinMs) {
+        this.tracer = tracer;
+        this.enabled = enabled;
+        this.logMinMs = logMinMs;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("request.stage.time")
+                    .tag("stage", stage.metricName())
+                    .description("Time spent per request pipeline stage")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        StageTimings timings = new StageTimings(spanListener());
+        request.setAttribute(ATTRIBUTE, timings);
+        StageTimings.set(timings);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            StageTimings.clear();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        complete(request, response, timings);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                complete(request, response, timings);
+            }
+        }
+    }
+
+    /**
+     * Listener that turns stages into spans under the current (HTTP server) span, or null
+     * when tracing is off or the request is not recorded.
+     */
+    private StageTimings.Listener spanListener() {
+        Tracer current = tracer.getIfAvailable();
+        Span parent = current != null ? current.currentSpan() : null;
+        if (parent == null || parent.isNoop()) {
+            return null;
+        }
+        // nanoTime has no epoch; spans need wall-clock timestamps
+        long epochOffsetNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+        return (stage, startNanos, endNanos) -> current.spanBuilder()
+                .setParent(parent.context())
+                .name("stage " + stage.metricName())
+                .tag("stage", stage.metricName())
+                .startTimestamp(startNanos + epochOffsetNanos, TimeUnit.NANOSECONDS)
+                .start()
+                .end(endNanos + epochOffsetNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void complete(HttpServletRequest request, HttpServletResponse response, StageTimings timings) {
+        if (timings.isEmpty()) {
+            return;
+        }
+        StringBuilder stages = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            if (timings.count(stage) == 0) {
+                continue;
+            }
+            stageTimers.get(stage).record(timings.nanos(stage), TimeUnit.NANOSECONDS);
+            stages.append(' ').append(stage.metricName()).append("_ms=")
+                    .append(String.format(Locale.ROOT, "%.1f", timings.nanos(stage) / 1_000_000.0));
+        }
+        long totalMs = TimeUnit.NANOSECONDS.toMillis(timings.elapsedNanos());
+        if (totalMs >= logMinMs) {
+            log.info("stages cid={} method={} path={} status={} total_ms={}{}",
+                    response.getHeader("X-Correlation-Id"), request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), totalMs, stages);
+        }
+    }
+}
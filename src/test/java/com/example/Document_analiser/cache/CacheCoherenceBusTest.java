@@ -0,0 +1,158 @@
+package com.example.Document_analiser.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGNotification;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CacheCoherenceBusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CacheInvalidator invalidator = mock(CacheInvalidator.class);
+    private final CacheCoherenceBus bus = new CacheCoherenceBus(invalidator, List.of(), null, null, objectMapper,
+            new SimpleMeterRegistry(), false, "cache_invalidation", 50, 500, 5000, 3);
+
+    @Test
+    void smallBatchFitsInOneMessage() throws Exception {
+        List<CacheCoherenceBus.Message> messages = bus.split(Set.of("document:1"), Set.of(), 100L);
+
+        assertEquals(1, messages.size());
+        assertEquals(List.of("document:1"), messages.get(0).getTags());
+        assertEquals(bus.getNodeId(), messages.get(0).getNode());
+        assertEquals(100L, messages.get(0).getSince());
+    }
+
+    @Test
+    void largeBatchesAreSplitBelowThePayloadLimitWithoutLosingEntries() throws Exception {
+        Set<String> tags = new LinkedHashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            tags.add("document:" + i + ":chunks-of-a-rather-long-tag-name");
+        }
+
+        List<CacheCoherenceBus.Message> messages = bus.split(tags, Set.of(), 0L);
+
+        assertTrue(messages.size() > 1);
+        List<String> received = new ArrayList<>();
+        long lastSeq = 0;
+        for (CacheCoherenceBus.Message message : messages) {
+            assertTrue(objectMapper.writeValueAsBytes(message).length < 7900);
+            assertTrue(message.getSeq() > lastSeq);
+            lastSeq = message.getSeq();
+            received.addAll(message.getTags());
+        }
+        assertEquals(new ArrayList<>(tags), received);
+    }
+
+    @Test
+    void escapedAndMultiByteTagsStayBelowThePayloadLimit() throws Exception {
+        Set<String> tags = new LinkedHashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            tags.add("user:\"име\\" + i + "\"\n");
+        }
+
+        for (CacheCoherenceBus.Message message : bus.split(tags, Set.of(), 0L)) {
+            assertTrue(objectMapper.writeValueAsBytes(message).length < 7900);
+        }
+    }
+
+    @Test
+    void clearsAndTagsKeepTheirKindAcrossMessages() throws Exception {
+        Set<String> clears = new LinkedHashSet<>();
+        Set<String> tags = new LinkedHashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            clears.add("cache-" + i);
+            tags.add("document:" + i);
+        }
+
+        List<String> receivedClears = new ArrayList<>();
+        List<String> receivedTags = new ArrayList<>();
+        for (CacheCoherenceBus.Message message : bus.split(tags, clears, 0L)) {
+            receivedClears.addAll(message.getClears());
+            receivedTags.addAll(message.getTags());
+        }
+
+        assertEquals(new ArrayList<>(clears), receivedClears);
+        assertEquals(new ArrayList<>(tags), receivedTags);
+    }
+
+    @Test
+    void ownMessagesAreIgnored() throws Exception {
+        bus.apply(notifications(message(bus.getNodeId(), 1, "document:1")));
+
+        verify(invalidator, never()).invalidate(any());
+        verify(invalidator, never()).invalidateAll();
+    }
+
+    @Test
+    void otherNodesTagsAreInvalidatedOnceAndDuplicateSequencesDropped() throws Exception {
+        bus.apply(notifications(message("other", 1, "document:1"), message("other", 2, "document:1")));
+        bus.apply(notifications(message("other", 2, "document:2")));
+
+        verify(invalidator, times(1)).invalidate(Set.of("document:1"));
+        verify(invalidator, never()).invalidate(Set.of("document:2"));
+        verify(invalidator, never()).invalidateAll();
+        assertEquals(2L, bus.getReport().get("duplicatesDropped"));
+    }
+
+    @Test
+    void sequenceGapClearsTheTaggedCaches() throws Exception {
+        bus.apply(notifications(message("other", 1, "document:1")));
+        bus.apply(notifications(message("other", 3, "document:3")));
+
+        verify(invalidator).invalidateAll();
+        verify(invalidator).invalidate(Set.of("document:3"));
+        assertEquals(1L, bus.getReport().get("resyncs"));
+    }
+
+    @Test
+    void firstMessageFromANodeIsNotAGap() throws Exception {
+        bus.apply(notifications(message("other", 42, "document:1")));
+
+        verify(invalidator, never()).invalidateAll();
+    }
+
+    private String message(String node, long seq, String tag) throws Exception {
+        CacheCoherenceBus.Message message = new CacheCoherenceBus.Message();
+        message.setNode(node);
+        message.setSeq(seq);
+        message.setSince(System.currentTimeMillis());
+        message.getTags().add(tag);
+        return objectMapper.writeValueAsString(message);
+    }
+
+    private static PGNotification[] notifications(String... payloads) {
+        PGNotification[] notifications = new PGNotification[payloads.length];
+        for (int i = 0; i < payloads.length; i++) {
+            String payload = payloads[i];
+            notifications[i] = new PGNotification() {
+                @Override
+                public String getName() {
+                    return "cache_invalidation";
+                }
+
+                @Override
+                public int getPID() {
+                    return 1;
+                }
+
+                @Override
+                public String getParameter() {
+                    return payload;
+                }
+            };
+        }
+        return notifications;
+    }
+}
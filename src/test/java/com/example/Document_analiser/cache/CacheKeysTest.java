@@ -0,0 +1,57 @@
+package com.example.Document_analiser.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheKeysTest {
+
+    @Test
+    void documentTagRoundTrips() {
+        assertEquals("document:42", CacheKeys.documentTag(42L));
+        assertEquals(42L, CacheKeys.documentIdOf("document:42"));
+        assertNull(CacheKeys.documentIdOf(CacheKeys.ANY_DOCUMENT));
+        assertNull(CacheKeys.documentIdOf("document:abc"));
+        assertNull(CacheKeys.documentIdOf("user:alice"));
+    }
+
+    @Test
+    void relevantChunksKeyDependsOnDocumentAndLimit() {
+        assertEquals(CacheKeys.relevantChunks(1L, 5), CacheKeys.relevantChunks(1L, 5));
+        assertNotEquals(CacheKeys.relevantChunks(1L, 5), CacheKeys.relevantChunks(1L, 6));
+        assertNotEquals(CacheKeys.relevantChunks(1L, 5), CacheKeys.relevantChunks(2L, 5));
+        assertEquals(Set.of("document:1"), CacheKeys.relevantChunks(1L, 5).getTags());
+    }
+
+    @Test
+    void documentChunksKeyIsTheIdListAndTagsEveryDocument() {
+        List<Long> ids = new ArrayList<>(List.of(1L, 2L));
+        TaggedKey key = CacheKeys.documentChunks(ids);
+        ids.add(3L);
+
+        assertEquals(CacheKeys.documentChunks(List.of(1L, 2L)), key);
+        assertNotEquals(CacheKeys.documentChunks(List.of(2L, 1L)), key);
+        assertEquals(Set.of("document:1", "document:2"), key.getTags());
+    }
+
+    @Test
+    void historyKeyTagsUserAndDocument() {
+        TaggedKey forDocument = CacheKeys.history("alice", 3L, 0, 10, false);
+        TaggedKey allDocuments = CacheKeys.history("alice", null, 0, 10, false);
+
+        assertEquals(CacheKeys.history("alice", 3L, 0, 10, false), forDocument);
+        assertNotEquals(CacheKeys.history("alice", 3L, 0, 10, true), forDocument);
+        assertNotEquals(CacheKeys.history("bob", 3L, 0, 10, false), forDocument);
+        assertEquals(Set.of("user:alice", "document:3"), forDocument.getTags());
+        assertEquals(Set.of("user:alice", CacheKeys.ANY_DOCUMENT), allDocuments.getTags());
+    }
+
+    @Test
+    void chunkStatsIsTaggedAsAggregate() {
+        assertEquals(Set.of(CacheKeys.CHUNK_AGGREGATES), CacheKeys.chunkStats().getTags());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.Document_analiser.cache;
+
+import com.example.Document_analiser.dto.QuestionHistoryDto;
+import com.example.Document_analiser.entity.Document;
+import com.example.Document_analiser.entity.DocumentChunk;
+import com.example.Document_analiser.service.QueryOptimizationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheValueCodecTest {
+
+    private static Object roundTrip(Object value) {
+        byte[] bytes = CacheValueCodec.encode(value);
+        assertNotNull(bytes);
+        return CacheValueCodec.decode(bytes);
+    }
+
+    @Test
+    void scalarsAndNullsRoundTrip() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000);
+        List<Object> values = Arrays.asList(null, NullValue.INSTANCE, "срок", 42L, 7, 0.25, true, time);
+
+        assertEquals(values, roundTrip(values));
+    }
+
+    @Test
+    void floatArrayKeepsEveryDimension() {
+        float[] embedding = {0.1f, -2.5f, Float.MIN_VALUE, 3e8f};
+
+        assertArrayEquals(embedding, (float[]) roundTrip(embedding));
+    }
+
+    @Test
+    void documentChunkKeepsColumnsAndDocumentId() {
+        Document document = new Document();
+        document.setId(9L);
+        DocumentChunk chunk = new DocumentChunk();
+        chunk.setId(5L);
+        chunk.setChunkIndex(3);
+        chunk.setContent("Предизвестието е 30 дни.");
+        chunk.setEmbedding(new float[]{1f, 2f});
+        chunk.setDocument(document);
+
+        DocumentChunk decoded = (DocumentChunk) roundTrip(chunk);
+
+        assertEquals(5L, decoded.getId());
+        assertEquals(3, decoded.getChunkIndex());
+        assertEquals("Предизвестието е 30 дни.", decoded.getContent());
+        assertArrayEquals(new float[]{1f, 2f}, decoded.getEmbedding());
+        assertEquals(9L, decoded.getDocument().getId());
+    }
+
+    @Test
+    void chunkStatisticsRoundTrip() {
+        QueryOptimizationService.ChunkStatistics decoded = (QueryOptimizationService.ChunkStatistics)
+                roundTrip(new QueryOptimizationService.ChunkStatistics(120, 4, 30.0));
+
+        assertEquals(120, decoded.getTotalChunks());
+        assertEquals(4, decoded.getDocumentsWithChunks());
+        assertEquals(30.0, decoded.getAvgChunksPerDocument(), 1e-9);
+    }
+
+    @Test
+    void historyPageKeepsPagingAndSort() {
+        QuestionHistoryDto dto = new QuestionHistoryDto();
+        dto.setQuestionText("Какъв е срокът?");
+        dto.setAnswerText(null);
+        dto.setAskedAt(LocalDateTime.of(2024, 3, 1, 10, 0));
+        dto.setDocumentId(2L);
+        dto.setDocumentName("договор.pdf");
+        Page<QuestionHistoryDto> page = new PageImpl<>(List.of(dto),
+                PageRequest.of(1, 10, Sort.by(Sort.Order.desc("askedAt"))), 11);
+
+        Page<?> decoded = (Page<?>) roundTrip(page);
+
+        assertEquals(1, decoded.getNumber());
+        assertEquals(10, decoded.getSize());
+        assertEquals(11, decoded.getTotalElements());
+        assertEquals(Sort.Direction.DESC, decoded.getSort().getOrderFor("askedAt").getDirection());
+        QuestionHistoryDto decodedDto = (QuestionHistoryDto) decoded.getContent().get(0);
+        assertEquals("Какъв е срокът?", decodedDto.getQuestionText());
+        assertNull(decodedDto.getAnswerText());
+        assertNull(decodedDto.getAnsweredAt());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 10, 0), decodedDto.getAskedAt());
+        assertEquals(2L, decodedDto.getDocumentId());
+        assertEquals("договор.pdf", decodedDto.getDocumentName());
+    }
+
+    @Test
+    void unsupportedValuesHaveNoEncoding() {
+        assertNull(CacheValueCodec.encode(new Object()));
+        assertNull(CacheValueCodec.encode(List.of("ok", new StringBuilder("no"))));
+    }
+
+    @Test
+    void unknownTagIsRejected() {
+        assertThrows(IllegalStateException.class, () -> CacheValueCodec.decode(new byte[]{(byte) 99}));
+    }
+}
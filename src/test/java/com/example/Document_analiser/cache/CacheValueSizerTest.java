@@ -0,0 +1,79 @@
+package com.example.Document_analiser.cache;
+
+import com.example.Document_analiser.entity.Document;
+import com.example.Document_analiser.entity.DocumentChunk;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheValueSizerTest {
+
+    @Test
+    void nullsWeighNothing() {
+        assertEquals(0, CacheValueSizer.estimate(null));
+        assertEquals(0, CacheValueSizer.estimate(NullValue.INSTANCE));
+    }
+
+    @Test
+    void stringsAreCountedAsUtf16() {
+        assertEquals(48, CacheValueSizer.estimate("abcd"));
+        assertEquals(40 + 2000, CacheValueSizer.estimate("я".repeat(1000)));
+    }
+
+    @Test
+    void embeddingIsFourBytesPerDimension() {
+        assertEquals(16 + 4 * 1536, CacheValueSizer.estimate(new float[1536]));
+    }
+
+    @Test
+    void chunkDoesNotCountItsSharedDocument() {
+        DocumentChunk chunk = new DocumentChunk();
+        chunk.setContent("Срокът е 30 дни.");
+        chunk.setEmbedding(new float[8]);
+        long alone = CacheValueSizer.estimate(chunk);
+
+        Document document = new Document();
+        document.setContent("x".repeat(100_000));
+        chunk.setDocument(document);
+
+        assertEquals(alone, CacheValueSizer.estimate(chunk));
+        assertTrue(alone > CacheValueSizer.estimate("Срокът е 30 дни.") + CacheValueSizer.estimate(new float[8]));
+    }
+
+    @Test
+    void collectionAddsItsElements() {
+        long empty = CacheValueSizer.estimate(List.of());
+        long two = CacheValueSizer.estimate(List.of("ab", "cd"));
+
+        assertTrue(two >= empty + 2 * CacheValueSizer.estimate("ab"));
+    }
+
+    @Test
+    void unknownTypesGetTheFloor() {
+        assertEquals(CacheValueSizer.UNKNOWN_OBJECT_BYTES, CacheValueSizer.estimate(new Object()));
+    }
+
+    @Test
+    void weightAddsEntryOverheadAndIsCapped() {
+        assertEquals(CacheValueSizer.ENTRY_OVERHEAD_BYTES + 48 + 48, CacheValueSizer.weigh("abcd", "efgh"));
+
+        AbstractCollection<Object> huge = new AbstractCollection<>() {
+            @Override
+            public Iterator<Object> iterator() {
+                return Collections.emptyIterator();
+            }
+
+            @Override
+            public int size() {
+                return Integer.MAX_VALUE;
+            }
+        };
+        assertEquals(Integer.MAX_VALUE, CacheValueSizer.weigh("k", huge));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.Document_analiser.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+
+    private static final long LATER = System.currentTimeMillis() + 60_000;
+
+    @Test
+    void tracksBytesOnPutReplaceAndRemove() {
+        OffHeapStore store = new OffHeapStore(100);
+
+        store.put("a", new byte[10], LATER);
+        store.put("b", new byte[20], LATER);
+        assertEquals(30, store.usedBytes());
+
+        store.put("a", new byte[5], LATER);
+        assertEquals(25, store.usedBytes());
+        assertEquals(2, store.size());
+
+        store.remove("b");
+        assertEquals(5, store.usedBytes());
+        store.remove("missing");
+        assertEquals(5, store.usedBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        OffHeapStore store = new OffHeapStore(30);
+        store.put("a", new byte[10], LATER);
+        store.put("b", new byte[10], LATER);
+        store.put("c", new byte[10], LATER);
+        assertNotNull(store.peek("a")); // a is now the most recently used
+
+        store.put("d", new byte[10], LATER);
+
+        assertNull(store.peek("b"));
+        assertNotNull(store.peek("a"));
+        assertEquals(30, store.usedBytes());
+        assertEquals(1, store.evictionCount());
+    }
+
+    @Test
+    void rejectsValueLargerThanTheStore() {
+        OffHeapStore store = new OffHeapStore(8);
+
+        assertFalse(store.put("a", new byte[9], LATER));
+        assertEquals(0, store.usedBytes());
+    }
+
+    @Test
+    void takeReturnsCopyAndFreesBytes() {
+        OffHeapStore store = new OffHeapStore(100);
+        store.put("a", new byte[]{1, 2, 3}, LATER);
+
+        OffHeapStore.Stored stored = store.take("a");
+
+        assertArrayEquals(new byte[]{1, 2, 3}, stored.getBytes());
+        assertEquals(LATER, stored.getExpiresAtMillis());
+        assertEquals(0, store.usedBytes());
+        assertNull(store.take("a"));
+    }
+
+    @Test
+    void expiredEntriesAreNotReturnedAndArePurged() {
+        OffHeapStore store = new OffHeapStore(100);
+        long past = System.currentTimeMillis() - 1;
+        store.put("old", new byte[10], past);
+        store.put("live", new byte[10], LATER);
+
+        assertNull(store.peek("old"));
+        store.purgeExpired();
+
+        assertEquals(1, store.size());
+        assertEquals(10, store.usedBytes());
+        assertNull(store.take("old"));
+    }
+
+    @Test
+    void putIfAbsentKeepsExistingValue() {
+        OffHeapStore store = new OffHeapStore(100);
+        store.put("a", new byte[]{1}, LATER);
+
+        assertFalse(store.putIfAbsent("a", new byte[]{2, 2}, LATER));
+        assertTrue(store.putIfAbsent("b", new byte[]{3}, LATER));
+
+        assertArrayEquals(new byte[]{1}, store.peek("a").getBytes());
+        assertEquals(2, store.usedBytes());
+    }
+
+    @Test
+    void removeIfDropsMatchingKeysAndTheirBytes() {
+        OffHeapStore store = new OffHeapStore(100);
+        store.put("doc:1", new byte[10], LATER);
+        store.put("doc:2", new byte[10], LATER);
+        store.put("user:1", new byte[5], LATER);
+
+        store.removeIf(k -> ((String) k).startsWith("doc:"));
+
+        assertEquals(List.of("user:1"), store.keys(k -> true));
+        assertEquals(5, store.usedBytes());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.Document_analiser.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaggedKeyTest {
+
+    @Test
+    void equalityIgnoresTags() {
+        TaggedKey a = TaggedKey.of("7_5", "document:7");
+        TaggedKey b = TaggedKey.of("7_5", List.of("document:7", "chunks"));
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, TaggedKey.of("7_6", "document:7"));
+        assertNotEquals(a, "7_5");
+    }
+
+    @Test
+    void matchesAnyOfTheCandidateTags() {
+        TaggedKey key = TaggedKey.of("k", "user:alice", "document:3");
+
+        assertTrue(key.hasAnyTag(List.of("document:9", "document:3")));
+        assertFalse(key.hasAnyTag(List.of("user:bob")));
+        assertFalse(key.hasAnyTag(List.of()));
+        assertEquals(Set.of("user:alice", "document:3"), key.getTags());
+        assertEquals("k", key.toString());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.Document_analiser.controller;
+
+import com.example.Document_analiser.service.AsyncQuestionService;
+import com.example.Document_analiser.service.AuthService;
+import com.example.Document_analiser.service.BatchQuestionService;
+import com.example.Document_analiser.service.QuestionService;
+import com.example.Document_analiser.service.QuestionStreamingService;
+import com.example.Document_analiser.service.RequestDeadlineService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuestionControllerTest {
+
+    private final QuestionService questionService = mock(QuestionService.class);
+    private final AsyncQuestionService asyncQuestionService = mock(AsyncQuestionService.class);
+    private QuestionController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new QuestionController(questionService, mock(AuthService.class),
+                mock(QuestionStreamingService.class), asyncQuestionService, mock(BatchQuestionService.class),
+                mock(RequestDeadlineService.class), mock(ExecutorService.class));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", "secret"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unknownQuestionAnswersNotFound() {
+        when(asyncQuestionService.findPending(42L)).thenReturn(Optional.empty());
+        when(questionService.findQuestion(42L)).thenReturn(Optional.empty());
+
+        DeferredResult<ResponseEntity<?>> result = controller.getAnswer(42L, 0);
+
+        ResponseEntity<?> response = (ResponseEntity<?>) result.getResult();
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
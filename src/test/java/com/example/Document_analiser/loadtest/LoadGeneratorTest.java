@@ -0,0 +1,125 @@
+package com.example.Document_analiser.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    void constantArrivalsAreDispatchedOnScheduleWhileEarlierRequestsAreStillRunning() throws Exception {
+        LoadScenario scenario = scenario(LoadScenario.Arrival.CONSTANT, 20.0);
+        Map<String, Object> stage = firstStage(new LoadGenerator(new FakeTarget(200, 200), scenario).run());
+
+        // gaps of 50 ms in a one second stage: 19 arrivals, all dispatched though each takes 200 ms
+        assertEquals(19L, stage.get("scheduled"));
+        assertEquals(19L, stage.get("completed"));
+        assertTrue((int) stage.get("maxInFlight") > 1);
+    }
+
+    @Test
+    void responseTimeIncludesQueueingBehindASlowServer() throws Exception {
+        LoadScenario scenario = scenario(LoadScenario.Arrival.CONSTANT, 20.0);
+        scenario.setMaxInFlight(1);
+        Map<String, Object> stage = firstStage(new LoadGenerator(new FakeTarget(200, 100), scenario).run());
+
+        // one request at a time, 100 ms each, arriving every 50 ms: the queue grows through the stage
+        double responseP99 = millis(stage, "responseTime", "p99Ms");
+        double serviceP99 = millis(stage, "serviceTime", "p99Ms");
+        assertTrue(serviceP99 < 300, "service p99 " + serviceP99);
+        assertTrue(responseP99 > 3 * serviceP99, "response p99 " + responseP99 + ", service p99 " + serviceP99);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void actionsFollowTheWeightedMix() throws Exception {
+        LoadScenario scenario = scenario(LoadScenario.Arrival.POISSON, 400.0);
+        scenario.setSteps(List.of(new LoadScenario.Step(LoadScenario.Action.ASK, 3),
+                new LoadScenario.Step(LoadScenario.Action.HISTORY, 1)));
+        Map<String, Object> stage = firstStage(new LoadGenerator(new FakeTarget(200, 0), scenario).run());
+
+        Map<String, Map<String, Object>> actions = (Map<String, Map<String, Object>>) stage.get("actions");
+        double asks = ((Number) actions.get("ASK").get("requests")).doubleValue();
+        double history = ((Number) actions.get("HISTORY").get("requests")).doubleValue();
+        double share = asks / (asks + history);
+        assertTrue(share > 0.65 && share < 0.85, "ASK share " + share);
+        assertFalse(actions.containsKey("UPLOAD"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stopsAfterAStageAboveTheErrorRatio() throws Exception {
+        LoadScenario scenario = scenario(LoadScenario.Arrival.CONSTANT, 10.0, 20.0);
+        Map<String, Object> result = new LoadGenerator(new FakeTarget(500, 0), scenario).run();
+
+        List<Map<String, Object>> stages = (List<Map<String, Object>>) result.get("stages");
+        assertEquals(1, stages.size());
+        assertEquals(1.0, stages.get(0).get("errorRatio"));
+        assertEquals(Map.of("500", 9L), stages.get(0).get("statuses"));
+        assertTrue(((String) result.get("stopReason")).startsWith("error ratio"));
+        assertNull(result.get("maxRateWithinTarget"));
+    }
+
+    @Test
+    void maxRateWithinTargetIsTheLastHealthyStage() throws Exception {
+        LoadScenario scenario = scenario(LoadScenario.Arrival.CONSTANT, 5.0, 10.0);
+        Map<String, Object> result = new LoadGenerator(new FakeTarget(200, 0), scenario).run();
+
+        assertEquals("all stages completed", result.get("stopReason"));
+        assertEquals(10.0, result.get("maxRateWithinTarget"));
+    }
+
+    private static LoadScenario scenario(LoadScenario.Arrival arrival, Double... rates) {
+        LoadScenario scenario = new LoadScenario();
+        scenario.setSteps(List.of(new LoadScenario.Step(LoadScenario.Action.ASK, 1)));
+        scenario.setRates(List.of(rates));
+        scenario.setArrival(arrival);
+        scenario.setWarmupSeconds(0);
+        scenario.setStageSeconds(1);
+        return scenario.validate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> firstStage(Map<String, Object> result) {
+        return ((List<Map<String, Object>>) result.get("stages")).get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double millis(Map<String, Object> stage, String histogram, String percentile) {
+        return ((Number) ((Map<String, Object>) stage.get(histogram)).get(percentile)).doubleValue();
+    }
+
+    /** Answers every request with a fixed status after a fixed delay, without any HTTP. */
+    private static final class FakeTarget extends LoadTarget {
+        private final int status;
+        private final long delayMs;
+
+        FakeTarget(int status, long delayMs) {
+            super("http://localhost:0", "load", "load", "text", Duration.ofSeconds(5));
+            this.status = status;
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public List<Long> getDocumentIds() {
+            return List.of(1L);
+        }
+
+        @Override
+        public int execute(LoadScenario.Action action, SplittableRandom random) throws InterruptedException {
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            return status;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Document_analiser.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadScenarioTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyBuiltInScenarioLoadsAndValidates() {
+        for (String name : LoadScenario.BUILT_IN) {
+            LoadScenario scenario = LoadScenario.builtIn(name);
+
+            assertEquals(name, scenario.getName());
+            assertFalse(scenario.getSteps().isEmpty());
+            assertFalse(scenario.getRates().isEmpty());
+        }
+    }
+
+    @Test
+    void mixedScenarioKeepsItsWeightsAndArrival() {
+        LoadScenario scenario = LoadScenario.builtIn("mixed");
+
+        assertEquals(5, scenario.getSteps().size());
+        assertEquals(LoadScenario.Action.ASK, scenario.getSteps().get(0).getAction());
+        assertEquals(50.0, scenario.getSteps().get(0).getWeight(), 0.0);
+        assertEquals(LoadScenario.Arrival.POISSON, scenario.getArrival());
+    }
+
+    @Test
+    void unknownOrUnsafeNamesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LoadScenario.builtIn("nope"));
+        assertThrows(IllegalArgumentException.class, () -> LoadScenario.builtIn("../application"));
+    }
+
+    @Test
+    void jsonFilesAreLoadedWithDefaultsForMissingFields() throws Exception {
+        Path file = dir.resolve("smoke.json");
+        Files.writeString(file, "{\"name\":\"smoke\",\"steps\":[{\"action\":\"HISTORY\"}],\"rates\":[3],\"extra\":true}");
+
+        LoadScenario scenario = LoadScenario.load(file.toString());
+
+        assertEquals("smoke", scenario.getName());
+        assertEquals(1.0, scenario.getSteps().get(0).getWeight(), 0.0);
+        assertEquals(List.of(3.0), scenario.getRates());
+        assertEquals(LoadScenario.Arrival.POISSON, scenario.getArrival());
+        assertEquals(30, scenario.getStageSeconds());
+    }
+
+    @Test
+    void validateRejectsScenariosThatCannotRun() {
+        LoadScenario noWeight = new LoadScenario();
+        noWeight.setSteps(List.of(new LoadScenario.Step(LoadScenario.Action.ASK, 0)));
+        noWeight.setRates(List.of(1.0));
+        assertThrows(IllegalArgumentException.class, noWeight::validate);
+
+        LoadScenario noRate = new LoadScenario();
+        noRate.setSteps(List.of(new LoadScenario.Step(LoadScenario.Action.ASK, 1)));
+        assertThrows(IllegalArgumentException.class, noRate::validate);
+
+        LoadScenario noStage = new LoadScenario();
+        noStage.setSteps(List.of(new LoadScenario.Step(LoadScenario.Action.ASK, 1)));
+        noStage.setRates(List.of(1.0));
+        noStage.setStageSeconds(0);
+        assertThrows(IllegalArgumentException.class, noStage::validate);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.entity.DocumentChunk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextPackerTest {
+
+    private static DocumentChunk chunk(int index, String content) {
+        DocumentChunk chunk = new DocumentChunk();
+        chunk.setChunkIndex(index);
+        chunk.setContent(content);
+        return chunk;
+    }
+
+    private static ContextPacker packer(int maxTokens) {
+        return new ContextPacker(new SimpleMeterRegistry(), maxTokens, 2, 1, 0.8);
+    }
+
+    @Test
+    void dropsNearDuplicateOfBetterRankedChunk() {
+        String text = "Срокът на предизвестие е тридесет дни от датата на уведомлението.";
+
+        List<ContextPacker.Passage> passages = packer(1500).pack(
+                List.of(chunk(4, text), chunk(9, text + " ")), "Какъв е срокът?");
+
+        assertEquals(1, passages.size());
+        assertEquals(4, passages.get(0).getFirstChunkIndex());
+        assertEquals(text, passages.get(0).getText());
+    }
+
+    @Test
+    void ordersByChunkIndexAndMergesAdjacentChunks() {
+        List<ContextPacker.Passage> passages = packer(1500).pack(List.of(
+                chunk(3, "Трети откъс за заплатата."),
+                chunk(2, "Втори откъс за отпуската."),
+                chunk(7, "Седми откъс за срока.")), "заплата");
+
+        assertEquals(2, passages.size());
+        assertEquals(2, passages.get(0).getFirstChunkIndex());
+        assertEquals(3, passages.get(0).getLastChunkIndex());
+        assertEquals("Втори откъс за отпуската. Трети откъс за заплатата.", passages.get(0).getText());
+        assertEquals(7, passages.get(1).getFirstChunkIndex());
+    }
+
+    @Test
+    void trimsLowerRankedChunksToBestSentence() {
+        List<ContextPacker.Passage> passages = packer(1500).pack(List.of(
+                chunk(0, "Първи откъс."),
+                chunk(10, "Втори откъс."),
+                chunk(20, "Общи условия на договора. Предизвестието е тридесет дни. Подписва се от двете страни.")),
+                "Какво е предизвестието?");
+
+        assertEquals(3, passages.size());
+        assertEquals("Предизвестието е тридесет дни.", passages.get(2).getText());
+    }
+
+    @Test
+    void stopsAddingOnceBudgetIsSpent() {
+        String longText = "x".repeat(40);
+
+        List<ContextPacker.Passage> passages = packer(12).pack(List.of(
+                chunk(0, longText),
+                chunk(5, "y".repeat(40)),
+                chunk(9, "")), "x");
+
+        assertEquals(1, passages.size());
+        assertEquals(longText, passages.get(0).getText());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.repository.DocumentRepository;
+import com.example.Document_analiser.repository.projection.DocumentCatalogView;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentCatalogServiceTest {
+
+    private final DocumentRepository repository = mock(DocumentRepository.class);
+    private final DocumentCatalogService catalog = new DocumentCatalogService(repository);
+
+    @Test
+    void blankQueryPagesTheWholeCatalog() {
+        Pageable pageable = PageRequest.of(1, 10);
+        Page<DocumentCatalogView> page = new PageImpl<>(List.of(view(1L, "a.pdf")), pageable, 11);
+        when(repository.findCatalog(pageable)).thenReturn(page);
+
+        assertEquals(page, catalog.find("  ", pageable));
+        verify(repository, never()).findCatalogByName(any(), any());
+    }
+
+    @Test
+    void queryIsLowerCasedAndLikeWildcardsAreEscaped() {
+        Pageable pageable = PageRequest.of(0, 20);
+        when(repository.findCatalogByName("%50\\%\\_off%", pageable)).thenReturn(Page.empty(pageable));
+
+        catalog.find(" 50%_OFF ", pageable);
+
+        verify(repository).findCatalogByName("%50\\%\\_off%", pageable);
+    }
+
+    @Test
+    void suggestCapsTheLimitAndAddsTheSelectedDocument() {
+        when(repository.findCatalog(PageRequest.of(0, DocumentCatalogService.MAX_SUGGESTIONS)))
+                .thenReturn(new PageImpl<>(List.of(view(2L, "new.pdf"))));
+        when(repository.findCatalogByIds(List.of(7L))).thenReturn(List.of(view(7L, "old.pdf")));
+
+        List<DocumentCatalogView> views = catalog.suggest(null, 1000, 7L);
+
+        assertEquals(List.of(2L, 7L), views.stream().map(DocumentCatalogView::getId).toList());
+    }
+
+    @Test
+    void suggestDoesNotReloadASelectedDocumentAlreadyListed() {
+        when(repository.findCatalog(PageRequest.of(0, 20))).thenReturn(new PageImpl<>(List.of(view(2L, "new.pdf"))));
+
+        assertEquals(1, catalog.suggest("", 20, 2L).size());
+        verify(repository, never()).findCatalogByIds(any());
+    }
+
+    @Test
+    void escapeLikeEscapesTheEscapeCharacterFirst() {
+        assertEquals("a\\\\b\\%c\\_d", DocumentCatalogService.escapeLike("a\\b%c_d"));
+    }
+
+    private static DocumentCatalogView view(Long id, String name) {
+        return new DocumentCatalogView() {
+            public Long getId() { return id; }
+            public String getName() { return name; }
+            public String getType() { return "pdf"; }
+            public LocalDateTime getUploadDate() { return null; }
+            public Integer getChunkCount() { return 0; }
+            public Long getSize() { return 0L; }
+        };
+    }
+}
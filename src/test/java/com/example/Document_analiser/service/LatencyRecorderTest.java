@@ -0,0 +1,84 @@
+package com.example.Document_analiser.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyRecorderTest {
+
+    private final LatencyRecorder recorder = new LatencyRecorder(4, Duration.ofSeconds(1), Duration.ofSeconds(3));
+
+    @Test
+    void valuesAreVisibleOnlyAfterTheIntervalIsClosed() {
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertEquals(0, recorder.snapshot(Duration.ofSeconds(3)).getCount());
+
+        recorder.rotate();
+
+        assertEquals(1, recorder.snapshot(Duration.ofSeconds(3)).getCount());
+    }
+
+    @Test
+    void percentilesAreWithinOnePercent() {
+        for (int ms = 1; ms <= 100; ms++) {
+            recorder.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+        recorder.rotate();
+
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot(Duration.ofSeconds(1));
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.0, snapshot.getP50(), 0.5);
+        assertEquals(99.0, snapshot.getP99(), 1.0);
+        assertEquals(100.0, snapshot.getMax(), 1.0);
+        assertEquals(1.0, snapshot.getMin(), 0.01);
+        assertEquals(50.5, snapshot.getMean(), 0.5);
+    }
+
+    @Test
+    void windowsCoverOnlyTheirLastIntervals() {
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(10));
+        recorder.rotate();
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(20));
+        recorder.rotate();
+
+        LatencyRecorder.Snapshot last = recorder.snapshot(Duration.ofSeconds(1));
+        assertEquals(1, last.getCount());
+        assertEquals(20.0, last.getMax(), 0.2);
+        assertEquals(2, recorder.snapshot(Duration.ofSeconds(3)).getCount());
+    }
+
+    @Test
+    void intervalsOlderThanTheRetentionDropOutOfWindowsButNotTheTotal() {
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(10));
+        recorder.rotate();
+        recorder.rotate();
+        recorder.rotate();
+        recorder.rotate();
+
+        assertEquals(0, recorder.snapshot(Duration.ofMinutes(1)).getCount());
+        assertEquals(1, recorder.total().getCount());
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        recorder.record(TimeUnit.HOURS.toNanos(2));
+        recorder.record(-5);
+        recorder.rotate();
+
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot(Duration.ofSeconds(1));
+        assertEquals(2, snapshot.getCount());
+        assertEquals(TimeUnit.HOURS.toMillis(1), snapshot.getMax(), TimeUnit.HOURS.toMillis(1) * 0.01);
+        assertEquals(0.0, snapshot.getMin(), 0.0);
+    }
+
+    @Test
+    void stripeCountIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new LatencyRecorder(1, Duration.ofSeconds(1), Duration.ofSeconds(1)).getStripeCount());
+        assertEquals(4, new LatencyRecorder(3, Duration.ofSeconds(1), Duration.ofSeconds(1)).getStripeCount());
+        assertEquals(8, new LatencyRecorder(8, Duration.ofSeconds(1), Duration.ofSeconds(1)).getStripeCount());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.exception.LlmUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LlmCallGuardTest {
+
+    private static final int BULKHEAD = 4;
+
+    private ExecutorService executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private LlmCallGuard guard(ExecutorService executor, boolean hedging) {
+        this.executor = executor;
+        return new LlmCallGuard(executor, new SimpleMeterRegistry(), 30_000, hedging, 50,
+                BULKHEAD, 0, 20, 10, 0.5, 30_000);
+    }
+
+    @Test
+    void successfulCallReturnsTextAndReleasesPermit() {
+        LlmCallGuard guard = guard(Executors.newFixedThreadPool(2), false);
+
+        assertEquals("answer", guard.call(() -> "answer"));
+
+        awaitIdle(guard);
+        assertEquals(BULKHEAD, guard.getReport().get("bulkheadAvailable"));
+        assertEquals(0, guard.getReport().get("inFlight"));
+    }
+
+    @Test
+    void attemptCancelledWhileQueuedReleasesPermit() throws Exception {
+        LlmCallGuard guard = guard(Executors.newSingleThreadExecutor(), false);
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // The only worker is busy, so the attempt is still queued when the deadline passes
+        assertThrows(LlmUnavailableException.class, () -> guard.call(() -> "late", Duration.ofMillis(50)));
+        blocker.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertEquals(BULKHEAD, guard.getReport().get("bulkheadAvailable"));
+        assertEquals(0, guard.getReport().get("inFlight"));
+    }
+
+    @Test
+    void rejectedAttemptReleasesPermit() {
+        ThreadPoolExecutor rejecting = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        rejecting.shutdown();
+        LlmCallGuard guard = guard(rejecting, false);
+
+        for (int i = 0; i < BULKHEAD + 1; i++) {
+            LlmUnavailableException e = assertThrows(LlmUnavailableException.class, () -> guard.call(() -> "never"));
+            assertEquals("bulkhead_full", e.getReason());
+        }
+
+        assertEquals(BULKHEAD, guard.getReport().get("bulkheadAvailable"));
+        assertEquals(0, guard.getReport().get("inFlight"));
+    }
+
+    @Test
+    void hedgeWaitsForRateLimitBudget() {
+        LlmCallGuard guard = guard(Executors.newFixedThreadPool(4), true);
+
+        String text = guard.call(() -> slow("answer"), Duration.ofSeconds(5), () -> false);
+
+        assertEquals("answer", text);
+        assertEquals(0.0, guard.getReport().get("hedgesLaunched"));
+        awaitIdle(guard);
+        assertEquals(BULKHEAD, guard.getReport().get("bulkheadAvailable"));
+    }
+
+    @Test
+    void slowCallIsHedgedWhenBudgetAllows() {
+        LlmCallGuard guard = guard(Executors.newFixedThreadPool(4), true);
+        AtomicInteger charged = new AtomicInteger();
+
+        guard.call(() -> slow("answer"), Duration.ofSeconds(5), () -> {
+            charged.incrementAndGet();
+            return true;
+        });
+
+        assertEquals(1, charged.get());
+        assertEquals(1.0, guard.getReport().get("hedgesLaunched"));
+    }
+
+    /** Attempts release their permit on their own thread, just after completing the result. */
+    private static void awaitIdle(LlmCallGuard guard) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Integer.valueOf(0).equals(guard.getReport().get("inFlight")) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static String slow(String text) {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return text;
+    }
+
+    @Test
+    void streamSupplierThatThrowsReleasesPermit() {
+        LlmCallGuard guard = guard(Executors.newFixedThreadPool(2), false);
+
+        for (int i = 0; i < BULKHEAD + 1; i++) {
+            assertThrows(IllegalStateException.class, () -> guard.stream(() -> {
+                throw new IllegalStateException("client not configured");
+            }).blockLast());
+        }
+
+        assertEquals(BULKHEAD, guard.getReport().get("bulkheadAvailable"));
+        assertEquals(0, guard.getReport().get("inFlight"));
+        assertEquals("answer", guard.stream(() -> Flux.just("answer")).blockLast());
+    }
+
+    @Test
+    void failuresOpenTheBreaker() {
+        LlmCallGuard guard = guard(Executors.newFixedThreadPool(2), false);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(LlmUnavailableException.class, () -> guard.call(() -> {
+                throw new IllegalStateException("provider down");
+            }));
+        }
+
+        assertEquals(LlmCallGuard.BreakerState.OPEN, guard.getState());
+        LlmUnavailableException e = assertThrows(LlmUnavailableException.class, () -> guard.call(() -> "answer"));
+        assertEquals("circuit_open", e.getReason());
+    }
+}
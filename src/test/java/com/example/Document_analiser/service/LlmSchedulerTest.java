@@ -0,0 +1,112 @@
+package com.example.Document_analiser.service;
+
+import com.example.Document_analiser.exception.LlmUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmSchedulerTest {
+
+    private static LlmScheduler scheduler(int maxConcurrent, int requestsPerMinute, int tokensPerMinute) {
+        return new LlmScheduler(new SimpleMeterRegistry(), maxConcurrent, maxConcurrent,
+                requestsPerMinute, tokensPerMinute, 100, 30_000, 30_000, 30_000);
+    }
+
+    @Test
+    void interactiveCallsAreAdmittedBeforeBatchCalls() throws Exception {
+        LlmScheduler scheduler = scheduler(1, 0, 0);
+        LlmScheduler.Permit blocker = scheduler.acquire(LlmPriority.API, "alice", 10);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+
+        Thread batch = waitingCall(scheduler, LlmPriority.BATCH, "bob", admitted);
+        awaitQueued(scheduler, 1);
+        Thread interactive = waitingCall(scheduler, LlmPriority.INTERACTIVE, "carol", admitted);
+        awaitQueued(scheduler, 2);
+
+        blocker.release(10, "done");
+        batch.join(5_000);
+        interactive.join(5_000);
+
+        assertEquals(List.of("INTERACTIVE:carol", "BATCH:bob"), admitted);
+    }
+
+    @Test
+    void lightUserIsNotStarvedByHeavyUser() throws Exception {
+        LlmScheduler scheduler = scheduler(1, 0, 0);
+        LlmScheduler.Permit blocker = scheduler.acquire(LlmPriority.API, "blocker", 10);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            threads.add(waitingCall(scheduler, LlmPriority.API, "heavy", admitted));
+            awaitQueued(scheduler, i + 1);
+        }
+        threads.add(waitingCall(scheduler, LlmPriority.API, "light", admitted));
+        awaitQueued(scheduler, 4);
+
+        blocker.release(10, "done");
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        assertEquals(4, admitted.size());
+        assertTrue(admitted.indexOf("API:light") <= 1, "light user admitted at " + admitted);
+    }
+
+    @Test
+    void hedgeIsChargedToTheBudgetAndRefusedWhenItIsEmpty() {
+        LlmScheduler scheduler = scheduler(4, 2, 0);
+        LlmScheduler.Permit permit = scheduler.acquire(LlmPriority.API, "alice", 10);
+
+        assertTrue(permit.tryHedge());
+        assertEquals(0L, scheduler.getReport().get("requestBudgetAvailable"));
+        assertFalse(permit.tryHedge());
+    }
+
+    @Test
+    void waitingLongerThanTheLimitGivesUp() {
+        LlmScheduler scheduler = scheduler(1, 0, 0);
+        scheduler.acquire(LlmPriority.API, "alice", 10);
+
+        LlmUnavailableException e = assertThrows(LlmUnavailableException.class,
+                () -> scheduler.acquire(LlmPriority.API, "bob", 10, Duration.ofMillis(20)));
+        assertEquals("queue_timeout", e.getReason());
+    }
+
+    private static Thread waitingCall(LlmScheduler scheduler, LlmPriority priority, String user, List<String> admitted) {
+        Thread thread = new Thread(() -> {
+            LlmScheduler.Permit permit = scheduler.acquire(priority, user, 10);
+            admitted.add(priority + ":" + user);
+            permit.release(10, "answer");
+        });
+        thread.start();
+        return thread;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void awaitQueued(LlmScheduler scheduler, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> classes = (Map<String, Object>) scheduler.getReport().get("classes");
+            int queued = 0;
+            for (Object stats : classes.values()) {
+                queued += (Integer) ((Map<String, Object>) stats).get("queued");
+            }
+            if (queued >= expected) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("expected " + expected + " queued calls");
+    }
+}
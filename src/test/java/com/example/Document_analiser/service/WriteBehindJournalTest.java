@@ -0,0 +1,96 @@
+package com.example.Document_analiser.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    private static WriteBehindService.WriteRecord record(long seq, String text) {
+        WriteBehindService.WriteRecord record = new WriteBehindService.WriteRecord();
+        record.setType(WriteBehindService.QUESTION);
+        record.setSeq(seq);
+        record.setId(100 + seq);
+        record.setText(text);
+        record.setAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        record.setUsername("alice");
+        return record;
+    }
+
+    @Test
+    void readsOnlyRecordsAfterLastCheckpoint() throws Exception {
+        Path path = dir.resolve("wb.journal");
+        WriteBehindJournal journal = new WriteBehindJournal(path, objectMapper, false);
+        journal.append(record(1, "първи"));
+        journal.append(record(2, "втори"));
+        journal.checkpoint(1);
+        journal.append(record(3, "трети \"с кавички\""));
+        journal.close();
+
+        List<WriteBehindService.WriteRecord> unflushed = new WriteBehindJournal(path, objectMapper, false).readUnflushed();
+
+        assertEquals(2, unflushed.size());
+        assertEquals(2, unflushed.get(0).getSeq());
+        assertEquals("трети \"с кавички\"", unflushed.get(1).getText());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 0), unflushed.get(1).getAt());
+        assertEquals("alice", unflushed.get(1).getUsername());
+    }
+
+    @Test
+    void ignoresTornLastLine() throws Exception {
+        Path path = dir.resolve("wb.journal");
+        WriteBehindJournal journal = new WriteBehindJournal(path, objectMapper, false);
+        journal.append(record(1, "цял"));
+        journal.close();
+        Files.write(path, "{\"type\":\"QUESTION\",\"seq\":2,\"te".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        List<WriteBehindService.WriteRecord> unflushed = new WriteBehindJournal(path, objectMapper, false).readUnflushed();
+
+        assertEquals(1, unflushed.size());
+        assertEquals(1, unflushed.get(0).getSeq());
+    }
+
+    @Test
+    void truncateDropsEverything() throws Exception {
+        WriteBehindJournal journal = new WriteBehindJournal(dir.resolve("wb.journal"), objectMapper, true);
+        journal.append(record(1, "a"));
+        assertTrue(journal.size() > 0);
+
+        journal.truncate();
+
+        assertEquals(0, journal.size());
+        assertTrue(journal.readUnflushed().isEmpty());
+        journal.close();
+    }
+
+    @Test
+    void compactKeepsOnlyGivenRecordsAndStaysAppendable() throws Exception {
+        WriteBehindJournal journal = new WriteBehindJournal(dir.resolve("wb.journal"), objectMapper, false);
+        journal.append(record(1, "a"));
+        journal.append(record(2, "b"));
+        journal.checkpoint(1);
+
+        journal.compact(List.of(record(2, "b")));
+        journal.append(record(3, "c"));
+
+        List<WriteBehindService.WriteRecord> unflushed = journal.readUnflushed();
+        assertEquals(2, unflushed.size());
+        assertEquals(2, unflushed.get(0).getSeq());
+        assertEquals(3, unflushed.get(1).getSeq());
+        journal.close();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.Document_analiser.stub;
+
+import com.example.Document_analiser.stub.LatencyDistribution.Shape;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyDistributionTest {
+
+    private static final int SAMPLES = 20_000;
+
+    @Test
+    void fixedAlwaysReturnsTheMedian() {
+        LatencyDistribution fixed = new LatencyDistribution(Shape.FIXED, 120, 0.5, 0, 0, 0, 0);
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(120.0, fixed.sampleMs(random), 0.0);
+        }
+    }
+
+    @Test
+    void lognormalHasTheConfiguredMedianAndSpread() {
+        double[] samples = samples(new LatencyDistribution(Shape.LOGNORMAL, 100, 0.5, 0, 0, 0, 0));
+
+        assertEquals(100.0, percentile(samples, 0.50), 5.0);
+        // sigma 0.5: p99 is exp(2.326 * 0.5) = 3.2 times the median
+        assertEquals(3.2, percentile(samples, 0.99) / percentile(samples, 0.50), 0.3);
+    }
+
+    @Test
+    void bimodalSendsTheSlowRatioToTheSlowMode() {
+        double[] samples = samples(new LatencyDistribution(Shape.BIMODAL, 100, 0.1, 800, 0.2, 0, 0));
+
+        long slow = Arrays.stream(samples).filter(ms -> ms > 283).count();
+        assertEquals(0.2, slow / (double) SAMPLES, 0.02);
+    }
+
+    @Test
+    void spikesAddToTheSample() {
+        LatencyDistribution spiky = new LatencyDistribution(Shape.FIXED, 50, 0, 0, 0, 1.0, 2000);
+
+        assertEquals(2050.0, spiky.sampleMs(new Random(1)), 0.0);
+    }
+
+    @Test
+    void environmentDefaultsAreLognormalAroundTheGivenMedian() {
+        Map<String, Object> description = LatencyDistribution
+                .fromEnvironment(new MockEnvironment(), "stub.ai.chat.latency", 300).describe();
+
+        assertEquals(Map.of("distribution", "lognormal", "medianMs", 300.0, "sigma", 0.5), description);
+    }
+
+    @Test
+    void environmentSelectsTheShapeAndItsParameters() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("p.distribution", "BiModal")
+                .withProperty("p.median-ms", "40")
+                .withProperty("p.slow-ratio", "0.3")
+                .withProperty("p.spike-probability", "0.01")
+                .withProperty("p.spike-ms", "900");
+
+        Map<String, Object> description = LatencyDistribution.fromEnvironment(env, "p", 300).describe();
+
+        assertEquals("bimodal", description.get("distribution"));
+        assertEquals(40.0, description.get("medianMs"));
+        assertEquals(2400.0, description.get("slowMedianMs"));
+        assertEquals(0.3, description.get("slowRatio"));
+        assertEquals(900.0, description.get("spikeMs"));
+    }
+
+    private static double[] samples(LatencyDistribution distribution) {
+        Random random = new Random(7);
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = distribution.sampleMs(random);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static double percentile(double[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * sorted.length))];
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.Document_analiser.stub;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StubAiBehaviorTest {
+
+    @Test
+    void defaultsAdmitEveryCallAndCountTokens() {
+        StubAiBehavior behavior = new StubAiBehavior("chat", new MockEnvironment(), 300);
+
+        for (int i = 0; i < 100; i++) {
+            behavior.admit(10);
+        }
+        behavior.recordOutput(7);
+
+        assertEquals(100L, behavior.getReport().get("calls"));
+        assertEquals(1000L, behavior.getReport().get("inputTokens"));
+        assertEquals(7L, behavior.getReport().get("outputTokens"));
+        assertEquals(0L, behavior.getReport().get("throttled"));
+    }
+
+    @Test
+    void errorRateFailsWithServerError() {
+        StubAiBehavior behavior = behavior(new MockEnvironment().withProperty("stub.ai.chat.error-rate", "1.0"));
+
+        StubAiException e = assertThrows(StubAiException.class, () -> behavior.admit(1));
+
+        assertEquals(500, e.getStatus());
+        assertEquals(1L, behavior.getReport().get("failed"));
+    }
+
+    @Test
+    void throttleRateAnswersTooManyRequestsWithRetryAfter() {
+        StubAiBehavior behavior = behavior(new MockEnvironment().withProperty("stub.ai.chat.throttle-rate", "1.0"));
+
+        StubAiException e = assertThrows(StubAiException.class, () -> behavior.admit(1));
+
+        assertEquals(429, e.getStatus());
+        assertEquals(1000L, e.getRetryAfterMs());
+    }
+
+    @Test
+    void requestsPerMinuteLimitRejectsTheCallOverTheBudget() {
+        StubAiBehavior behavior = behavior(new MockEnvironment().withProperty("stub.ai.chat.requests-per-minute", "2"));
+
+        behavior.admit(1);
+        behavior.admit(1);
+        StubAiException e = assertThrows(StubAiException.class, () -> behavior.admit(1));
+
+        assertEquals(429, e.getStatus());
+        // one request per 30 s refills the bucket
+        assertTrue(e.getRetryAfterMs() > 0 && e.getRetryAfterMs() <= 30_000, "retry after " + e.getRetryAfterMs());
+        assertEquals(1L, behavior.getReport().get("throttled"));
+    }
+
+    @Test
+    void tokensPerMinuteLimitCountsInputTokens() {
+        StubAiBehavior behavior = behavior(new MockEnvironment().withProperty("stub.ai.chat.tokens-per-minute", "100"));
+
+        behavior.admit(80);
+
+        assertEquals(429, assertThrows(StubAiException.class, () -> behavior.admit(80)).getStatus());
+    }
+
+    @Test
+    void theSameSeedRepeatsTheSameLatencies() {
+        MockEnvironment env = new MockEnvironment().withProperty("stub.ai.seed", "7");
+        StubAiBehavior first = behavior(env);
+        StubAiBehavior second = behavior(env);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(first.latencyNanos(), second.latencyNanos());
+        }
+    }
+
+    @Test
+    void pacingFollowsTokensPerSecondAndPerTextCost() {
+        StubAiBehavior behavior = behavior(new MockEnvironment()
+                .withProperty("stub.ai.chat.latency.distribution", "fixed")
+                .withProperty("stub.ai.chat.latency.median-ms", "10")
+                .withProperty("stub.ai.chat.tokens-per-second", "50")
+                .withProperty("stub.ai.chat.token-jitter", "0")
+                .withProperty("stub.ai.chat.per-text-ms", "2"));
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), behavior.tokenGapNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), behavior.batchNanos(5));
+        int tokens = behavior.nextCompletionTokens();
+        assertTrue(tokens >= 60 && tokens <= 180, "completion tokens " + tokens);
+    }
+
+    private static StubAiBehavior behavior(MockEnvironment env) {
+        return new StubAiBehavior("chat", env, 300);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Document_analiser.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadTailSamplerTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String SPAN_ID = "b7ad6b7169203331";
+
+    @Test
+    void rootSpansFollowTheHeadProbability() {
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, decide(new HeadTailSampler(1.0, false), Context.root()));
+        assertEquals(SamplingDecision.DROP, decide(new HeadTailSampler(0.0, false), Context.root()));
+    }
+
+    @Test
+    void tailModeRecordsRootsThatLoseTheHeadDecision() {
+        assertEquals(SamplingDecision.RECORD_ONLY, decide(new HeadTailSampler(0.0, true), Context.root()));
+    }
+
+    @Test
+    void childrenOfARecordOnlyRootAreRecordedButNotSampled() {
+        try (SdkTracerProvider provider = SdkTracerProvider.builder()
+                .setSampler(new HeadTailSampler(0.0, true))
+                .build()) {
+            Tracer tracer = provider.get("test");
+            Span root = tracer.spanBuilder("root").startSpan();
+            Span child = tracer.spanBuilder("child").setParent(Context.root().with(root)).startSpan();
+
+            assertTrue(child.isRecording());
+            assertFalse(child.getSpanContext().isSampled());
+            child.end();
+            root.end();
+        }
+    }
+
+    @Test
+    void sampledParentsAreFollowedRegardlessOfTheProbability() {
+        Context parent = remoteParent(TraceFlags.getSampled());
+
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, decide(new HeadTailSampler(0.0, true), parent));
+    }
+
+    @Test
+    void unsampledRemoteParentsAreNotRecordedEvenInTailMode() {
+        Context parent = remoteParent(TraceFlags.getDefault());
+
+        assertEquals(SamplingDecision.DROP, decide(new HeadTailSampler(1.0, true), parent));
+    }
+
+    private static SamplingDecision decide(HeadTailSampler sampler, Context parent) {
+        return sampler.shouldSample(parent, TRACE_ID, "span", SpanKind.INTERNAL, Attributes.empty(), List.of())
+                .getDecision();
+    }
+
+    private static Context remoteParent(TraceFlags flags) {
+        SpanContext context = SpanContext.createFromRemoteParent(TRACE_ID, SPAN_ID, flags, TraceState.getDefault());
+        return Context.root().with(Span.wrap(context));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.Document_analiser.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordScorerTest {
+
+    @Test
+    void bulgarianQuestionDropsOnlyBulgarianStopwords() {
+        Set<String> keywords = KeywordScorer.extractKeywords("Какъв е срокът за предизвестие?");
+
+        assertEquals(Set.of("срокът", "предизвестие"), keywords);
+    }
+
+    @Test
+    void englishStopwordsApplyOnlyToLatinWords() {
+        Set<String> keywords = KeywordScorer.extractKeywords("What is the notice period in SLA до 2024?");
+
+        assertEquals(Set.of("notice", "period", "sla", "2024"), keywords);
+        assertTrue(KeywordScorer.isStopword("the"));
+        assertTrue(KeywordScorer.isStopword("за"));
+        assertFalse(KeywordScorer.isStopword("срок"));
+    }
+
+    @Test
+    void scoreCountsOccurrencesAndBoostsPhrases() {
+        String content = "Срокът е 30 дни. Срокът започва от уведомлението. Трудов договор.";
+
+        assertEquals(2, KeywordScorer.scoreContent(content, Set.of("срокът")));
+        assertEquals(3, KeywordScorer.scoreContent(content, Set.of("трудов договор")));
+        assertEquals(0, KeywordScorer.scoreContent(null, Set.of("срокът")));
+    }
+
+    @Test
+    void coverageMatchesShortenedStemOfLongWords() {
+        String content = "Срок на предизвестие";
+
+        assertEquals(1.0, KeywordScorer.coverage(content, Set.of("срокът", "предизвестие")), 1e-9);
+        assertEquals(0.5, KeywordScorer.coverage(content, Set.of("срок", "заплата")), 1e-9);
+        assertEquals(0.0, KeywordScorer.coverage(content, Set.of()), 1e-9);
+    }
+}
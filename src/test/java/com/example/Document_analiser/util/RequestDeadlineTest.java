@@ -0,0 +1,86 @@
+package com.example.Document_analiser.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDeadlineTest {
+
+    @AfterEach
+    void clear() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void liveDeadlineHasTimeLeftAndNoDeadReason() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remainingMillis() > 50_000);
+        assertNull(deadline.deadReason());
+    }
+
+    @Test
+    void expiredDeadlineReportsDeadline() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ZERO);
+
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingMillis());
+        assertEquals(RequestDeadline.DEADLINE, deadline.deadReason());
+    }
+
+    @Test
+    void cancelRunsListenersOnceAndMarksTheRequestDead() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+        deadline.onCancel(calls::incrementAndGet);
+
+        deadline.cancel();
+        deadline.cancel();
+
+        assertEquals(1, calls.get());
+        assertTrue(deadline.isCancelled());
+        assertEquals(RequestDeadline.DEADLINE, deadline.deadReason());
+    }
+
+    @Test
+    void listenerRegisteredAfterCancelRunsImmediately() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        deadline.cancel();
+        AtomicInteger calls = new AtomicInteger();
+
+        deadline.onCancel(calls::incrementAndGet);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void removedListenerIsNotRun() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+        Runnable remove = deadline.onCancel(calls::incrementAndGet);
+
+        remove.run();
+        deadline.cancel();
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void holderIsPerThread() throws Exception {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        RequestDeadline.set(deadline);
+        RequestDeadline[] seen = new RequestDeadline[1];
+
+        Thread other = new Thread(() -> seen[0] = RequestDeadline.get());
+        other.start();
+        other.join();
+
+        assertSame(deadline, RequestDeadline.get());
+        assertNull(seen[0]);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.Document_analiser.util;
+
+import com.example.Document_analiser.util.StageTimings.Stage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageTimingsTest {
+
+    @AfterEach
+    void tearDown() {
+        StageTimings.clear();
+    }
+
+    @Test
+    void withoutTimingsStartSkipsTheClockAndStopIsANoOp() {
+        long start = StageTimings.start();
+
+        assertEquals(0L, start);
+        StageTimings.stop(Stage.LLM, start);
+        assertNull(StageTimings.get());
+    }
+
+    @Test
+    void repeatedStagesAccumulate() {
+        StageTimings timings = new StageTimings();
+
+        timings.record(Stage.EMBEDDING, 1_000, 3_000);
+        timings.record(Stage.EMBEDDING, 10_000, 15_000);
+
+        assertEquals(7_000, timings.nanos(Stage.EMBEDDING));
+        assertEquals(2, timings.count(Stage.EMBEDDING));
+        assertEquals(0, timings.count(Stage.LLM));
+        assertFalse(timings.isEmpty());
+        assertTrue(new StageTimings().isEmpty());
+    }
+
+    @Test
+    void stopRecordsOnTheCurrentThreadsTimings() {
+        StageTimings timings = new StageTimings();
+        StageTimings.set(timings);
+
+        long start = StageTimings.start();
+        StageTimings.stop(Stage.VECTOR_QUERY, start);
+
+        assertEquals(1, timings.count(Stage.VECTOR_QUERY));
+        assertTrue(timings.nanos(Stage.VECTOR_QUERY) >= 0);
+    }
+
+    @Test
+    void serverTimingListsExecutedStagesInOrderThenTotal() {
+        StageTimings timings = new StageTimings();
+        timings.record(Stage.LLM, 0, 1_830_200_000L);
+        timings.record(Stage.EMBEDDING, 0, 12_400_000L);
+
+        String header = timings.toServerTiming();
+
+        assertTrue(header.startsWith("embedding;dur=12.4, llm;dur=1830.2, total;dur="), header);
+        assertFalse(header.contains("vector_query"));
+    }
+
+    @Test
+    void listenerReceivesEveryStage() {
+        List<Stage> seen = new ArrayList<>();
+        StageTimings timings = new StageTimings((stage, startNanos, endNanos) -> seen.add(stage));
+
+        timings.record(Stage.AUTH, 0, 1);
+        timings.record(Stage.ANSWER_PERSIST, 1, 2);
+
+        assertEquals(List.of(Stage.AUTH, Stage.ANSWER_PERSIST), seen);
+    }
+}